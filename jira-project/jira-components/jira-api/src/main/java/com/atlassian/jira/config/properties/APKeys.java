@@ -200,6 +200,8 @@ public interface APKeys
     public static final String JIRA_SEARCH_MAXCLAUSES = "jira.search.maxclauses";
 
     public static final String JIRA_SENDMAIL_RECIPENT_BATCH_SIZE = "jira.sendmail.recipient.batch.size";
+    public static final String JIRA_MAIL_PIPELINE_RENDER_THREADS = "jira.mail.pipeline.render.threads";
+    public static final String JIRA_MAIL_PIPELINE_SEND_THREADS = "jira.mail.pipeline.send.threads";
 
     // Clone issue
     public static final String JIRA_CLONE_PREFIX = "jira.clone.prefix";
@@ -247,6 +249,7 @@ public interface APKeys
 
     // Database
     public static final String DATABASE_QUERY_BATCH_SIZE = "jira.databasequery.batch.size";
+    public static final String DATABASE_WRITE_BATCH_SIZE = "jira.databasewrite.batch.size";
     public static final String ISSUE_INDEX_FETCH_SIZE = "jira.issueindex.fetch.size";
     public static final String DEFAULT_JNDI_NAME = "jira.default.jndi.name";
 
@@ -627,6 +630,81 @@ public interface APKeys
             public static final String MIN_BATCH_SIZE = ISSUE_PREFIX + "minbatchsize";
             public static final String MAX_QUEUE_SIZE = ISSUE_PREFIX + "maxqueuesize";
             public static final String THREADS = ISSUE_PREFIX + "threads";
+
+            /**
+             * How often, in milliseconds, searchers are reopened to see index writes. Zero reopens after every write.
+             *
+             * @since v6.3.15
+             */
+            public static final String SEARCHER_REFRESH_INTERVAL = ISSUE_PREFIX + "searcher.refreshinterval";
+
+            /**
+             * The longest time, in milliseconds, a search may be served by a searcher that is missing writes. Defaults to
+             * the refresh interval.
+             *
+             * @since v6.3.15
+             */
+            public static final String SEARCHER_MAX_STALENESS = ISSUE_PREFIX + "searcher.maxstaleness";
+
+            /**
+             * Memory budget, in megabytes, for the permission filters shared between searches.
+             *
+             * @since v6.3.15
+             */
+            public static final String PERMISSIONS_FILTER_CACHE_MB = ISSUE_PREFIX + "permissionsfilter.cachemb";
+
+            /**
+             * The number of threads shared by all searches that search the segments of the index in parallel. Zero
+             * searches serially.
+             *
+             * @since v6.3.15
+             */
+            public static final String SEARCH_THREADS = ISSUE_PREFIX + "search.threads";
+
+            /**
+             * The most threads a single search may take from {@link #SEARCH_THREADS}.
+             *
+             * @since v6.3.15
+             */
+            public static final String SEARCH_THREADS_PER_REQUEST = ISSUE_PREFIX + "search.threadsperrequest";
+
+            /**
+             * The number of documents an index needs before it is searched in parallel.
+             *
+             * @since v6.3.15
+             */
+            public static final String SEARCH_PARALLEL_MIN_DOCS = ISSUE_PREFIX + "search.parallelmindocs";
+
+            /**
+             * The number of issue id ranges a full re-index records its progress for, so that an interrupted
+             * re-index can be resumed. The ranges are indexed one after another.
+             *
+             * @since v6.3.15
+             */
+            public static final String REINDEX_RANGES = ISSUE_PREFIX + "reindex.ranges";
+
+            /**
+             * The number of minutes after its last checkpoint that an interrupted re-index is still resumed, rather
+             * than started over.
+             *
+             * @since v6.3.15
+             */
+            public static final String REINDEX_RESUME_MAX_AGE = ISSUE_PREFIX + "reindex.resume.maxage";
+
+            /**
+             * Whether to resume an interrupted re-index however long ago it was interrupted.
+             *
+             * @since v6.3.15
+             */
+            public static final String REINDEX_RESUME = ISSUE_PREFIX + "reindex.resume";
+
+            /**
+             * The number of threads a cluster node re-indexes issues with when it applies the changes made by other
+             * nodes.
+             *
+             * @since v6.3.15
+             */
+            public static final String REPLAY_THREADS = ISSUE_PREFIX + "replay.threads";
         }
 
         /**
@@ -25,4 +25,6 @@ public interface SystemPropertyKeys
     public static final String DANGER_MODE = "jira.dangermode";
     public static final String PLUGINS_DISABLE_SPRING_BEAN_MEATADATA_CACHE = "atlassian.disable.spring.cache.bean.metadata";
     public static final String PRODUCT_NAME = "atlassian.product.name";
+    public static final String EVENT_DISPATCH_PER_LISTENER = "jira.event.dispatch.per.listener";
+    public static final String EVENT_LISTENER_QUEUE_SIZE = "jira.event.listener.queue.size";
 }
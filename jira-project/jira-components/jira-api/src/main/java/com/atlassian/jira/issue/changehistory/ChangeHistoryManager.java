@@ -80,6 +80,17 @@ public interface ChangeHistoryManager
      */
     List<ChangeHistoryItem> getAllChangeItems(Issue issue);
 
+    /**
+     * Returns the {@link com.atlassian.jira.issue.changehistory.ChangeHistoryItem}'s for all of the given issues. The
+     * items are loaded with a small number of set-based queries, so this is much cheaper than calling
+     * {@link #getAllChangeItems(com.atlassian.jira.issue.Issue)} for each issue in turn.
+     *
+     * @param issues the issues
+     * @return the change items for each issue, keyed by issue id
+     * @since v6.3.15
+     */
+    Map<Long, List<ChangeHistoryItem>> getAllChangeItems(Collection<Issue> issues);
+
     /**
      * @return a ChangeHistory group with the given id, or null if not found
      * @since JIRA 6.3
@@ -92,6 +92,16 @@ public interface DocumentConstants
     public static final String NEW_VALUE = "ch_newvalue";
     public static final String CHANGE_HISTORY_PROTOCOL="ch-";
 
+    /**
+     * The change date, and per changed field the date of the next change, as numeric fields of seconds that can be
+     * searched with numeric ranges. Documents that have these fields are marked with {@link #CHANGE_NUMERIC_DATES}.
+     *
+     * @since v6.3.15
+     */
+    public static final String CHANGE_DATE_SECONDS = "ch_date_seconds";
+    public static final String NEXT_CHANGE_DATE_SECONDS = "ch_nextchangedate_seconds";
+    public static final String CHANGE_NUMERIC_DATES = "ch_numericdates";
+
     public static final String ISSUE_WORKRATIO = "workratio";
     public static final String ISSUE_PROGRESS = "progress";
 
@@ -0,0 +1,26 @@
+package com.atlassian.jira.issue.search;
+
+import com.atlassian.annotations.Internal;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.DocumentTermOrdinals;
+import com.atlassian.jira.util.Supplier;
+import org.apache.lucene.index.IndexReader;
+
+/**
+ * A {@link ReaderCache} that can also cache the term ordinals of a field. Statistics collectors use the ordinals when
+ * the reader cache they are given implements this, and read the terms of each document otherwise.
+ *
+ * @since v6.3.15
+ */
+@Internal
+public interface OrdinalsReaderCache extends ReaderCache
+{
+    /**
+     * Retrieve the cached term ordinals of a field.
+     *
+     * @param reader the index reader the ordinals were read from
+     * @param key the field
+     * @param supplier reads the ordinals if they are not cached
+     * @return the term ordinals of the field
+     */
+    DocumentTermOrdinals getOrdinals(IndexReader reader, String key, Supplier<DocumentTermOrdinals> supplier);
+}
@@ -0,0 +1,223 @@
+package com.atlassian.jira.issue.search.filters;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.annotation.Nonnull;
+
+import com.atlassian.annotations.ExperimentalApi;
+import com.atlassian.jira.issue.index.DocumentConstants;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.OpenBitSet;
+
+import static com.atlassian.jira.util.dbc.Assertions.notNull;
+
+/**
+ * Matches the issues with the given ids, for joining the issues found by another search (for example the issues
+ * linked to an issue, or the issues of a sub-query) to an issue search.
+ * <p>
+ * Unlike a {@link org.apache.lucene.search.BooleanQuery} with a clause per issue, this filter is not limited by the
+ * maximum clause count and costs time linear in the number of ids. The ids are kept in the order of their terms in the
+ * index. A few ids are looked up one by one; when there are many, each segment is matched with a single forward pass
+ * over its issue id terms.
+ *
+ * @since v6.3.15
+ */
+@ExperimentalApi
+public class IssueIdJoinFilter extends Filter
+{
+    private static final Term ISSUE_ID = new Term(DocumentConstants.ISSUE_ID, "");
+
+    /**
+     * The ids are looked up one by one when there are fewer than one for every this many documents, and otherwise
+     * matched in a single pass over the issue id terms.
+     */
+    private static final int MAX_TERMS_PER_SEEK = 16;
+
+    private final String[] issueIds;
+
+    /**
+     * @param issueIds the ids of the issues to match, in any order
+     */
+    public IssueIdJoinFilter(@Nonnull final long[] issueIds)
+    {
+        notNull("issueIds", issueIds);
+        final String[] terms = new String[issueIds.length];
+        for (int i = 0; i < issueIds.length; i++)
+        {
+            terms[i] = String.valueOf(issueIds[i]);
+        }
+        this.issueIds = sortedUnique(terms);
+    }
+
+    /**
+     * @param issueIds the ids of the issues to match, in any order
+     */
+    public IssueIdJoinFilter(@Nonnull final Collection<Long> issueIds)
+    {
+        notNull("issueIds", issueIds);
+        final String[] terms = new String[issueIds.size()];
+        int i = 0;
+        for (final Long issueId : issueIds)
+        {
+            terms[i++] = issueId.toString();
+        }
+        this.issueIds = sortedUnique(terms);
+    }
+
+    /**
+     * @param issueIds the ids of the issues to match as they are indexed, in any order, for joining the issue ids
+     * found in another index such as the change history
+     * @return the filter
+     */
+    public static IssueIdJoinFilter forIndexedIds(@Nonnull final Collection<String> issueIds)
+    {
+        notNull("issueIds", issueIds);
+        return new IssueIdJoinFilter(issueIds.toArray(new String[issueIds.size()]));
+    }
+
+    private IssueIdJoinFilter(final String[] terms)
+    {
+        this.issueIds = sortedUnique(terms);
+    }
+
+    /**
+     * @return the number of distinct issue ids this filter matches
+     */
+    public int size()
+    {
+        return issueIds.length;
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(final IndexReader reader) throws IOException
+    {
+        if (issueIds.length == 0)
+        {
+            return DocIdSet.EMPTY_DOCIDSET;
+        }
+        final OpenBitSet bits = new OpenBitSet(reader.maxDoc());
+        final TermDocs termDocs = reader.termDocs();
+        try
+        {
+            // there is one issue id term per issue, so with enough ids it is cheaper to read every term once than
+            // to look each id up in the term dictionary
+            if ((long) issueIds.length * MAX_TERMS_PER_SEEK >= reader.maxDoc())
+            {
+                scan(reader, termDocs, bits);
+            }
+            else
+            {
+                seek(termDocs, bits);
+            }
+        }
+        finally
+        {
+            termDocs.close();
+        }
+        return bits;
+    }
+
+    private void seek(final TermDocs termDocs, final OpenBitSet bits) throws IOException
+    {
+        for (final String issueId : issueIds)
+        {
+            termDocs.seek(ISSUE_ID.createTerm(issueId));
+            collect(termDocs, bits);
+        }
+    }
+
+    /**
+     * Walks the issue id terms of the reader from the smallest id, merging them with the sorted ids.
+     */
+    private void scan(final IndexReader reader, final TermDocs termDocs, final OpenBitSet bits) throws IOException
+    {
+        final TermEnum termEnum = reader.terms(ISSUE_ID.createTerm(issueIds[0]));
+        try
+        {
+            int i = 0;
+            Term term = termEnum.term();
+            // Lucene terms are interned so the == comparison is safe.
+            while (term != null && term.field() == DocumentConstants.ISSUE_ID && i < issueIds.length)
+            {
+                final int comparison = term.text().compareTo(issueIds[i]);
+                if (comparison > 0)
+                {
+                    // not indexed
+                    i++;
+                    continue;
+                }
+                if (comparison == 0)
+                {
+                    termDocs.seek(termEnum);
+                    collect(termDocs, bits);
+                    i++;
+                }
+                if (!termEnum.next())
+                {
+                    break;
+                }
+                term = termEnum.term();
+            }
+        }
+        finally
+        {
+            termEnum.close();
+        }
+    }
+
+    private static void collect(final TermDocs termDocs, final OpenBitSet bits) throws IOException
+    {
+        while (termDocs.next())
+        {
+            bits.fastSet(termDocs.doc());
+        }
+    }
+
+    private static String[] sortedUnique(final String[] terms)
+    {
+        Arrays.sort(terms);
+        int size = 0;
+        for (int i = 0; i < terms.length; i++)
+        {
+            if (size == 0 || !terms[i].equals(terms[size - 1]))
+            {
+                terms[size++] = terms[i];
+            }
+        }
+        return size == terms.length ? terms : Arrays.copyOf(terms, size);
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+        return Arrays.equals(issueIds, ((IssueIdJoinFilter) o).issueIds);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(issueIds);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IssueIdJoinFilter[" + issueIds.length + " issues]";
+    }
+}
@@ -0,0 +1,118 @@
+package com.atlassian.jira.issue.search.parameters.lucene.sort;
+
+import com.atlassian.annotations.ExperimentalApi;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * The terms of a field for every document in an index reader, stored as ordinals into the sorted terms of the field.
+ * <p>
+ * This holds the same information as the array returned by
+ * {@link JiraLuceneFieldFinder#getMatches(org.apache.lucene.index.IndexReader, String)}, but in a few primitive arrays
+ * instead of a collection per document, and with each term value held once. Collectors that count terms can tally the
+ * ordinals into an <code>int[]</code> and only look up the term values of the buckets they report.
+ * <p>
+ * The ordinals of a document are stored between {@link #getStart(int)} inclusive and {@link #getEnd(int)} exclusive,
+ * in increasing order:
+ * <pre>
+ * for (int i = ordinals.getStart(doc); i &lt; ordinals.getEnd(doc); i++)
+ * {
+ *     counts[ordinals.getOrdinal(i)]++;
+ * }
+ * </pre>
+ *
+ * @see OrdinalMatchHandler
+ * @since v6.3.15
+ */
+@ExperimentalApi
+@Immutable
+public final class DocumentTermOrdinals
+{
+    /**
+     * Returned by {@link #getFirstOrdinal(int)} for documents that have no value for the field.
+     */
+    public static final int NO_TERM = -1;
+
+    private final String[] terms;
+    private final int[] docStarts;
+    private final int[] ordinals;
+
+    DocumentTermOrdinals(final String[] terms, final int[] docStarts, final int[] ordinals)
+    {
+        this.terms = terms;
+        this.docStarts = docStarts;
+        this.ordinals = ordinals;
+    }
+
+    /**
+     * @return the number of distinct terms of the field, ordinals range from zero to one less than this
+     */
+    public int getTermCount()
+    {
+        return terms.length;
+    }
+
+    /**
+     * @param ordinal the ordinal of a term
+     * @return the term value
+     */
+    public String getTerm(final int ordinal)
+    {
+        return terms[ordinal];
+    }
+
+    /**
+     * @param doc the document, relative to the reader these ordinals were built from
+     * @return the position of the first ordinal of the document
+     */
+    public int getStart(final int doc)
+    {
+        return docStarts[doc];
+    }
+
+    /**
+     * @param doc the document, relative to the reader these ordinals were built from
+     * @return one past the position of the last ordinal of the document
+     */
+    public int getEnd(final int doc)
+    {
+        return docStarts[doc + 1];
+    }
+
+    /**
+     * @param position a position between {@link #getStart(int)} and {@link #getEnd(int)} of a document
+     * @return the ordinal at that position
+     */
+    public int getOrdinal(final int position)
+    {
+        return ordinals[position];
+    }
+
+    /**
+     * @param doc the document, relative to the reader these ordinals were built from
+     * @return whether the document has any value for the field
+     */
+    public boolean hasTerms(final int doc)
+    {
+        return docStarts[doc] < docStarts[doc + 1];
+    }
+
+    /**
+     * Useful for single valued fields.
+     *
+     * @param doc the document, relative to the reader these ordinals were built from
+     * @return the lowest ordinal of the document, or {@link #NO_TERM} if it has no value for the field
+     */
+    public int getFirstOrdinal(final int doc)
+    {
+        return hasTerms(doc) ? ordinals[docStarts[doc]] : NO_TERM;
+    }
+
+    /**
+     * @return the number of documents
+     */
+    public int getDocCount()
+    {
+        return docStarts.length - 1;
+    }
+}
@@ -184,6 +184,24 @@ public class JiraLuceneFieldFinder
         return handler.getResults();
     }
 
+    /**
+     * For each document in the index, finds the ordinals of its terms. This is a compact alternative to
+     * {@link #getMatches(IndexReader, String)} for callers that only need to count terms.
+     *
+     * @param reader the index to read
+     * @param field the field to check the documents for
+     * @return the term ordinals of every document
+     * @throws IOException if things dont play out well.
+     * @since v6.3.15
+     */
+    @ExperimentalApi
+    public DocumentTermOrdinals getTermOrdinals(IndexReader reader, final String field) throws IOException
+    {
+        final OrdinalMatchHandler handler = new OrdinalMatchHandler(reader.maxDoc());
+        getMatches(reader, field, handler);
+        return handler.getResults();
+    }
+
     /**
      * For each document that has at least one value defined for the specified field,
      * invokes {@link MatchHandler#handleMatchedDocument(int, String)} with the document
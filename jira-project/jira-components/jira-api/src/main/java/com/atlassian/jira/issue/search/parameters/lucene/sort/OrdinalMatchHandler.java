@@ -0,0 +1,84 @@
+package com.atlassian.jira.issue.search.parameters.lucene.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.atlassian.annotations.ExperimentalApi;
+
+/**
+ * A match handler that builds {@link DocumentTermOrdinals}. Both single and multi valued fields are supported.
+ * <p>
+ * The matcher feeds up all the documents of a term before moving on to the next term, in increasing term order, so
+ * the ordinal of a term is simply the number of distinct terms seen before it.
+ *
+ * @see JiraLuceneFieldFinder#getTermOrdinals(org.apache.lucene.index.IndexReader, String)
+ * @since v6.3.15
+ */
+@ExperimentalApi
+public class OrdinalMatchHandler implements MatchHandler
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[] docTermCounts;
+    private final List<String> terms = new ArrayList<String>();
+    private int[] termStarts = new int[INITIAL_CAPACITY];
+    private int[] matchedDocs = new int[INITIAL_CAPACITY];
+    private int matchCount = 0;
+    private Object previousTermValue = null;
+
+    public OrdinalMatchHandler(final int maxdoc)
+    {
+        this.docTermCounts = new int[maxdoc];
+    }
+
+    public void handleMatchedDocument(final int doc, final String termValue)
+    {
+        //noinspection StringEquality
+        if (terms.isEmpty() || previousTermValue != termValue)
+        {
+            previousTermValue = termValue;
+            if (terms.size() == termStarts.length)
+            {
+                termStarts = Arrays.copyOf(termStarts, termStarts.length * 2);
+            }
+            termStarts[terms.size()] = matchCount;
+            terms.add(termValue);
+        }
+        if (matchCount == matchedDocs.length)
+        {
+            matchedDocs = Arrays.copyOf(matchedDocs, matchedDocs.length * 2);
+        }
+        matchedDocs[matchCount++] = doc;
+        docTermCounts[doc]++;
+    }
+
+    /**
+     * Get the results from the match handler. This should only be called once, after all matches have been handled.
+     *
+     * @return the ordinals of the terms of every document
+     */
+    public DocumentTermOrdinals getResults()
+    {
+        final int maxdoc = docTermCounts.length;
+        final int[] docStarts = new int[maxdoc + 1];
+        for (int doc = 0; doc < maxdoc; doc++)
+        {
+            docStarts[doc + 1] = docStarts[doc] + docTermCounts[doc];
+        }
+
+        // Terms were matched in increasing order, so walking them in order also leaves each document's ordinals sorted
+        final int[] next = Arrays.copyOf(docStarts, maxdoc);
+        final int[] ordinals = new int[matchCount];
+        final int termCount = terms.size();
+        for (int ordinal = 0; ordinal < termCount; ordinal++)
+        {
+            final int end = (ordinal + 1 < termCount) ? termStarts[ordinal + 1] : matchCount;
+            for (int i = termStarts[ordinal]; i < end; i++)
+            {
+                ordinals[next[matchedDocs[i]]++] = ordinal;
+            }
+        }
+        return new DocumentTermOrdinals(terms.toArray(new String[termCount]), docStarts, ordinals);
+    }
+}
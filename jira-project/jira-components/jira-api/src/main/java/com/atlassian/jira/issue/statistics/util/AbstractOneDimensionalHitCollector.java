@@ -3,8 +3,10 @@ package com.atlassian.jira.issue.statistics.util;
 import com.atlassian.annotations.Internal;
 import com.atlassian.jira.issue.fields.CustomField;
 import com.atlassian.jira.issue.fields.FieldManager;
+import com.atlassian.jira.issue.search.OrdinalsReaderCache;
 import com.atlassian.jira.issue.search.ReaderCache;
 import com.atlassian.jira.issue.search.constants.SystemSearchConstants;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.DocumentTermOrdinals;
 import com.atlassian.jira.issue.search.parameters.lucene.sort.JiraLuceneFieldFinder;
 import com.atlassian.jira.project.Project;
 import com.atlassian.jira.project.ProjectManager;
@@ -29,6 +31,12 @@ import java.util.Map;
  *
  * This class implements {@link org.apache.lucene.search.Collector} which is a callback mechanism for use by 
  * {@link org.apache.lucene.search.IndexSearcher}, but it is widely abused and called directly from within JIRA.
+ * <p>
+ * Subclasses that only count terms should override {@link #collectsTermOrdinals()} and
+ * {@link #collectWithOrdinals(int, DocumentTermOrdinals, int)}, so that the terms of a hit are passed as ordinals
+ * rather than as a collection of strings. The ordinals are only read from a reader cache that implements
+ * {@link OrdinalsReaderCache}; with any other the terms of each hit are passed to
+ * {@link #collectWithTerms(int, java.util.Collection)}.
  *
  * @since v4.0
  */
@@ -39,8 +47,9 @@ public abstract class AbstractOneDimensionalHitCollector extends Collector
 
     private final String fieldId;
     private Collection<String>[] docToTerms;
-    private Collection<String>[] docToProject;
-    private Collection<String>[] docToIssueType;
+    private DocumentTermOrdinals termOrdinals;
+    private SingleValueField docToProject;
+    private SingleValueField docToIssueType;
     private String documentFieldId;
     private final FieldVisibilityManager fieldVisibilityManager;
     private final ProjectManager projectManager;
@@ -126,9 +135,18 @@ public abstract class AbstractOneDimensionalHitCollector extends Collector
                     + "as it will cause excessive double caching of data.  This is a BAD BAD THING!!!");
         }
         this.docBase = docBase;
-        this.docToTerms = readCachedMultiValueField(reader, documentFieldId, readerCache);
-        this.docToProject = readCachedSingleValueField(reader, SystemSearchConstants.forProject().getIndexField(), readerCache);
-        this.docToIssueType = readCachedSingleValueField(reader, SystemSearchConstants.forIssueType().getIndexField(), readerCache);
+        if (collectsTermOrdinals() && readerCache instanceof OrdinalsReaderCache)
+        {
+            this.termOrdinals = SingleValueField.readCachedOrdinals(reader, documentFieldId, (OrdinalsReaderCache) readerCache);
+            this.docToTerms = null;
+        }
+        else
+        {
+            this.termOrdinals = null;
+            this.docToTerms = readCachedMultiValueField(reader, documentFieldId, readerCache);
+        }
+        this.docToProject = SingleValueField.read(reader, SystemSearchConstants.forProject().getIndexField(), readerCache);
+        this.docToIssueType = SingleValueField.read(reader, SystemSearchConstants.forIssueType().getIndexField(), readerCache);
     }
 
     @Override
@@ -148,12 +166,17 @@ public abstract class AbstractOneDimensionalHitCollector extends Collector
     public void collect(int i)
     {
         ++hitCount;
-        Collection<String> terms = docToTerms[i];
+        if (termOrdinals != null && termOrdinals.hasTerms(i))
+        {
+            collectWithOrdinals(docBase + i, termOrdinals, i);
+            return;
+        }
+        Collection<String> terms = (termOrdinals != null) ? null : docToTerms[i];
         if (terms == null)
         {
             // We know there will always be a project and issue type for each issue
-            final String projectIdString = getSingleValue(docToProject[i]);
-            final String issueTypeId = getSingleValue(docToIssueType[i]);
+            final String projectIdString = docToProject.get(i);
+            final String issueTypeId = docToIssueType.get(i);
 
             // Distinguish between a visible field with an empty value and a field that is not relevant for this issue:
             if (fieldIsRelevant(projectIdString, issueTypeId))
@@ -218,14 +241,6 @@ public abstract class AbstractOneDimensionalHitCollector extends Collector
         return customField.isInScope(project, issueTypeIds);
     }
 
-    // We should always have a List, but handle it gracefully if somehow we don't.
-    // The purpose of this is to avoid the GC churn of creating thousands of
-    // ephemeral iterators when get(0) would work.
-    private static String getSingleValue(Collection<String> source)
-    {
-        return (source instanceof List<?>) ? ((List<String>)source).get(0) : source.iterator().next();
-    }
-
     public long getIrrelevantCount()
     {
         return irrelevantCount;
@@ -258,26 +273,42 @@ public abstract class AbstractOneDimensionalHitCollector extends Collector
      */
     protected abstract void collectWithTerms(int docId, Collection<String> terms);
 
+    /**
+     * Override this to return true if you would rather have the terms of the hits passed to
+     * {@link #collectWithOrdinals(int, DocumentTermOrdinals, int)}. Hits without a value for the field are still passed
+     * to {@link #collectWithTerms(int, java.util.Collection)} with <tt>null</tt> terms.
+     *
+     * @return whether this collector collects term ordinals
+     * @since v6.3.15
+     */
+    protected boolean collectsTermOrdinals()
+    {
+        return false;
+    }
 
-    private static Collection<String>[] readCachedMultiValueField(final IndexReader indexReader, final String fieldId, final ReaderCache readerCache)
+    /**
+     * Override this if {@link #collectsTermOrdinals()} returns true. The ordinals of the hit are those between
+     * {@link DocumentTermOrdinals#getStart(int)} and {@link DocumentTermOrdinals#getEnd(int)} of
+     * <code>segmentDocId</code>. By default the terms of the ordinals are passed to
+     * {@link #collectWithTerms(int, java.util.Collection)}.
+     *
+     * @param docId the doc id of the hit.  This is an index into the overall directory reader.
+     * @param ordinals the term ordinals of the current (segment) reader
+     * @param segmentDocId the doc id of the hit in the current (segment) reader
+     * @since v6.3.15
+     */
+    protected void collectWithOrdinals(int docId, DocumentTermOrdinals ordinals, int segmentDocId)
     {
-        return readerCache.get(indexReader, fieldId, new Supplier<Collection<String>[]>()
+        final int end = ordinals.getEnd(segmentDocId);
+        final List<String> terms = new ArrayList<String>(end - ordinals.getStart(segmentDocId));
+        for (int i = ordinals.getStart(segmentDocId); i < end; i++)
         {
-            public Collection<String>[] get()
-            {
-                try
-                {
-                    return JiraLuceneFieldFinder.getInstance().getMatches(indexReader, fieldId);
-                }
-                catch (IOException e)
-                {
-                    throw new RuntimeIOException(e);
-                }
-            }
-        });
+            terms.add(ordinals.getTerm(ordinals.getOrdinal(i)));
+        }
+        collectWithTerms(docId, terms);
     }
 
-    private static Collection<String>[] readCachedSingleValueField(final IndexReader indexReader, final String fieldId, final ReaderCache readerCache)
+    private static Collection<String>[] readCachedMultiValueField(final IndexReader indexReader, final String fieldId, final ReaderCache readerCache)
     {
         return readerCache.get(indexReader, fieldId, new Supplier<Collection<String>[]>()
         {
@@ -285,7 +316,7 @@ public abstract class AbstractOneDimensionalHitCollector extends Collector
             {
                 try
                 {
-                    return JiraLuceneFieldFinder.getInstance().getUniqueMatches(indexReader, fieldId);
+                    return JiraLuceneFieldFinder.getInstance().getMatches(indexReader, fieldId);
                 }
                 catch (IOException e)
                 {
@@ -3,6 +3,7 @@ package com.atlassian.jira.issue.statistics.util;
 import com.atlassian.annotations.Internal;
 import com.atlassian.jira.issue.fields.FieldManager;
 import com.atlassian.jira.issue.search.ReaderCache;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.DocumentTermOrdinals;
 import com.atlassian.jira.project.ProjectManager;
 import com.atlassian.jira.web.FieldVisibilityManager;
 
@@ -22,12 +23,17 @@ import com.google.common.collect.Maps;
  * mapping is maintained.
  * <p>
  * This HitCollector can be quite memory intensive, however the cache is stored with a weak reference, so it will
- * be garbage collected. 
+ * be garbage collected.
+ * <p>
+ * Hits are counted by term ordinal into an <code>int[]</code> per reader segment, and the counts are only added to
+ * the result by term value when the collector moves on to the next segment, so collecting a hit does not allocate.
  */
 @Internal
 public class OneDimensionalTermHitCollector extends AbstractOneDimensionalHitCollector
 {
     private final Map<String, Tally> result = new HashMap<String, Tally>();
+    private DocumentTermOrdinals countedOrdinals;
+    private int[] ordinalCounts;
 
     public OneDimensionalTermHitCollector(final String fieldId,
             final FieldVisibilityManager fieldVisibilityManager, final ReaderCache readerCache,
@@ -43,6 +49,7 @@ public class OneDimensionalTermHitCollector extends AbstractOneDimensionalHitCol
 
     public  Map<String, Integer> getResult()
     {
+        addOrdinalCounts();
         return Maps.transformValues(result, new Function<Tally, Integer>()
         {
             @Override
@@ -54,6 +61,48 @@ public class OneDimensionalTermHitCollector extends AbstractOneDimensionalHitCol
     }
 
 
+    @Override
+    protected boolean collectsTermOrdinals()
+    {
+        return true;
+    }
+
+    @Override
+    protected void collectWithOrdinals(final int docId, final DocumentTermOrdinals ordinals, final int segmentDocId)
+    {
+        if (ordinals != countedOrdinals)
+        {
+            addOrdinalCounts();
+            countedOrdinals = ordinals;
+            ordinalCounts = new int[ordinals.getTermCount()];
+        }
+        final int end = ordinals.getEnd(segmentDocId);
+        for (int i = ordinals.getStart(segmentDocId); i < end; i++)
+        {
+            ordinalCounts[ordinals.getOrdinal(i)]++;
+        }
+    }
+
+    /**
+     * Adds the counts of the current segment to the result, materialising only the terms that were hit.
+     */
+    private void addOrdinalCounts()
+    {
+        if (countedOrdinals == null)
+        {
+            return;
+        }
+        for (int ordinal = 0; ordinal < ordinalCounts.length; ordinal++)
+        {
+            if (ordinalCounts[ordinal] > 0)
+            {
+                incrementCount(countedOrdinals.getTerm(ordinal), ordinalCounts[ordinal], result);
+            }
+        }
+        countedOrdinals = null;
+        ordinalCounts = null;
+    }
+
     protected void collectWithTerms(final int docId, final Collection<String> terms)
     {
         if (terms == null)
@@ -70,6 +119,11 @@ public class OneDimensionalTermHitCollector extends AbstractOneDimensionalHitCol
     }
 
     private void incrementCount(final String key, final Map<String, Tally> map)
+    {
+        incrementCount(key, 1, map);
+    }
+
+    private void incrementCount(final String key, final int count, final Map<String, Tally> map)
     {
         Tally tally = map.get(key);
 
@@ -78,7 +132,7 @@ public class OneDimensionalTermHitCollector extends AbstractOneDimensionalHitCol
             tally = new Tally();
             map.put(key, tally);
         }
-        tally.inc();
+        tally.add(count);
     }
 
     private static class Tally
@@ -90,9 +144,9 @@ public class OneDimensionalTermHitCollector extends AbstractOneDimensionalHitCol
             return tally;
         }
 
-        private void inc()
+        private void add(final int count)
         {
-            tally++;
+            tally += count;
         }
     }
 
@@ -0,0 +1,90 @@
+package com.atlassian.jira.issue.statistics.util;
+
+import com.atlassian.jira.issue.search.OrdinalsReaderCache;
+import com.atlassian.jira.issue.search.ReaderCache;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.DocumentTermOrdinals;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.JiraLuceneFieldFinder;
+import com.atlassian.jira.util.RuntimeIOException;
+import com.atlassian.jira.util.Supplier;
+import org.apache.lucene.index.IndexReader;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The value of a field that every issue has exactly one of, such as its project or issue type, for each document of
+ * a (segment) reader. It is read as term ordinals if the reader cache can hold them, and as the terms of each document
+ * otherwise.
+ *
+ * @since v6.3.15
+ */
+abstract class SingleValueField
+{
+    /**
+     * @param doc the doc id in the reader the field was read from
+     * @return the value of the field for the document
+     */
+    abstract String get(int doc);
+
+    static SingleValueField read(final IndexReader indexReader, final String fieldId, final ReaderCache readerCache)
+    {
+        if (readerCache instanceof OrdinalsReaderCache)
+        {
+            final DocumentTermOrdinals ordinals = readCachedOrdinals(indexReader, fieldId, (OrdinalsReaderCache) readerCache);
+            return new SingleValueField()
+            {
+                // The term values are shared by all documents of the reader, so this does not allocate
+                @Override
+                String get(final int doc)
+                {
+                    return ordinals.getTerm(ordinals.getFirstOrdinal(doc));
+                }
+            };
+        }
+        final Collection<String>[] docToTerms = readerCache.get(indexReader, fieldId, new Supplier<Collection<String>[]>()
+        {
+            public Collection<String>[] get()
+            {
+                try
+                {
+                    return JiraLuceneFieldFinder.getInstance().getUniqueMatches(indexReader, fieldId);
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeIOException(e);
+                }
+            }
+        });
+        return new SingleValueField()
+        {
+            // We should always have a List, but handle it gracefully if somehow we don't.
+            // The purpose of this is to avoid the GC churn of creating thousands of
+            // ephemeral iterators when get(0) would work.
+            @Override
+            String get(final int doc)
+            {
+                final Collection<String> source = docToTerms[doc];
+                return (source instanceof List<?>) ? ((List<String>) source).get(0) : source.iterator().next();
+            }
+        };
+    }
+
+    static DocumentTermOrdinals readCachedOrdinals(final IndexReader indexReader, final String fieldId, final OrdinalsReaderCache readerCache)
+    {
+        return readerCache.getOrdinals(indexReader, fieldId, new Supplier<DocumentTermOrdinals>()
+        {
+            public DocumentTermOrdinals get()
+            {
+                try
+                {
+                    return JiraLuceneFieldFinder.getInstance().getTermOrdinals(indexReader, fieldId);
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeIOException(e);
+                }
+            }
+        });
+    }
+}
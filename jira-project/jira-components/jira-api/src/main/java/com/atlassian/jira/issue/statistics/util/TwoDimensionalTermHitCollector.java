@@ -39,8 +39,8 @@ public class TwoDimensionalTermHitCollector extends Collector
     private Collection[] docToXTerms;
     private Collection[] docToYTerms;
     private Collection[] docToValueTerms;
-    private Collection<String>[] projectDocToTerms;
-    private Collection<String>[] issueTypeDocToTerms;
+    private SingleValueField docToProject;
+    private SingleValueField docToIssueType;
     private final String xFieldName;
     private final String yFieldName;
     private int docBase = 0;
@@ -128,8 +128,8 @@ public class TwoDimensionalTermHitCollector extends Collector
         this.docToXTerms = getDocToXTerms(reader, statsMap);
         this.docToYTerms = getDocToYTerms(reader, statsMap);
         this.docToValueTerms = getDocToValueTerms(aggregateField, reader);
-        this.projectDocToTerms = getDocToValueTerms(SystemSearchConstants.forProject().getIndexField(), reader);
-        this.issueTypeDocToTerms = getDocToValueTerms(SystemSearchConstants.forIssueType().getIndexField(), reader);
+        this.docToProject = SingleValueField.read(reader, SystemSearchConstants.forProject().getIndexField(), readerCache);
+        this.docToIssueType = SingleValueField.read(reader, SystemSearchConstants.forIssueType().getIndexField(), readerCache);
     }
 
     @Override
@@ -148,23 +148,26 @@ public class TwoDimensionalTermHitCollector extends Collector
         int incrementValue = (docToValueTerms == null) ? 1 : getFieldValue(docId);
         boolean xFieldNotVisible = false;
         boolean yFieldNotVisible = false;
-        // We know there will always be a project and issue type for each issue
-        final Long projectId = new Long(projectDocToTerms[docId].iterator().next());
-        final String issueTypeId = issueTypeDocToTerms[docId].iterator().next();
-        if (xValues == null)
+        if (xValues == null || yValues == null)
         {
-            // Need to check to see if this is because the field is not visible or if it is because we have not value
-            if (!isVisibleAndInScope(projectId, issueTypeId, xFieldName))
+            // We know there will always be a project and issue type for each issue
+            final Long projectId = Long.valueOf(docToProject.get(docId));
+            final String issueTypeId = docToIssueType.get(docId);
+            if (xValues == null)
             {
-                xFieldNotVisible = true;
+                // Need to check to see if this is because the field is not visible or if it is because we have not value
+                if (!isVisibleAndInScope(projectId, issueTypeId, xFieldName))
+                {
+                    xFieldNotVisible = true;
+                }
             }
-        }
-        if (yValues == null)
-        {
-            // Need to check to see if this is because the field is not visible or if it is because we have not value
-            if (!isVisibleAndInScope(projectId, issueTypeId, yFieldName))
+            if (yValues == null)
             {
-                yFieldNotVisible = true;
+                // Need to check to see if this is because the field is not visible or if it is because we have not value
+                if (!isVisibleAndInScope(projectId, issueTypeId, yFieldName))
+                {
+                    yFieldNotVisible = true;
+                }
             }
         }
         if (xFieldNotVisible || yFieldNotVisible)
@@ -3,6 +3,7 @@ package com.atlassian.jira.jql.query;
 import com.atlassian.annotations.Internal;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.search.constants.SystemSearchConstants;
+import com.atlassian.jira.issue.search.filters.IssueIdJoinFilter;
 import com.atlassian.jira.jql.operand.JqlOperandResolver;
 import com.atlassian.jira.jql.operand.QueryLiteral;
 import com.atlassian.jira.jql.operator.OperatorClasses;
@@ -20,10 +21,12 @@ import org.apache.lucene.document.NumberTools;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TermRangeQuery;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
@@ -39,6 +42,12 @@ public class IssueIdClauseQueryFactory implements ClauseQueryFactory
 {
     private static final Logger log = Logger.getLogger(IssueIdClauseQueryFactory.class);
 
+    /**
+     * Lists of at least this many values, as returned by functions such as linkedIssues(), are matched with an
+     * {@link IssueIdJoinFilter} rather than a clause per issue.
+     */
+    static final int MIN_VALUES_FOR_JOIN = 64;
+
     private final JqlOperandResolver operandResolver;
     private final JqlIssueKeySupport issueKeySupport;
     private final JqlIssueSupport issueSupport;
@@ -166,6 +175,10 @@ public class IssueIdClauseQueryFactory implements ClauseQueryFactory
         {
             return createQuery(rawValues.get(0));
         }
+        else if (rawValues.size() >= MIN_VALUES_FOR_JOIN)
+        {
+            return createJoinQuery(rawValues);
+        }
         else
         {
             final BooleanQuery query = new BooleanQuery();
@@ -180,6 +193,27 @@ public class IssueIdClauseQueryFactory implements ClauseQueryFactory
         }
     }
 
+    private Query createJoinQuery(final List<QueryLiteral> rawValues)
+    {
+        final List<Long> issueIds = new ArrayList<Long>(rawValues.size());
+        for (final QueryLiteral rawValue : rawValues)
+        {
+            if (rawValue.getLongValue() != null)
+            {
+                issueIds.add(rawValue.getLongValue());
+            }
+            else if (rawValue.getStringValue() != null)
+            {
+                final Issue issue = issueSupport.getIssue(rawValue.getStringValue());
+                if (issue != null)
+                {
+                    issueIds.add(issue.getId());
+                }
+            }
+        }
+        return new ConstantScoreQuery(new IssueIdJoinFilter(issueIds));
+    }
+
     private Query createQuery(final QueryLiteral rawValue)
     {
         if (!rawValue.isEmpty())
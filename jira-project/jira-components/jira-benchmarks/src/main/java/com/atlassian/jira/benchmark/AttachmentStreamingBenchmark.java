@@ -0,0 +1,156 @@
+package com.atlassian.jira.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.jira.util.FileChannels;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks sending a large attachment the way {@link com.atlassian.jira.web.servlet.AbstractViewFileServlet} does:
+ * copying the stream through a heap buffer, as it used to, against {@link FileChannels#transfer}, for the whole file
+ * and for the last megabyte of it, as a resumed download asks for.
+ * <p>
+ * The file is written once per trial and is usually in the page cache, so the numbers are the cost of copying rather
+ * than of the disk. Divide the file size by the time per operation for the throughput.
+ *
+ * @since v6.3.15
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class AttachmentStreamingBenchmark
+{
+    private static final int MEGABYTE = 1024 * 1024;
+
+    @Param ({ "16", "256", "1024" })
+    public int megabytes;
+
+    private File file;
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        file = File.createTempFile("attachment", ".bin");
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            final byte[] block = new byte[MEGABYTE];
+            new Random(42).nextBytes(block);
+            for (int i = 0; i < megabytes; i++)
+            {
+                raf.write(block);
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Benchmark
+    public long copyStream() throws IOException
+    {
+        final FileInputStream in = new FileInputStream(file);
+        try
+        {
+            return IOUtils.copyLarge(in, out);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public long transferChannel() throws IOException
+    {
+        final FileInputStream in = new FileInputStream(file);
+        try
+        {
+            return FileChannels.transfer(in.getChannel(), 0, file.length(), out);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public long copyStreamLastMegabyte() throws IOException
+    {
+        final FileInputStream in = new FileInputStream(file);
+        try
+        {
+            // a file stream skips by seeking, so this is the best a stream copy can do with a range
+            in.skip(file.length() - MEGABYTE);
+            return IOUtils.copyLarge(in, out);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public long transferChannelLastMegabyte() throws IOException
+    {
+        final FileInputStream in = new FileInputStream(file);
+        try
+        {
+            return FileChannels.transfer(in.getChannel(), file.length() - MEGABYTE, MEGABYTE, out);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Stands in for the servlet output stream, counting the bytes so that the copy cannot be optimised away.
+     */
+    private static class CountingOutputStream extends OutputStream
+    {
+        private long count;
+
+        @Override
+        public void write(final int b)
+        {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+        {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.atlassian.jira.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.crowd.embedded.api.User;
+import com.atlassian.jira.config.ConstantsManager;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.issue.IssueConstant;
+import com.atlassian.jira.issue.fields.FieldManager;
+import com.atlassian.jira.issue.index.DocumentConstants;
+import com.atlassian.jira.issue.priority.PriorityImpl;
+import com.atlassian.jira.issue.search.DefaultReaderCache;
+import com.atlassian.jira.issue.search.ReaderCache;
+import com.atlassian.jira.issue.search.filters.IssueIdJoinFilter;
+import com.atlassian.jira.issue.search.parameters.lucene.DefaultPermissionQueryFactory;
+import com.atlassian.jira.issue.search.parameters.lucene.PermissionQueryFactory;
+import com.atlassian.jira.issue.search.parameters.lucene.PermissionsFilterGenerator;
+import com.atlassian.jira.issue.search.parameters.lucene.PermissionsFilterGeneratorImpl;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.DocumentTermOrdinals;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.JiraLuceneFieldFinder;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.MappedSortComparator;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.StringSortComparator;
+import com.atlassian.jira.issue.search.providers.SharedPermissionsFilterCache;
+import com.atlassian.jira.issue.security.IssueSecurityLevel;
+import com.atlassian.jira.issue.security.IssueSecurityLevelImpl;
+import com.atlassian.jira.issue.security.IssueSecurityLevelManager;
+import com.atlassian.jira.issue.security.IssueSecurityLevelPermission;
+import com.atlassian.jira.issue.security.IssueSecuritySchemeManager;
+import com.atlassian.jira.issue.security.IssueSecurityTypeManager;
+import com.atlassian.jira.issue.statistics.PriorityStatisticsMapper;
+import com.atlassian.jira.issue.statistics.StatisticsMapper;
+import com.atlassian.jira.issue.statistics.StatusStatisticsMapper;
+import com.atlassian.jira.issue.statistics.util.OneDimensionalTermHitCollector;
+import com.atlassian.jira.issue.status.StatusImpl;
+import com.atlassian.jira.permission.PermissionSchemeManager;
+import com.atlassian.jira.permission.PermissionTypeManager;
+import com.atlassian.jira.project.Project;
+import com.atlassian.jira.project.ProjectImpl;
+import com.atlassian.jira.project.ProjectManager;
+import com.atlassian.jira.security.JiraAuthenticationContextImpl;
+import com.atlassian.jira.security.PermissionManager;
+import com.atlassian.jira.security.type.GroupDropdown;
+import com.atlassian.jira.security.type.SecurityType;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.web.FieldVisibilityManager;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryWrapperFilter;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.ofbiz.core.entity.GenericValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks searching a {@link SyntheticIssueIndex}: permission filters, sorting, statistics and joins on issue ids.
+ * <p>
+ * The size of the index is set with the {@code issues} parameter, for example {@code -p issues=100000,5000000}.
+ * Queries have the shape of those built from JQL. The permission filter, sorts and statistics are those of the JIRA
+ * components that search issues, built over stubs for an anonymous user who can browse most projects and some
+ * security levels.
+ *
+ * @since v6.3.15
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 10, time = 1)
+@Fork (value = 1, jvmArgs = { "-Xmx4g" })
+public class IssueSearchBenchmark
+{
+    private static final int PAGE_SIZE = 50;
+    private static final int JOINED_ISSUES = 5000;
+    // the default size of the shared permission filter cache
+    private static final String PERMISSIONS_FILTER_CACHE_MB = "32";
+
+    @Param ({ "100000" })
+    public int issues;
+
+    private SyntheticIssueIndex index;
+    private IndexSearcher searcher;
+    private Query query;
+    private PermissionsFilterGenerator permissionsFilterGenerator;
+    private SharedPermissionsFilterCache sharedPermissionsFilterCache;
+    private Filter sharedPermissionFilter;
+    private Sort createdSort;
+    private Sort prioritySort;
+    private StatisticsMapper<IssueConstant> statusMapper;
+    private ReaderCache readerCache;
+    private FieldVisibilityManager fieldVisibilityManager;
+    private FieldManager fieldManager;
+    private ProjectManager projectManager;
+    private long[] joinedIssueIds;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        index = SyntheticIssueIndex.create(issues);
+        searcher = index.getSearcher();
+
+        final BooleanQuery statuses = new BooleanQuery();
+        for (int status = 1; status <= 4; status++)
+        {
+            statuses.add(term(DocumentConstants.ISSUE_STATUS, String.valueOf(status)), BooleanClause.Occur.SHOULD);
+        }
+        final BooleanQuery query = new BooleanQuery();
+        query.add(statuses, BooleanClause.Occur.MUST);
+        query.add(term(DocumentConstants.ISSUE_TYPE, "1"), BooleanClause.Occur.MUST_NOT);
+        query.add(term(DocumentConstants.ISSUE_ASSIGNEE, DocumentConstants.ISSUE_UNASSIGNED), BooleanClause.Occur.MUST_NOT);
+        this.query = query;
+
+        permissionsFilterGenerator = new PermissionsFilterGeneratorImpl(permissionQueryFactory());
+        sharedPermissionsFilterCache = new SharedPermissionsFilterCache(Stubs.stub(ApplicationProperties.class, new Object()
+        {
+            String getDefaultBackedString(final String name)
+            {
+                return PERMISSIONS_FILTER_CACHE_MB;
+            }
+        }));
+        // the shared filter caches its bitsets between searches, so warm it up once
+        sharedPermissionFilter = sharedPermissionFilter();
+        searcher.search(new ConstantScoreQuery(sharedPermissionFilter), 1);
+
+        final ConstantsManager constantsManager = constantsManager();
+        // the sorts of the created and priority system fields
+        createdSort = new Sort(new SortField(DocumentConstants.ISSUE_SORT_CREATED, new StringSortComparator(), true));
+        final PriorityStatisticsMapper priorityMapper = new PriorityStatisticsMapper(constantsManager);
+        prioritySort = new Sort(new SortField(priorityMapper.getDocumentConstant(), new MappedSortComparator(priorityMapper)),
+                new SortField(DocumentConstants.ISSUE_SORT_CREATED, new StringSortComparator(), true));
+
+        statusMapper = new StatusStatisticsMapper(constantsManager);
+        // ordinals are cached per segment by the reader cache between searches, so warm it up once
+        readerCache = new DefaultReaderCache();
+        fieldVisibilityManager = Stubs.stub(FieldVisibilityManager.class, new Object());
+        fieldManager = Stubs.stub(FieldManager.class, new Object()
+        {
+            boolean isCustomField(final String id)
+            {
+                return false;
+            }
+        });
+        projectManager = Stubs.stub(ProjectManager.class, new Object());
+        statusStatistics();
+
+        final Random random = new Random(JOINED_ISSUES);
+        joinedIssueIds = new long[JOINED_ISSUES];
+        for (int i = 0; i < JOINED_ISSUES; i++)
+        {
+            joinedIssueIds[i] = SyntheticIssueIndex.FIRST_ISSUE_ID + random.nextInt(issues);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        index.close();
+    }
+
+    @Benchmark
+    public TopDocs searchWithPermissionFilter() throws IOException
+    {
+        // the permission query is cached for the request, so each invocation is a request of its own
+        JiraAuthenticationContextImpl.clearRequestCache();
+        return searcher.search(query, new QueryWrapperFilter(permissionsFilterGenerator.getQuery(null)), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TopDocs searchWithSharedPermissionFilter() throws IOException
+    {
+        JiraAuthenticationContextImpl.clearRequestCache();
+        return searcher.search(query, sharedPermissionFilter(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TopDocs sortByCreated() throws IOException
+    {
+        return searcher.search(query, sharedPermissionFilter, PAGE_SIZE, createdSort);
+    }
+
+    @Benchmark
+    public TopDocs sortByPriorityThenCreated() throws IOException
+    {
+        return searcher.search(query, sharedPermissionFilter, PAGE_SIZE, prioritySort);
+    }
+
+    @Benchmark
+    public Map<IssueConstant, Integer> statusStatistics() throws IOException
+    {
+        final OneDimensionalTermHitCollector collector = new OneDimensionalTermHitCollector(statusMapper.getDocumentConstant(),
+                fieldVisibilityManager, readerCache, fieldManager, projectManager);
+        searcher.search(query, sharedPermissionFilter, collector);
+
+        // the counts are keyed by status the way StatisticAccessorBean keys them
+        final Map<IssueConstant, Integer> statistics = new TreeMap<IssueConstant, Integer>(statusMapper.getComparator());
+        for (final Map.Entry<String, Integer> count : collector.getResult().entrySet())
+        {
+            statistics.put(statusMapper.getValueFromLuceneField(count.getKey()), count.getValue());
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    public DocumentTermOrdinals buildStatusOrdinals() throws IOException
+    {
+        return JiraLuceneFieldFinder.getInstance().getTermOrdinals(searcher.getIndexReader().getSequentialSubReaders()[0], DocumentConstants.ISSUE_STATUS);
+    }
+
+    @Benchmark
+    public int joinIssueIds() throws IOException
+    {
+        final TotalHitCountCollector collector = new TotalHitCountCollector();
+        searcher.search(new ConstantScoreQuery(new IssueIdJoinFilter(joinedIssueIds)), sharedPermissionFilter, collector);
+        return collector.getTotalHits();
+    }
+
+    /**
+     * Returns the shared permission filter of an anonymous user the way LuceneSearchProvider gets it.
+     */
+    private Filter sharedPermissionFilter()
+    {
+        final Query permissionQuery = permissionsFilterGenerator.getQuery(null);
+        return sharedPermissionsFilterCache.getFilter(null, permissionQuery, searcher.maxDoc());
+    }
+
+    /**
+     * Creates the permission query factory over permission and issue security schemes that let anyone browse three
+     * quarters of the projects and see the issues in half of the security levels.
+     */
+    private static PermissionQueryFactory permissionQueryFactory()
+    {
+        final List<Project> browsableProjects = new ArrayList<Project>();
+        for (int project = 0; project < SyntheticIssueIndex.PROJECTS * 3 / 4; project++)
+        {
+            final long projectId = SyntheticIssueIndex.FIRST_PROJECT_ID + project;
+            browsableProjects.add(new ProjectImpl(Stubs.genericValue("Project", "id", projectId, "key", "P" + projectId)));
+        }
+        final List<IssueSecurityLevel> visibleLevels = new ArrayList<IssueSecurityLevel>();
+        for (int level = 0; level < SyntheticIssueIndex.SECURITY_LEVELS / 2; level++)
+        {
+            visibleLevels.add(new IssueSecurityLevelImpl(SyntheticIssueIndex.FIRST_SECURITY_LEVEL_ID + level, "Level " + level, null, 1L));
+        }
+        final GenericValue permissionScheme = Stubs.genericValue("PermissionScheme", "id", 0L);
+        // a group permission without a group is granted to anyone, including anonymous users
+        final GenericValue anyone = Stubs.genericValue("SchemePermissions", "type", GroupDropdown.DESC, "parameter", null);
+
+        final PermissionManager permissionManager = Stubs.stub(PermissionManager.class, new Object()
+        {
+            Collection<Project> getProjects(final int permissionId, final ApplicationUser user)
+            {
+                return browsableProjects;
+            }
+        });
+        final PermissionSchemeManager permissionSchemeManager = Stubs.stub(PermissionSchemeManager.class, new Object()
+        {
+            List<GenericValue> getSchemes(final GenericValue project)
+            {
+                return Collections.singletonList(permissionScheme);
+            }
+
+            List<GenericValue> getEntities(final GenericValue scheme, final Long permissionId)
+            {
+                return Collections.singletonList(anyone);
+            }
+        });
+        final IssueSecurityLevelManager issueSecurityLevelManager = Stubs.stub(IssueSecurityLevelManager.class, new Object()
+        {
+            List<IssueSecurityLevel> getUsersSecurityLevels(final Project project, final User user)
+            {
+                return visibleLevels;
+            }
+        });
+        final IssueSecuritySchemeManager issueSecuritySchemeManager = Stubs.stub(IssueSecuritySchemeManager.class, new Object()
+        {
+            List<IssueSecurityLevelPermission> getPermissionsBySecurityLevel(final Long securityLevelId)
+            {
+                return Collections.singletonList(new IssueSecurityLevelPermission(securityLevelId, 1L, securityLevelId, GroupDropdown.DESC, null));
+            }
+        });
+
+        final Map<String, SecurityType> securityTypes = ImmutableMap.<String, SecurityType>of(GroupDropdown.DESC, new GroupDropdown(null));
+        final PermissionTypeManager permissionTypeManager = new PermissionTypeManager();
+        permissionTypeManager.setSecurityTypes(securityTypes);
+        final IssueSecurityTypeManager issueSecurityTypeManager = new IssueSecurityTypeManager();
+        issueSecurityTypeManager.setSecurityTypes(securityTypes);
+
+        return new DefaultPermissionQueryFactory(issueSecurityLevelManager, permissionManager, permissionSchemeManager,
+                permissionTypeManager, issueSecuritySchemeManager, issueSecurityTypeManager, null);
+    }
+
+    /**
+     * Creates a constants manager of the statuses and priorities of the index, ordered by their ids.
+     */
+    private static ConstantsManager constantsManager()
+    {
+        final Map<String, IssueConstant> statuses = new HashMap<String, IssueConstant>();
+        for (long status = 1; status <= SyntheticIssueIndex.STATUSES; status++)
+        {
+            statuses.put(String.valueOf(status), new StatusImpl(issueConstant(ConstantsManager.STATUS_CONSTANT_TYPE, status), null, null, null, null));
+        }
+        final Map<String, IssueConstant> priorities = new HashMap<String, IssueConstant>();
+        for (long priority = 1; priority <= SyntheticIssueIndex.PRIORITIES; priority++)
+        {
+            priorities.put(String.valueOf(priority), new PriorityImpl(issueConstant(ConstantsManager.PRIORITY_CONSTANT_TYPE, priority), null, null, null));
+        }
+        return Stubs.stub(ConstantsManager.class, new Object()
+        {
+            IssueConstant getConstantObject(final String constantType, final String id)
+            {
+                return (ConstantsManager.STATUS_CONSTANT_TYPE.equals(constantType) ? statuses : priorities).get(id);
+            }
+        });
+    }
+
+    private static GenericValue issueConstant(final String entityName, final long id)
+    {
+        return Stubs.genericValue(entityName, "id", String.valueOf(id), "name", entityName + " " + id, "sequence", id);
+    }
+
+    private static TermQuery term(final String field, final String value)
+    {
+        return new TermQuery(new Term(field, value));
+    }
+}
@@ -0,0 +1,185 @@
+package com.atlassian.jira.benchmark;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.crowd.embedded.impl.ImmutableUser;
+import com.atlassian.jira.bc.issue.search.QueryCacheImpl;
+import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.issue.search.constants.SystemSearchConstants;
+import com.atlassian.jira.issue.search.optimizers.DefaultQueryOptimizationService;
+import com.atlassian.jira.issue.search.optimizers.QueryOptimizationService;
+import com.atlassian.jira.issue.search.util.DefaultLuceneQueryModifier;
+import com.atlassian.jira.jql.operand.DefaultJqlOperandResolver;
+import com.atlassian.jira.jql.operand.FunctionOperandHandler;
+import com.atlassian.jira.jql.operand.JqlOperandResolver;
+import com.atlassian.jira.jql.operand.registry.JqlFunctionHandlerRegistry;
+import com.atlassian.jira.jql.parser.DefaultJqlQueryParser;
+import com.atlassian.jira.jql.parser.JqlParseException;
+import com.atlassian.jira.jql.parser.JqlQueryParser;
+import com.atlassian.jira.jql.query.ClauseQueryFactory;
+import com.atlassian.jira.jql.query.DefaultLuceneQueryBuilder;
+import com.atlassian.jira.jql.query.EqualityQueryFactory;
+import com.atlassian.jira.jql.query.GenericClauseQueryFactory;
+import com.atlassian.jira.jql.query.IssueIdClauseQueryFactory;
+import com.atlassian.jira.jql.query.LuceneQueryBuilder;
+import com.atlassian.jira.jql.query.OperatorSpecificQueryFactory;
+import com.atlassian.jira.jql.query.QueryCreationContext;
+import com.atlassian.jira.jql.query.QueryCreationContextImpl;
+import com.atlassian.jira.jql.query.QueryRegistry;
+import com.atlassian.jira.jql.resolver.IdentityIndexInfoResolver;
+import com.atlassian.jira.jql.util.JqlIssueKeySupportImpl;
+import com.atlassian.jira.jql.util.JqlIssueSupport;
+import com.atlassian.jira.security.JiraAuthenticationContextImpl;
+import com.atlassian.jira.user.DelegatingApplicationUser;
+import com.atlassian.query.Query;
+import com.atlassian.query.clause.TerminalClause;
+import com.atlassian.query.operand.FunctionOperand;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks turning JQL into a Lucene query: parsing, optimisation and building the query through the clause query
+ * factories.
+ * <p>
+ * The clause query factories are the generic ones that the system fields use, resolving values as index terms
+ * without the database lookups of the name resolvers, so the benchmark measures the pipeline itself.
+ *
+ * @since v6.3.15
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 10, time = 1)
+@Fork (1)
+public class JqlBenchmark
+{
+    private static final Map<String, String> QUERIES = ImmutableMap.of(
+            "simple", "project = 10001 AND status = 1",
+            "typical", "project in (10001, 10002, 10003) AND issuetype in (1, 2) AND status not in (5, 6) AND assignee = user12 ORDER BY priority DESC, created",
+            "nested", "(project = 10001 OR reporter = user1) AND NOT (status = 6 OR priority in (4, 5)) AND (assignee is EMPTY OR assignee in (user1, user2, user3)) ORDER BY key",
+            "idlist", idList(500));
+
+    @Param ({ "simple", "typical", "nested", "idlist" })
+    public String query;
+
+    private String jql;
+    private Query parsedQuery;
+    private JqlQueryParser parser;
+    private QueryOptimizationService optimizationService;
+    private LuceneQueryBuilder luceneQueryBuilder;
+    private QueryCreationContext queryCreationContext;
+
+    @Setup
+    public void setUp() throws JqlParseException
+    {
+        jql = QUERIES.get(query);
+        parser = new DefaultJqlQueryParser();
+        parsedQuery = parser.parseQuery(jql);
+        optimizationService = new DefaultQueryOptimizationService();
+
+        // queries are not validated, so no messages are translated
+        final JqlOperandResolver operandResolver = new DefaultJqlOperandResolver(new NoFunctions(), null, new QueryCacheImpl());
+        final Map<String, ClauseQueryFactory> factories = ImmutableMap.<String, ClauseQueryFactory>builder()
+                .put("project", generic(SystemSearchConstants.forProject().getIndexField(), operandResolver))
+                .put("issuetype", generic(SystemSearchConstants.forIssueType().getIndexField(), operandResolver))
+                .put("status", generic(SystemSearchConstants.forStatus().getIndexField(), operandResolver))
+                .put("priority", generic(SystemSearchConstants.forPriority().getIndexField(), operandResolver))
+                .put("assignee", generic(SystemSearchConstants.forAssignee().getIndexField(), operandResolver))
+                .put("reporter", generic(SystemSearchConstants.forReporter().getIndexField(), operandResolver))
+                // the id list holds ids rather than keys, so issues are never looked up
+                .put("id", new IssueIdClauseQueryFactory(operandResolver, new JqlIssueKeySupportImpl(), Stubs.stub(JqlIssueSupport.class, new Object())))
+                .build();
+        luceneQueryBuilder = new DefaultLuceneQueryBuilder(new MapQueryRegistry(factories), new DefaultLuceneQueryModifier(), null, null);
+        queryCreationContext = new QueryCreationContextImpl(new DelegatingApplicationUser("admin", ImmutableUser.newUser().name("admin").toUser()));
+    }
+
+    @Benchmark
+    public Query parse() throws JqlParseException
+    {
+        return parser.parseQuery(jql);
+    }
+
+    @Benchmark
+    public org.apache.lucene.search.Query buildLuceneQuery() throws SearchException
+    {
+        // the operand values are cached for the request, so each invocation is a request of its own
+        JiraAuthenticationContextImpl.clearRequestCache();
+        final Query optimizedQuery = optimizationService.optimizeQuery(parsedQuery);
+        return luceneQueryBuilder.createLuceneQuery(queryCreationContext, optimizedQuery.getWhereClause());
+    }
+
+    @Benchmark
+    public org.apache.lucene.search.Query parseAndBuildLuceneQuery() throws JqlParseException, SearchException
+    {
+        JiraAuthenticationContextImpl.clearRequestCache();
+        final Query optimizedQuery = optimizationService.optimizeQuery(parser.parseQuery(jql));
+        return luceneQueryBuilder.createLuceneQuery(queryCreationContext, optimizedQuery.getWhereClause());
+    }
+
+    private static ClauseQueryFactory generic(final String indexField, final JqlOperandResolver operandResolver)
+    {
+        final List<OperatorSpecificQueryFactory> operatorFactories = ImmutableList.<OperatorSpecificQueryFactory>of(
+                new EqualityQueryFactory<Object>(new IdentityIndexInfoResolver()));
+        return new GenericClauseQueryFactory(indexField, operatorFactories, operandResolver);
+    }
+
+    private static String idList(final int size)
+    {
+        final StringBuilder jql = new StringBuilder("id in (");
+        for (int i = 0; i < size; i++)
+        {
+            jql.append(i == 0 ? "" : ", ").append(SyntheticIssueIndex.FIRST_ISSUE_ID + i * 7);
+        }
+        return jql.append(")").toString();
+    }
+
+    private static class MapQueryRegistry implements QueryRegistry
+    {
+        private final Map<String, ClauseQueryFactory> factories;
+
+        MapQueryRegistry(final Map<String, ClauseQueryFactory> factories)
+        {
+            this.factories = factories;
+        }
+
+        @Override
+        public Collection<ClauseQueryFactory> getClauseQueryFactory(final QueryCreationContext queryCreationContext, final TerminalClause clause)
+        {
+            final ClauseQueryFactory factory = factories.get(clause.getName().toLowerCase());
+            return factory == null ? Collections.<ClauseQueryFactory>emptyList() : Collections.singletonList(factory);
+        }
+    }
+
+    private static class NoFunctions implements JqlFunctionHandlerRegistry
+    {
+        @Override
+        public FunctionOperandHandler getOperandHandler(final FunctionOperand operand)
+        {
+            return null;
+        }
+
+        @Override
+        public List<String> getAllFunctionNames()
+        {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.atlassian.jira.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ofbiz.core.entity.GenericDelegator;
+import org.ofbiz.core.entity.GenericValue;
+import org.ofbiz.core.entity.model.ModelEntity;
+import org.ofbiz.core.entity.model.ModelField;
+
+/**
+ * Stubs of the components and entities that the benchmarked JIRA components depend on, so that the benchmarks run
+ * without a database or a component container.
+ * <p>
+ * A stub of an interface answers each call with the method of the same name and parameter types declared by an
+ * answers object, usually an anonymous class, and throws {@link UnsupportedOperationException} for any method the
+ * answers object does not declare, so that a benchmark never measures a call it does not expect.
+ *
+ * @since v6.3.15
+ */
+final class Stubs
+{
+    private Stubs()
+    {
+    }
+
+    static <T> T stub(final Class<T> type, final Object answers)
+    {
+        final Map<Method, Method> answerMethods = new HashMap<Method, Method>();
+        for (final Method method : type.getMethods())
+        {
+            final Method answer = findAnswer(answers.getClass(), method);
+            if (answer != null)
+            {
+                answerMethods.put(method, answer);
+            }
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+            {
+                if (method.getDeclaringClass() == Object.class)
+                {
+                    return invokeObjectMethod(type, proxy, method, args);
+                }
+                final Method answer = answerMethods.get(method);
+                if (answer == null)
+                {
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed");
+                }
+                try
+                {
+                    return answer.invoke(answers, args);
+                }
+                catch (final InvocationTargetException e)
+                {
+                    throw e.getCause();
+                }
+            }
+        }));
+    }
+
+    /**
+     * Creates a value of an entity that has exactly the given fields, without an entity model or a delegator.
+     *
+     * @param entityName the name of the entity
+     * @param fieldsAndValues the name of each field followed by its value, which may be null
+     * @return the value
+     */
+    static GenericValue genericValue(final String entityName, final Object... fieldsAndValues)
+    {
+        final ModelEntity modelEntity = new ModelEntity();
+        modelEntity.setEntityName(entityName);
+        for (int i = 0; i < fieldsAndValues.length; i += 2)
+        {
+            final ModelField field = new ModelField();
+            field.setName((String) fieldsAndValues[i]);
+            modelEntity.addField(field);
+        }
+        final GenericValue value = new GenericValue((GenericDelegator) null, modelEntity);
+        for (int i = 0; i < fieldsAndValues.length; i += 2)
+        {
+            value.set((String) fieldsAndValues[i], fieldsAndValues[i + 1]);
+        }
+        return value;
+    }
+
+    private static Method findAnswer(final Class<?> answersClass, final Method method)
+    {
+        for (Class<?> type = answersClass; type != null; type = type.getSuperclass())
+        {
+            try
+            {
+                final Method answer = type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                answer.setAccessible(true);
+                return answer;
+            }
+            catch (final NoSuchMethodException e)
+            {
+                // look in the superclass
+            }
+        }
+        return null;
+    }
+
+    private static Object invokeObjectMethod(final Class<?> type, final Object proxy, final Method method, final Object[] args)
+    {
+        if ("equals".equals(method.getName()))
+        {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()))
+        {
+            return System.identityHashCode(proxy);
+        }
+        return "Stub of " + type.getSimpleName();
+    }
+}
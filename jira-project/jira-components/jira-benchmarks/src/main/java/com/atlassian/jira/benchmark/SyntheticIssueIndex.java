@@ -0,0 +1,148 @@
+package com.atlassian.jira.benchmark;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Random;
+
+import com.atlassian.jira.index.LuceneVersion;
+import com.atlassian.jira.issue.index.DocumentConstants;
+import com.atlassian.jira.util.LuceneUtils;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.analysis.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+/**
+ * An issue index of generated issues, for benchmarks that search it.
+ * <p>
+ * Issues have the system fields the benchmarks search, sort and collect statistics on, indexed the way the issue
+ * document factory indexes them. Values are drawn from a fixed seed so every run indexes the same issues. The index is
+ * written to a temporary directory rather than memory, so that it can hold millions of issues, and is deleted when
+ * closed.
+ *
+ * @since v6.3.15
+ */
+public class SyntheticIssueIndex implements Closeable
+{
+    static final int PROJECTS = 200;
+    static final int ISSUE_TYPES = 10;
+    static final int STATUSES = 12;
+    static final int PRIORITIES = 5;
+    static final int USERS = 2000;
+    static final int SECURITY_LEVELS = 4;
+
+    static final long FIRST_PROJECT_ID = 10000;
+    static final long FIRST_ISSUE_ID = 10000;
+    static final long FIRST_SECURITY_LEVEL_ID = 10000;
+
+    private static final long FIRST_CREATED = 1262304000000L;
+    private static final long ONE_MINUTE = 60 * 1000L;
+
+    private final File path;
+    private final Directory directory;
+    private final IndexSearcher searcher;
+    private final int issueCount;
+
+    private SyntheticIssueIndex(final File path, final Directory directory, final int issueCount) throws IOException
+    {
+        this.path = path;
+        this.directory = directory;
+        this.issueCount = issueCount;
+        this.searcher = new IndexSearcher(IndexReader.open(directory, true));
+    }
+
+    /**
+     * @param issueCount the number of issues to index
+     * @return an index of that many issues, open for searching
+     */
+    public static SyntheticIssueIndex create(final int issueCount) throws IOException
+    {
+        final File path = File.createTempFile("jira-benchmark-index", "");
+        FileUtils.forceDelete(path);
+        FileUtils.forceMkdir(path);
+
+        final Directory directory = FSDirectory.open(path);
+        final IndexWriterConfig config = new IndexWriterConfig(LuceneVersion.get(), new KeywordAnalyzer());
+        config.setRAMBufferSizeMB(128);
+        final IndexWriter writer = new IndexWriter(directory, config);
+        try
+        {
+            final Random random = new Random(issueCount);
+            for (int i = 0; i < issueCount; i++)
+            {
+                writer.addDocument(issue(FIRST_ISSUE_ID + i, i, random));
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+        return new SyntheticIssueIndex(path, directory, issueCount);
+    }
+
+    private static Document issue(final long id, final int number, final Random random)
+    {
+        // a few projects hold most of the issues, as they do on real instances
+        final int project = (int) (Math.pow(random.nextDouble(), 3) * PROJECTS);
+        final int assignee = random.nextInt(USERS + USERS / 10);
+        final int securityLevel = random.nextInt(SECURITY_LEVELS * 4);
+        final String created = LuceneUtils.dateToString(new Date(FIRST_CREATED + number * ONE_MINUTE));
+
+        final Document document = new Document();
+        add(document, DocumentConstants.ISSUE_ID, String.valueOf(id));
+        add(document, DocumentConstants.ISSUE_KEY, "PRJ" + project + "-" + (number + 1));
+        add(document, DocumentConstants.PROJECT_ID, String.valueOf(FIRST_PROJECT_ID + project));
+        add(document, DocumentConstants.ISSUE_TYPE, String.valueOf(1 + random.nextInt(ISSUE_TYPES)));
+        add(document, DocumentConstants.ISSUE_STATUS, String.valueOf(1 + random.nextInt(STATUSES)));
+        add(document, DocumentConstants.ISSUE_PRIORITY, String.valueOf(1 + random.nextInt(PRIORITIES)));
+        add(document, DocumentConstants.ISSUE_ASSIGNEE, assignee < USERS ? user(assignee) : DocumentConstants.ISSUE_UNASSIGNED);
+        add(document, DocumentConstants.ISSUE_AUTHOR, user(random.nextInt(USERS)));
+        add(document, DocumentConstants.ISSUE_SECURITY_LEVEL, securityLevel < SECURITY_LEVELS ? String.valueOf(FIRST_SECURITY_LEVEL_ID + securityLevel) : "-1");
+        add(document, DocumentConstants.ISSUE_CREATED, created);
+        add(document, DocumentConstants.ISSUE_SORT_CREATED, created);
+        return document;
+    }
+
+    private static void add(final Document document, final String field, final String value)
+    {
+        document.add(new Field(field, value, Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS));
+    }
+
+    static String user(final int user)
+    {
+        return "user" + user;
+    }
+
+    public IndexSearcher getSearcher()
+    {
+        return searcher;
+    }
+
+    public int getIssueCount()
+    {
+        return issueCount;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            searcher.getIndexReader().close();
+            directory.close();
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(path);
+        }
+    }
+}
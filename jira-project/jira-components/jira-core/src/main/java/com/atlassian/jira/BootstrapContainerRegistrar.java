@@ -2,7 +2,6 @@ package com.atlassian.jira;
 
 import com.atlassian.event.api.EventPublisher;
 import com.atlassian.event.config.ListenerHandlersConfiguration;
-import com.atlassian.event.internal.AsynchronousAbleEventDispatcher;
 import com.atlassian.event.internal.EventPublisherImpl;
 import com.atlassian.event.spi.EventDispatcher;
 import com.atlassian.event.spi.EventExecutorFactory;
@@ -25,6 +24,7 @@ import com.atlassian.jira.config.properties.MemorySwitchToDatabaseBackedProperti
 import com.atlassian.jira.config.properties.PropertiesManager;
 import com.atlassian.jira.config.util.DefaultJiraHome;
 import com.atlassian.jira.config.util.JiraHome;
+import com.atlassian.jira.event.JiraEventDispatcher;
 import com.atlassian.jira.event.JiraEventExecutorFactory;
 import com.atlassian.jira.event.JiraListenerHandlerConfigurationImpl;
 import com.atlassian.jira.instrumentation.InstrumentationConfiguration;
@@ -75,7 +75,7 @@ class BootstrapContainerRegistrar
         register.implementation(PROVIDED, JiraHome.class, DefaultJiraHome.class);
 
         // this allows us to send events
-        register.implementation(INTERNAL, EventDispatcher.class, AsynchronousAbleEventDispatcher.class);
+        register.implementation(INTERNAL, EventDispatcher.class, JiraEventDispatcher.class);
         register.implementation(INTERNAL, EventExecutorFactory.class, JiraEventExecutorFactory.class);
         register.implementation(INTERNAL, ListenerHandlersConfiguration.class, JiraListenerHandlerConfigurationImpl.class);
         register.implementation(PROVIDED, EventPublisher.class, EventPublisherImpl.class);
@@ -12,6 +12,7 @@ import com.atlassian.cache.impl.jmx.MBeanRegistrar;
 import com.atlassian.cache.memory.MemoryCacheManager;
 import com.atlassian.jira.cache.CacheCompactor;
 import com.atlassian.jira.cache.EhCacheCompactor;
+import com.atlassian.jira.cache.InstrumentedCacheManager;
 import com.atlassian.jira.cache.NullCacheCompactor;
 import com.atlassian.jira.cluster.ClusterNodeProperties;
 import com.atlassian.jira.cluster.EhCacheConfigurationFactory;
@@ -86,12 +87,12 @@ class CacheManagerRegistrar
         if (useEhcache)
         {
             net.sf.ehcache.CacheManager delegate = getCacheManagerDelegate(jiraProperties, clusterNodeProperties);
-            cacheManager = new EhCacheManager(delegate, null);
+            cacheManager = new InstrumentedCacheManager(new EhCacheManager(delegate, null));
             cacheCompactor = new EhCacheCompactor(delegate);
         }
         else
         {
-            cacheManager = new MemoryCacheManager();
+            cacheManager = new InstrumentedCacheManager(new MemoryCacheManager());
             cacheCompactor = new NullCacheCompactor();
         }
         enableJmxIfNecessary(jiraProperties, cacheManager, mBeanServer);
@@ -109,7 +109,6 @@ import com.atlassian.crowd.util.PasswordHelper;
 import com.atlassian.crowd.util.PasswordHelperImpl;
 import com.atlassian.event.api.EventPublisher;
 import com.atlassian.event.config.ListenerHandlersConfiguration;
-import com.atlassian.event.internal.AsynchronousAbleEventDispatcher;
 import com.atlassian.event.internal.EventPublisherImpl;
 import com.atlassian.event.spi.EventDispatcher;
 import com.atlassian.event.spi.EventExecutorFactory;
@@ -366,11 +365,13 @@ import com.atlassian.jira.cluster.DefaultClusterServicesRegistry;
 import com.atlassian.jira.cluster.DefaultNodeStateManager;
 import com.atlassian.jira.cluster.DefaultNodeStateService;
 import com.atlassian.jira.cluster.MessageHandlerService;
+import com.atlassian.jira.cluster.MessageTransport;
 import com.atlassian.jira.cluster.NodeStateManager;
 import com.atlassian.jira.cluster.NodeStateService;
 import com.atlassian.jira.cluster.OfBizClusterMessageStore;
 import com.atlassian.jira.cluster.OfBizClusterNodeStore;
 import com.atlassian.jira.cluster.OfBizMessageHandlerService;
+import com.atlassian.jira.cluster.SocketMessageTransport;
 import com.atlassian.jira.cluster.lock.DefaultSharedHomeNodeIO;
 import com.atlassian.jira.cluster.lock.SharedHomeNodeStatusReader;
 import com.atlassian.jira.cluster.lock.SharedHomeNodeStatusWriter;
@@ -481,6 +482,7 @@ import com.atlassian.jira.entity.EntityEngineImpl;
 import com.atlassian.jira.entity.property.JsonEntityPropertyManager;
 import com.atlassian.jira.entity.property.JsonEntityPropertyManagerImpl;
 import com.atlassian.jira.event.DefaultListenerManager;
+import com.atlassian.jira.event.JiraEventDispatcher;
 import com.atlassian.jira.event.JiraEventExecutorFactory;
 import com.atlassian.jira.event.JiraListenerHandlerConfigurationImpl;
 import com.atlassian.jira.event.ListenerManager;
@@ -593,7 +595,9 @@ import com.atlassian.jira.instrumentation.InstrumentationConfiguration;
 import com.atlassian.jira.io.TempFileFactory;
 import com.atlassian.jira.io.TempFileFactoryImpl;
 import com.atlassian.jira.issue.AttachmentManager;
+import com.atlassian.jira.issue.BulkIssueLoader;
 import com.atlassian.jira.issue.CustomFieldManager;
+import com.atlassian.jira.issue.DefaultBulkIssueLoader;
 import com.atlassian.jira.issue.DefaultIssueFactory;
 import com.atlassian.jira.issue.DefaultTemporaryAttachmentsMonitorLocator;
 import com.atlassian.jira.issue.IssueFactory;
@@ -665,6 +669,7 @@ import com.atlassian.jira.issue.customfields.manager.GenericConfigManager;
 import com.atlassian.jira.issue.customfields.manager.OptionsManager;
 import com.atlassian.jira.issue.customfields.manager.OptionsService;
 import com.atlassian.jira.issue.customfields.persistence.CustomFieldValuePersister;
+import com.atlassian.jira.issue.customfields.persistence.CustomFieldValuePrefetcher;
 import com.atlassian.jira.issue.customfields.persistence.EagerLoadingOfBizCustomFieldPersister;
 import com.atlassian.jira.issue.customfields.searchers.transformer.CustomFieldInputHelper;
 import com.atlassian.jira.issue.customfields.searchers.transformer.DefaultCustomFieldInputHelper;
@@ -771,6 +776,7 @@ import com.atlassian.jira.issue.index.IssueBatcherFactory;
 import com.atlassian.jira.issue.index.IssueDocumentFactory;
 import com.atlassian.jira.issue.index.IssueIndexManager;
 import com.atlassian.jira.issue.index.IssueIndexer;
+import com.atlassian.jira.issue.index.ReindexCheckpoints;
 import com.atlassian.jira.issue.index.indexers.impl.IssuePropertySearchExtractor;
 import com.atlassian.jira.issue.index.managers.FieldIndexerManager;
 import com.atlassian.jira.issue.index.managers.FieldIndexerManagerImpl;
@@ -855,6 +861,8 @@ import com.atlassian.jira.issue.search.parameters.lucene.PermissionQueryFactory;
 import com.atlassian.jira.issue.search.parameters.lucene.PermissionsFilterGenerator;
 import com.atlassian.jira.issue.search.parameters.lucene.PermissionsFilterGeneratorImpl;
 import com.atlassian.jira.issue.search.providers.LuceneSearchProvider;
+import com.atlassian.jira.issue.search.providers.ParallelSearchExecutor;
+import com.atlassian.jira.issue.search.providers.SharedPermissionsFilterCache;
 import com.atlassian.jira.issue.search.searchers.impl.AssigneeSearcher;
 import com.atlassian.jira.issue.search.searchers.impl.CreatorSearcher;
 import com.atlassian.jira.issue.search.searchers.impl.PrioritySearcher;
@@ -1129,6 +1137,7 @@ import com.atlassian.jira.mail.MailingListCompiler;
 import com.atlassian.jira.mail.SubscriptionMailQueueItemFactory;
 import com.atlassian.jira.mail.TemplateContextFactory;
 import com.atlassian.jira.mail.TemplateIssueFactory;
+import com.atlassian.jira.mail.pipeline.MailPipeline;
 import com.atlassian.jira.mail.settings.MailSettings;
 import com.atlassian.jira.mention.MentionFinder;
 import com.atlassian.jira.mention.MentionFinderImpl;
@@ -1149,6 +1158,7 @@ import com.atlassian.jira.notification.NotificationSchemeManager;
 import com.atlassian.jira.notification.NotificationTypeManager;
 import com.atlassian.jira.notification.ProjectNotificationsSchemeHelper;
 import com.atlassian.jira.ofbiz.OfBizDelegator;
+import com.atlassian.jira.ofbiz.SqlStatistics;
 import com.atlassian.jira.ofbiz.WrappingOfBizDelegator;
 import com.atlassian.jira.permission.DefaultPermissionContextFactory;
 import com.atlassian.jira.permission.DefaultProjectPermissionSchemeHelper;
@@ -1803,6 +1813,7 @@ class ContainerRegistrar
 
         // components that are already constructed
         register.instance(INTERNAL, DelegatorInterface.class, CoreFactory.getGenericDelegator());
+        register.instance(INTERNAL, SqlStatistics.class, SqlStatistics.getInstance());
         register.implementation(INTERNAL, UserAssociationStore.class, UserAssociationStoreImpl.class);
         register.implementation(INTERNAL, NodeAssociationStore.class, NodeAssociationStoreImpl.class);
         register.instance(PROVIDED, MailServerManager.class, MailFactory.getServerManager());
@@ -1916,6 +1927,8 @@ class ContainerRegistrar
         register.implementation(PROVIDED, ReaderCache.class, DefaultReaderCache.class);
 
         register.implementation(PROVIDED, PermissionsFilterGenerator.class, PermissionsFilterGeneratorImpl.class);
+        register.implementation(INTERNAL, SharedPermissionsFilterCache.class);
+        register.implementation(INTERNAL, ParallelSearchExecutor.class);
         register.implementation(INTERNAL, PermissionQueryFactory.class, DefaultPermissionQueryFactory.class);
 
         MultipleKeyRegistrant.registrantFor(DefaultJiraPageBuilderService.class)
@@ -1977,6 +1990,7 @@ class ContainerRegistrar
         // --------------------------------------------------------------//
 
         register.implementation(INTERNAL, IssueBatcherFactory.class, DefaultIssueBatcherFactory.class);
+        register.implementation(INTERNAL, ReindexCheckpoints.class);
 
         // if we are importing - then we don't want to index each issue manually
         register.implementation(INTERNAL, DefaultIndexManager.class);
@@ -2195,6 +2209,7 @@ class ContainerRegistrar
         register.implementation(INTERNAL, OfBizClusterMessageStore.class);
         register.implementation(INTERNAL, NodeReindexService.class, DefaultNodeReindexService.class);
         register.implementation(INTERNAL, IndexUtils.class);
+        register.implementation(INTERNAL, MessageTransport.class, SocketMessageTransport.class);
         register.implementation(INTERNAL, MessageHandlerService.class, OfBizMessageHandlerService.class);
         register.implementation(PROVIDED, ClusterMessagingService.class, DatabaseClusterMessagingService.class);
         register.implementation(INTERNAL, PluginMessageSender.class);
@@ -2223,6 +2238,7 @@ class ContainerRegistrar
         register.implementation(PROVIDED, ChangeHistoryManager.class, DefaultChangeHistoryManager.class);
         register.implementation(PROVIDED, SecurityTypeManager.class, IssueSecurityTypeManager.class);
 
+        register.implementation(INTERNAL, MailPipeline.class);
         register.implementation(PROVIDED, MailQueue.class, JiraMailQueue.class);
         register.implementation(PROVIDED, MailService.class, MailServiceImpl.class);
         register.implementation(PROVIDED, MailSettings.class, MailSettings.DefaultMailSettings.class);
@@ -2334,6 +2350,7 @@ class ContainerRegistrar
         register.implementation(INTERNAL, JiraUtilsBean.class);
         register.implementation(PROVIDED, TranslationManager.class, TranslationManagerImpl.class);
         register.implementation(PROVIDED, IssueFactory.class, DefaultIssueFactory.class);
+        register.implementation(PROVIDED, BulkIssueLoader.class, DefaultBulkIssueLoader.class);
         register.implementation(PROVIDED, TemplateIssueFactory.class, DefaultTemplateIssueFactory.class);
         register.implementation(PROVIDED, TemplateContextFactory.class, DefaultTemplateContextFactory.class);
         register.implementation(PROVIDED, IssueMailQueueItemFactory.class, DefaultIssueMailQueueItemFactory.class);
@@ -2427,7 +2444,10 @@ class ContainerRegistrar
         register.implementation(PROVIDED, MultiUserConverter.class, MultiUserConverterImpl.class);
         register.implementation(PROVIDED, GroupConverter.class, GroupConverterImpl.class);
         register.implementation(PROVIDED, MultiGroupConverter.class, MultiGroupConverterImpl.class);
-        register.implementation(PROVIDED, CustomFieldValuePersister.class, EagerLoadingOfBizCustomFieldPersister.class);
+        MultipleKeyRegistrant.registrantFor(EagerLoadingOfBizCustomFieldPersister.class)
+                .implementing(CustomFieldValuePersister.class, PROVIDED)
+                .implementing(CustomFieldValuePrefetcher.class)
+                .registerWith(INTERNAL, register);
         register.implementation(PROVIDED, InternalWebSudoManager.class, InternalWebSudoManagerImpl.class);
         // CustomFieldValidator is INTERNAL because it is not used by Custom Fields, only by the CreateCustomField WebWork action.
         register.implementation(INTERNAL, CustomFieldValidator.class, CustomFieldValidatorImpl.class);
@@ -2445,7 +2465,7 @@ class ContainerRegistrar
 
         // atlassian-events
         register.implementation(PROVIDED, EventPublisher.class, EventPublisherImpl.class);
-        register.implementation(INTERNAL, EventDispatcher.class, AsynchronousAbleEventDispatcher.class);
+        register.implementation(INTERNAL, EventDispatcher.class, JiraEventDispatcher.class);
         register.implementation(INTERNAL, EventExecutorFactory.class, JiraEventExecutorFactory.class);
         register.implementation(INTERNAL, ListenerHandlersConfiguration.class, JiraListenerHandlerConfigurationImpl.class);
         register.implementation(INTERNAL, JiraExternalLibrariesCacheClearingListener.class);
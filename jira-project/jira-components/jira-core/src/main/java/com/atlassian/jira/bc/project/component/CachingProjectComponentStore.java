@@ -266,7 +266,7 @@ public class CachingProjectComponentStore implements ProjectComponentStore, Star
         }
         if (component != null)
         {
-            projectIdToComponentsMap.remove(component.getProjectId());
+            patchProjectComponents(component.getProjectId(), componentId, null);
         }
     }
 
@@ -331,9 +331,11 @@ public class CachingProjectComponentStore implements ProjectComponentStore, Star
                 throw createIllegalArgumentExceptionForName(name);
             }
 
+            boolean stored = false;
             try
             {
                 component = delegateStore.store(component);
+                stored = true;
                 return component;
             }
             catch (EntityNotFoundException e)
@@ -343,8 +345,15 @@ public class CachingProjectComponentStore implements ProjectComponentStore, Star
             }
             finally
             {
-                componentIdToComponentMap.remove(component.getId());
-                projectIdToComponentsMap.remove(component.getProjectId());
+                if (stored)
+                {
+                    updateCache(component);
+                }
+                else
+                {
+                    componentIdToComponentMap.remove(component.getId());
+                    projectIdToComponentsMap.remove(component.getProjectId());
+                }
             }
         }
         finally
@@ -388,7 +397,7 @@ public class CachingProjectComponentStore implements ProjectComponentStore, Star
     }
 
     /**
-     * Invalidate the caches for the given component/project.
+     * Invalidate the cache for the given component, and patch the component into the cached components of its project.
      *
      * @param component component to be updated in cache
      */
@@ -397,7 +406,42 @@ public class CachingProjectComponentStore implements ProjectComponentStore, Star
         Long id = component.getId();
         Long projectId = component.getProjectId();
         componentIdToComponentMap.remove(id);
-        projectIdToComponentsMap.remove(projectId);
+        patchProjectComponents(projectId, id, MutableProjectComponent.copy(component));
+    }
+
+    /**
+     * Replaces a component in the cached components of its project, rather than reloading all of them. The list is
+     * replaced with a patched copy, as the cached list may be in use; in a cluster the other nodes only see the entry
+     * of the project invalidated.
+     *
+     * @param projectId the project of the component
+     * @param componentId the id of the component
+     * @param component the component, or null if it was deleted
+     */
+    private void patchProjectComponents(Long projectId, Long componentId, ProjectComponent component)
+    {
+        // if the project's components are not loaded, the next read will load the change anyway
+        if (!projectIdToComponentsMap.containsKey(projectId))
+        {
+            return;
+        }
+        final Collection<ProjectComponent> components = projectIdToComponentsMap.get(projectId);
+        final List<ProjectComponent> patched = new ArrayList<ProjectComponent>(components.size() + 1);
+        for (ProjectComponent c : components)
+        {
+            if (!c.getId().equals(componentId))
+            {
+                patched.add(c);
+            }
+        }
+        if (component != null)
+        {
+            patched.add(component);
+        }
+        if (!projectIdToComponentsMap.replace(projectId, components, sortByComponentNames(patched)))
+        {
+            projectIdToComponentsMap.remove(projectId);
+        }
     }
 
     private IllegalArgumentException createIllegalArgumentExceptionForName(String name)
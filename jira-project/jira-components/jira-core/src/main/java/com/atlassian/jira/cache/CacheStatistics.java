@@ -0,0 +1,232 @@
+package com.atlassian.jira.cache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.atlassian.instrumentation.ExternalCounter;
+import com.atlassian.instrumentation.ExternalGauge;
+import com.atlassian.instrumentation.ExternalValue;
+import com.atlassian.instrumentation.Instrument;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The statistics of a cache that atlassian-cache does not keep: how long its loader takes, and why its entries are
+ * invalidated. Hits, misses, evictions and sizes are kept by the cache itself, see {@link ManagedCacheInstruments}.
+ *
+ * @see InstrumentedCacheManager
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class CacheStatistics implements CacheStatisticsMBean
+{
+    /**
+     * The upper bounds of the buckets of the load time histogram.
+     */
+    public static final long[] LOAD_TIME_BUCKETS_MILLIS = { 1, 10, 100, 1000, 10000 };
+
+    private final String cacheName;
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong totalLoadTimeNanos = new AtomicLong();
+    private final AtomicLong maxLoadTimeNanos = new AtomicLong();
+    private final AtomicLongArray loadTimeHistogram = new AtomicLongArray(LOAD_TIME_BUCKETS_MILLIS.length + 1);
+
+    private final AtomicLong removeCount = new AtomicLong();
+    private final AtomicLong removeAllCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+
+    public CacheStatistics(@Nonnull final String cacheName)
+    {
+        this.cacheName = cacheName;
+    }
+
+    /**
+     * Records a call to the cache's loader.
+     *
+     * @param nanos how long the load took
+     * @param failed whether the loader threw an exception
+     */
+    public void recordLoad(final long nanos, final boolean failed)
+    {
+        loadCount.incrementAndGet();
+        if (failed)
+        {
+            loadFailureCount.incrementAndGet();
+        }
+        totalLoadTimeNanos.addAndGet(nanos);
+        for (long max = maxLoadTimeNanos.get(); nanos > max; max = maxLoadTimeNanos.get())
+        {
+            if (maxLoadTimeNanos.compareAndSet(max, nanos))
+            {
+                break;
+            }
+        }
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < LOAD_TIME_BUCKETS_MILLIS.length && millis >= LOAD_TIME_BUCKETS_MILLIS[bucket])
+        {
+            bucket++;
+        }
+        loadTimeHistogram.incrementAndGet(bucket);
+    }
+
+    /**
+     * Records that one entry was removed by the code using the cache.
+     */
+    public void recordRemove()
+    {
+        removeCount.incrementAndGet();
+    }
+
+    /**
+     * Records that all entries were removed by the code using the cache.
+     */
+    public void recordRemoveAll()
+    {
+        removeAllCount.incrementAndGet();
+    }
+
+    /**
+     * Records that all entries were removed because all caches were flushed, as on a data import.
+     */
+    public void recordFlush()
+    {
+        flushCount.incrementAndGet();
+    }
+
+    @Override
+    public String getCacheName()
+    {
+        return cacheName;
+    }
+
+    @Override
+    public long getLoadCount()
+    {
+        return loadCount.get();
+    }
+
+    @Override
+    public long getLoadFailureCount()
+    {
+        return loadFailureCount.get();
+    }
+
+    @Override
+    public long getTotalLoadTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(totalLoadTimeNanos.get());
+    }
+
+    @Override
+    public long getMaxLoadTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxLoadTimeNanos.get());
+    }
+
+    /**
+     * @return the mean time a load took, in milliseconds
+     */
+    public double getMeanLoadTimeMillis()
+    {
+        final long count = loadCount.get();
+        return count == 0 ? 0 : (double) totalLoadTimeNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public long[] getLoadTimeHistogram()
+    {
+        final long[] histogram = new long[loadTimeHistogram.length()];
+        for (int i = 0; i < histogram.length; i++)
+        {
+            histogram[i] = loadTimeHistogram.get(i);
+        }
+        return histogram;
+    }
+
+    @Override
+    public long getRemoveCount()
+    {
+        return removeCount.get();
+    }
+
+    @Override
+    public long getRemoveAllCount()
+    {
+        return removeAllCount.get();
+    }
+
+    @Override
+    public long getFlushCount()
+    {
+        return flushCount.get();
+    }
+
+    /**
+     * @return the statistics as instruments, named like those of {@link ManagedCacheInstruments}
+     */
+    @Nonnull
+    public List<Instrument> getInstruments()
+    {
+        final ImmutableList.Builder<Instrument> instruments = ImmutableList.builder();
+        instruments.add(new ExternalCounter(cacheName + ".loadCount", new Value(loadCount)));
+        instruments.add(new ExternalCounter(cacheName + ".loadFailureCount", new Value(loadFailureCount)));
+        instruments.add(new ExternalCounter(cacheName + ".totalLoadTime", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return getTotalLoadTimeMillis();
+            }
+        }));
+        instruments.add(new ExternalGauge(cacheName + ".maxLoadTime", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return getMaxLoadTimeMillis();
+            }
+        }));
+        for (int i = 0; i < loadTimeHistogram.length(); i++)
+        {
+            final int bucket = i;
+            final String label = i < LOAD_TIME_BUCKETS_MILLIS.length ? "lt" + LOAD_TIME_BUCKETS_MILLIS[i] + "ms"
+                    : "ge" + LOAD_TIME_BUCKETS_MILLIS[LOAD_TIME_BUCKETS_MILLIS.length - 1] + "ms";
+            instruments.add(new ExternalCounter(cacheName + ".loadTime." + label, new ExternalValue()
+            {
+                @Override
+                public long getValue()
+                {
+                    return loadTimeHistogram.get(bucket);
+                }
+            }));
+        }
+        instruments.add(new ExternalCounter(cacheName + ".invalidation.remove", new Value(removeCount)));
+        instruments.add(new ExternalCounter(cacheName + ".invalidation.removeAll", new Value(removeAllCount)));
+        instruments.add(new ExternalCounter(cacheName + ".invalidation.flush", new Value(flushCount)));
+        return instruments.build();
+    }
+
+    private static class Value implements ExternalValue
+    {
+        private final AtomicLong value;
+
+        Value(final AtomicLong value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public long getValue()
+        {
+            return value.get();
+        }
+    }
+}
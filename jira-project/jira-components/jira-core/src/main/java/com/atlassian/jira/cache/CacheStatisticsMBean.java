@@ -0,0 +1,31 @@
+package com.atlassian.jira.cache;
+
+/**
+ * The JMX view of the {@link CacheStatistics} of a cache.
+ *
+ * @since v6.3.15
+ */
+public interface CacheStatisticsMBean
+{
+    String getCacheName();
+
+    long getLoadCount();
+
+    long getLoadFailureCount();
+
+    long getTotalLoadTimeMillis();
+
+    long getMaxLoadTimeMillis();
+
+    /**
+     * @return the number of loads that took less than each of {@link CacheStatistics#LOAD_TIME_BUCKETS_MILLIS}, and in
+     * the last element the number that took longer
+     */
+    long[] getLoadTimeHistogram();
+
+    long getRemoveCount();
+
+    long getRemoveAllCount();
+
+    long getFlushCount();
+}
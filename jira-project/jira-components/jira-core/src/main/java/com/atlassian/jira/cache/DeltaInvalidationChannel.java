@@ -0,0 +1,150 @@
+package com.atlassian.jira.cache;
+
+import java.util.Collection;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.atlassian.jira.cluster.ClusterMessageConsumer;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.log4j.Logger;
+
+import static com.atlassian.jira.util.dbc.Assertions.is;
+import static com.atlassian.jira.util.dbc.Assertions.notNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Tells the other nodes of a cluster which entities changed on this node, so that a cache holding a snapshot of them
+ * can patch just those entries instead of being rebuilt.
+ * <p/>
+ * The ids of the entities are sent as a comma separated list. When they do not fit in a cluster message an empty
+ * message is sent instead, which means that everything changed. Outside a cluster nothing is sent.
+ *
+ * @since v6.3.15
+ */
+public class DeltaInvalidationChannel
+{
+    private static final Logger log = Logger.getLogger(DeltaInvalidationChannel.class);
+
+    private static final int MAX_CHANNEL_LENGTH = 20;
+    private static final int MAX_MESSAGE_LENGTH = 200;
+
+    /**
+     * Receives the changes made on the other nodes.
+     */
+    public interface Listener
+    {
+        /**
+         * @param ids the ids of the entities that changed, or null if everything may have changed
+         */
+        void onInvalidation(@Nullable Set<Long> ids);
+    }
+
+    private final String channel;
+    // the messaging service only keeps weak references to its consumers
+    private final ClusterMessageConsumer consumer;
+    private volatile ClusterMessagingService messagingService;
+
+    public DeltaInvalidationChannel(@Nonnull final String channel, @Nonnull final Listener listener)
+    {
+        notNull("channel", channel);
+        notNull("listener", listener);
+        is("channel exceeds max length", channel.length() <= MAX_CHANNEL_LENGTH);
+        this.channel = channel;
+        this.consumer = new ClusterMessageConsumer()
+        {
+            @Override
+            public void receive(final String channel, final String message, final String senderId)
+            {
+                listener.onInvalidation(decode(message));
+            }
+        };
+    }
+
+    /**
+     * Starts receiving the changes made on the other nodes, and sending those made on this one.
+     *
+     * @param messagingService the cluster's messaging service, which may be null when it is not available
+     */
+    public void start(@Nullable final ClusterMessagingService messagingService)
+    {
+        if (messagingService != null)
+        {
+            messagingService.registerListener(channel, consumer);
+        }
+        this.messagingService = messagingService;
+    }
+
+    /**
+     * Tells the other nodes that the given entities changed.
+     *
+     * @param ids the ids of the entities that changed
+     */
+    public void publish(@Nonnull final Collection<Long> ids)
+    {
+        if (!ids.isEmpty())
+        {
+            send(encode(ids));
+        }
+    }
+
+    /**
+     * Tells the other nodes that all the entities may have changed.
+     */
+    public void publishAll()
+    {
+        send("");
+    }
+
+    private void send(final String message)
+    {
+        final ClusterMessagingService messagingService = this.messagingService;
+        if (messagingService == null)
+        {
+            return;
+        }
+        try
+        {
+            messagingService.sendRemote(channel, message);
+        }
+        catch (RuntimeException e)
+        {
+            log.error("Unable to tell the other nodes about changes on channel '" + channel + "'", e);
+        }
+    }
+
+    static String encode(final Collection<Long> ids)
+    {
+        final String message = Joiner.on(',').skipNulls().join(ids);
+        return message.length() <= MAX_MESSAGE_LENGTH ? message : "";
+    }
+
+    @Nullable
+    static Set<Long> decode(@Nullable final String message)
+    {
+        if (isBlank(message))
+        {
+            return null;
+        }
+        final ImmutableSet.Builder<Long> ids = ImmutableSet.builder();
+        try
+        {
+            for (final String id : Splitter.on(',').omitEmptyStrings().trimResults().split(message))
+            {
+                ids.add(Long.valueOf(id));
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            log.warn("Ignoring the ids in the malformed message '" + message + "'; treating everything as changed");
+            return null;
+        }
+        return ids.build();
+    }
+}
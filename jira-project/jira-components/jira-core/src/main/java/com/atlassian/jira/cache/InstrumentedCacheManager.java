@@ -0,0 +1,485 @@
+package com.atlassian.jira.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.atlassian.cache.Cache;
+import com.atlassian.cache.CacheEntryListener;
+import com.atlassian.cache.CacheLoader;
+import com.atlassian.cache.CacheManager;
+import com.atlassian.cache.CacheSettings;
+import com.atlassian.cache.CacheSettingsBuilder;
+import com.atlassian.cache.CachedReference;
+import com.atlassian.cache.CachedReferenceListener;
+import com.atlassian.cache.ManagedCache;
+import com.atlassian.cache.Supplier;
+import com.atlassian.cache.impl.jmx.MBeanRegistrar;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Decorates a {@link CacheManager} so that the {@link CacheStatistics} of every cache it creates are kept: the time
+ * taken by their loaders, and their invalidations by cause. The statistics are published in the instrumentation page
+ * and, when atlassian-cache's JMX support is enabled, as MBeans named
+ * {@code com.atlassian.jira:type=CacheStatistics,name=<cache name>}.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class InstrumentedCacheManager implements CacheManager, MBeanRegistrar
+{
+    private static final Logger log = Logger.getLogger(InstrumentedCacheManager.class);
+
+    private final CacheManager delegate;
+    private final ConcurrentMap<String, CacheStatistics> statistics = new ConcurrentHashMap<String, CacheStatistics>();
+
+    // the server the MBeans are registered with, if any
+    private volatile MBeanServer mBeanServer;
+
+    public InstrumentedCacheManager(@Nonnull final CacheManager delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the cache manager that creates the caches
+     */
+    @Nonnull
+    public CacheManager getDelegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * @return the statistics of every cache created so far, by cache name
+     */
+    @Nonnull
+    public Map<String, CacheStatistics> getStatistics()
+    {
+        return ImmutableMap.copyOf(statistics);
+    }
+
+    @Nullable
+    public CacheStatistics getStatistics(@Nonnull final String cacheName)
+    {
+        return statistics.get(cacheName);
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings ("deprecation")
+    public Collection<Cache<?, ?>> getCaches()
+    {
+        return delegate.getCaches();
+    }
+
+    @Nonnull
+    @Override
+    public Collection<ManagedCache> getManagedCaches()
+    {
+        return delegate.getManagedCaches();
+    }
+
+    @Override
+    public void flushCaches()
+    {
+        for (final ManagedCache cache : delegate.getManagedCaches())
+        {
+            final CacheStatistics cacheStatistics = statistics.get(cache.getName());
+            if (cacheStatistics != null && cache.isFlushable())
+            {
+                cacheStatistics.recordFlush();
+            }
+        }
+        delegate.flushCaches();
+    }
+
+    @Nullable
+    @Override
+    public ManagedCache getManagedCache(@Nonnull final String name)
+    {
+        return delegate.getManagedCache(name);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        delegate.shutdown();
+    }
+
+    @Nonnull
+    @Override
+    public <V> CachedReference<V> getCachedReference(@Nonnull final String name, @Nonnull final Supplier<V> supplier)
+    {
+        return getCachedReference(name, supplier, new CacheSettingsBuilder().build());
+    }
+
+    @Nonnull
+    @Override
+    public <V> CachedReference<V> getCachedReference(@Nonnull final String name, @Nonnull final Supplier<V> supplier,
+            @Nonnull final CacheSettings required)
+    {
+        final CacheStatistics cacheStatistics = getOrCreateStatistics(name);
+        return new InstrumentedCachedReference<V>(
+                delegate.getCachedReference(name, new InstrumentedSupplier<V>(supplier, cacheStatistics), required), cacheStatistics);
+    }
+
+    @Nonnull
+    @Override
+    public <V> CachedReference<V> getCachedReference(@Nonnull final Class<?> owningClass, @Nonnull final String name,
+            @Nonnull final Supplier<V> supplier)
+    {
+        return getCachedReference(cacheName(owningClass, name), supplier);
+    }
+
+    @Nonnull
+    @Override
+    public <V> CachedReference<V> getCachedReference(@Nonnull final Class<?> owningClass, @Nonnull final String name,
+            @Nonnull final Supplier<V> supplier, @Nonnull final CacheSettings required)
+    {
+        return getCachedReference(cacheName(owningClass, name), supplier, required);
+    }
+
+    @Nonnull
+    @Override
+    public <K, V> Cache<K, V> getCache(@Nonnull final String name)
+    {
+        return getCache(name, null);
+    }
+
+    @Nonnull
+    @Override
+    public <K, V> Cache<K, V> getCache(@Nonnull final Class<?> owningClass, @Nonnull final String name)
+    {
+        return getCache(cacheName(owningClass, name));
+    }
+
+    @Nonnull
+    @Override
+    public <K, V> Cache<K, V> getCache(@Nonnull final String name, @Nullable final CacheLoader<K, V> loader)
+    {
+        return getCache(name, loader, new CacheSettingsBuilder().build());
+    }
+
+    @Nonnull
+    @Override
+    public <K, V> Cache<K, V> getCache(@Nonnull final String name, @Nullable final CacheLoader<K, V> loader,
+            @Nonnull final CacheSettings required)
+    {
+        final CacheStatistics cacheStatistics = getOrCreateStatistics(name);
+        final CacheLoader<K, V> instrumentedLoader = loader == null ? null : new InstrumentedCacheLoader<K, V>(loader, cacheStatistics);
+        return new InstrumentedCache<K, V>(delegate.<K, V>getCache(name, instrumentedLoader, required), cacheStatistics);
+    }
+
+    @Nonnull
+    @Override
+    @Deprecated
+    public <K, V> Cache<K, V> getCache(@Nonnull final String name, @Nonnull final Class<K> keyType, @Nonnull final Class<V> valueType)
+    {
+        return getCache(name);
+    }
+
+    @Override
+    public void registerMBeans(@Nullable final MBeanServer mBeanServer)
+    {
+        if (delegate instanceof MBeanRegistrar)
+        {
+            ((MBeanRegistrar) delegate).registerMBeans(mBeanServer);
+        }
+        if (mBeanServer != null)
+        {
+            this.mBeanServer = mBeanServer;
+            for (final CacheStatistics cacheStatistics : statistics.values())
+            {
+                registerMBean(mBeanServer, cacheStatistics);
+            }
+        }
+    }
+
+    @Override
+    public void unregisterMBeans(@Nullable final MBeanServer mBeanServer)
+    {
+        if (delegate instanceof MBeanRegistrar)
+        {
+            ((MBeanRegistrar) delegate).unregisterMBeans(mBeanServer);
+        }
+        if (mBeanServer != null)
+        {
+            this.mBeanServer = null;
+            for (final CacheStatistics cacheStatistics : statistics.values())
+            {
+                try
+                {
+                    final ObjectName name = objectName(cacheStatistics);
+                    if (mBeanServer.isRegistered(name))
+                    {
+                        mBeanServer.unregisterMBean(name);
+                    }
+                }
+                catch (final JMException e)
+                {
+                    log.warn("Unable to unregister the statistics MBean of cache " + cacheStatistics.getCacheName(), e);
+                }
+            }
+        }
+    }
+
+    private CacheStatistics getOrCreateStatistics(final String cacheName)
+    {
+        final CacheStatistics cacheStatistics = statistics.get(cacheName);
+        if (cacheStatistics != null)
+        {
+            return cacheStatistics;
+        }
+        final CacheStatistics newStatistics = new CacheStatistics(cacheName);
+        final CacheStatistics existing = statistics.putIfAbsent(cacheName, newStatistics);
+        if (existing != null)
+        {
+            return existing;
+        }
+        final MBeanServer server = mBeanServer;
+        if (server != null)
+        {
+            registerMBean(server, newStatistics);
+        }
+        return newStatistics;
+    }
+
+    private static void registerMBean(final MBeanServer mBeanServer, final CacheStatistics cacheStatistics)
+    {
+        try
+        {
+            final ObjectName name = objectName(cacheStatistics);
+            if (!mBeanServer.isRegistered(name))
+            {
+                mBeanServer.registerMBean(cacheStatistics, name);
+            }
+        }
+        catch (final JMException e)
+        {
+            log.warn("Unable to register the statistics MBean of cache " + cacheStatistics.getCacheName(), e);
+        }
+    }
+
+    private static ObjectName objectName(final CacheStatistics cacheStatistics) throws JMException
+    {
+        return new ObjectName("com.atlassian.jira:type=CacheStatistics,name=" + ObjectName.quote(cacheStatistics.getCacheName()));
+    }
+
+    // the same as atlassian-cache
+    private static String cacheName(final Class<?> owningClass, final String name)
+    {
+        return owningClass.getName() + '.' + name;
+    }
+
+    private static class InstrumentedCacheLoader<K, V> implements CacheLoader<K, V>
+    {
+        private final CacheLoader<K, V> loader;
+        private final CacheStatistics statistics;
+
+        InstrumentedCacheLoader(final CacheLoader<K, V> loader, final CacheStatistics statistics)
+        {
+            this.loader = loader;
+            this.statistics = statistics;
+        }
+
+        @Nonnull
+        @Override
+        public V load(@Nonnull final K key)
+        {
+            final long start = System.nanoTime();
+            boolean failed = true;
+            try
+            {
+                final V value = loader.load(key);
+                failed = false;
+                return value;
+            }
+            finally
+            {
+                statistics.recordLoad(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private static class InstrumentedSupplier<V> implements Supplier<V>
+    {
+        private final Supplier<V> supplier;
+        private final CacheStatistics statistics;
+
+        InstrumentedSupplier(final Supplier<V> supplier, final CacheStatistics statistics)
+        {
+            this.supplier = supplier;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public V get()
+        {
+            final long start = System.nanoTime();
+            boolean failed = true;
+            try
+            {
+                final V value = supplier.get();
+                failed = false;
+                return value;
+            }
+            finally
+            {
+                statistics.recordLoad(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private static class InstrumentedCache<K, V> implements Cache<K, V>
+    {
+        private final Cache<K, V> cache;
+        private final CacheStatistics statistics;
+
+        InstrumentedCache(final Cache<K, V> cache, final CacheStatistics statistics)
+        {
+            this.cache = cache;
+            this.statistics = statistics;
+        }
+
+        @Nonnull
+        @Override
+        public String getName()
+        {
+            return cache.getName();
+        }
+
+        @Override
+        public boolean containsKey(@Nonnull final K key)
+        {
+            return cache.containsKey(key);
+        }
+
+        @Nonnull
+        @Override
+        public Collection<K> getKeys()
+        {
+            return cache.getKeys();
+        }
+
+        @Nullable
+        @Override
+        public V get(@Nonnull final K key)
+        {
+            return cache.get(key);
+        }
+
+        @Override
+        public void put(@Nonnull final K key, @Nonnull final V value)
+        {
+            cache.put(key, value);
+        }
+
+        @Nullable
+        @Override
+        public V putIfAbsent(@Nonnull final K key, @Nonnull final V value)
+        {
+            return cache.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void remove(@Nonnull final K key)
+        {
+            statistics.recordRemove();
+            cache.remove(key);
+        }
+
+        @Override
+        public boolean remove(@Nonnull final K key, @Nonnull final V value)
+        {
+            statistics.recordRemove();
+            return cache.remove(key, value);
+        }
+
+        @Override
+        public void removeAll()
+        {
+            statistics.recordRemoveAll();
+            cache.removeAll();
+        }
+
+        @Override
+        public boolean replace(@Nonnull final K key, @Nonnull final V oldValue, @Nonnull final V newValue)
+        {
+            return cache.replace(key, oldValue, newValue);
+        }
+
+        @Override
+        public void addListener(@Nonnull final CacheEntryListener<K, V> listener, final boolean includeValues)
+        {
+            cache.addListener(listener, includeValues);
+        }
+
+        @Override
+        public void removeListener(@Nonnull final CacheEntryListener<K, V> listener)
+        {
+            cache.removeListener(listener);
+        }
+
+        @Override
+        public String toString()
+        {
+            return cache.toString();
+        }
+    }
+
+    private static class InstrumentedCachedReference<V> implements CachedReference<V>
+    {
+        private final CachedReference<V> reference;
+        private final CacheStatistics statistics;
+
+        InstrumentedCachedReference(final CachedReference<V> reference, final CacheStatistics statistics)
+        {
+            this.reference = reference;
+            this.statistics = statistics;
+        }
+
+        @Nonnull
+        @Override
+        public V get()
+        {
+            return reference.get();
+        }
+
+        @Override
+        public void reset()
+        {
+            statistics.recordRemoveAll();
+            reference.reset();
+        }
+
+        @Override
+        public void addListener(@Nonnull final CachedReferenceListener<V> listener, final boolean includeValues)
+        {
+            reference.addListener(listener, includeValues);
+        }
+
+        @Override
+        public void removeListener(@Nonnull final CachedReferenceListener<V> listener)
+        {
+            reference.removeListener(listener);
+        }
+
+        @Override
+        public String toString()
+        {
+            return reference.toString();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.atlassian.jira.cluster;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Pushes cluster messages to the other nodes as they are sent, so that they do not wait for the next poll of the
+ * cluster message table.
+ * <p>
+ * Messages are always stored in the database before they are pushed. The database remains the record of what was sent,
+ * and nodes read it to catch up on messages that were not pushed to them, for example because they were restarting.
+ *
+ * @see OfBizMessageHandlerService
+ * @since v6.3.15
+ */
+public interface MessageTransport
+{
+    /**
+     * Starts accepting messages pushed by other nodes.
+     *
+     * @param receiver receives the messages pushed to this node, on a thread of the transport
+     * @return whether messages are pushed, false if the transport is not configured or could not start
+     */
+    boolean start(@Nonnull Receiver receiver);
+
+    /**
+     * Pushes a message to a node, without waiting for it to be delivered. Messages pushed to the same node arrive in
+     * the order they were pushed, but may be lost if the node cannot be reached.
+     *
+     * @param node the node to push the message to
+     * @param message the message, which has been stored in the database
+     */
+    void push(@Nonnull Node node, @Nonnull PushedMessage message);
+
+    void stop();
+
+    interface Receiver
+    {
+        void receive(@Nonnull PushedMessage message);
+    }
+}
@@ -7,14 +7,23 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.atlassian.event.api.EventPublisher;
+import com.atlassian.instrumentation.operations.OpSnapshot;
+import com.atlassian.jira.instrumentation.Instrumentation;
+import com.atlassian.jira.instrumentation.InstrumentationName;
 import com.atlassian.jira.util.concurrent.ThreadFactories;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
 import org.apache.log4j.Logger;
 
 import static com.atlassian.jira.util.dbc.Assertions.is;
@@ -27,6 +36,11 @@ import static com.atlassian.jira.util.dbc.Assertions.notNull;
  * listeners alive across plugin restarts, etc.
  *
  * Polls the database on a regular interval to see if there are actions to perform
+ * <p>
+ * If the {@link MessageTransport} can push messages, each message is pushed to the other nodes after it is stored,
+ * together with the id of the message pushed to the same node before it. A node delivers a pushed message straight
+ * away if it follows the last message it delivered from the sender, and otherwise reads the messages it missed from the
+ * database first. The database is then only polled occasionally, to pick up messages whose push was lost.
  *
  * @since v6.1
  */
@@ -35,6 +49,7 @@ public class OfBizMessageHandlerService implements MessageHandlerService
     // Constants
     private static final int INITIAL_DELAY = 3;
     private static final int PERIOD = 3;
+    private static final int PUSHED_PERIOD = 30;
     private static final int CHANNEL_MAX_LENGTH = 20;
     private static final int MESSAGE_MAX_LENGTH = 200;
     private static final Logger log = Logger.getLogger(OfBizMessageHandlerService.class);
@@ -42,12 +57,22 @@ public class OfBizMessageHandlerService implements MessageHandlerService
     // Fields
     private final NodeStateManager nodeStateManager;
     private final OfBizClusterMessageStore clusterMessageStore;
+    private final MessageTransport messageTransport;
     private final ScheduledExecutorService scheduler;
     private final HashMap<String, List<WeakReference<ClusterMessageConsumer>>> listeners;
     private final EventMessageConsumer eventMessageConsumer; // Needed to keep the consumer from being garbage collected.
 
+    // only used by the scheduler thread
     private final Map<String, Long> lastMessageProcessedByNodeId = new HashMap<String, Long>();
 
+    // guarded by sendLock
+    private final Object sendLock = new Object();
+    private final Map<String, Long> lastMessagePushedByNodeId = new HashMap<String, Long>();
+    private Long lastMessageSentId;
+
+    private volatile List<Node> clusteredNodes = ImmutableList.of();
+    private volatile boolean pushing;
+
     @Nullable
     private volatile ScheduledFuture<?> messageHandlerService;
 
@@ -59,11 +84,35 @@ public class OfBizMessageHandlerService implements MessageHandlerService
         }
     };
 
+    private final MessageTransport.Receiver receiver = new MessageTransport.Receiver()
+    {
+        @Override
+        public void receive(@Nonnull final PushedMessage message)
+        {
+            try
+            {
+                // deliver on the scheduler thread, so that pushed and polled messages are delivered in order
+                scheduler.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        handlePushedMessage(message);
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                // stopping
+            }
+        }
+    };
+
     public OfBizMessageHandlerService(final NodeStateManager nodeStateManager, final OfBizClusterMessageStore clusterMessageStore,
-            final EventPublisher eventPublisher)
+            final EventPublisher eventPublisher, final MessageTransport messageTransport)
     {
         this.clusterMessageStore = clusterMessageStore;
         this.nodeStateManager = nodeStateManager;
+        this.messageTransport = messageTransport;
         scheduler = Executors.newScheduledThreadPool(1, ThreadFactories.namedThreadFactory("ClusterMessageHandlerServiceThread"));
         listeners = new HashMap<String, List<WeakReference<ClusterMessageConsumer>>>();
         eventMessageConsumer = new EventMessageConsumer(eventPublisher);
@@ -75,13 +124,17 @@ public class OfBizMessageHandlerService implements MessageHandlerService
 
         if (getCurrentNode().isClustered())
         {
+            final ImmutableList.Builder<Node> nodes = ImmutableList.builder();
             for (Node node : nodeStateManager.getAllNodes())
             {
                 if (node.isClustered())
                 {
+                    nodes.add(node);
                     lastMessageProcessedByNodeId.put(node.getNodeId(), clusterMessageStore.getLatestMessageByNodeId(node.getNodeId()));
                 }
             }
+            clusteredNodes = nodes.build();
+            lastMessageSentId = lastMessageProcessedByNodeId.get(getCurrentNode().getNodeId());
         }
     }
 
@@ -93,11 +146,44 @@ public class OfBizMessageHandlerService implements MessageHandlerService
         if (getCurrentNode().isClustered())
         {
             final String sourceId = getCurrentNode().getNodeId();
-            clusterMessage =  clusterMessageStore.createMessage(sourceId, destinationId, message.toString());
+            // store and push under the lock, so that each node is pushed the messages in the order of their ids
+            synchronized (sendLock)
+            {
+                clusterMessage =  clusterMessageStore.createMessage(sourceId, destinationId, message.toString());
+                pushMessage(clusterMessage);
+            }
         }
         return clusterMessage;
     }
 
+    private void pushMessage(final ClusterMessage clusterMessage)
+    {
+        final String sourceId = clusterMessage.getSourceNode();
+        final String destinationId = clusterMessage.getDestinationNode();
+        for (Node node : clusteredNodes)
+        {
+            final String nodeId = node.getNodeId();
+            if (nodeId.equals(sourceId) || !(isForAllNodes(destinationId) || destinationId.equals(nodeId)))
+            {
+                continue;
+            }
+            // until a message is pushed to a node we do not know which of our messages it has seen, so it is sent our
+            // last message of all, which makes it check the database unless it has seen that one
+            final Long previousId = lastMessagePushedByNodeId.containsKey(nodeId) ? lastMessagePushedByNodeId.get(nodeId) : lastMessageSentId;
+            lastMessagePushedByNodeId.put(nodeId, clusterMessage.getId());
+            if (pushing && node.getState() == Node.NodeState.ACTIVE)
+            {
+                messageTransport.push(node, new PushedMessage(clusterMessage, previousId));
+            }
+        }
+        lastMessageSentId = clusterMessage.getId();
+    }
+
+    private static boolean isForAllNodes(final String destinationId)
+    {
+        return ClusterManager.ALL_NODES.equals(destinationId) || ClusterManager.ANY_NODE.equals(destinationId);
+    }
+
     @Override
     public List<ClusterMessage> receiveMessages()
     {
@@ -105,22 +191,53 @@ public class OfBizMessageHandlerService implements MessageHandlerService
         final Node currentNode = getCurrentNode();
         if (currentNode.isClustered())
         {
+            final ImmutableList.Builder<Node> nodes = ImmutableList.builder();
             for (Node node : nodeStateManager.getAllNodes())
             {
+                if (node.isClustered())
+                {
+                    nodes.add(node);
+                }
                 if (node.isClustered() && !node.getNodeId().equals(currentNode.getNodeId()))
                 {
                     Long startAfterId = lastMessageProcessedByNodeId.get(node.getNodeId());
                     allMessages.addAll(clusterMessageStore.getMessages(node, currentNode, startAfterId));
                 }
             }
+            updateClusteredNodes(nodes.build());
         }
         return allMessages;
     }
 
+    private void updateClusteredNodes(final List<Node> nodes)
+    {
+        synchronized (sendLock)
+        {
+            final List<String> nodeIds = new ArrayList<String>();
+            for (Node node : nodes)
+            {
+                nodeIds.add(node.getNodeId());
+            }
+            // a node that leaves and rejoins may have missed messages, so start it over from our last message
+            lastMessagePushedByNodeId.keySet().retainAll(nodeIds);
+            clusteredNodes = nodes;
+        }
+    }
+
     @Override
     public void start()
     {
-        messageHandlerService = scheduler.scheduleAtFixedRate(handler, INITIAL_DELAY, PERIOD, SECONDS);
+        start(INITIAL_DELAY);
+    }
+
+    /**
+     * @param initialDelay the number of seconds before the database is first polled
+     */
+    @VisibleForTesting
+    void start(final long initialDelay)
+    {
+        pushing = getCurrentNode().isClustered() && messageTransport.start(receiver);
+        messageHandlerService = scheduler.scheduleAtFixedRate(handler, initialDelay, pushing ? PUSHED_PERIOD : PERIOD, SECONDS);
     }
 
     @Override
@@ -130,6 +247,8 @@ public class OfBizMessageHandlerService implements MessageHandlerService
         {
             messageHandlerService.cancel(false);
         }
+        pushing = false;
+        messageTransport.stop();
         scheduler.shutdown();
     }
 
@@ -144,21 +263,7 @@ public class OfBizMessageHandlerService implements MessageHandlerService
         {
             for (ClusterMessage message : receiveMessages())
             {
-                String channel = message.getMessage().getChannel();
-                String supplementalInformation = message.getMessage().getSupplementalInformation();
-                String sourceNode = message.getSourceNode();
-                try
-                {
-                    sendLocalFromNode(channel, supplementalInformation, sourceNode);
-                }
-                catch (Exception e)
-                {
-                    log.error("There was a problem handling a cluster message", e);
-                }
-                finally
-                {
-                    lastMessageProcessedByNodeId.put(sourceNode, message.getId());
-                }
+                deliver(message, InstrumentationName.CLUSTER_MESSAGES_POLLED);
             }
         }
         catch (Exception e)
@@ -167,6 +272,49 @@ public class OfBizMessageHandlerService implements MessageHandlerService
         }
     }
 
+    private void handlePushedMessage(final PushedMessage pushedMessage)
+    {
+        final ClusterMessage message = pushedMessage.getMessage();
+        final Long lastProcessedId = lastMessageProcessedByNodeId.get(message.getSourceNode());
+        if (lastProcessedId != null && message.getId() <= lastProcessedId)
+        {
+            // already read from the database
+            return;
+        }
+        final String destinationId = message.getDestinationNode();
+        if (Objects.equal(lastProcessedId, pushedMessage.getPreviousId())
+                && (ClusterManager.ALL_NODES.equals(destinationId) || destinationId.equals(getCurrentNode().getNodeId())))
+        {
+            deliver(message, InstrumentationName.CLUSTER_MESSAGES_PUSHED);
+        }
+        else
+        {
+            // we missed a message, or this one has to be claimed, so read them from the database
+            handleReceivedMessages();
+        }
+    }
+
+    private void deliver(final ClusterMessage message, final InstrumentationName instrumentationName)
+    {
+        String channel = message.getMessage().getChannel();
+        String supplementalInformation = message.getMessage().getSupplementalInformation();
+        String sourceNode = message.getSourceNode();
+        try
+        {
+            sendLocalFromNode(channel, supplementalInformation, sourceNode);
+        }
+        catch (Exception e)
+        {
+            log.error("There was a problem handling a cluster message", e);
+        }
+        finally
+        {
+            lastMessageProcessedByNodeId.put(sourceNode, message.getId());
+        }
+        final long latency = Math.max(0, System.currentTimeMillis() - message.getTimestamp().getTime());
+        Instrumentation.pullOpCounter(instrumentationName).add(new OpSnapshot(instrumentationName.getInstrumentName(), 1, latency));
+    }
+
     @Override
     public void registerListener(String channel, ClusterMessageConsumer consumer)
     {
@@ -0,0 +1,47 @@
+package com.atlassian.jira.cluster;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A cluster message pushed to a node by a {@link MessageTransport}, with the id of the message the sender pushed to the
+ * node before it. The receiver can tell from it whether it missed any messages and has to read them from the database.
+ *
+ * @since v6.3.15
+ */
+@Immutable
+public class PushedMessage
+{
+    private final ClusterMessage message;
+    private final Long previousId;
+
+    public PushedMessage(@Nonnull final ClusterMessage message, @Nullable final Long previousId)
+    {
+        this.message = message;
+        this.previousId = previousId;
+    }
+
+    @Nonnull
+    public ClusterMessage getMessage()
+    {
+        return message;
+    }
+
+    /**
+     * @return the id of the previous message from the same sender for the receiving node, or null if the sender had not
+     *         sent any messages before
+     */
+    @Nullable
+    public Long getPreviousId()
+    {
+        return previousId;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "message " + message.getId() + " from " + message.getSourceNode() + " (after " + previousId + ")";
+    }
+}
@@ -0,0 +1,564 @@
+package com.atlassian.jira.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.sql.Timestamp;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.atlassian.jira.util.concurrent.ThreadFactories;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import static com.google.common.collect.Sets.newSetFromMap;
+
+/**
+ * A {@link MessageTransport} that pushes messages to the other nodes over TCP connections.
+ * <p>
+ * The transport is enabled by setting {@link #MESSAGES_PORT} in cluster.properties, to the same port on every node.
+ * Nodes listen on that port, on the address set by {@link EhCacheConfigurationFactory#EHCACHE_LISTENER_HOSTNAME} if
+ * there is one, and connect to each other at the addresses they registered in the cluster node table. Like the cache
+ * replication, the connections are not authenticated and must only be reachable from the cluster's network.
+ * <p>
+ * Each node keeps one connection open to every node it pushes to, with its own queue of messages written by one thread
+ * at a time so that messages arrive in the order they were pushed, and a node that is slow or unreachable does not hold
+ * up the others. A message that cannot be written, or that does not fit in the node's queue, is dropped; the receiving
+ * node reads it from the database when it next polls or is pushed a later message.
+ * <p>
+ * A write that blocks for more than five seconds closes the connection. Connections that have been idle for a minute
+ * are reopened before they are written to, and receiving nodes close connections they have read nothing from for five
+ * minutes, so that a connection to a node that went away without closing it does not stay open for ever.
+ *
+ * @since v6.3.15
+ */
+public class SocketMessageTransport implements MessageTransport
+{
+    /**
+     * The cluster.properties key of the port nodes listen on for pushed messages.
+     */
+    public static final String MESSAGES_PORT = "jira.node.messages.port";
+
+    private static final Logger log = Logger.getLogger(SocketMessageTransport.class);
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final long WRITE_TIMEOUT_MILLIS = 5000;
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // longer than the senders' idle timeout, so that they never write to a connection the receiver is about to close
+    private static final int READ_TIMEOUT_MILLIS = (int) TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_QUEUED_MESSAGES = 1000;
+
+    @Nullable
+    private final String bindHost;
+    private final int port;
+    private final Function<Node, InetSocketAddress> addresses;
+
+    private final Set<Socket> openSockets = newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    private final ConcurrentMap<String, Peer> peers = new ConcurrentHashMap<String, Peer>();
+
+    private volatile ServerSocket serverSocket;
+    private volatile ExecutorService listener;
+    private volatile ExecutorService sender;
+    private volatile ScheduledExecutorService watchdog;
+
+    public SocketMessageTransport(final ClusterNodeProperties clusterNodeProperties)
+    {
+        this(clusterNodeProperties.getProperty(EhCacheConfigurationFactory.EHCACHE_LISTENER_HOSTNAME), getPort(clusterNodeProperties));
+    }
+
+    private SocketMessageTransport(@Nullable final String bindHost, final int port)
+    {
+        this(bindHost, port, new Function<Node, InetSocketAddress>()
+        {
+            @Override
+            public InetSocketAddress apply(final Node node)
+            {
+                return new InetSocketAddress(node.getIp(), port);
+            }
+        });
+    }
+
+    /**
+     * @param bindHost the address to listen on, or null for all addresses
+     * @param port the port to listen on, 0 for any free port, or a negative number to disable the transport
+     * @param addresses the addresses of the nodes' listeners
+     */
+    @VisibleForTesting
+    SocketMessageTransport(@Nullable final String bindHost, final int port, final Function<Node, InetSocketAddress> addresses)
+    {
+        this.bindHost = bindHost;
+        this.port = port;
+        this.addresses = addresses;
+    }
+
+    private static int getPort(final ClusterNodeProperties clusterNodeProperties)
+    {
+        final String port = clusterNodeProperties.getProperty(MESSAGES_PORT);
+        if (StringUtils.isBlank(port))
+        {
+            return -1;
+        }
+        try
+        {
+            return Integer.parseInt(port.trim());
+        }
+        catch (final NumberFormatException e)
+        {
+            log.error("Ignoring the invalid " + MESSAGES_PORT + " '" + port + "'; cluster messages will only be read from the database");
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized boolean start(@Nonnull final Receiver receiver)
+    {
+        if (port < 0 || serverSocket != null)
+        {
+            return serverSocket != null;
+        }
+        try
+        {
+            final ServerSocket socket = new ServerSocket();
+            socket.setReuseAddress(true);
+            socket.bind(bindHost == null ? new InetSocketAddress(port) : new InetSocketAddress(bindHost, port));
+            serverSocket = socket;
+        }
+        catch (final IOException e)
+        {
+            log.error("Unable to listen for cluster messages on port " + port + "; they will only be read from the database", e);
+            return false;
+        }
+        listener = Executors.newCachedThreadPool(ThreadFactories.namedThreadFactory("ClusterMessageListener"));
+        sender = Executors.newCachedThreadPool(ThreadFactories.namedThreadFactory("ClusterMessageSender"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(ThreadFactories.namedThreadFactory("ClusterMessageWatchdog"));
+        watchdog.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (final Peer peer : peers.values())
+                {
+                    peer.closeIfWriteTimedOut();
+                }
+            }
+        }, WRITE_TIMEOUT_MILLIS, WRITE_TIMEOUT_MILLIS / 5, TimeUnit.MILLISECONDS);
+        listener.execute(new Acceptor(serverSocket, receiver));
+        log.info("Listening for cluster messages on " + serverSocket.getLocalSocketAddress());
+        return true;
+    }
+
+    @Override
+    public void push(@Nonnull final Node node, @Nonnull final PushedMessage message)
+    {
+        if (sender == null)
+        {
+            return;
+        }
+        Peer peer = peers.get(node.getNodeId());
+        if (peer == null)
+        {
+            final Peer newPeer = new Peer(node.getNodeId());
+            peer = peers.putIfAbsent(node.getNodeId(), newPeer);
+            if (peer == null)
+            {
+                peer = newPeer;
+            }
+        }
+        peer.push(node, message);
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        if (serverSocket == null)
+        {
+            return;
+        }
+        try
+        {
+            serverSocket.close();
+        }
+        catch (final IOException e)
+        {
+            // closing anyway
+        }
+        serverSocket = null;
+        sender.shutdownNow();
+        sender = null;
+        watchdog.shutdownNow();
+        watchdog = null;
+        for (final Peer peer : peers.values())
+        {
+            peer.close();
+        }
+        peers.clear();
+        for (final Socket socket : ImmutableList.copyOf(openSockets))
+        {
+            closeQuietly(socket);
+        }
+        listener.shutdownNow();
+        listener = null;
+    }
+
+    /**
+     * @return the port the transport listens on, or -1 if it is not started
+     */
+    @VisibleForTesting
+    int getLocalPort()
+    {
+        final ServerSocket socket = serverSocket;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    private static void write(final DataOutputStream out, final PushedMessage pushedMessage) throws IOException
+    {
+        final ClusterMessage message = pushedMessage.getMessage();
+        out.writeLong(message.getId());
+        out.writeUTF(message.getSourceNode());
+        out.writeUTF(message.getDestinationNode());
+        out.writeUTF(message.getMessage().toString());
+        out.writeLong(message.getTimestamp().getTime());
+        out.writeBoolean(pushedMessage.getPreviousId() != null);
+        out.writeLong(pushedMessage.getPreviousId() != null ? pushedMessage.getPreviousId() : 0);
+    }
+
+    private static PushedMessage read(final DataInputStream in) throws IOException
+    {
+        final long id = in.readLong();
+        final String sourceNode = in.readUTF();
+        final String destinationNode = in.readUTF();
+        final Message message = Message.fromString(in.readUTF());
+        final Timestamp timestamp = new Timestamp(in.readLong());
+        final boolean hasPreviousId = in.readBoolean();
+        final long previousId = in.readLong();
+        return new PushedMessage(new ClusterMessage(id, sourceNode, destinationNode, null, message, timestamp), hasPreviousId ? previousId : null);
+    }
+
+    private void closeQuietly(final Socket socket)
+    {
+        openSockets.remove(socket);
+        try
+        {
+            socket.close();
+        }
+        catch (final IOException e)
+        {
+            // closing anyway
+        }
+    }
+
+    /**
+     * The messages waiting to be pushed to one node, and the connection they are written to. At most one sender thread
+     * writes a node's messages at a time.
+     */
+    private class Peer implements Runnable
+    {
+        private final String nodeId;
+        private final BlockingQueue<Queued> queue = new ArrayBlockingQueue<Queued>(MAX_QUEUED_MESSAGES);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // only used by the thread that is writing the node's messages, apart from close()
+        private volatile Connection connection;
+
+        Peer(final String nodeId)
+        {
+            this.nodeId = nodeId;
+        }
+
+        void push(final Node node, final PushedMessage message)
+        {
+            if (!queue.offer(new Queued(node, message)))
+            {
+                log.debug("Too many messages are waiting to be pushed to node " + nodeId + ", " + message + " will be read from the database");
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule()
+        {
+            final ExecutorService sender = SocketMessageTransport.this.sender;
+            if (sender != null && scheduled.compareAndSet(false, true))
+            {
+                try
+                {
+                    sender.execute(this);
+                }
+                catch (final RejectedExecutionException e)
+                {
+                    // stopping
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                for (Queued queued = queue.poll(); queued != null && sender != null; queued = queue.poll())
+                {
+                    send(queued.node, queued.message);
+                }
+            }
+            finally
+            {
+                scheduled.set(false);
+            }
+            // a message may have been queued after the queue was found empty but before the flag was cleared
+            if (!queue.isEmpty())
+            {
+                schedule();
+            }
+        }
+
+        private void send(final Node node, final PushedMessage message)
+        {
+            // a connection that was closed by the other node usually only fails on the first write, so try a new one once
+            for (int attempt = 0; attempt < 2; attempt++)
+            {
+                Connection connection = this.connection;
+                try
+                {
+                    if (connection != null && connection.isIdle())
+                    {
+                        // the other node may have closed it by now
+                        connection.close();
+                        connection = null;
+                    }
+                    if (connection == null)
+                    {
+                        connection = new Connection(addresses.apply(node));
+                        this.connection = connection;
+                    }
+                    connection.write(message);
+                    return;
+                }
+                catch (final IOException e)
+                {
+                    if (connection != null)
+                    {
+                        connection.close();
+                    }
+                    this.connection = null;
+                    if (attempt > 0)
+                    {
+                        log.debug("Unable to push " + message + " to node " + nodeId + ", it will be read from the database", e);
+                    }
+                }
+            }
+        }
+
+        void closeIfWriteTimedOut()
+        {
+            final Connection connection = this.connection;
+            if (connection != null && connection.isWriteTimedOut())
+            {
+                log.debug("Closing the connection to node " + nodeId + ", it has not accepted a message for " + WRITE_TIMEOUT_MILLIS + " ms");
+                // fails the blocked write, after which the message is dropped
+                connection.close();
+            }
+        }
+
+        void close()
+        {
+            queue.clear();
+            final Connection connection = this.connection;
+            if (connection != null)
+            {
+                connection.close();
+            }
+        }
+    }
+
+    private static class Queued
+    {
+        private final Node node;
+        private final PushedMessage message;
+
+        Queued(final Node node, final PushedMessage message)
+        {
+            this.node = node;
+            this.message = message;
+        }
+    }
+
+    private class Connection
+    {
+        private final Socket socket;
+        private final DataOutputStream out;
+        // when the write in progress started, or 0 if none is
+        private volatile long writeStarted;
+        private volatile long lastWritten = System.currentTimeMillis();
+
+        Connection(final InetSocketAddress address) throws IOException
+        {
+            socket = new Socket();
+            try
+            {
+                socket.setTcpNoDelay(true);
+                socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            }
+            catch (final IOException e)
+            {
+                socket.close();
+                throw e;
+            }
+        }
+
+        void write(final PushedMessage message) throws IOException
+        {
+            writeStarted = System.currentTimeMillis();
+            try
+            {
+                SocketMessageTransport.write(out, message);
+                out.flush();
+            }
+            finally
+            {
+                writeStarted = 0;
+                lastWritten = System.currentTimeMillis();
+            }
+        }
+
+        boolean isWriteTimedOut()
+        {
+            final long started = writeStarted;
+            return started != 0 && System.currentTimeMillis() - started > WRITE_TIMEOUT_MILLIS;
+        }
+
+        boolean isIdle()
+        {
+            return System.currentTimeMillis() - lastWritten > IDLE_TIMEOUT_MILLIS;
+        }
+
+        void close()
+        {
+            try
+            {
+                socket.close();
+            }
+            catch (final IOException e)
+            {
+                // closing anyway
+            }
+        }
+    }
+
+    private class Acceptor implements Runnable
+    {
+        private final ServerSocket serverSocket;
+        private final Receiver receiver;
+
+        Acceptor(final ServerSocket serverSocket, final Receiver receiver)
+        {
+            this.serverSocket = serverSocket;
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void run()
+        {
+            while (!serverSocket.isClosed())
+            {
+                try
+                {
+                    final Socket socket = serverSocket.accept();
+                    openSockets.add(socket);
+                    listener.execute(new Reader(socket, receiver));
+                }
+                catch (final RejectedExecutionException e)
+                {
+                    return;
+                }
+                catch (final IOException e)
+                {
+                    if (!serverSocket.isClosed())
+                    {
+                        log.warn("Unable to accept a cluster message connection", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private class Reader implements Runnable
+    {
+        private final Socket socket;
+        private final Receiver receiver;
+
+        Reader(final Socket socket, final Receiver receiver)
+        {
+            this.socket = socket;
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (true)
+                {
+                    final PushedMessage message = read(in);
+                    try
+                    {
+                        receiver.receive(message);
+                    }
+                    catch (final RuntimeException e)
+                    {
+                        log.error("There was a problem receiving " + message, e);
+                    }
+                }
+            }
+            catch (final EOFException e)
+            {
+                // the other node closed the connection
+            }
+            catch (final SocketTimeoutException e)
+            {
+                // the other node has not used the connection for a long time, and opens a new one when it next pushes
+            }
+            catch (final SocketException e)
+            {
+                // the connection was reset or this transport stopped
+            }
+            catch (final IOException e)
+            {
+                log.warn("Unable to read cluster messages from " + socket.getRemoteSocketAddress(), e);
+            }
+            finally
+            {
+                closeQuietly(socket);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.atlassian.jira.entity;
+
+import java.util.List;
+
+/**
+ * Provide an entity page consumer to
+ * {@link com.atlassian.jira.entity.SelectQuery.ExecutionContext#consumeById(int, EntityPageConsumer)} to accept the
+ * results of a query one page at a time.
+ * <p>
+ * The next page is not queried until the consumer has returned from {@link #consume(java.util.List)}, so a slow
+ * consumer holds the query back rather than having results pile up in memory.  The consumer can also stop the query
+ * early by returning {@code false}.
+ * </p>
+ *
+ * @since v6.3.15
+ * @param <E> the entity type yielded by the query, as determined by which {@link Select} factory method was used
+ * @param <R> the result type that the consumer will return once all pages have been accepted
+ */
+public interface EntityPageConsumer<E, R>
+{
+    /**
+     * Called by the entity engine with each page of entities yielded by the query, in {@code id} order.
+     *
+     * @param page the entities in the page; never empty
+     * @return {@code true} to have the next page fetched; {@code false} to stop the query
+     */
+    boolean consume(List<E> page);
+
+    /**
+     * Called by the entity engine to obtain the return value after the last page has been consumed or the consumer
+     * has stopped the query.  Implementations may assume that this will be called exactly once and that
+     * {@link #consume(java.util.List)} will not be called again afterwards.
+     *
+     * @return the result of consuming the entities
+     */
+    R result();
+}
@@ -3,6 +3,7 @@ package com.atlassian.jira.entity;
 import com.atlassian.jira.ofbiz.OfBizDelegator;
 import com.atlassian.jira.util.Function;
 import com.atlassian.jira.util.Visitor;
+import com.atlassian.jira.util.collect.CloseableIterator;
 
 import java.util.List;
 
@@ -98,5 +99,45 @@ public interface SelectQuery<E>
          * @since 6.1
          */
         long count();
+
+        /**
+         * Returns an iterator over the selected values that walks the entity in {@code id} order, querying for
+         * {@code fetchSize} rows at a time.
+         * <p>
+         * Each page is selected with a {@code WHERE id > ?} condition on the last {@code id} seen rather than an
+         * {@code OFFSET}, so every page costs the same however far into a large table it is, and only one page is
+         * held in memory at a time.  No connection is held open between pages.
+         * </p>
+         * <p>
+         * The entity must have a numeric {@code "id"} column, which is selected even if it was not asked for.  The
+         * query must not specify an ordering or a limit, nor {@code DISTINCT} unless the {@code "id"} is one of the
+         * selected columns.  The iterator must be closed if it is not
+         * exhausted.
+         * </p>
+         *
+         * @param fetchSize the number of rows to query for at a time; must be greater than 0
+         * @return an iterator over the selected values in {@code id} order
+         * @throws IllegalStateException if the query is not suitable for paging by {@code id}
+         * @since v6.3.15
+         */
+        @Nonnull
+        CloseableIterator<E> iterateById(int fetchSize);
+
+        /**
+         * Pushes the selected values to an {@link EntityPageConsumer} a page at a time, walking the entity in
+         * {@code id} order in the same way as {@link #iterateById(int)}.
+         * <p>
+         * The next page is queried only once the consumer has returned from the previous one, and not at all if
+         * the consumer asks to stop.
+         * </p>
+         *
+         * @param fetchSize the number of rows to query for at a time; must be greater than 0
+         * @param consumer the entity page consumer that will consume the query results
+         * @param <R> the return value of the consumer
+         * @return the result returned by the consumer's {@link EntityPageConsumer#result()} method.
+         * @throws IllegalStateException if the query is not suitable for paging by {@code id}
+         * @since v6.3.15
+         */
+        <R> R consumeById(int fetchSize, @Nonnull EntityPageConsumer<E, R> consumer);
     }
 }
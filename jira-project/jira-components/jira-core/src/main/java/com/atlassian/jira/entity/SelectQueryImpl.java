@@ -2,7 +2,11 @@ package com.atlassian.jira.entity;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -13,9 +17,13 @@ import com.atlassian.jira.ofbiz.OfBizDelegator;
 import com.atlassian.jira.ofbiz.OfBizListIterator;
 import com.atlassian.jira.util.Function;
 import com.atlassian.jira.util.Visitor;
+import com.atlassian.jira.util.collect.CloseableIterator;
+
+import com.google.common.collect.ImmutableList;
 
 import org.ofbiz.core.entity.EntityCondition;
 import org.ofbiz.core.entity.EntityConditionList;
+import org.ofbiz.core.entity.EntityExpr;
 import org.ofbiz.core.entity.EntityFieldMap;
 import org.ofbiz.core.entity.EntityFindOptions;
 import org.ofbiz.core.entity.EntityOperator;
@@ -27,6 +35,9 @@ import org.ofbiz.core.entity.GenericValue;
  */
 public class SelectQueryImpl<E> implements SelectQuery<E>
 {
+    private static final String ID = "id";
+    private static final List<String> ORDER_BY_ID = ImmutableList.of(ID);
+
     private final boolean distinct;
     private final Collection<String> fieldsToSelect;
     private final String entityName;
@@ -84,6 +95,49 @@ public class SelectQueryImpl<E> implements SelectQuery<E>
         return new EntityConditionList(conditions, EntityOperator.AND);
     }
 
+    private EntityCondition getWhereEntityCondition(final Long afterId)
+    {
+        final EntityCondition condition = getWhereEntityCondition();
+        if (afterId == null)
+        {
+            return condition;
+        }
+        final EntityExpr afterIdCondition = new EntityExpr(ID, EntityOperator.GREATER_THAN, afterId);
+        if (condition == null)
+        {
+            return afterIdCondition;
+        }
+        return new EntityConditionList(ImmutableList.of(condition, afterIdCondition), EntityOperator.AND);
+    }
+
+    private Collection<String> getFieldsToSelectWithId()
+    {
+        if (fieldsToSelect == null || fieldsToSelect.contains(ID))
+        {
+            return fieldsToSelect;
+        }
+        final Collection<String> fields = new LinkedHashSet<String>(fieldsToSelect);
+        fields.add(ID);
+        return fields;
+    }
+
+    private void checkPageableById(final int fetchSize)
+    {
+        if (fetchSize <= 0)
+        {
+            throw new IllegalArgumentException("fetchSize must be greater than 0: " + fetchSize);
+        }
+        // DISTINCT is harmless when the id is among the selected columns, but selecting it would change the results otherwise
+        if (distinct && fieldsToSelect != null && !fieldsToSelect.contains(ID))
+        {
+            throw new IllegalStateException("Queries paged by id cannot select DISTINCT values without the id: " + this);
+        }
+        if (orderBy != null || offset != 0 || maxResults != 0)
+        {
+            throw new IllegalStateException("Queries paged by id cannot specify an ordering or a limit: " + this);
+        }
+    }
+
     @SuppressWarnings("RedundantIfStatement")
     @Override
     public boolean equals(final Object o)
@@ -284,10 +338,125 @@ public class SelectQueryImpl<E> implements SelectQuery<E>
             }
         }
 
+        @Nonnull
+        @Override
+        public CloseableIterator<E> iterateById(final int fetchSize)
+        {
+            checkPageableById(fetchSize);
+            return new PagingByIdIterator(fetchSize);
+        }
+
+        @Override
+        public <R> R consumeById(final int fetchSize, @Nonnull final EntityPageConsumer<E, R> consumer)
+        {
+            checkPageableById(fetchSize);
+            final Collection<String> fields = getFieldsToSelectWithId();
+            Long lastId = null;
+            List<GenericValue> rows = findPage(fields, null, fetchSize);
+            while (!rows.isEmpty())
+            {
+                final List<E> page = new ArrayList<E>(rows.size());
+                for (GenericValue genericValue : rows)
+                {
+                    page.add(entityBuilder.build(genericValue));
+                }
+                if (!consumer.consume(page) || rows.size() < fetchSize)
+                {
+                    break;
+                }
+                lastId = rows.get(rows.size() - 1).getLong(ID);
+                rows = findPage(fields, lastId, fetchSize);
+            }
+            return consumer.result();
+        }
+
+        /**
+         * Selects the next {@code fetchSize} rows in {@code id} order.  The rows are read in full so that the
+         * connection is given back before they are handed out.
+         */
+        private List<GenericValue> findPage(final Collection<String> fields, final Long afterId, final int fetchSize)
+        {
+            final EntityFindOptions entityFindOptions = new EntityFindOptions();
+            entityFindOptions.setMaxResults(fetchSize);
+            entityFindOptions.fetchSize(fetchSize);
+
+            final OfBizListIterator ofBizListIterator = ofBizDelegator.findListIteratorByCondition(entityName,
+                    getWhereEntityCondition(afterId), null, fields, ORDER_BY_ID, entityFindOptions);
+            try
+            {
+                final List<GenericValue> rows = new ArrayList<GenericValue>(fetchSize);
+                for (GenericValue genericValue : ofBizListIterator)
+                {
+                    rows.add(genericValue);
+                }
+                return rows;
+            }
+            finally
+            {
+                ofBizListIterator.close();
+            }
+        }
+
         @Override
         public String toString()
         {
             return "ExecutionContextImpl[" + SelectQueryImpl.this + ']';
         }
+
+        /**
+         * Iterates over one page of rows at a time, fetching the next page once the current one is used up.
+         */
+        private final class PagingByIdIterator implements CloseableIterator<E>
+        {
+            private final int fetchSize;
+            private final Collection<String> fields = getFieldsToSelectWithId();
+            private Iterator<GenericValue> page = Collections.<GenericValue>emptyList().iterator();
+            private Long lastId;
+            private boolean lastPage;
+
+            PagingByIdIterator(final int fetchSize)
+            {
+                this.fetchSize = fetchSize;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                if (!page.hasNext() && !lastPage)
+                {
+                    final List<GenericValue> rows = findPage(fields, lastId, fetchSize);
+                    lastPage = rows.size() < fetchSize;
+                    if (!rows.isEmpty())
+                    {
+                        lastId = rows.get(rows.size() - 1).getLong(ID);
+                    }
+                    page = rows.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return entityBuilder.build(page.next());
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close()
+            {
+                lastPage = true;
+                page = Collections.<GenericValue>emptyList().iterator();
+            }
+        }
     }
 }
@@ -0,0 +1,443 @@
+package com.atlassian.jira.event;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.internal.AnnotationAsynchronousEventResolver;
+import com.atlassian.event.internal.AsynchronousAbleEventDispatcher;
+import com.atlassian.event.internal.AsynchronousEventResolver;
+import com.atlassian.event.spi.EventExecutorFactory;
+import com.atlassian.event.spi.ListenerInvoker;
+import com.atlassian.instrumentation.ExternalCounter;
+import com.atlassian.instrumentation.ExternalGauge;
+import com.atlassian.instrumentation.ExternalValue;
+import com.atlassian.instrumentation.Instrument;
+import com.atlassian.instrumentation.InstrumentRegistry;
+import com.atlassian.jira.EventComponent;
+import com.atlassian.jira.config.properties.JiraSystemProperties;
+import com.atlassian.jira.config.properties.SystemPropertyKeys;
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.event.issue.IssueEventBundle;
+import com.atlassian.jira.instrumentation.LatencyHistogram;
+import com.atlassian.util.concurrent.ThreadFactories;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import org.apache.log4j.Logger;
+
+import static com.atlassian.util.concurrent.ThreadFactories.Type.DAEMON;
+
+/**
+ * Dispatches events to listeners, and records how long each listener takes.
+ * <p/>
+ * By default events are dispatched as by {@link AsynchronousAbleEventDispatcher}: on the publishing thread, or on the
+ * {@link JiraEventExecutorFactory} pool for {@link com.atlassian.event.api.AsynchronousPreferred} events, which falls
+ * back to the publishing thread when all of its threads are busy.
+ * <p/>
+ * When the {@value SystemPropertyKeys#EVENT_DISPATCH_PER_LISTENER} system property is set, issue events and
+ * asynchronous events are instead put on a bounded queue of each listener that supports asynchronous events, and
+ * delivered by a worker thread of that listener. A listener sees the events in the order they were published, so the
+ * events of an issue stay in order, and a slow listener only holds up its own queue. When the queue of a listener is
+ * full, the event is dropped for that listener rather than delivered on the publishing thread. Legacy
+ * {@link com.atlassian.jira.event.issue.IssueEventListener}s do not support asynchronous events and are still invoked
+ * on the publishing thread, so that the index is up to date when a request completes.
+ * <p/>
+ * The latency of each listener, and the queue depth and dropped events of queued listeners, are available as
+ * {@code event.listener.<listener>.*} instruments.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+@EventComponent
+public class JiraEventDispatcher extends AsynchronousAbleEventDispatcher
+{
+    private static final Logger log = Logger.getLogger(JiraEventDispatcher.class);
+
+    static final String INSTRUMENT_PREFIX = "event.listener.";
+    static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final int DROP_LOG_INTERVAL = 1000;
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60;
+
+    // "method=public void com.example.Listener.onIssueEvent(com.atlassian.jira.event.issue.IssueEvent)"
+    private static final Pattern METHOD_NAME = Pattern.compile("method=[^(]*?([\\w$.]+)\\(");
+    private static final Pattern LISTENER_NAME = Pattern.compile("listener=([\\w$.]+)");
+
+    private final InstrumentRegistry instrumentRegistry;
+    private final AsynchronousEventResolver asynchronousEventResolver = new AnnotationAsynchronousEventResolver();
+    private final boolean queuePerListener;
+    private final int queueSize;
+
+    private final ConcurrentMap<String, ListenerStatistics> statistics = Maps.newConcurrentMap();
+    // the invokers are owned by the event publisher, and go away when their listener is unregistered
+    private final LoadingCache<ListenerInvoker, Listener> listeners = CacheBuilder.newBuilder().weakKeys().build(
+            new CacheLoader<ListenerInvoker, Listener>()
+            {
+                @Override
+                public Listener load(final ListenerInvoker invoker)
+                {
+                    return new Listener(statisticsFor(listenerName(invoker)));
+                }
+            });
+
+    private volatile boolean shutdown;
+
+    public JiraEventDispatcher(final EventExecutorFactory executorFactory, final InstrumentRegistry instrumentRegistry)
+    {
+        this(executorFactory, instrumentRegistry,
+                JiraSystemProperties.getInstance().getBoolean(SystemPropertyKeys.EVENT_DISPATCH_PER_LISTENER),
+                JiraSystemProperties.getInstance().getInteger(SystemPropertyKeys.EVENT_LISTENER_QUEUE_SIZE, DEFAULT_QUEUE_SIZE));
+    }
+
+    @VisibleForTesting
+    JiraEventDispatcher(final EventExecutorFactory executorFactory, final InstrumentRegistry instrumentRegistry,
+            final boolean queuePerListener, final int queueSize)
+    {
+        super(executorFactory);
+        this.instrumentRegistry = instrumentRegistry;
+        this.queuePerListener = queuePerListener && queueSize > 0;
+        this.queueSize = queueSize;
+        if (this.queuePerListener)
+        {
+            log.info("Events are dispatched through a queue of " + queueSize + " events per listener");
+        }
+    }
+
+    @Override
+    public void dispatch(final ListenerInvoker invoker, final Object event)
+    {
+        final Listener listener = listeners.getUnchecked(invoker);
+        if (queuePerListener && !shutdown && isQueued(invoker, event))
+        {
+            listener.enqueue(invoker, event);
+        }
+        else
+        {
+            super.dispatch(new TimedInvoker(invoker, listener.statistics), event);
+        }
+    }
+
+    private boolean isQueued(final ListenerInvoker invoker, final Object event)
+    {
+        return invoker.supportAsynchronousEvents() && (event instanceof IssueEvent || event instanceof IssueEventBundle
+                || asynchronousEventResolver.isAsynchronousEvent(event));
+    }
+
+    @EventListener
+    public void onComponentManagerShutdown(final ComponentManagerShutdownEvent shutdownEvent)
+    {
+        shutdown();
+    }
+
+    /**
+     * Stops the listener workers once they have delivered the events in their queues. Events published from now on
+     * are delivered as if there were no queues.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+        for (final Listener listener : listeners.asMap().values())
+        {
+            listener.shutdown();
+        }
+    }
+
+    @VisibleForTesting
+    ListenerStatistics getStatistics(final String listenerName)
+    {
+        return statistics.get(listenerName);
+    }
+
+    private ListenerStatistics statisticsFor(final String name)
+    {
+        ListenerStatistics listenerStatistics = statistics.get(name);
+        if (listenerStatistics == null)
+        {
+            final ListenerStatistics newStatistics = new ListenerStatistics(name);
+            listenerStatistics = statistics.putIfAbsent(name, newStatistics);
+            if (listenerStatistics == null)
+            {
+                listenerStatistics = newStatistics;
+                for (final Instrument instrument : newStatistics.getInstruments())
+                {
+                    instrumentRegistry.putInstrument(instrument);
+                }
+            }
+        }
+        return listenerStatistics;
+    }
+
+    /**
+     * Names a listener after the method that handles the events, or else its class, as far as the invoker tells us.
+     */
+    @VisibleForTesting
+    static String listenerName(final ListenerInvoker invoker)
+    {
+        final String description = String.valueOf(invoker);
+        final Matcher method = METHOD_NAME.matcher(description);
+        if (method.find())
+        {
+            return method.group(1);
+        }
+        final Matcher listener = LISTENER_NAME.matcher(description);
+        if (listener.find())
+        {
+            return listener.group(1);
+        }
+        return invoker.getClass().getName();
+    }
+
+    /**
+     * The worker of a listener, started the first time an event is queued for it.
+     */
+    private class Listener
+    {
+        private final ListenerStatistics statistics;
+        @GuardedBy ("this")
+        private ThreadPoolExecutor worker;
+
+        Listener(final ListenerStatistics statistics)
+        {
+            this.statistics = statistics;
+        }
+
+        void enqueue(final ListenerInvoker invoker, final Object event)
+        {
+            final ThreadPoolExecutor worker = getWorker();
+            statistics.queued.incrementAndGet();
+            try
+            {
+                worker.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        statistics.queued.decrementAndGet();
+                        statistics.invoke(invoker, event);
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                statistics.queued.decrementAndGet();
+                if (worker.isShutdown())
+                {
+                    // events still get delivered during shutdown
+                    statistics.invoke(invoker, event);
+                }
+                else
+                {
+                    statistics.dropped(event);
+                }
+            }
+        }
+
+        private synchronized ThreadPoolExecutor getWorker()
+        {
+            if (worker == null)
+            {
+                // a single thread delivers the events in the order they were queued
+                worker = new ThreadPoolExecutor(1, 1, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<Runnable>(queueSize),
+                        ThreadFactories.named("JIRA-EventListener-" + statistics.name).type(DAEMON).build());
+                worker.allowCoreThreadTimeOut(true);
+            }
+            return worker;
+        }
+
+        synchronized void shutdown()
+        {
+            if (worker != null)
+            {
+                worker.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The latency, queue depth and dropped events of all the listeners with the same name.
+     */
+    @VisibleForTesting
+    static class ListenerStatistics
+    {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong queued = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        ListenerStatistics(final String name)
+        {
+            this.name = name;
+        }
+
+        void invoke(final ListenerInvoker invoker, final Object event)
+        {
+            final long start = System.nanoTime();
+            try
+            {
+                invoker.invoke(event);
+            }
+            catch (Exception e)
+            {
+                log.error("There was an exception thrown trying to dispatch event '" + event + "' from the invoker '" + invoker + "'", e);
+            }
+            finally
+            {
+                latency.record(System.nanoTime() - start);
+            }
+        }
+
+        void dropped(final Object event)
+        {
+            final long count = dropped.incrementAndGet();
+            if (count == 1 || count % DROP_LOG_INTERVAL == 0)
+            {
+                log.warn("The event queue of listener '" + name + "' is full, dropped " + event.getClass().getName()
+                        + " (" + count + " events dropped so far)");
+            }
+        }
+
+        LatencyHistogram getLatency()
+        {
+            return latency;
+        }
+
+        long getQueueDepth()
+        {
+            return queued.get();
+        }
+
+        long getDroppedCount()
+        {
+            return dropped.get();
+        }
+
+        List<Instrument> getInstruments()
+        {
+            final String prefix = INSTRUMENT_PREFIX + name + ".";
+            return ImmutableList.<Instrument>of(
+                    new ExternalCounter(prefix + "invocationCount", new ExternalValue()
+                    {
+                        @Override
+                        public long getValue()
+                        {
+                            return latency.getCount();
+                        }
+                    }),
+                    new ExternalCounter(prefix + "invocationTime.total", new ExternalValue()
+                    {
+                        @Override
+                        public long getValue()
+                        {
+                            return latency.getTotalMillis();
+                        }
+                    }),
+                    new ExternalGauge(prefix + "invocationTime.p95", new ExternalValue()
+                    {
+                        @Override
+                        public long getValue()
+                        {
+                            return Math.round(latency.getPercentileMillis(95));
+                        }
+                    }),
+                    new ExternalGauge(prefix + "invocationTime.max", new ExternalValue()
+                    {
+                        @Override
+                        public long getValue()
+                        {
+                            return latency.getMaxMillis();
+                        }
+                    }),
+                    new ExternalGauge(prefix + "queue", new ExternalValue()
+                    {
+                        @Override
+                        public long getValue()
+                        {
+                            return getQueueDepth();
+                        }
+                    }),
+                    new ExternalCounter(prefix + "droppedCount", new ExternalValue()
+                    {
+                        @Override
+                        public long getValue()
+                        {
+                            return getDroppedCount();
+                        }
+                    }));
+        }
+    }
+
+    /**
+     * Records the latency of a listener that is dispatched to as usual.
+     */
+    private static class TimedInvoker implements ListenerInvoker
+    {
+        private final ListenerInvoker delegate;
+        private final ListenerStatistics statistics;
+
+        TimedInvoker(final ListenerInvoker delegate, final ListenerStatistics statistics)
+        {
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Set<Class<?>> getSupportedEventTypes()
+        {
+            return delegate.getSupportedEventTypes();
+        }
+
+        @Override
+        public void invoke(final Object event)
+        {
+            final long start = System.nanoTime();
+            try
+            {
+                delegate.invoke(event);
+            }
+            finally
+            {
+                statistics.latency.record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public boolean supportAsynchronousEvents()
+        {
+            return delegate.supportAsynchronousEvents();
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            return o instanceof TimedInvoker && delegate.equals(((TimedInvoker) o).delegate);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return delegate.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return delegate.toString();
+        }
+    }
+}
@@ -69,5 +69,11 @@ public class IssueEventListenerHandler implements ListenerHandler
         {
             return false;
         }
+
+        @Override
+        public String toString()
+        {
+            return "IssueEventInvoker{listener=" + issueEventListener.getClass().getName() + "}";
+        }
     }
 }
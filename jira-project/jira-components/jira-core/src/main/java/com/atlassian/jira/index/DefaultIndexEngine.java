@@ -1,10 +1,13 @@
 package com.atlassian.jira.index;
 
 import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.atlassian.core.util.Clock;
 import com.atlassian.fugue.Effect;
 import com.atlassian.fugue.Option;
 import com.atlassian.jira.cluster.ClusterSafe;
@@ -13,9 +16,12 @@ import com.atlassian.jira.index.DelayCloseable.AlreadyClosedException;
 import com.atlassian.jira.index.Index.Operation;
 import com.atlassian.jira.util.Closeable;
 import com.atlassian.jira.util.Function;
+import com.atlassian.jira.util.RealClock;
 import com.atlassian.jira.util.RuntimeIOException;
 import com.atlassian.jira.util.Supplier;
 
+import com.google.common.annotations.VisibleForTesting;
+
 import org.apache.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.index.IndexReader;
@@ -24,6 +30,7 @@ import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.Directory;
 
+import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
 
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
@@ -92,11 +99,29 @@ class DefaultIndexEngine implements DefaultIndex.Engine
         abstract void commit(final WriterReference writer);
     }
 
+    /**
+     * Marker for {@link #staleSince} meaning the current searcher has seen every write.
+     */
+    private static final long NOT_STALE = -1;
+
     private final WriterReference writerReference;
     private final SearcherFactory searcherFactory;
     private final SearcherReference searcherReference;
     private final FlushPolicy writePolicy;
     private final Configuration configuration;
+    private final SearcherRefreshConfiguration refreshConfiguration;
+    private final Clock clock;
+
+    /**
+     * The time of the first write the current searcher has not seen, or {@link #NOT_STALE}.
+     */
+    private final AtomicLong staleSince = new AtomicLong(NOT_STALE);
+
+    /**
+     * The background refresh, only scheduled while there are writes to the open index.
+     */
+    @GuardedBy ("this")
+    private ScheduledFuture<?> scheduledRefresh;
 
     /**
      * Production ctor.
@@ -106,7 +131,19 @@ class DefaultIndexEngine implements DefaultIndex.Engine
      */
     DefaultIndexEngine(final @Nonnull Configuration configuration, final @Nonnull FlushPolicy writePolicy)
     {
-        this(new SearcherFactoryImpl(configuration), null, configuration, writePolicy);
+        this(configuration, writePolicy, SearcherRefreshConfiguration.ON_EVERY_WRITE);
+    }
+
+    /**
+     * Production ctor.
+     *
+     * @param configuration the {@link Directory} and {@link Analyzer}
+     * @param writePolicy when to flush writes
+     * @param refreshConfiguration when to make writes visible to searchers
+     */
+    DefaultIndexEngine(final @Nonnull Configuration configuration, final @Nonnull FlushPolicy writePolicy, final @Nonnull SearcherRefreshConfiguration refreshConfiguration)
+    {
+        this(new SearcherFactoryImpl(configuration), null, configuration, writePolicy, refreshConfiguration);
     }
 
     /**
@@ -119,9 +156,31 @@ class DefaultIndexEngine implements DefaultIndex.Engine
      */
     DefaultIndexEngine(final @Nonnull SearcherFactory searcherFactory, @Nullable final Function<Index.UpdateMode, Writer> writerFactory, final @Nonnull Configuration configuration, final @Nonnull FlushPolicy writePolicy)
     {
+        this(searcherFactory, writerFactory, configuration, writePolicy, SearcherRefreshConfiguration.ON_EVERY_WRITE);
+    }
+
+    /**
+     * Main ctor.
+     *
+     * @param searcherFactory for creating {@link IndexSearcher searchers}
+     * @param writerFactory for creating Writer instances of the correct mode
+     * @param configuration the {@link Directory} and {@link Analyzer}
+     * @param writePolicy when to flush writes
+     * @param refreshConfiguration when to make writes visible to searchers
+     */
+    DefaultIndexEngine(final @Nonnull SearcherFactory searcherFactory, @Nullable final Function<Index.UpdateMode, Writer> writerFactory, final @Nonnull Configuration configuration, final @Nonnull FlushPolicy writePolicy, final @Nonnull SearcherRefreshConfiguration refreshConfiguration)
+    {
+        this(searcherFactory, writerFactory, configuration, writePolicy, refreshConfiguration, RealClock.getInstance());
+    }
+
+    @VisibleForTesting
+    DefaultIndexEngine(final @Nonnull SearcherFactory searcherFactory, @Nullable final Function<Index.UpdateMode, Writer> writerFactory, final @Nonnull Configuration configuration, final @Nonnull FlushPolicy writePolicy, final @Nonnull SearcherRefreshConfiguration refreshConfiguration, final @Nonnull Clock clock)
+    {
+        this.clock = notNull("clock", clock);
         this.writePolicy = notNull("writePolicy", writePolicy);
         this.configuration = notNull("configuration", configuration);
         this.searcherFactory = notNull("searcherFactory", searcherFactory);
+        this.refreshConfiguration = notNull("refreshConfiguration", refreshConfiguration);
         this.searcherReference = new SearcherReference(searcherFactory);
         this.writerReference = new WriterReference(writerFactory == null ? new DefaultWriterFactory() : writerFactory);
     }
@@ -132,10 +191,36 @@ class DefaultIndexEngine implements DefaultIndex.Engine
     @Nonnull
     public IndexSearcher getSearcher()
     {
+        if (refreshConfiguration.isNearRealTime() && getStalenessMillis() > refreshConfiguration.getMaxStalenessMillis())
+        {
+            // the background refresher has fallen behind, don't serve searches that are too far out of date
+            refresh();
+        }
         // mode is irrelevant to a Searcher
         return searcherReference.get(Index.UpdateMode.INTERACTIVE);
     }
 
+    /**
+     * Reopen the searcher if there have been writes that it has not seen. Searches that are still using the old
+     * searcher keep it open until they are done.
+     */
+    void refresh()
+    {
+        if (staleSince.getAndSet(NOT_STALE) != NOT_STALE)
+        {
+            searcherReference.close();
+        }
+    }
+
+    /**
+     * @return how long, in milliseconds, the current searcher has been missing writes; zero if it is up to date
+     */
+    long getStalenessMillis()
+    {
+        final long since = staleSince.get();
+        return since == NOT_STALE ? 0 : Math.max(0, clock.getCurrentDate().getTime() - since);
+    }
+
     public void clean()
     {
         close();
@@ -159,17 +244,45 @@ class DefaultIndexEngine implements DefaultIndex.Engine
         }
         finally
         {
-            searcherReference.close();
+            if (refreshConfiguration.isNearRealTime())
+            {
+                // leave the searcher to the refresher, only remember when it first went out of date
+                staleSince.compareAndSet(NOT_STALE, clock.getCurrentDate().getTime());
+                scheduleRefresh();
+            }
+            else
+            {
+                searcherReference.close();
+            }
         }
     }
 
     public void close()
     {
+        cancelRefresh();
+        staleSince.set(NOT_STALE);
         writerReference.close();
         searcherReference.close();
         searcherFactory.release();  // JRA-29587
     }
 
+    private synchronized void scheduleRefresh()
+    {
+        if (scheduledRefresh == null)
+        {
+            scheduledRefresh = SearcherRefresher.register(this, refreshConfiguration);
+        }
+    }
+
+    private synchronized void cancelRefresh()
+    {
+        if (scheduledRefresh != null)
+        {
+            SearcherRefresher.unregister(this, scheduledRefresh);
+            scheduledRefresh = null;
+        }
+    }
+
     /**
      * Thread-safe holder of the current Searcher
      */
@@ -268,6 +381,8 @@ class DefaultIndexEngine implements DefaultIndex.Engine
                 @Override
                 public IndexSearcher get()
                 {
+                    // conditional updates must see every previous write, however stale searches are allowed to be
+                    refresh();
                     return getSearcher();
                 }
             });
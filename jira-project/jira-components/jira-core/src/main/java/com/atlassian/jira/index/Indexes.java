@@ -32,9 +32,29 @@ public class Indexes
      */
     @Nonnull
     public static Index.Manager createQueuedIndexManager(final @Nonnull String name, final @Nonnull Configuration config, final int maxQueueSize)
+    {
+        return createQueuedIndexManager(name, config, maxQueueSize, SearcherRefreshConfiguration.ON_EVERY_WRITE);
+    }
+
+    /**
+     * Creates a queued index, as {@link #createQueuedIndexManager(String, Configuration, int)}, whose writes become
+     * visible to searchers according to the given refresh configuration.
+     *
+     * @param name used to name the background thread.
+     * @param config that holds the {@link Directory} and {@link Analyzer} used
+     *            for indexing and searching.
+     * @param maxQueueSize
+     * @param refreshConfiguration when the searchers are reopened to see writes
+     * @return a {@link Manager} that has an index configured for queued
+     *         operations.
+     * @since v6.3.15
+     */
+    @Nonnull
+    public static Index.Manager createQueuedIndexManager(final @Nonnull String name, final @Nonnull Configuration config, final int maxQueueSize,
+            final @Nonnull SearcherRefreshConfiguration refreshConfiguration)
     {
         // writePolicy is that the IndexWriter is committed after every write
-        final DefaultIndexEngine engine = new DefaultIndexEngine(config, FlushPolicy.FLUSH);
+        final DefaultIndexEngine engine = new DefaultIndexEngine(config, FlushPolicy.FLUSH, refreshConfiguration);
         return new DefaultManager(config, engine, new QueueingIndex(name, new DefaultIndex(engine), maxQueueSize));
     }
 
@@ -0,0 +1,66 @@
+package com.atlassian.jira.index;
+
+import net.jcip.annotations.Immutable;
+
+import static com.atlassian.jira.util.dbc.Assertions.not;
+
+/**
+ * Controls when writes to an index become visible to its searchers.
+ * <p>
+ * By default every write closes the current searcher, so the next search has to reopen the index reader. In
+ * near-real-time mode a write only marks the current searcher as stale. A background refresher reopens stale searchers
+ * every refresh interval, and a search that finds the searcher stale for longer than the maximum staleness reopens it
+ * itself.
+ *
+ * @since v6.3.15
+ */
+@Immutable
+public final class SearcherRefreshConfiguration
+{
+    /**
+     * Every write forces the searcher to be reopened before the next search.
+     */
+    public static final SearcherRefreshConfiguration ON_EVERY_WRITE = new SearcherRefreshConfiguration(0, 0);
+
+    /**
+     * @param refreshIntervalMillis how often the background refresher reopens stale searchers, must be positive
+     * @param maxStalenessMillis the longest a search may be served by a stale searcher, must not be less than zero
+     * @return a near-real-time configuration
+     */
+    public static SearcherRefreshConfiguration nearRealTime(final long refreshIntervalMillis, final long maxStalenessMillis)
+    {
+        not("refreshIntervalMillis must be positive", refreshIntervalMillis <= 0);
+        not("maxStalenessMillis must not be negative", maxStalenessMillis < 0);
+        return new SearcherRefreshConfiguration(refreshIntervalMillis, maxStalenessMillis);
+    }
+
+    private final long refreshIntervalMillis;
+    private final long maxStalenessMillis;
+
+    private SearcherRefreshConfiguration(final long refreshIntervalMillis, final long maxStalenessMillis)
+    {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    public boolean isNearRealTime()
+    {
+        return refreshIntervalMillis > 0;
+    }
+
+    public long getRefreshIntervalMillis()
+    {
+        return refreshIntervalMillis;
+    }
+
+    public long getMaxStalenessMillis()
+    {
+        return maxStalenessMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return isNearRealTime() ? "nearRealTime[refreshInterval=" + refreshIntervalMillis + "ms, maxStaleness=" + maxStalenessMillis + "ms]" : "onEveryWrite";
+    }
+}
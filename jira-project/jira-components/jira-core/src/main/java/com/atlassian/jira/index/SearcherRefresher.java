@@ -0,0 +1,108 @@
+package com.atlassian.jira.index;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import com.atlassian.instrumentation.ExternalGauge;
+import com.atlassian.instrumentation.ExternalValue;
+import com.atlassian.jira.instrumentation.Instrumentation;
+import com.atlassian.jira.util.concurrent.ThreadFactories;
+
+import org.apache.log4j.Logger;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import static com.atlassian.jira.instrumentation.InstrumentationName.SEARCHER_REFRESH_LAG;
+
+/**
+ * Background refresher for the {@link DefaultIndexEngine engines} that run in near-real-time mode. All engines share a
+ * single thread, which is started when the first engine registers and stopped when the last one is closed.
+ * <p>
+ * The current refresh lag, that is how long the most stale searcher has been missing writes, is published as the
+ * {@link com.atlassian.jira.instrumentation.InstrumentationName#SEARCHER_REFRESH_LAG} gauge.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+class SearcherRefresher
+{
+    private static final Logger log = Logger.getLogger(SearcherRefresher.class);
+
+    private static final Set<DefaultIndexEngine> engines = new CopyOnWriteArraySet<DefaultIndexEngine>();
+
+    @GuardedBy ("SearcherRefresher.class")
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Starts refreshing the searcher of the engine every refresh interval.
+     *
+     * @param engine the engine to refresh
+     * @param configuration the refresh interval
+     * @return the scheduled refresh, to be passed to {@link #unregister(DefaultIndexEngine, ScheduledFuture)} when the
+     *         engine is closed
+     */
+    static synchronized ScheduledFuture<?> register(@Nonnull final DefaultIndexEngine engine, @Nonnull final SearcherRefreshConfiguration configuration)
+    {
+        if (scheduler == null)
+        {
+            scheduler = Executors.newSingleThreadScheduledExecutor(ThreadFactories.namedThreadFactory("IndexSearcherRefresher"));
+            Instrumentation.putInstrument(new ExternalGauge(SEARCHER_REFRESH_LAG.getInstrumentName(), new RefreshLag()));
+        }
+        engines.add(engine);
+        final long interval = configuration.getRefreshIntervalMillis();
+        return scheduler.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    engine.refresh();
+                }
+                catch (final RuntimeException e)
+                {
+                    log.warn("Unable to refresh index searcher", e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    static synchronized void unregister(@Nonnull final DefaultIndexEngine engine, @Nonnull final ScheduledFuture<?> refresh)
+    {
+        refresh.cancel(false);
+        engines.remove(engine);
+        if (engines.isEmpty() && scheduler != null)
+        {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * The staleness in milliseconds of the most stale searcher.
+     */
+    private static class RefreshLag implements ExternalValue
+    {
+        @Override
+        public long getValue()
+        {
+            long lag = 0;
+            for (final DefaultIndexEngine engine : engines)
+            {
+                lag = Math.max(lag, engine.getStalenessMillis());
+            }
+            return lag;
+        }
+    }
+
+    private SearcherRefresher()
+    {
+        throw new AssertionError("cannot instantiate");
+    }
+}
@@ -138,12 +138,12 @@ public class DefaultIndexCopyService implements IndexCopyService
          * @param sourcePath  the path of the index to copy
          * @param destinationPath  where to copy the index to
          * @param id Index backup id, Should be unique across the JIRA instance
-         * @return the name of the generated backup file.
+         * @return the name of the manifest of the snapshot, which only copies the index files earlier snapshots have not
          */
         @VisibleForTesting
         String copyIndex(final String sourcePath, final String destinationPath, final Long id)
         {
-            return indexUtils.takeIndexSnapshot(sourcePath, destinationPath, id.toString(), MAX_SNAPSHOTS);
+            return indexUtils.takeIncrementalIndexSnapshot(sourcePath, destinationPath, id.toString(), MAX_SNAPSHOTS);
         }
 
         public void restoreIndex(String fileName)
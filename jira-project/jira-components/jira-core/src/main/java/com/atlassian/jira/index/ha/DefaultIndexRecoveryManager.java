@@ -1,11 +1,13 @@
 package com.atlassian.jira.index.ha;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -27,6 +29,7 @@ import com.atlassian.jira.issue.index.IssueBatcherFactory;
 import com.atlassian.jira.issue.index.IssueIndexManager;
 import com.atlassian.jira.issue.index.IssueIndexer;
 import com.atlassian.jira.issue.index.IssuesBatcher;
+import com.atlassian.jira.issue.index.ReindexCheckpoints;
 import com.atlassian.jira.issue.search.SearchException;
 import com.atlassian.jira.issue.search.SearchProvider;
 import com.atlassian.jira.issue.search.SearchRequest;
@@ -45,6 +48,7 @@ import com.atlassian.jira.task.TaskProgressSink;
 import com.atlassian.jira.task.context.Context;
 import com.atlassian.jira.task.context.Contexts;
 import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.util.PathUtils;
 import com.atlassian.jira.util.ZipUtils;
 import com.atlassian.jira.util.index.IndexLifecycleManager;
 import com.atlassian.jira.util.index.IndexingCounterManager;
@@ -54,6 +58,7 @@ import com.atlassian.query.order.SortOrder;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.io.FileUtils;
@@ -108,15 +113,28 @@ public class DefaultIndexRecoveryManager implements IndexRecoveryManager
         final File workDir = new File(indexPathManager.getIndexRootPath(), "JIRAIndexRestore");
         try
         {
-            // Prepare the restore by exploding the backup to a temp directory outside of lock
-            ZipUtils.unzip(recoveryFile, workDir);
+            TaskProgressSink compositeSink = new CompositeProgressSink(taskProgressSink, new LoggingProgressSink(LOG, "Recovering search indexes - {0}% complete...", 1));
+            final ReplaceIndexRunner runner;
+            if (IndexSnapshotManifest.isManifest(recoveryFile))
+            {
+                // Prepare the restore by copying the snapshot's files that the indexes do not have to a temp directory outside of lock
+                final IndexSnapshotManifest manifest = IndexSnapshotManifest.read(recoveryFile);
+                final File filesDirectory = new File(recoveryFile.getParentFile(), IndexSnapshotManifest.FILES_DIRECTORY);
+                final IndexFileChecksums checksums = IndexFileChecksums.read(new File(indexPathManager.getIndexRootPath()));
+                final Map<File, Long> unchangedFiles = stageChangedFiles(manifest, filesDirectory, workDir, checksums);
+                runner = new UpdateIndexRunner(manifest, filesDirectory, unchangedFiles, checksums, workDir, compositeSink, indexLifecycleManager, indexPathManager, searchProvider, delegator);
+            }
+            else
+            {
+                // Prepare the restore by exploding the backup to a temp directory outside of lock
+                ZipUtils.unzip(recoveryFile, workDir);
+                runner = new ReplaceIndexRunner(workDir, compositeSink, indexLifecycleManager, indexPathManager, searchProvider, delegator);
+            }
 
             // Acquire the 'stop the world' reindex lock and stop indexing. This will block the acquisition of
             // index searchers until we're done restoring the index.
-            TaskProgressSink compositeSink = new CompositeProgressSink(taskProgressSink, new LoggingProgressSink(LOG, "Recovering search indexes - {0}% complete...", 1));
             final long startTime = System.currentTimeMillis();
 
-            final ReplaceIndexRunner runner = new ReplaceIndexRunner(workDir, compositeSink, indexLifecycleManager, indexPathManager, searchProvider, delegator);
             if(!indexManager.withReindexLock(runner))
             {
                 throw new IndexException("Failed to acquire reindex lock");
@@ -156,6 +174,54 @@ public class DefaultIndexRecoveryManager implements IndexRecoveryManager
         }
     }
 
+    /**
+     * Copies the files of an incremental snapshot that differ from the local index files to the work directory.
+     * <p>
+     * Local files are compared by name and length, then by the checksum recorded for them, so only the files that
+     * have changed since their checksum was recorded are read.
+     *
+     * @return the local files that are already in the snapshot, with the times they were last modified
+     */
+    private Map<File, Long> stageChangedFiles(final IndexSnapshotManifest manifest, final File filesDirectory, final File workDir,
+            final IndexFileChecksums checksums) throws IOException
+    {
+        final Map<File, Long> unchangedFiles = Maps.newHashMap();
+        for (IndexSnapshotManifest.Entry entry : manifest.getEntries())
+        {
+            final File localFile = new File(PathUtils.joinPaths(indexPathManager.getIndexRootPath(), entry.getIndexPath().getPath()), entry.getName());
+            final long lastModified = localFile.lastModified();
+            if (isUnchanged(localFile, entry, checksums))
+            {
+                unchangedFiles.put(localFile, lastModified);
+            }
+            else
+            {
+                FileUtils.copyFile(new File(filesDirectory, entry.getFileName()),
+                        new File(PathUtils.joinPaths(workDir.getPath(), entry.getIndexPath().getPath()), entry.getName()));
+            }
+        }
+        LOG.info("Copied " + (manifest.getEntries().size() - unchangedFiles.size()) + " of the " + manifest.getEntries().size() + " index files in the snapshot");
+        return unchangedFiles;
+    }
+
+    private static boolean isUnchanged(final File localFile, final IndexSnapshotManifest.Entry entry, final IndexFileChecksums checksums)
+            throws IOException
+    {
+        if (!localFile.isFile() || localFile.length() != entry.getLength())
+        {
+            return false;
+        }
+        try
+        {
+            return checksums.getOrCompute(localFile) == entry.getChecksum();
+        }
+        catch (FileNotFoundException e)
+        {
+            // deleted while it was read
+            return false;
+        }
+    }
+
     private void reindexIssuesIn(final DateRange range, final TaskProgressSink taskProgressSink)
             throws IndexException, SearchException
     {
@@ -314,10 +380,11 @@ public class DefaultIndexRecoveryManager implements IndexRecoveryManager
             taskProgressSink.makeProgress(1, "Restoring", "Replacing indexes");
 
             indexLifecycleManager.deactivate();
-            removeIndexes();
             try
             {
-                replaceIndexes(workDir);
+                // an interrupted re-index cannot be resumed in the indexes that replace the ones it was writing to
+                ComponentAccessor.getComponent(ReindexCheckpoints.class).clear();
+                restoreIndexes();
             }
             catch (IOException e)
             {
@@ -338,6 +405,12 @@ public class DefaultIndexRecoveryManager implements IndexRecoveryManager
             return range;
         }
 
+        void restoreIndexes() throws IOException
+        {
+            removeIndexes();
+            replaceIndexes(workDir);
+        }
+
         private void removeIndexes()
         {
             final IssueIndexer indexIssuer = ComponentAccessor.getComponent(IssueIndexer.class);
@@ -429,4 +502,99 @@ public class DefaultIndexRecoveryManager implements IndexRecoveryManager
             return lastUpdatedIssueGV == null ? null : lastUpdatedIssueGV.getTimestamp(UPDATED);
         }
     }
+
+    /**
+     * Updates the indexes in place to the files of an incremental snapshot, keeping the ones they already have.
+     */
+    private static class UpdateIndexRunner extends ReplaceIndexRunner
+    {
+        private final IndexSnapshotManifest manifest;
+        private final File filesDirectory;
+        private final Map<File, Long> unchangedFiles;
+        private final IndexFileChecksums checksums;
+        private final File workDir;
+        private final IndexPathManager indexPathManager;
+
+        UpdateIndexRunner(IndexSnapshotManifest manifest, File filesDirectory, Map<File, Long> unchangedFiles,
+                IndexFileChecksums checksums, File workDir,
+                TaskProgressSink taskProgressSink, IndexLifecycleManager indexLifecycleManager, IndexPathManager indexPathManager,
+                SearchProvider searchProvider, OfBizDelegator delegator)
+        {
+            super(workDir, taskProgressSink, indexLifecycleManager, indexPathManager, searchProvider, delegator);
+            this.manifest = manifest;
+            this.filesDirectory = filesDirectory;
+            this.unchangedFiles = unchangedFiles;
+            this.checksums = checksums;
+            this.workDir = workDir;
+            this.indexPathManager = indexPathManager;
+        }
+
+        @Override
+        void restoreIndexes() throws IOException
+        {
+            // The indexes were closed when they were deactivated, so their files can be swapped for the snapshot's
+            final List<File> restoredFiles = Lists.newArrayList();
+            for (IndexUtils.IndexPath indexPath : IndexUtils.IndexPath.values())
+            {
+                final File indexDirectory = new File(PathUtils.joinPaths(indexPathManager.getIndexRootPath(), indexPath.getPath()));
+                final File stagedDirectory = new File(PathUtils.joinPaths(workDir.getPath(), indexPath.getPath()));
+                final List<IndexSnapshotManifest.Entry> entries = manifest.getEntries(indexPath);
+                final Set<String> names = Sets.newHashSet();
+                for (IndexSnapshotManifest.Entry entry : entries)
+                {
+                    names.add(entry.getName());
+                }
+
+                // Delete the files that are not in the snapshot, including the lock and segments.gen
+                final File[] files = indexDirectory.listFiles();
+                if (files != null)
+                {
+                    for (File file : files)
+                    {
+                        if (file.isFile() && !names.contains(file.getName()))
+                        {
+                            FileUtils.forceDelete(file);
+                        }
+                    }
+                }
+                FileUtils.forceMkdir(indexDirectory);
+
+                for (IndexSnapshotManifest.Entry entry : entries)
+                {
+                    final File localFile = new File(indexDirectory, entry.getName());
+                    final File stagedFile = new File(stagedDirectory, entry.getName());
+                    if (stagedFile.exists())
+                    {
+                        FileUtils.deleteQuietly(localFile);
+                        FileUtils.moveFile(stagedFile, localFile);
+                    }
+                    else if (!isUnchanged(localFile))
+                    {
+                        // The index changed after it was compared to the snapshot
+                        FileUtils.deleteQuietly(localFile);
+                        FileUtils.copyFile(new File(filesDirectory, entry.getFileName()), localFile);
+                    }
+                    // the file now has the snapshot's contents, so the next restore need not read it
+                    checksums.put(localFile, entry.getChecksum());
+                    restoredFiles.add(localFile);
+                }
+            }
+            checksums.retainAll(restoredFiles);
+            try
+            {
+                checksums.write();
+            }
+            catch (IOException e)
+            {
+                // they will be read again next time
+                LOG.warn("Unable to record the checksums of the restored index files; " + e.getMessage());
+            }
+        }
+
+        private boolean isUnchanged(final File localFile)
+        {
+            final Long lastModified = unchangedFiles.get(localFile);
+            return lastModified != null && localFile.exists() && localFile.lastModified() == lastModified;
+        }
+    }
 }
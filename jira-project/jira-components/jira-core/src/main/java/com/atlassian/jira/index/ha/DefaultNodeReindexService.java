@@ -1,10 +1,17 @@
 package com.atlassian.jira.index.ha;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 
@@ -17,10 +24,13 @@ import com.atlassian.instrumentation.ExternalValue;
 import com.atlassian.jira.bc.project.index.ProjectReindexService;
 import com.atlassian.jira.cluster.ClusterManager;
 import com.atlassian.jira.cluster.Node;
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.config.properties.ApplicationProperties;
 import com.atlassian.jira.instrumentation.Instrumentation;
+import com.atlassian.jira.issue.BulkIssueLoader;
 import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.IssueFieldConstants;
 import com.atlassian.jira.issue.IssueImpl;
-import com.atlassian.jira.issue.IssueManager;
 import com.atlassian.jira.issue.comments.Comment;
 import com.atlassian.jira.issue.comments.CommentManager;
 import com.atlassian.jira.issue.index.IndexException;
@@ -36,18 +46,27 @@ import com.atlassian.jira.util.concurrent.ThreadFactories;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import org.apache.log4j.Logger;
 import org.ofbiz.core.entity.GenericValue;
 
+import static com.atlassian.jira.config.properties.PropertiesUtil.getIntProperty;
+import static com.atlassian.jira.instrumentation.InstrumentationName.CLUSTER_REPLICATED_INDEX_LAG_OPERATIONS;
+import static com.atlassian.jira.instrumentation.InstrumentationName.CLUSTER_REPLICATED_INDEX_LAG_SECONDS;
 import static com.atlassian.jira.instrumentation.InstrumentationName.CLUSTER_REPLICATED_INDEX_OPERATIONS_LATEST;
 import static com.atlassian.jira.instrumentation.InstrumentationName.CLUSTER_REPLICATED_INDEX_OPERATIONS_TOTAL;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Runs periodically and reindexes issues that have been indexed in other nodes
+ * <p>
+ * All the operations found in one run are coalesced before they are applied, so that an issue touched several times is
+ * only re-indexed once, and issues are re-indexed in batches on several threads. How far behind the other nodes this
+ * node is, in operations and in seconds, is published as instrumentation.
  *
  * @since v6.1
  */
@@ -62,7 +81,7 @@ public class DefaultNodeReindexService implements NodeReindexService
     private final SharedEntityIndexer sharedEntityIndexer;
     private final ProjectManager projectManager;
     private final ProjectReindexService projectReindexService;
-    private final IssueManager issueManager;
+    private final BulkIssueLoader bulkIssueLoader;
     private final CommentManager commentManager;
     private final OfBizDelegator ofBizDelegator;
     private final SharedEntityResolver sharedEntityResolver;
@@ -86,11 +105,22 @@ public class DefaultNodeReindexService implements NodeReindexService
     private ScheduledFuture<?> indexerService;
     private static final int INITIAL_DELAY = 10;
     private static final int PERIOD = 5;
+    private static final int REPLAY_BATCH_SIZE = 200;
+    // reindexing reads all of these, so load them for the whole batch at once
+    @VisibleForTesting
+    static final Set<String> REPLAY_LOADED_FIELDS = ImmutableSet.of(IssueFieldConstants.COMPONENTS,
+            IssueFieldConstants.AFFECTED_VERSIONS, IssueFieldConstants.FIX_FOR_VERSIONS, IssueFieldConstants.LABELS);
+
+    @Nullable
+    private final ExecutorService replayExecutor;
+    private volatile int pendingOperations;
+    private volatile long oldestPendingOperationTime;
 
     public DefaultNodeReindexService(final ClusterManager clusterManager, final OfBizNodeIndexCounterStore ofBizNodeIndexCounterStore,
             final OfBizReplicatedIndexOperationStore ofBizNodeIndexOperationStore, final IssueIndexManager indexManager,
-            SharedEntityIndexer sharedEntityIndexer, final ProjectManager projectManager, final ProjectReindexService projectReindexService, final IssueManager issueManager, final CommentManager commentManager,
-            final OfBizDelegator ofBizDelegator, final SharedEntityResolver sharedEntityResolver, final IndexCopyService indexCopyService)
+            SharedEntityIndexer sharedEntityIndexer, final ProjectManager projectManager, final ProjectReindexService projectReindexService, final BulkIssueLoader bulkIssueLoader, final CommentManager commentManager,
+            final OfBizDelegator ofBizDelegator, final SharedEntityResolver sharedEntityResolver, final IndexCopyService indexCopyService,
+            final ApplicationProperties applicationProperties)
     {
         this.clusterManager = clusterManager;
         this.ofBizNodeIndexCounterStore = ofBizNodeIndexCounterStore;
@@ -99,7 +129,7 @@ public class DefaultNodeReindexService implements NodeReindexService
         this.sharedEntityIndexer = sharedEntityIndexer;
         this.projectManager = projectManager;
         this.projectReindexService = projectReindexService;
-        this.issueManager = issueManager;
+        this.bulkIssueLoader = bulkIssueLoader;
         this.commentManager = commentManager;
         this.ofBizDelegator = ofBizDelegator;
         this.sharedEntityResolver = sharedEntityResolver;
@@ -113,11 +143,33 @@ public class DefaultNodeReindexService implements NodeReindexService
             operationCountInstrument = new ExternalGauge(CLUSTER_REPLICATED_INDEX_OPERATIONS_LATEST.getInstrumentName(), latestGaugeValue);
             Instrumentation.putInstrument(totalOperationCountInstrument);
             Instrumentation.putInstrument(operationCountInstrument);
+            Instrumentation.putInstrument(new ExternalGauge(CLUSTER_REPLICATED_INDEX_LAG_OPERATIONS.getInstrumentName(), new ExternalValue()
+            {
+                @Override
+                public long getValue()
+                {
+                    return getPendingOperations();
+                }
+            }));
+            Instrumentation.putInstrument(new ExternalGauge(CLUSTER_REPLICATED_INDEX_LAG_SECONDS.getInstrumentName(), new ExternalValue()
+            {
+                @Override
+                public long getValue()
+                {
+                    final long oldest = getOldestPendingOperationTime();
+                    return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000;
+                }
+            }));
+            final int replayThreads = getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.REPLAY_THREADS, 4);
+            replayExecutor = replayThreads > 1
+                    ? Executors.newFixedThreadPool(replayThreads, ThreadFactories.namedThreadFactory("NodeReindexServiceReplayThread"))
+                    : null;
         }
         else
         {
             scheduler = null;
             totalOperationCountInstrument = null;
+            replayExecutor = null;
         }
     }
 
@@ -128,6 +180,10 @@ public class DefaultNodeReindexService implements NodeReindexService
         {
             scheduler.shutdownNow();
         }
+        if (replayExecutor != null)
+        {
+            replayExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -254,7 +310,8 @@ public class DefaultNodeReindexService implements NodeReindexService
         return indexerService;
     }
 
-    private void reIndex()
+    @VisibleForTesting
+    void reIndex()
     {
         // in theory we are still in the cluster, but we may implement dynamic addition/removal at some point
         final String currentNodeId = getCurrentNodeId();
@@ -278,6 +335,8 @@ public class DefaultNodeReindexService implements NodeReindexService
                 }
             }
 
+            // everything after the replay cursor is waiting, until it has been replayed
+            setLag(allIndexOps);
             if (!allIndexOps.isEmpty())
             {
                 try
@@ -288,6 +347,8 @@ public class DefaultNodeReindexService implements NodeReindexService
                 {
                     updateIndexCount(allIndexOps);
                 }
+                // the other nodes carried on writing operations during the replay
+                refreshLag(currentNodeId, allNodes);
             }
             totalOperationCountInstrument.addAndGet(allIndexOps.size());
             latestGaugeValue.setValue(allIndexOps.size());
@@ -298,6 +359,58 @@ public class DefaultNodeReindexService implements NodeReindexService
         }
     }
 
+    /**
+     * Sets the lag gauges from the operations of the other nodes that are newer than the replay cursor of this node.
+     * The operations are only read for nodes whose newest operation is past the cursor.
+     */
+    private void refreshLag(final String currentNodeId, final Set<Node> nodes)
+    {
+        final Set<ReplicatedIndexOperation> pendingOps = Sets.newHashSet();
+        for (Node node : nodes)
+        {
+            if (!currentNodeId.equals(node.getNodeId()))
+            {
+                final long cursor = getCurrentIndexCount(currentNodeId, node.getNodeId());
+                final Long newest = ofBizNodeIndexOperationStore.getLatestOperation(node.getNodeId());
+                if (newest != null && newest > cursor)
+                {
+                    pendingOps.addAll(ofBizNodeIndexOperationStore.getIndexOperationsAfter(node.getNodeId(), cursor));
+                }
+            }
+        }
+        setLag(pendingOps);
+    }
+
+    private void setLag(final Set<ReplicatedIndexOperation> indexOps)
+    {
+        long oldest = 0;
+        for (ReplicatedIndexOperation indexOp : indexOps)
+        {
+            final long indexTime = indexOp.getIndexTime().getTime();
+            oldest = oldest == 0 ? indexTime : Math.min(oldest, indexTime);
+        }
+        oldestPendingOperationTime = oldest;
+        pendingOperations = indexOps.size();
+    }
+
+    /**
+     * @return how many operations of the other nodes this node had not replayed when it last looked
+     */
+    @VisibleForTesting
+    int getPendingOperations()
+    {
+        return pendingOperations;
+    }
+
+    /**
+     * @return when the oldest of the {@link #getPendingOperations() pending operations} was written, or 0 if there are none
+     */
+    @VisibleForTesting
+    long getOldestPendingOperationTime()
+    {
+        return oldestPendingOperationTime;
+    }
+
     private void updateIndexCount(Set<ReplicatedIndexOperation> indexOps)
     {
         final String currentNodeId = getCurrentNodeId();
@@ -375,17 +488,19 @@ public class DefaultNodeReindexService implements NodeReindexService
 
     private void updateCommentsIndex(final Set<ReplicatedIndexOperation> indexOps) throws IndexException
     {
-        final Set<Comment> commentsToIndex = Sets.newHashSet();
+        final Set<Long> commentIds = Sets.newHashSet();
         for (ReplicatedIndexOperation operation : indexOps)
         {
-            for (Long id : operation.getAffectedIds())
+            commentIds.addAll(operation.getAffectedIds());
+        }
+        final Set<Comment> commentsToIndex = Sets.newHashSet();
+        for (Long id : commentIds)
+        {
+            // JDEV-28627 - comment might get deleted before we process this edit for it
+            final Comment comment = commentManager.getCommentById(id);
+            if (comment != null)
             {
-                // JDEV-28627 - comment might get deleted before we process this edit for it
-                final Comment comment = commentManager.getCommentById(id);
-                if (comment != null)
-                {
-                    commentsToIndex.add(comment);
-                }
+                commentsToIndex.add(comment);
             }
         }
         indexManager.reIndexComments(commentsToIndex, Contexts.nullContext(), false);
@@ -394,7 +509,8 @@ public class DefaultNodeReindexService implements NodeReindexService
     private void updateIssueIndex(final Set<ReplicatedIndexOperation> indexOps) throws IndexException
     {
         final Set<Project> projectsToUpdate = Sets.newHashSet();
-        final Set<Issue> issuesToUpdate = Sets.newHashSet();
+        // Issues touched several times since the last run are only re-indexed once
+        final Set<Long> issueIdsToUpdate = Sets.newTreeSet();
         // We use a tree set and our own comparator here because these are not real issues, just ids.
         final Set<Issue> issuesToDelete = Sets.newTreeSet(new Comparator<Issue>()
         {
@@ -412,7 +528,7 @@ public class DefaultNodeReindexService implements NodeReindexService
             {
                 case UPDATE:
                 case CREATE:
-                    issuesToUpdate.addAll(issueManager.getIssueObjects(operation.getAffectedIds()));
+                    issueIdsToUpdate.addAll(operation.getAffectedIds());
                     break;
                 case DELETE:
                     for (long id: operation.getAffectedIds())
@@ -435,11 +551,12 @@ public class DefaultNodeReindexService implements NodeReindexService
                     break;
             }
         }
-        if (issuesToUpdate.size() > 0)
+        // ids are never reused, so there is no point loading an issue that has since been deleted
+        for (Issue issue : issuesToDelete)
         {
-            // don't index comments do index change history
-            indexManager.reIndexIssueObjects(issuesToUpdate, false, true, false);
+            issueIdsToUpdate.remove(issue.getId());
         }
+        reindexIssues(issueIdsToUpdate);
         if (issuesToDelete.size() > 0)
         {
             indexManager.deIndexIssueObjects(issuesToDelete, false);
@@ -450,6 +567,81 @@ public class DefaultNodeReindexService implements NodeReindexService
         }
     }
 
+    private void reindexIssues(final Collection<Long> issueIds) throws IndexException
+    {
+        final List<Callable<Void>> batches = new ArrayList<Callable<Void>>();
+        for (final List<Long> batch : Iterables.partition(issueIds, REPLAY_BATCH_SIZE))
+        {
+            batches.add(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws IndexException
+                {
+                    final List<Issue> issues = bulkIssueLoader.getIssues(batch, REPLAY_LOADED_FIELDS);
+                    if (issues.size() > 0)
+                    {
+                        // don't index comments do index change history
+                        indexManager.reIndexIssueObjects(issues, false, true, false);
+                    }
+                    return null;
+                }
+            });
+        }
+        if (replayExecutor == null || batches.size() < 2)
+        {
+            for (Callable<Void> batch : batches)
+            {
+                callBatch(batch);
+            }
+            return;
+        }
+
+        final List<Future<Void>> results = new ArrayList<Future<Void>>();
+        for (Callable<Void> batch : batches)
+        {
+            results.add(replayExecutor.submit(batch));
+        }
+        try
+        {
+            for (Future<Void> result : results)
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IndexException("Interrupted while re-indexing issues changed on other nodes", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause() instanceof IndexException ? (IndexException) e.getCause() : new IndexException(e);
+        }
+        finally
+        {
+            for (Future<Void> result : results)
+            {
+                result.cancel(true);
+            }
+        }
+    }
+
+    private static void callBatch(final Callable<Void> batch) throws IndexException
+    {
+        try
+        {
+            batch.call();
+        }
+        catch (IndexException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IndexException(e);
+        }
+    }
+
     private void reindexProject(Project project)
     {
         try
@@ -0,0 +1,215 @@
+package com.atlassian.jira.index.ha;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * The CRC-32 checksums of the local index files, kept in a file in the index root so that they survive a restart.
+ * <p>
+ * Lucene never changes a committed file, but it reuses the names of deleted ones, so a checksum is only trusted while
+ * the file still has the length and modification time it had when the checksum was recorded. Files that have
+ * changed, or were never recorded, have to be read again.
+ *
+ * @since v6.3.15
+ */
+class IndexFileChecksums
+{
+    private static final Logger log = Logger.getLogger(IndexFileChecksums.class);
+
+    static final String FILE_NAME = "IndexFileChecksums.txt";
+
+    private static final String HEADER = "# JIRA index file checksums";
+    private static final char SEPARATOR = '\t';
+
+    private final File indexRoot;
+    private final File file;
+    // keyed by the path of the file within the index root
+    private final Map<String, Recorded> checksums;
+
+    private IndexFileChecksums(final File indexRoot, final Map<String, Recorded> checksums)
+    {
+        this.indexRoot = indexRoot;
+        this.file = new File(indexRoot, FILE_NAME);
+        this.checksums = checksums;
+    }
+
+    /**
+     * Reads the checksums recorded for the indexes under the given root. Any that cannot be read are forgotten, so
+     * that their files are read again.
+     */
+    @Nonnull
+    static IndexFileChecksums read(@Nonnull final File indexRoot)
+    {
+        final Map<String, Recorded> checksums = Maps.newHashMap();
+        final File file = new File(indexRoot, FILE_NAME);
+        if (file.isFile())
+        {
+            try
+            {
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+                try
+                {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine())
+                    {
+                        if (StringUtils.isBlank(line) || line.startsWith("#"))
+                        {
+                            continue;
+                        }
+                        final String[] fields = StringUtils.splitPreserveAllTokens(line, SEPARATOR);
+                        if (fields.length == 4)
+                        {
+                            checksums.put(fields[0], new Recorded(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                                    Long.parseLong(fields[3], 16)));
+                        }
+                    }
+                }
+                finally
+                {
+                    IOUtils.closeQuietly(reader);
+                }
+            }
+            catch (IOException e)
+            {
+                log.warn("Unable to read the index file checksums in " + file + ", the index files will be read again; " + e.getMessage());
+                checksums.clear();
+            }
+            catch (NumberFormatException e)
+            {
+                log.warn("Invalid index file checksums in " + file + ", the index files will be read again; " + e.getMessage());
+                checksums.clear();
+            }
+        }
+        return new IndexFileChecksums(indexRoot, checksums);
+    }
+
+    /**
+     * @return the recorded checksum of the file, or null if none was recorded for its current length and modification
+     * time
+     */
+    @Nullable
+    synchronized Long get(@Nonnull final File indexFile)
+    {
+        final Recorded recorded = checksums.get(relativePath(indexFile));
+        if (recorded != null && recorded.length == indexFile.length() && recorded.lastModified == indexFile.lastModified())
+        {
+            return recorded.checksum;
+        }
+        return null;
+    }
+
+    /**
+     * @return the checksum of the file, reading and recording it if it has changed since it was last recorded
+     * @throws FileNotFoundException if the file does not exist
+     */
+    long getOrCompute(@Nonnull final File indexFile) throws IOException
+    {
+        final Long checksum = get(indexFile);
+        if (checksum != null)
+        {
+            return checksum;
+        }
+        final long length = indexFile.length();
+        final long lastModified = indexFile.lastModified();
+        final long computed = IndexSnapshotManifest.checksum(indexFile);
+        // record it against what the file was before it was read, in case it changed while it was
+        synchronized (this)
+        {
+            checksums.put(relativePath(indexFile), new Recorded(length, lastModified, computed));
+        }
+        return computed;
+    }
+
+    /**
+     * Records the checksum of a file, which must be known to have the given contents.
+     */
+    synchronized void put(@Nonnull final File indexFile, final long checksum)
+    {
+        checksums.put(relativePath(indexFile), new Recorded(indexFile.length(), indexFile.lastModified(), checksum));
+    }
+
+    /**
+     * Forgets the checksums of every file but the given ones.
+     */
+    synchronized void retainAll(@Nonnull final Collection<File> indexFiles)
+    {
+        final Set<String> paths = Sets.newHashSet();
+        for (File indexFile : indexFiles)
+        {
+            paths.add(relativePath(indexFile));
+        }
+        checksums.keySet().retainAll(paths);
+    }
+
+    /**
+     * Writes the checksums, replacing the file only once it is complete so that it is never read half written.
+     */
+    synchronized void write() throws IOException
+    {
+        final File temp = new File(indexRoot, FILE_NAME + ".tmp");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(temp), Charsets.UTF_8);
+        try
+        {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Map.Entry<String, Recorded> entry : checksums.entrySet())
+            {
+                final Recorded recorded = entry.getValue();
+                writer.write(entry.getKey() + SEPARATOR + recorded.length + SEPARATOR + recorded.lastModified
+                        + SEPARATOR + Long.toHexString(recorded.checksum));
+                writer.write('\n');
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(writer);
+        }
+        // renameTo does not replace an existing file on every platform
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+        {
+            temp.delete();
+            throw new IOException("Unable to write index file checksums " + file);
+        }
+    }
+
+    private String relativePath(final File indexFile)
+    {
+        final String root = indexRoot.getAbsolutePath();
+        final String path = indexFile.getAbsolutePath();
+        return path.startsWith(root) ? path.substring(root.length()).replace(File.separatorChar, '/') : path;
+    }
+
+    private static class Recorded
+    {
+        private final long length;
+        private final long lastModified;
+        private final long checksum;
+
+        Recorded(final long length, final long lastModified, final long checksum)
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+        }
+    }
+}
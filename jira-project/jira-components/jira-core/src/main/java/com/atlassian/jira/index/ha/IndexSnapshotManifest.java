@@ -0,0 +1,246 @@
+package com.atlassian.jira.index.ha;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Lists the files of an incremental index snapshot, taken by
+ * {@link IndexUtils#takeIncrementalIndexSnapshot(String, String, String, int)}.
+ * <p>
+ * Lucene never changes a file once it has been committed, so a snapshot is the list of files in the latest commit of
+ * each index, with their lengths and checksums. The files themselves are stored once, next to the manifest, under
+ * names made from their name, length and checksum; a node restoring the snapshot only copies the files it does not
+ * already have.
+ *
+ * @since v6.3.15
+ */
+@Immutable
+public class IndexSnapshotManifest
+{
+    public static final String EXTENSION = ".manifest";
+
+    /**
+     * The directory, next to the manifests, holding the files they list.
+     */
+    public static final String FILES_DIRECTORY = "IndexSnapshotFiles";
+
+    private static final String HEADER = "# JIRA index snapshot";
+    private static final char SEPARATOR = '\t';
+
+    private final List<Entry> entries;
+
+    public IndexSnapshotManifest(@Nonnull final List<Entry> entries)
+    {
+        this.entries = ImmutableList.copyOf(entries);
+    }
+
+    @Nonnull
+    public List<Entry> getEntries()
+    {
+        return entries;
+    }
+
+    @Nonnull
+    public List<Entry> getEntries(@Nonnull final IndexUtils.IndexPath indexPath)
+    {
+        final List<Entry> result = Lists.newArrayList();
+        for (Entry entry : entries)
+        {
+            if (entry.getIndexPath() == indexPath)
+            {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public static boolean isManifest(@Nonnull final File file)
+    {
+        return file.getName().endsWith(EXTENSION);
+    }
+
+    /**
+     * Writes the manifest, replacing the file only once it is complete so that it is never read half written.
+     */
+    public void write(@Nonnull final File file) throws IOException
+    {
+        final File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(temp), Charsets.UTF_8);
+        try
+        {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Entry entry : entries)
+            {
+                writer.write(entry.getIndexPath().name() + SEPARATOR + entry.getName() + SEPARATOR + entry.getLength()
+                        + SEPARATOR + Long.toHexString(entry.getChecksum()));
+                writer.write('\n');
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(writer);
+        }
+        if (!temp.renameTo(file))
+        {
+            temp.delete();
+            throw new IOException("Unable to write index snapshot manifest " + file);
+        }
+    }
+
+    @Nonnull
+    public static IndexSnapshotManifest read(@Nonnull final File file) throws IOException
+    {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+        try
+        {
+            final List<Entry> entries = Lists.newArrayList();
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+            {
+                if (StringUtils.isBlank(line) || line.startsWith("#"))
+                {
+                    continue;
+                }
+                final String[] fields = StringUtils.splitPreserveAllTokens(line, SEPARATOR);
+                if (fields.length != 4)
+                {
+                    throw new IOException("Invalid line '" + line + "' in index snapshot manifest " + file);
+                }
+                try
+                {
+                    entries.add(new Entry(IndexUtils.IndexPath.valueOf(fields[0]), fields[1], Long.parseLong(fields[2]),
+                            Long.parseLong(fields[3], 16)));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new IOException("Invalid line '" + line + "' in index snapshot manifest " + file, e);
+                }
+            }
+            return new IndexSnapshotManifest(entries);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * @return the CRC-32 checksum of the file's contents
+     */
+    public static long checksum(@Nonnull final File file) throws IOException
+    {
+        final CRC32 crc = new CRC32();
+        final InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try
+        {
+            final byte[] buffer = new byte[64 * 1024];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+            {
+                crc.update(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * A file in the latest commit of one of the indexes.
+     */
+    @Immutable
+    public static class Entry
+    {
+        private final IndexUtils.IndexPath indexPath;
+        private final String name;
+        private final long length;
+        private final long checksum;
+
+        public Entry(@Nonnull final IndexUtils.IndexPath indexPath, @Nonnull final String name, final long length, final long checksum)
+        {
+            this.indexPath = indexPath;
+            this.name = name;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        @Nonnull
+        public IndexUtils.IndexPath getIndexPath()
+        {
+            return indexPath;
+        }
+
+        /**
+         * @return the name of the file in the index directory
+         */
+        @Nonnull
+        public String getName()
+        {
+            return name;
+        }
+
+        public long getLength()
+        {
+            return length;
+        }
+
+        public long getChecksum()
+        {
+            return checksum;
+        }
+
+        /**
+         * @return the name of the copy of the file in the {@link #FILES_DIRECTORY}, which identifies its contents
+         */
+        @Nonnull
+        public String getFileName()
+        {
+            return name + '-' + length + '-' + Long.toHexString(checksum);
+        }
+
+        /**
+         * @return whether the file has the contents this entry lists
+         */
+        public boolean matches(@Nonnull final File file) throws IOException
+        {
+            try
+            {
+                return file.isFile() && file.length() == length && checksum(file) == checksum;
+            }
+            catch (FileNotFoundException e)
+            {
+                // deleted while it was read
+                return false;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return indexPath + "/" + getFileName();
+        }
+    }
+}
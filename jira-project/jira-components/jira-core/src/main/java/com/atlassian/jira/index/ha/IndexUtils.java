@@ -1,11 +1,22 @@
 package com.atlassian.jira.index.ha;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import javax.annotation.Nonnull;
 
@@ -19,14 +30,18 @@ import com.atlassian.jira.util.ZipUtils;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.io.PatternFilenameFilter;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.comparator.LastModifiedFileComparator;
 import org.apache.log4j.Logger;
+import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.NoSuchDirectoryException;
 
 /**
@@ -44,6 +59,13 @@ public class IndexUtils
 
     public static final PatternFilenameFilter INDEX_SNAPSHOT_FILTER =
             new PatternFilenameFilter(INDEX_SNAPSHOT_PATTERN);
+    public static final PatternFilenameFilter INDEX_MANIFEST_FILTER = new PatternFilenameFilter(
+            Pattern.quote(INDEX_SNAPSHOT_PREFIX) + ".*" + Pattern.quote(IndexSnapshotManifest.EXTENSION));
+
+    // merges delete the files of older commits, so give up if the index keeps changing under the copy
+    private static final int MAX_COPY_ATTEMPTS = 5;
+    // files not listed by any manifest may belong to a snapshot another node is still taking
+    private static final long UNREFERENCED_FILE_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
 
     private final IssueIndexManager issueIndexManager;
     private final LuceneDirectoryUtils luceneDirectoryUtils;
@@ -109,7 +131,7 @@ public class IndexUtils
         try
         {
             workDir = TempDirectoryUtil.createTempDirectory("JIRAIndexBackup");
-            copyIndexes(sourcePath, workDir.getCanonicalPath());
+            copyLatestCommits(sourcePath, workDir.getCanonicalPath());
 
             File destination = new File(destinationPath);
             if (!destination.exists())
@@ -135,6 +157,223 @@ public class IndexUtils
         }
     }
 
+    /**
+     * Takes a snapshot of the indexes that only stores the files that earlier snapshots did not.
+     * <p>
+     * The snapshot is a manifest listing the files of the latest commit of each index. The files are copied to
+     * {@link IndexSnapshotManifest#FILES_DIRECTORY} in the destination, unless a copy is already there, so taking a
+     * snapshot only writes the segments created since the last one.
+     *
+     * @param sourcePath the root of the indexes
+     * @param destinationPath the directory to store the snapshot in
+     * @param snapshotId the unique id of the snapshot
+     * @param maxSnapshots the number of manifests to keep; files that none of them lists are deleted
+     * @return the name of the manifest
+     */
+    public String takeIncrementalIndexSnapshot(@Nonnull String sourcePath, @Nonnull String destinationPath,
+            @Nonnull String snapshotId, int maxSnapshots)
+    {
+        try
+        {
+            final File destination = new File(destinationPath);
+            final File filesDirectory = new File(destination, IndexSnapshotManifest.FILES_DIRECTORY);
+            if (!filesDirectory.isDirectory() && !filesDirectory.mkdirs())
+            {
+                throw new IOException("Unable to create " + filesDirectory);
+            }
+
+            final IndexFileChecksums checksums = IndexFileChecksums.read(new File(sourcePath));
+            final List<IndexSnapshotManifest.Entry> entries = Lists.newArrayList();
+            final Set<File> checksummedFiles = Sets.newHashSet();
+            for (IndexPath indexPath : IndexPath.values())
+            {
+                final File indexDirectory = new File(PathUtils.joinPaths(sourcePath, indexPath.getPath()));
+                entries.addAll(publishLatestCommit(indexPath, indexDirectory, filesDirectory, checksums, checksummedFiles));
+            }
+            checksums.retainAll(checksummedFiles);
+            writeChecksums(checksums);
+
+            final String filename = INDEX_SNAPSHOT_PREFIX + snapshotId + IndexSnapshotManifest.EXTENSION;
+            new IndexSnapshotManifest(entries).write(new File(destination, filename));
+
+            deleteOldManifests(destination, maxSnapshots);
+
+            return filename;
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeChecksums(final IndexFileChecksums checksums)
+    {
+        try
+        {
+            checksums.write();
+        }
+        catch (IOException e)
+        {
+            // they will be read again next time
+            log.warn("Unable to record the checksums of the index files; " + e.getMessage());
+        }
+    }
+
+    private List<IndexSnapshotManifest.Entry> publishLatestCommit(final IndexPath indexPath, final File indexDirectory,
+            final File filesDirectory, final IndexFileChecksums checksums, final Set<File> checksummedFiles) throws IOException
+    {
+        for (int attempt = 1; ; attempt++)
+        {
+            try
+            {
+                final List<IndexSnapshotManifest.Entry> entries = Lists.newArrayList();
+                for (String name : getLatestCommitFileNames(indexDirectory))
+                {
+                    entries.add(publishFile(indexPath, new File(indexDirectory, name), filesDirectory, checksums, checksummedFiles));
+                }
+                return entries;
+            }
+            catch (FileNotFoundException e)
+            {
+                if (attempt >= MAX_COPY_ATTEMPTS)
+                {
+                    throw e;
+                }
+                log.debug("The " + indexPath + " index changed while it was copied, copying its latest commit again; " + e.getMessage());
+            }
+        }
+    }
+
+    private IndexSnapshotManifest.Entry publishFile(final IndexPath indexPath, final File file, final File filesDirectory,
+            final IndexFileChecksums checksums, final Set<File> checksummedFiles) throws IOException
+    {
+        final long length = file.length();
+        checksummedFiles.add(file);
+
+        final Long checksum = checksums.get(file);
+        if (checksum != null)
+        {
+            final IndexSnapshotManifest.Entry entry = new IndexSnapshotManifest.Entry(indexPath, file.getName(), length, checksum);
+            final File published = new File(filesDirectory, entry.getFileName());
+            // touch it, so that it is not deleted as unreferenced before the manifest is written
+            if (published.setLastModified(System.currentTimeMillis()))
+            {
+                return entry;
+            }
+        }
+
+        // copy it to find its checksum, which names the copy
+        final File temp = File.createTempFile(file.getName() + "-", ".tmp", filesDirectory);
+        try
+        {
+            final IndexSnapshotManifest.Entry entry = new IndexSnapshotManifest.Entry(indexPath, file.getName(), length, copy(file, temp));
+            checksums.put(file, entry.getChecksum());
+            final File published = new File(filesDirectory, entry.getFileName());
+            if (!published.setLastModified(System.currentTimeMillis()) && !temp.renameTo(published))
+            {
+                throw new IOException("Unable to publish index file " + published);
+            }
+            return entry;
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * @return the CRC-32 checksum of the copied contents
+     */
+    private static long copy(final File source, final File destination) throws IOException
+    {
+        final CheckedInputStream in = new CheckedInputStream(new FileInputStream(source), new CRC32());
+        try
+        {
+            final OutputStream out = new FileOutputStream(destination);
+            try
+            {
+                IOUtils.copyLarge(in, out);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(out);
+            }
+            return in.getChecksum().getValue();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Copies the files of the latest commit of each index, as they are, to another directory.
+     */
+    private void copyLatestCommits(final String sourcePath, final String destinationPath) throws IOException
+    {
+        for (IndexPathMapping indexPathMapping : buildIndexPathMappings(sourcePath, destinationPath).values())
+        {
+            copyLatestCommit(new File(indexPathMapping.getSourcePath()), new File(indexPathMapping.getDestinationPath()));
+        }
+    }
+
+    private void copyLatestCommit(final File sourceDirectory, final File destDirectory) throws IOException
+    {
+        for (int attempt = 1; ; attempt++)
+        {
+            try
+            {
+                final Collection<String> names = getLatestCommitFileNames(sourceDirectory);
+                if (names.isEmpty())
+                {
+                    // leaves an empty index
+                    copySpecificIndex(sourceDirectory, destDirectory);
+                    return;
+                }
+                FileUtils.deleteDirectory(destDirectory);
+                for (String name : names)
+                {
+                    FileUtils.copyFile(new File(sourceDirectory, name), new File(destDirectory, name));
+                }
+                return;
+            }
+            catch (FileNotFoundException e)
+            {
+                if (attempt >= MAX_COPY_ATTEMPTS)
+                {
+                    throw e;
+                }
+                log.debug("The index in " + sourceDirectory + " changed while it was copied, copying its latest commit again; " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the names of the files in the latest commit of the index, or none if there is no index
+     */
+    private Collection<String> getLatestCommitFileNames(final File indexDirectory) throws IOException
+    {
+        if (!indexDirectory.isDirectory())
+        {
+            return Collections.emptyList();
+        }
+        final Directory directory = luceneDirectoryUtils.getDirectory(indexDirectory);
+        try
+        {
+            if (!IndexReader.indexExists(directory))
+            {
+                return Collections.emptyList();
+            }
+            // listed oldest first
+            final List<IndexCommit> commits = Lists.newArrayList(IndexReader.listCommits(directory));
+            return commits.get(commits.size() - 1).getFileNames();
+        }
+        finally
+        {
+            directory.close();
+        }
+    }
+
     /**
      * Copies all indexes from a specified directory to another specified directory.  Any indexes on the destination directory will
      * be deleted.
@@ -280,7 +519,51 @@ public class IndexUtils
     @VisibleForTesting
     protected int deleteOldSnapshots(File directory, int numToKeep)
     {
-        final File[] snapshots = directory.listFiles(INDEX_SNAPSHOT_FILTER);
+        return deleteOldFiles(directory, INDEX_SNAPSHOT_FILTER, numToKeep);
+    }
+
+    /**
+     * Deletes all but the latest manifests, and the files that the remaining ones do not list.
+     */
+    @VisibleForTesting
+    protected int deleteOldManifests(File directory, int numToKeep) throws IOException
+    {
+        final int numDeleted = deleteOldFiles(directory, INDEX_MANIFEST_FILTER, numToKeep);
+
+        final Set<String> referenced = Sets.newHashSet();
+        for (File manifest : directory.listFiles(INDEX_MANIFEST_FILTER))
+        {
+            try
+            {
+                for (IndexSnapshotManifest.Entry entry : IndexSnapshotManifest.read(manifest).getEntries())
+                {
+                    referenced.add(entry.getFileName());
+                }
+            }
+            catch (FileNotFoundException e)
+            {
+                // deleted by another node
+            }
+        }
+
+        final File[] files = new File(directory, IndexSnapshotManifest.FILES_DIRECTORY).listFiles();
+        if (files != null)
+        {
+            final long deleteBefore = System.currentTimeMillis() - UNREFERENCED_FILE_AGE_MILLIS;
+            for (File file : files)
+            {
+                if (!referenced.contains(file.getName()) && file.lastModified() < deleteBefore)
+                {
+                    file.delete();
+                }
+            }
+        }
+        return numDeleted;
+    }
+
+    private int deleteOldFiles(File directory, FilenameFilter filter, int numToKeep)
+    {
+        final File[] snapshots = directory.listFiles(filter);
         Arrays.sort(snapshots, LastModifiedFileComparator.LASTMODIFIED_REVERSE);
         int numKept = 0;
         int numDeleted = 0;
@@ -8,7 +8,6 @@ import com.atlassian.jira.ofbiz.OfBizDelegator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
-import org.apache.commons.lang.StringUtils;
 import org.ofbiz.core.entity.EntityCondition;
 import org.ofbiz.core.entity.EntityExpr;
 import org.ofbiz.core.entity.EntityExprList;
@@ -181,12 +180,6 @@ public class OfBizReplicatedIndexOperationStore
         return clusterManagerRef.get();
     }
 
-    private static String serialize(final Set<Long> ids)
-    {
-        return StringUtils.join(ids, ',');
-    }
-
-
     private static Map<String, Object> getIndexOperationFields(final Timestamp indexTime,
                                         final ReplicatedIndexOperation.AffectedIndex affectedIndex,
                                         final ReplicatedIndexOperation.SharedEntityType entityType,
@@ -201,7 +194,7 @@ public class OfBizReplicatedIndexOperationStore
                 .put(ReplicatedIndexOperation.NODE_ID, nodeId)
                 .put(ReplicatedIndexOperation.AFFECTED_INDEX, affectedIndex.toString())
                 .put(ReplicatedIndexOperation.ENTITY_TYPE, entityType.toString())
-                .put(ReplicatedIndexOperation.AFFECTED_IDS, serialize(affectedIds))
+                .put(ReplicatedIndexOperation.AFFECTED_IDS, ReplicatedIndexOperationFactory.serialize(affectedIds))
                 .put(ReplicatedIndexOperation.BACKUP_FILENAME, backupFilename)
                 .build();
     }
@@ -6,6 +6,7 @@ import com.google.common.collect.Sets;
 import org.apache.commons.lang.StringUtils;
 import org.ofbiz.core.entity.GenericValue;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
@@ -13,6 +14,9 @@ import javax.annotation.Nonnull;
 
 /**
  * Factory for converting GVs to {@link ReplicatedIndexOperation}
+ * <p>
+ * The affected ids are stored sorted, with runs of consecutive ids written as ranges such as {@code 10200-10450}, so
+ * that the operation for a bulk change stays small. Lists written without ranges are read the same way.
  *
  * @since v6.1
  */
@@ -52,7 +56,7 @@ public class ReplicatedIndexOperationFactory extends AbstractEntityFactory<Repli
                 gv.getString(ReplicatedIndexOperation.BACKUP_FILENAME));
     }
 
-    private Set<Long> deserialize(final String ids)
+    static Set<Long> deserialize(final String ids)
     {
         if (StringUtils.isBlank(ids))
             return Sets.newHashSet();
@@ -62,14 +66,53 @@ public class ReplicatedIndexOperationFactory extends AbstractEntityFactory<Repli
         final Set<Long> affectedIds = Sets.newHashSet();
         for (String id : affectedIdStrings)
         {
-            affectedIds.add(Long.parseLong(id));
+            final int dash = id.indexOf('-');
+            if (dash > 0)
+            {
+                final long last = Long.parseLong(id.substring(dash + 1));
+                for (long rangeId = Long.parseLong(id.substring(0, dash)); rangeId <= last; rangeId++)
+                {
+                    affectedIds.add(rangeId);
+                }
+            }
+            else
+            {
+                affectedIds.add(Long.parseLong(id));
+            }
         }
         return affectedIds;
     }
 
-    private String serialize(final Set<Long> ids)
+    static String serialize(final Set<Long> ids)
     {
-        return StringUtils.join(ids, ",");
+        final Long[] sorted = ids.toArray(new Long[ids.size()]);
+        Arrays.sort(sorted);
+        final StringBuilder serialized = new StringBuilder();
+        int i = 0;
+        while (i < sorted.length)
+        {
+            // find the end of the run of consecutive ids starting at i
+            int end = i;
+            while (end + 1 < sorted.length && sorted[end + 1] == sorted[end] + 1)
+            {
+                end++;
+            }
+            if (serialized.length() > 0)
+            {
+                serialized.append(',');
+            }
+            serialized.append(sorted[i]);
+            if (end - i >= 2)
+            {
+                serialized.append('-').append(sorted[end]);
+                i = end + 1;
+            }
+            else
+            {
+                i++;
+            }
+        }
+        return serialized.toString();
     }
 
 }
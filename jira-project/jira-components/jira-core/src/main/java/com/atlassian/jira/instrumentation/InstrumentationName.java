@@ -115,6 +115,16 @@ public enum InstrumentationName
      */
     CLUSTER_REPLICATED_INDEX_OPERATIONS_TOTAL("replicated.index.operations.total"),
 
+    /**
+     * The number of other nodes' Replicated Index Operations this node has not applied yet.
+     */
+    CLUSTER_REPLICATED_INDEX_LAG_OPERATIONS("replicated.index.lag.operations"),
+
+    /**
+     * How long, in seconds, the oldest Replicated Index Operation this node has not applied yet has been waiting.
+     */
+    CLUSTER_REPLICATED_INDEX_LAG_SECONDS("replicated.index.lag.seconds"),
+
     /**
      * The number of active connections in the pool.
      */
@@ -150,6 +160,23 @@ public enum InstrumentationName
      */
     SEARCHER_JIRA_CLOSE("searcher.jira.close"),
 
+    /**
+     * How long, in milliseconds, the most out of date near-real-time searcher has been missing index writes.
+     */
+    SEARCHER_REFRESH_LAG("searcher.refresh.lag"),
+
+    /**
+     * An {@link com.atlassian.instrumentation.operations.OpCounter} of cluster messages delivered as they were pushed
+     * by the sending node, and the milliseconds between sending and delivering them.
+     */
+    CLUSTER_MESSAGES_PUSHED("cluster.messages.pushed"),
+
+    /**
+     * An {@link com.atlassian.instrumentation.operations.OpCounter} of cluster messages delivered by reading the
+     * cluster message table, and the milliseconds between sending and delivering them.
+     */
+    CLUSTER_MESSAGES_POLLED("cluster.messages.polled"),
+
     /**
      * number of manual workflow transitions occurred.
      */
@@ -0,0 +1,125 @@
+package com.atlassian.jira.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A histogram of latencies with a fixed number of buckets, in the style of an HDR histogram.
+ * <p/>
+ * Latencies are recorded in microseconds. Every power of two is split into {@link #SUB_BUCKETS} equal buckets, so
+ * any percentile read from the histogram is within 25% of the true value whatever its magnitude, from a microsecond
+ * up to over an hour, and the histogram always takes the same small amount of memory.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class LatencyHistogram
+{
+    static final int SUB_BUCKET_BITS = 2;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^32 microseconds is a little over 71 minutes; anything longer goes in the last bucket
+    private static final int MAX_EXPONENT = 32;
+    static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos the latency, in nanoseconds
+     */
+    public void record(final long nanos)
+    {
+        final long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        for (long max = maxMicros.get(); micros > max; max = maxMicros.get())
+        {
+            if (maxMicros.compareAndSet(max, micros))
+            {
+                break;
+            }
+        }
+    }
+
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    public long getTotalMillis()
+    {
+        return TimeUnit.MICROSECONDS.toMillis(totalMicros.get());
+    }
+
+    public long getMaxMillis()
+    {
+        return TimeUnit.MICROSECONDS.toMillis(maxMicros.get());
+    }
+
+    public double getMeanMillis()
+    {
+        final long count = this.count.get();
+        return count == 0 ? 0 : (double) totalMicros.get() / count / 1000;
+    }
+
+    /**
+     * Returns the latency that the given percentage of the recorded latencies did not exceed, as the upper bound of
+     * the bucket it falls in.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in milliseconds, or 0 if nothing has been recorded
+     */
+    public double getPercentileMillis(final double percentile)
+    {
+        final long count = this.count.get();
+        if (count == 0)
+        {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+        {
+            seen += buckets.get(bucket);
+            if (seen >= rank)
+            {
+                return (double) Math.min(upperBoundOf(bucket), maxMicros.get()) / 1000;
+            }
+        }
+        return (double) maxMicros.get() / 1000;
+    }
+
+    static int bucketOf(final long micros)
+    {
+        if (micros < SUB_BUCKETS)
+        {
+            return (int) micros;
+        }
+        final int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(micros));
+        if (exponent == MAX_EXPONENT && micros >= 1L << (MAX_EXPONENT + 1))
+        {
+            return BUCKET_COUNT - 1;
+        }
+        final int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(final int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        final int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        final int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
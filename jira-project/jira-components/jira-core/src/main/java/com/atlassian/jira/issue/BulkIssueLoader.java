@@ -0,0 +1,51 @@
+package com.atlassian.jira.issue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Loads many issues at once, together with the fields that would otherwise be read from the database one issue at a
+ * time, such as their versions, components, labels, parents and custom field values.
+ * <p>
+ * Code that reads the same fields of many issues, like the REST search resource and the replay of index operations
+ * on a cluster node, should load those fields through this rather than reading them from each issue in turn.
+ * {@link IssueManager#getIssueObjects(java.util.Collection)} does not, as most of its callers read few fields.
+ *
+ * @since v6.3.15
+ */
+public interface BulkIssueLoader
+{
+    /**
+     * Requests every field that can be loaded in bulk.
+     */
+    String ALL_FIELDS = "*all";
+
+    /**
+     * Requests the values of every custom field.
+     */
+    String ALL_CUSTOM_FIELDS = "*customfields";
+
+    /**
+     * Loads issues and the given fields of them.
+     *
+     * @param issueIds the ids of the issues
+     * @param fieldIds the ids of the fields that will be read, as for {@link #loadFields(java.util.Collection, java.util.Set)}
+     * @return the issues that exist, in the order of their ids
+     */
+    @Nonnull
+    List<Issue> getIssues(@Nonnull Collection<Long> issueIds, @Nonnull Set<String> fieldIds);
+
+    /**
+     * Loads the given fields of issues that have already been loaded. The associations of issues read from the
+     * database are loaded; issues read from the index already have theirs, so only their custom field values are.
+     *
+     * @param issues the issues
+     * @param fieldIds the ids of the fields that will be read, such as {@link IssueFieldConstants#FIX_FOR_VERSIONS},
+     * the id of a custom field, {@link #ALL_CUSTOM_FIELDS} or {@link #ALL_FIELDS}. Other fields are loaded when they
+     * are first read, as usual.
+     */
+    void loadFields(@Nonnull Collection<? extends Issue> issues, @Nonnull Set<String> fieldIds);
+}
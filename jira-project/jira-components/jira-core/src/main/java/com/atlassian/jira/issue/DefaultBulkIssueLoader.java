@@ -0,0 +1,265 @@
+package com.atlassian.jira.issue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.Nonnull;
+
+import com.atlassian.jira.config.SubTaskManager;
+import com.atlassian.jira.entity.Entity;
+import com.atlassian.jira.issue.comparator.ComponentComparator;
+import com.atlassian.jira.issue.comparator.VersionComparator;
+import com.atlassian.jira.issue.customfields.persistence.CustomFieldValuePrefetcher;
+import com.atlassian.jira.issue.fields.FieldManager;
+import com.atlassian.jira.issue.label.Label;
+import com.atlassian.jira.issue.label.LabelComparator;
+import com.atlassian.jira.issue.label.OfBizLabelStore;
+import com.atlassian.jira.issue.link.IssueLinkType;
+import com.atlassian.jira.issue.link.IssueLinkTypeManager;
+import com.atlassian.jira.ofbiz.OfBizDelegator;
+import com.atlassian.jira.project.version.Version;
+import com.atlassian.jira.project.version.VersionManager;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.ofbiz.core.entity.EntityCondition;
+import org.ofbiz.core.entity.EntityConditionList;
+import org.ofbiz.core.entity.EntityExpr;
+import org.ofbiz.core.entity.EntityOperator;
+import org.ofbiz.core.entity.GenericValue;
+
+import static com.atlassian.jira.ofbiz.DefaultOfBizDelegator.MAX_ELEMS_IN_CLAUSE;
+import static java.util.Arrays.asList;
+
+/**
+ * Loads the associations of many issues with one query per association, rather than one per issue, and hands them to
+ * the {@link IssueImpl}s. Custom field values are loaded through the {@link CustomFieldValuePrefetcher}.
+ *
+ * @since v6.3.15
+ */
+public class DefaultBulkIssueLoader implements BulkIssueLoader
+{
+    private static final String ISSUE_LINK_ENTITY = "IssueLink";
+    private static final String NODE_ASSOCIATION_ENTITY = "NodeAssociation";
+
+    private final IssueManager issueManager;
+    private final OfBizDelegator ofBizDelegator;
+    private final VersionManager versionManager;
+    private final IssueLinkTypeManager issueLinkTypeManager;
+    private final CustomFieldValuePrefetcher customFieldValuePrefetcher;
+
+    public DefaultBulkIssueLoader(final IssueManager issueManager, final OfBizDelegator ofBizDelegator,
+            final VersionManager versionManager, final IssueLinkTypeManager issueLinkTypeManager,
+            final CustomFieldValuePrefetcher customFieldValuePrefetcher)
+    {
+        this.issueManager = issueManager;
+        this.ofBizDelegator = ofBizDelegator;
+        this.versionManager = versionManager;
+        this.issueLinkTypeManager = issueLinkTypeManager;
+        this.customFieldValuePrefetcher = customFieldValuePrefetcher;
+    }
+
+    @Nonnull
+    @Override
+    public List<Issue> getIssues(@Nonnull final Collection<Long> issueIds, @Nonnull final Set<String> fieldIds)
+    {
+        final List<Issue> issues = issueManager.getIssueObjects(issueIds);
+        loadFields(issues, fieldIds);
+        return issues;
+    }
+
+    @Override
+    public void loadFields(@Nonnull final Collection<? extends Issue> issues, @Nonnull final Set<String> fieldIds)
+    {
+        final List<Long> issueIds = new ArrayList<Long>(issues.size());
+        final Map<Long, IssueImpl> storedIssues = Maps.newHashMap();
+        for (final Issue issue : issues)
+        {
+            if (issue.getId() != null)
+            {
+                issueIds.add(issue.getId());
+                if (issue instanceof IssueImpl && issue.getGenericValue() != null)
+                {
+                    storedIssues.put(issue.getId(), (IssueImpl) issue);
+                }
+            }
+        }
+
+        for (final List<Long> batch : Iterables.partition(ImmutableList.copyOf(storedIssues.keySet()), MAX_ELEMS_IN_CLAUSE))
+        {
+            if (isRequested(fieldIds, IssueFieldConstants.COMPONENTS))
+            {
+                loadComponents(batch, storedIssues);
+            }
+            if (isRequested(fieldIds, IssueFieldConstants.AFFECTED_VERSIONS) || isRequested(fieldIds, IssueFieldConstants.FIX_FOR_VERSIONS))
+            {
+                loadVersions(batch, storedIssues);
+            }
+            if (isRequested(fieldIds, IssueFieldConstants.LABELS))
+            {
+                loadLabels(batch, storedIssues);
+            }
+            // sub-tasks read their parent for many fields, such as the security level, so it is always loaded
+            loadParents(batch, storedIssues);
+        }
+
+        if (isCustomFieldRequested(fieldIds))
+        {
+            customFieldValuePrefetcher.prefetchValues(issueIds);
+        }
+    }
+
+    private void loadComponents(final List<Long> issueIds, final Map<Long, IssueImpl> issues)
+    {
+        final ListMultimap<Long, Long> componentIds = getAssociatedIds(issueIds, IssueRelationConstants.COMPONENT, Entity.Name.COMPONENT);
+        final Map<Long, GenericValue> components = Maps.newHashMap();
+        for (final List<Long> batch : Iterables.partition(ImmutableList.copyOf(Sets.newHashSet(componentIds.values())), MAX_ELEMS_IN_CLAUSE))
+        {
+            for (final GenericValue component : ofBizDelegator.findByCondition(Entity.Name.COMPONENT, new EntityExpr("id", EntityOperator.IN, batch), null))
+            {
+                components.put(component.getLong("id"), component);
+            }
+        }
+
+        for (final Long issueId : issueIds)
+        {
+            final List<GenericValue> issueComponents = Lists.newArrayList();
+            for (final Long componentId : componentIds.get(issueId))
+            {
+                final GenericValue component = components.get(componentId);
+                if (component != null)
+                {
+                    issueComponents.add(component);
+                }
+            }
+            //noinspection unchecked
+            Collections.sort(issueComponents, ComponentComparator.COMPARATOR);
+            issues.get(issueId).setLoadedComponents(issueComponents);
+        }
+    }
+
+    private void loadVersions(final List<Long> issueIds, final Map<Long, IssueImpl> issues)
+    {
+        final ListMultimap<Long, Long> affectedVersionIds = getAssociatedIds(issueIds, IssueRelationConstants.VERSION, Entity.Name.VERSION);
+        final ListMultimap<Long, Long> fixVersionIds = getAssociatedIds(issueIds, IssueRelationConstants.FIX_VERSION, Entity.Name.VERSION);
+        for (final Long issueId : issueIds)
+        {
+            issues.get(issueId).setLoadedAffectedVersions(getVersions(affectedVersionIds.get(issueId)));
+            issues.get(issueId).setLoadedFixVersions(getVersions(fixVersionIds.get(issueId)));
+        }
+    }
+
+    private List<Version> getVersions(final List<Long> versionIds)
+    {
+        final List<Version> versions = new ArrayList<Version>(versionIds.size());
+        for (final Long versionId : versionIds)
+        {
+            // versions are cached, so this does not query the database
+            final Version version = versionManager.getVersion(versionId);
+            if (version != null)
+            {
+                versions.add(version);
+            }
+        }
+        Collections.sort(versions, VersionComparator.COMPARATOR);
+        return versions;
+    }
+
+    private void loadLabels(final List<Long> issueIds, final Map<Long, IssueImpl> issues)
+    {
+        final EntityCondition condition = new EntityConditionList(asList(
+                new EntityExpr(OfBizLabelStore.Columns.ISSUE_ID, EntityOperator.IN, issueIds),
+                new EntityExpr(OfBizLabelStore.Columns.CUSTOM_FIELD_ID, EntityOperator.EQUALS, null)), EntityOperator.AND);
+
+        final Map<Long, Set<Label>> labels = Maps.newHashMap();
+        for (final Long issueId : issueIds)
+        {
+            labels.put(issueId, new TreeSet<Label>(LabelComparator.INSTANCE));
+        }
+        for (final GenericValue label : ofBizDelegator.findByCondition(OfBizLabelStore.TABLE, condition, null))
+        {
+            final Long issueId = label.getLong(OfBizLabelStore.Columns.ISSUE_ID);
+            labels.get(issueId).add(new Label(label.getLong(OfBizLabelStore.Columns.ID), issueId, null, label.getString(OfBizLabelStore.Columns.LABEL)));
+        }
+        for (final Map.Entry<Long, Set<Label>> entry : labels.entrySet())
+        {
+            issues.get(entry.getKey()).setLoadedLabels(Collections.unmodifiableSet(entry.getValue()));
+        }
+    }
+
+    private void loadParents(final List<Long> issueIds, final Map<Long, IssueImpl> issues)
+    {
+        final List<Long> linkTypeIds = Lists.newArrayList();
+        for (final IssueLinkType linkType : issueLinkTypeManager.getIssueLinkTypesByStyle(SubTaskManager.SUB_TASK_LINK_TYPE_STYLE))
+        {
+            linkTypeIds.add(linkType.getId());
+        }
+
+        final Map<Long, Long> parentIds = Maps.newHashMap();
+        if (!linkTypeIds.isEmpty())
+        {
+            final EntityCondition condition = new EntityConditionList(asList(
+                    new EntityExpr("linktype", EntityOperator.IN, linkTypeIds),
+                    new EntityExpr("destination", EntityOperator.IN, issueIds)), EntityOperator.AND);
+            for (final GenericValue link : ofBizDelegator.findByCondition(ISSUE_LINK_ENTITY, condition, null))
+            {
+                parentIds.put(link.getLong("destination"), link.getLong("source"));
+            }
+        }
+        for (final Long issueId : issueIds)
+        {
+            issues.get(issueId).setLoadedParentId(parentIds.get(issueId));
+        }
+    }
+
+    /**
+     * @return the ids of the entities associated with each issue, in the order they were associated
+     */
+    private ListMultimap<Long, Long> getAssociatedIds(final List<Long> issueIds, final String associationType, final String sinkEntity)
+    {
+        final EntityCondition condition = new EntityConditionList(asList(
+                new EntityExpr("sourceNodeEntity", EntityOperator.EQUALS, Entity.Name.ISSUE),
+                new EntityExpr("sourceNodeId", EntityOperator.IN, issueIds),
+                new EntityExpr("sinkNodeEntity", EntityOperator.EQUALS, sinkEntity),
+                new EntityExpr("associationType", EntityOperator.EQUALS, associationType)), EntityOperator.AND);
+
+        final ListMultimap<Long, Long> associatedIds = ArrayListMultimap.create();
+        for (final GenericValue association : ofBizDelegator.findByCondition(NODE_ASSOCIATION_ENTITY, condition, null))
+        {
+            associatedIds.put(association.getLong("sourceNodeId"), association.getLong("sinkNodeId"));
+        }
+        return associatedIds;
+    }
+
+    private static boolean isRequested(final Set<String> fieldIds, final String fieldId)
+    {
+        return fieldIds.contains(ALL_FIELDS) || fieldIds.contains(fieldId);
+    }
+
+    private static boolean isCustomFieldRequested(final Set<String> fieldIds)
+    {
+        if (fieldIds.contains(ALL_FIELDS) || fieldIds.contains(ALL_CUSTOM_FIELDS))
+        {
+            return true;
+        }
+        for (final String fieldId : fieldIds)
+        {
+            if (fieldId.startsWith(FieldManager.CUSTOM_FIELD_PREFIX))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
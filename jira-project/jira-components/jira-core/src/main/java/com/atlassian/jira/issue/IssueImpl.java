@@ -1254,6 +1254,35 @@ public class IssueImpl extends AbstractIssue implements MutableIssue
         return labels;
     }
 
+    // The following set associations that DefaultBulkIssueLoader loaded for many issues at once. Unlike the public
+    // setters, they do not mark the fields as modified.
+
+    void setLoadedComponents(final Collection<GenericValue> components)
+    {
+        this.components = components;
+    }
+
+    void setLoadedAffectedVersions(final Collection<Version> affectedVersions)
+    {
+        this.affectedVersions = affectedVersions;
+    }
+
+    void setLoadedFixVersions(final Collection<Version> fixVersions)
+    {
+        this.fixVersions = fixVersions;
+    }
+
+    void setLoadedLabels(final Set<Label> labels)
+    {
+        this.labels = labels;
+    }
+
+    void setLoadedParentId(final Long parentId)
+    {
+        this.parentId = parentId;
+        this.hasNoParentId = parentId == null;
+    }
+
     public void setStatus(GenericValue status)
     {
         this.status = status;
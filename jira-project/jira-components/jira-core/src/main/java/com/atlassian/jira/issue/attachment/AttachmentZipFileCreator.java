@@ -3,26 +3,49 @@ package com.atlassian.jira.issue.attachment;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.util.AttachmentUtils;
 import com.atlassian.jira.util.IOUtil;
+import com.google.common.collect.ImmutableSet;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 
 /**
- * This class can create temporary zip files containing all the attachments on an issue
+ * This class can create temporary zip files containing all the attachments on an issue, or stream them as a zip
  *
  * @since v4.1
  */
 public class AttachmentZipFileCreator
 {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Set<String> COMPRESSED_MIME_TYPES = ImmutableSet.of(
+            "image/jpeg", "image/pjpeg", "image/png", "image/gif",
+            "application/zip", "application/x-zip-compressed", "application/java-archive",
+            "application/gzip", "application/x-gzip", "application/x-bzip2", "application/x-xz",
+            "application/x-7z-compressed", "application/x-rar-compressed", "application/pdf");
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = ImmutableSet.of(
+            "jpg", "jpeg", "png", "gif", "mp3", "mp4", "m4v", "mov", "avi", "mkv", "webm", "ogg",
+            "zip", "jar", "war", "ear", "gz", "tgz", "bz2", "xz", "7z", "rar",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp", "pdf");
+
     private final Issue issue;
 
     public AttachmentZipFileCreator(final Issue issue)
@@ -43,46 +66,108 @@ public class AttachmentZipFileCreator
     public File toZipFile() throws IOException
     {
         File zipFile = File.createTempFile(issue.getKey() + "-", ".zip");
-        Collection<Attachment> attachments = issue.getAttachments();
-        UniqueFileNameGenerator uniqueFileNameGenerator = new UniqueFileNameGenerator();
-        ZipArchiveOutputStream out = null;
+        OutputStream out = null;
         try
         {
-            // Create the ZIP file
+            out = new FileOutputStream(zipFile);
+            writeZip(out);
+        }
+        finally
+        {
+            IOUtil.shutdownStream(out);
+        }
+        return zipFile;
+    }
+
+    /**
+     * Writes a ZIP of all the attachments of an issue to a stream, one attachment at a time as it is read, so the
+     * ZIP can be sent while it is being written, without a temporary file and in constant memory.
+     * <p/>
+     * Attachments that are already compressed, such as images, video and archives, are not compressed again. The
+     * stream is not closed.
+     *
+     * @param out where to write the ZIP
+     *
+     * @throws FileNotFoundException before anything is written, if the file of an attachment is missing
+     * @throws IOException if stuff goes wrong
+     */
+    public void writeZip(final OutputStream out) throws IOException
+    {
+        Collection<Attachment> attachments = issue.getAttachments();
 
-            out = new ZipArchiveOutputStream(new FileOutputStream(zipFile));
+        // look for all the files first, so that nothing has been sent if one of them is missing
+        final List<File> attachmentFiles = new ArrayList<File>(attachments.size());
+        for (Attachment attachment : attachments)
+        {
+            File attachmentFile = getAttachmentFile(attachment);
+            if (attachmentFile == null || !attachmentFile.isFile())
+            {
+                throw new FileNotFoundException("Could not find the file of attachment " + attachment.getId() + " : " + attachmentFile);
+            }
+            attachmentFiles.add(attachmentFile);
+        }
 
-            // Compress the files
+        UniqueFileNameGenerator uniqueFileNameGenerator = new UniqueFileNameGenerator();
+        ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(new BufferedOutputStream(new CloseShieldOutputStream(out), BUFFER_SIZE));
+        try
+        {
+            Iterator<File> attachmentFileIterator = attachmentFiles.iterator();
             for (Attachment attachment : attachments)
             {
-                File attachmentFile = getAttachmentFile(attachment);
+                File attachmentFile = attachmentFileIterator.next();
 
                 // Add ZIP entry to output stream.
                 final String attachmentFileName = attachment.getFilename();
                 final ZipArchiveEntry zipEntry = new ZipArchiveEntry(uniqueFileNameGenerator.getUniqueFileName(attachmentFileName));
-                out.putArchiveEntry(zipEntry);
+                // knowing the size up front lets the entry switch to ZIP64 when it needs to
+                zipEntry.setSize(attachmentFile.length());
+                zipOut.setLevel(isCompressed(attachment) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                zipOut.putArchiveEntry(zipEntry);
 
                 FileInputStream in = null;
                 try
                 {
                     in = new FileInputStream(attachmentFile);
-                    // Transfer bytes from the attachment to the ZIP file
-                    IOUtil.copy(in, out);
+                    // Transfer bytes from the attachment to the ZIP
+                    IOUtil.copy(in, zipOut, BUFFER_SIZE);
 
                     // Complete the entry
-                    out.closeArchiveEntry();
+                    zipOut.closeArchiveEntry();
                 }
                 finally
                 {
                     IOUtil.shutdownStream(in);
                 }
             }
+            zipOut.finish();
         }
         finally
         {
-            IOUtil.shutdownStream(out);
+            // flushes what is left without closing the stream we were given
+            IOUtil.shutdownStream(zipOut);
         }
-        return zipFile;
+    }
+
+    /**
+     * Decides whether deflating an attachment is a waste of time, because its content is compressed already.
+     *
+     * @param attachment the attachment in play
+     *
+     * @return true if the attachment should be stored in the ZIP as it is
+     */
+    static boolean isCompressed(final Attachment attachment)
+    {
+        final String mimetype = attachment.getMimetype() == null ? "" : attachment.getMimetype().toLowerCase(Locale.ENGLISH);
+        if (mimetype.startsWith("video/") || mimetype.startsWith("audio/") || COMPRESSED_MIME_TYPES.contains(mimetype)
+                || mimetype.startsWith("application/vnd.openxmlformats-officedocument.")
+                || mimetype.startsWith("application/vnd.oasis.opendocument."))
+        {
+            return true;
+        }
+        // browsers often upload archives as application/octet-stream
+        final String fileName = attachment.getFilename();
+        final int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ENGLISH));
     }
 
     /**
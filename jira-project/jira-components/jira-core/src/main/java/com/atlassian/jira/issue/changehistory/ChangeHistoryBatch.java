@@ -29,6 +29,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
+import static com.atlassian.jira.ofbiz.DefaultOfBizDelegator.MAX_ELEMS_IN_CLAUSE;
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
 import static org.ofbiz.core.entity.EntityOperator.IN;
 
@@ -48,11 +49,6 @@ class ChangeHistoryBatch
      */
     private static final Logger log = LoggerFactory.getLogger(ChangeHistoryBatch.class);
 
-    /**
-     * The maximum number of elements that this class will insert in a SQL IN clause.
-     */
-    private static final int MAX_ELEMS_IN_CLAUSE = 750;
-
     /**
      * Creates a new ChangeHistoryBatch from a collection of ChangeHistory instances.
      *
@@ -2,6 +2,7 @@ package com.atlassian.jira.issue.changehistory;
 
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.jira.entity.Entity;
+import com.atlassian.jira.entity.Select;
 import com.atlassian.jira.entity.property.EntityPropertyType;
 import com.atlassian.jira.entity.property.JsonEntityPropertyManager;
 import com.atlassian.jira.exception.DataAccessException;
@@ -56,6 +57,7 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import static com.atlassian.jira.ofbiz.DefaultOfBizDelegator.MAX_ELEMS_IN_CLAUSE;
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
 import static com.google.common.base.Predicates.equalTo;
 import static com.google.common.base.Predicates.not;
@@ -179,6 +181,72 @@ public class DefaultChangeHistoryManager implements ChangeHistoryManager
         if (issue.getId() == null || project == null) { return Collections.emptyList(); }
 
         final List<GenericValue> changeItemsGVs = ofBizDelegator.findByAnd("ChangeGroupChangeItemView", ImmutableMap.of("issue", issue.getId()), ImmutableList.of("created ASC", "changeitemid ASC"));
+        return buildChangeItems(issue, changeItemsGVs);
+    }
+
+    @Override
+    public Map<Long, List<ChangeHistoryItem>> getAllChangeItems(final Collection<Issue> issues)
+    {
+        notNull("issues", issues);
+
+        final Map<Long, Issue> issuesById = Maps.newHashMapWithExpectedSize(issues.size());
+        for (final Issue issue : issues)
+        {
+            if (issue.getId() != null && issue.getProjectObject() != null)
+            {
+                issuesById.put(issue.getId(), issue);
+            }
+        }
+        if (issuesById.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+
+        // some databases limit the size of the IN clause, so fetch the items for at most MAX_ELEMS_IN_CLAUSE issues
+        // at a time. the rows come back ordered by creation so they can simply be bucketed per issue.
+        final Map<Long, List<GenericValue>> changeItemGVsByIssue = Maps.newHashMapWithExpectedSize(issuesById.size());
+        final List<Long> issueIds = ImmutableList.copyOf(issuesById.keySet());
+        for (int subListStart = 0, size = issueIds.size(); subListStart < size; subListStart += MAX_ELEMS_IN_CLAUSE)
+        {
+            final int subListEnd = subListStart + Math.min(MAX_ELEMS_IN_CLAUSE, size - subListStart);
+            final List<GenericValue> changeItemGVs = Select.from("ChangeGroupChangeItemView")
+                    .whereCondition(new EntityExpr("issue", IN, issueIds.subList(subListStart, subListEnd)))
+                    .orderBy("created ASC", "changeitemid ASC")
+                    .runWith(ofBizDelegator)
+                    .asList();
+            for (final GenericValue changeItemGV : changeItemGVs)
+            {
+                final Long issueId = changeItemGV.getLong("issue");
+                List<GenericValue> changeItemGVsForIssue = changeItemGVsByIssue.get(issueId);
+                if (changeItemGVsForIssue == null)
+                {
+                    changeItemGVsForIssue = Lists.newArrayList();
+                    changeItemGVsByIssue.put(issueId, changeItemGVsForIssue);
+                }
+                changeItemGVsForIssue.add(changeItemGV);
+            }
+        }
+
+        final Map<Long, List<ChangeHistoryItem>> changeItemsByIssue = Maps.newHashMapWithExpectedSize(issuesById.size());
+        for (final Map.Entry<Long, Issue> entry : issuesById.entrySet())
+        {
+            final List<GenericValue> changeItemGVs = changeItemGVsByIssue.get(entry.getKey());
+            changeItemsByIssue.put(entry.getKey(), changeItemGVs == null ? Collections.<ChangeHistoryItem>emptyList() : buildChangeItems(entry.getValue(), changeItemGVs));
+        }
+        return changeItemsByIssue;
+    }
+
+    /**
+     * Folds the rows of the ChangeGroupChangeItemView for a single issue into change history items, merging multiple
+     * changes to the same field within the same change group.
+     *
+     * @param issue the issue that the rows belong to
+     * @param changeItemsGVs the rows ordered by creation date and change item id
+     * @return the change history items
+     */
+    private List<ChangeHistoryItem> buildChangeItems(final Issue issue, final List<GenericValue> changeItemsGVs)
+    {
+        final Project project = issue.getProjectObject();
         final Map<Long, Map<String, ChangeHistoryItem.Builder>> fieldsPerChangeGroup = Maps.newHashMap();
         final List<ChangeHistoryItem.Builder> builders = Lists.newArrayList();
 
@@ -3,9 +3,12 @@ package com.atlassian.jira.issue.comments;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -32,6 +35,8 @@ import org.ofbiz.core.entity.EntityOperator;
 import org.ofbiz.core.entity.GenericEntityException;
 import org.ofbiz.core.entity.GenericValue;
 
+import static com.atlassian.jira.ofbiz.DefaultOfBizDelegator.MAX_ELEMS_IN_CLAUSE;
+
 /**
  * The CommentSearchManager is used to retrieve comments in JIRA.
  * Comments are always associated with an issue. This manager is only used internally.
@@ -103,6 +108,49 @@ public class CommentSearchManager
         return comments;
     }
 
+    /**
+     * Returns the comments for all of the given issues, keyed by issue id. The comments are loaded with a small number
+     * of set-based queries rather than one query per issue, which makes this suitable for bulk operations such as
+     * re-indexing. No permission checks are performed.
+     *
+     * @param issues the issues to retrieve the comments for
+     * @return the comments for each issue, sorted in the same order as {@link #getComments(Issue)}
+     */
+    @Nonnull
+    public Map<Long, List<Comment>> getCommentsForIssues(@Nonnull Collection<Issue> issues)
+    {
+        final Map<Long, Issue> issuesById = new HashMap<Long, Issue>(issues.size());
+        final Map<Long, List<Comment>> commentsByIssue = new HashMap<Long, List<Comment>>(issues.size());
+        for (final Issue issue : issues)
+        {
+            issuesById.put(issue.getId(), issue);
+            commentsByIssue.put(issue.getId(), new ArrayList<Comment>());
+        }
+
+        // some databases limit the size of the IN clause, so fetch the comments for at most MAX_ELEMS_IN_CLAUSE
+        // issues at a time
+        final List<Long> issueIds = ImmutableList.copyOf(issuesById.keySet());
+        for (int subListStart = 0, size = issueIds.size(); subListStart < size; subListStart += MAX_ELEMS_IN_CLAUSE)
+        {
+            final int subListEnd = subListStart + Math.min(MAX_ELEMS_IN_CLAUSE, size - subListStart);
+            final EntityCondition condition = new EntityConditionList(ImmutableList.<EntityCondition>of(
+                    new EntityExpr("issue", EntityOperator.IN, issueIds.subList(subListStart, subListEnd)),
+                    new EntityExpr("type", EntityOperator.EQUALS, ActionConstants.TYPE_COMMENT)), EntityOperator.AND);
+            final List<GenericValue> commentGVs = delegator.findByCondition(DefaultCommentManager.COMMENT_ENTITY, condition, null);
+            for (final GenericValue commentGV : commentGVs)
+            {
+                final Long issueId = commentGV.getLong("issue");
+                commentsByIssue.get(issueId).add(convertToComment(commentGV, issuesById.get(issueId)));
+            }
+        }
+
+        for (final List<Comment> comments : commentsByIssue.values())
+        {
+            Collections.sort(comments, CommentComparator.COMPARATOR);
+        }
+        return commentsByIssue;
+    }
+
     @Nonnull
     public List<Comment> getCommentsForUserSince(@Nonnull Issue issue, @Nullable ApplicationUser user, @Nonnull Date since)
     {
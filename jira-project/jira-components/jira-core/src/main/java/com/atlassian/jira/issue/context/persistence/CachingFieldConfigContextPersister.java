@@ -2,8 +2,10 @@ package com.atlassian.jira.issue.context.persistence;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
@@ -30,11 +32,18 @@ import com.atlassian.jira.util.map.CacheObject;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
 
 import org.ofbiz.core.entity.GenericValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static com.atlassian.jira.issue.context.persistence.FieldConfigContextPersisterImpl.ENTITY_CONFIG;
+import static com.atlassian.jira.issue.context.persistence.FieldConfigContextPersisterImpl.ENTITY_KEY;
+import static com.atlassian.jira.issue.context.persistence.FieldConfigContextPersisterImpl.ENTITY_PROJECT;
+import static com.atlassian.jira.issue.context.persistence.FieldConfigContextPersisterImpl.ENTITY_PROJECT_CATEGORY;
+import static com.atlassian.jira.issue.context.persistence.FieldConfigContextPersisterImpl.ENTITY_TABLE_NAME;
+
 /**
  * Caching decorator for {@link FieldConfigContextPersister}. This corresponds to the <code>configurationcontext</code>
  * table, which is essentially an association table between {@link com.atlassian.jira.issue.fields.CustomField
@@ -65,6 +74,8 @@ public class CachingFieldConfigContextPersister implements FieldConfigContextPer
      */
     private final FieldConfigContextPersister delegate;
 
+    private final OfBizDelegator delegator;
+
     /**
      * Creates a new CachingFieldConfigContextPersister that wraps a new FieldConfigContextPersisterImpl instance.
      *
@@ -76,6 +87,7 @@ public class CachingFieldConfigContextPersister implements FieldConfigContextPer
     public CachingFieldConfigContextPersister(OfBizDelegator delegator, ProjectManager projectManager, JiraContextTreeManager treeManager, CacheManager cacheManager)
     {
         this.delegate = new FieldConfigContextPersisterImpl(delegator, projectManager, treeManager);
+        this.delegator = delegator;
         cache = cacheManager.getCache(CachingFieldConfigContextPersister.class.getName() + ".cache",
                 new FieldConfigContextCacheLoader(),
                 new CacheSettingsBuilder().expireAfterAccess(30, TimeUnit.MINUTES).flushable().build());
@@ -129,29 +141,33 @@ public class CachingFieldConfigContextPersister implements FieldConfigContextPer
     @Override
     public void removeContextsForConfigScheme(Long fieldConfigSchemeId)
     {
+        final Set<String> customFields = getCustomFields(Collections.singletonMap(ENTITY_CONFIG, fieldConfigSchemeId));
         delegate.removeContextsForConfigScheme(fieldConfigSchemeId);
-        cache.removeAll();
+        invalidate(customFields);
     }
 
     @Override
     public void removeContextsForProject(final GenericValue project)
     {
+        final Set<String> customFields = getCustomFields(Collections.singletonMap(ENTITY_PROJECT, project.getLong("id")));
         delegate.removeContextsForProject(project);
-        cache.removeAll();
+        invalidate(customFields);
     }
 
     @Override
     public void removeContextsForProject(final Project project)
     {
+        final Set<String> customFields = getCustomFields(Collections.singletonMap(ENTITY_PROJECT, project.getId()));
         delegate.removeContextsForProject(project);
-        cache.removeAll();
+        invalidate(customFields);
     }
 
     @Override
     public void removeContextsForProjectCategory(ProjectCategory projectCategory)
     {
+        final Set<String> customFields = getCustomFields(Collections.singletonMap(ENTITY_PROJECT_CATEGORY, projectCategory.getId()));
         delegate.removeContextsForProjectCategory(projectCategory);
-        cache.removeAll();
+        invalidate(customFields);
     }
     //</editor-fold>
 
@@ -187,8 +203,14 @@ public class CachingFieldConfigContextPersister implements FieldConfigContextPer
     @Override
     public void remove(final BandanaContext context)
     {
+        if (context == null)
+        {
+            delegate.remove(context);
+            return;
+        }
+        final Set<String> customFields = getCustomFields(((JiraContextNode) context).appendToParamsMap(Collections.<String, Object>emptyMap()));
         delegate.remove(context);
-        cache.removeAll();
+        invalidate(customFields);
     }
 
     @Override
@@ -199,6 +221,36 @@ public class CachingFieldConfigContextPersister implements FieldConfigContextPer
     }
     //</editor-fold>
 
+    /**
+     * Finds the custom fields that have contexts matching the given fields, which are the only custom fields whose
+     * cache entries are affected when those contexts are removed.
+     */
+    private Set<String> getCustomFields(final Map<String, ?> fields)
+    {
+        final Set<String> customFields = Sets.newHashSet();
+        for (final GenericValue context : delegator.findByAnd(ENTITY_TABLE_NAME, fields))
+        {
+            final String customField = context.getString(ENTITY_KEY);
+            if (customField != null)
+            {
+                customFields.add(customField);
+            }
+        }
+        return customFields;
+    }
+
+    /**
+     * Clears the cache entries of the given custom fields. The cache is clustered, so this is what is sent to the
+     * other nodes too.
+     */
+    private void invalidate(final Set<String> customFields)
+    {
+        for (final String customField : customFields)
+        {
+            cache.remove(customField);
+        }
+    }
+
     /**
      * Clears this instance's cache.
      */
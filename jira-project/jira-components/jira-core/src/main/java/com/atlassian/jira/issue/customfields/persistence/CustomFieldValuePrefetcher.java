@@ -0,0 +1,28 @@
+package com.atlassian.jira.issue.customfields.persistence;
+
+import java.util.Collection;
+
+/**
+ * Loads the custom field values of many issues at once, for callers that go on to read the values of those issues one
+ * at a time, such as the search request views.
+ *
+ * @since v6.3.15
+ */
+public interface CustomFieldValuePrefetcher
+{
+    /**
+     * Loads the values of all custom fields of the issues, so that reading them does not hit the database again for
+     * the rest of the request.
+     *
+     * @param issueIds the ids of the issues
+     */
+    void prefetchValues(Collection<Long> issueIds);
+
+    /**
+     * Forgets the loaded values of the issues. Callers that stream through many issues should release each batch once
+     * it has been used, so that memory does not grow with the number of issues.
+     *
+     * @param issueIds the ids of the issues
+     */
+    void releaseValues(Collection<Long> issueIds);
+}
@@ -1,7 +1,9 @@
 package com.atlassian.jira.issue.customfields.persistence;
 
 import java.lang.ref.SoftReference;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,16 +17,24 @@ import com.atlassian.jira.security.JiraAuthenticationContextImpl;
 import com.atlassian.jira.security.RequestCacheKeys;
 import com.atlassian.jira.util.collect.MapBuilder;
 
+import com.google.common.collect.Iterables;
+
+import org.ofbiz.core.entity.EntityExpr;
+import org.ofbiz.core.entity.EntityOperator;
 import org.ofbiz.core.entity.EntityUtil;
 import org.ofbiz.core.entity.GenericValue;
 import org.ofbiz.core.util.UtilMisc;
 
+import static com.atlassian.jira.ofbiz.DefaultOfBizDelegator.MAX_ELEMS_IN_CLAUSE;
+
 /**
  * Many times, the values for custom fields are all retrieved at the same time - such as viewing all values for an
  * issue, or indexing all custom fields. <p/> It therefore makes sense to eagerly loaded, reducing the number of
  * database calls needed.
+ * <p/>
+ * The values of many issues can also be loaded up front with {@link #prefetchValues(java.util.Collection)}.
  */
-public class EagerLoadingOfBizCustomFieldPersister extends OfBizCustomFieldValuePersister
+public class EagerLoadingOfBizCustomFieldPersister extends OfBizCustomFieldValuePersister implements CustomFieldValuePrefetcher
 {
     public EagerLoadingOfBizCustomFieldPersister(final OfBizDelegator delegator)
     {
@@ -80,6 +90,49 @@ public class EagerLoadingOfBizCustomFieldPersister extends OfBizCustomFieldValue
         getCache().clear();
     }
 
+    @Override
+    public void prefetchValues(final Collection<Long> issueIds)
+    {
+        final Map<CacheKey, SoftReference<List<?>>> queryToResultsCache = getCache();
+        final List<Long> missingIssueIds = new ArrayList<Long>(issueIds.size());
+        for (final Long issueId : issueIds)
+        {
+            final SoftReference<List<?>> cachedValuesReference = queryToResultsCache.get(new CacheKey(issueId));
+            if (cachedValuesReference == null || cachedValuesReference.get() == null)
+            {
+                missingIssueIds.add(issueId);
+            }
+        }
+
+        for (final List<Long> batch : Iterables.partition(missingIssueIds, MAX_ELEMS_IN_CLAUSE))
+        {
+            final Map<Long, List<GenericValue>> valuesByIssue = new HashMap<Long, List<GenericValue>>(batch.size());
+            for (final Long issueId : batch)
+            {
+                valuesByIssue.put(issueId, new ArrayList<GenericValue>());
+            }
+            final List<GenericValue> values = delegator.findByCondition(TABLE_CUSTOMFIELD_VALUE, new EntityExpr(ENTITY_ISSUE_ID, EntityOperator.IN, batch), null);
+            for (final GenericValue value : values)
+            {
+                valuesByIssue.get(value.getLong(ENTITY_ISSUE_ID)).add(value);
+            }
+            for (final Map.Entry<Long, List<GenericValue>> entry : valuesByIssue.entrySet())
+            {
+                queryToResultsCache.put(new CacheKey(entry.getKey()), new SoftReference<List<?>>(entry.getValue()));
+            }
+        }
+    }
+
+    @Override
+    public void releaseValues(final Collection<Long> issueIds)
+    {
+        final Map<CacheKey, SoftReference<List<?>>> queryToResultsCache = getCache();
+        for (final Long issueId : issueIds)
+        {
+            queryToResultsCache.remove(new CacheKey(issueId));
+        }
+    }
+
     @Override
     protected List<GenericValue> getValuesForTypeAndParent(final CustomField field, final Long issueId, final String parentKey)
     {
@@ -2,6 +2,14 @@ package com.atlassian.jira.issue.fields.config.manager;
 
 import com.atlassian.bandana.BandanaContext;
 import com.atlassian.bandana.DefaultBandanaManager;
+import com.atlassian.cache.Cache;
+import com.atlassian.cache.CacheLoader;
+import com.atlassian.cache.CacheManager;
+import com.atlassian.cache.CacheSettingsBuilder;
+import com.atlassian.event.api.EventListener;
+import com.atlassian.jira.EventComponent;
+import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.event.project.ProjectCategoryChangeEvent;
 import com.atlassian.jira.exception.DataAccessException;
 import com.atlassian.jira.issue.comparator.OfBizComparators;
 import com.atlassian.jira.issue.context.IssueContext;
@@ -18,6 +26,7 @@ import com.atlassian.jira.issue.issuetype.IssueType;
 import com.atlassian.jira.project.Project;
 import com.atlassian.jira.util.NameComparator;
 import com.atlassian.jira.util.dbc.Null;
+import com.atlassian.jira.util.map.CacheObject;
 import org.apache.log4j.Logger;
 import org.ofbiz.core.entity.GenericValue;
 
@@ -27,9 +36,14 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
 
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
 
+@EventComponent
 public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
 {
     private static final Logger log = Logger.getLogger(FieldConfigSchemeManagerImpl.class);
@@ -40,9 +54,16 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
     private final DefaultBandanaManager defaultBandanaManager;
     private final JiraContextTreeManager treeManager;
 
+    /**
+     * The relevant config scheme of each custom field in each project, keyed by custom field id. Finding the scheme
+     * walks the project, project category and global contexts, so it is only done once per field and project, until
+     * the field's schemes or contexts change.
+     */
+    private final Cache<String, RelevantSchemes> relevantSchemesCache;
+
     public FieldConfigSchemeManagerImpl(final FieldConfigSchemePersister configSchemePersister,
             final FieldConfigContextPersister contextPersister, final JiraContextTreeManager treeManager,
-            final FieldConfigManager configManager)
+            final FieldConfigManager configManager, final CacheManager cacheManager)
     {
         defaultBandanaManager = new DefaultBandanaManager(contextPersister);
 
@@ -50,12 +71,33 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
         this.contextPersister = contextPersister;
         this.treeManager = treeManager;
         this.configManager = configManager;
+        relevantSchemesCache = cacheManager.getCache(FieldConfigSchemeManagerImpl.class.getName() + ".relevantSchemesCache",
+                new RelevantSchemesCacheLoader(),
+                new CacheSettingsBuilder().expireAfterAccess(30, TimeUnit.MINUTES).build());
     }
 
     public void init()
     {
         defaultBandanaManager.init();
         schemePersister.init();
+        relevantSchemesCache.removeAll();
+    }
+
+    @SuppressWarnings ({ "UnusedDeclaration" })
+    @EventListener
+    public void onClearCache(final ClearCacheEvent event)
+    {
+        relevantSchemesCache.removeAll();
+    }
+
+    /**
+     * A project's category decides which project category context applies to it.
+     */
+    @SuppressWarnings ({ "UnusedDeclaration" })
+    @EventListener
+    public void onProjectCategoryChange(final ProjectCategoryChangeEvent event)
+    {
+        relevantSchemesCache.removeAll();
     }
 
     public Object getValue(final BandanaContext context, final String key)
@@ -77,6 +119,7 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
     public void setValue(final BandanaContext context, final String key, final Object value)
     {
         contextPersister.store(context, key, value);
+        relevantSchemesCache.remove(key);
     }
 
     public List<FieldConfigScheme> getConfigSchemesForField(final ConfigurableField field)
@@ -110,6 +153,7 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
     private FieldConfigScheme createFieldConfigScheme(final FieldConfigScheme newConfigScheme, final List<JiraContextNode> contexts, final ConfigurableField field)
     {
         final FieldConfigScheme configScheme = schemePersister.create(newConfigScheme, field);
+        clearRelevantSchemes(field);
 
         if ((contexts != null) && !contexts.isEmpty())
         {
@@ -161,6 +205,7 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
             }
 
             FieldConfigScheme defaultScheme = schemePersister.createWithDefaultValues(field, issueTypesMappings);
+            clearRelevantSchemes(field);
 
             if ((contexts != null) && !contexts.isEmpty())
             {
@@ -246,7 +291,10 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
 
     public FieldConfigScheme updateFieldConfigScheme(final FieldConfigScheme scheme)
     {
-        return schemePersister.update(scheme);
+        final FieldConfigScheme updatedScheme = schemePersister.update(scheme);
+        // the scheme's field cannot change, but it is not always set on the scheme that is passed in
+        relevantSchemesCache.removeAll();
+        return updatedScheme;
     }
 
     public void removeFieldConfigScheme(final Long fieldConfigSchemeId)
@@ -259,6 +307,7 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
         contextPersister.removeContextsForConfigScheme(fieldConfigScheme);
         configManager.removeConfigsForConfigScheme(fieldConfigSchemeId);
         schemePersister.remove(fieldConfigSchemeId);
+        relevantSchemesCache.removeAll();
     }
 
     public void removeInvalidFieldConfigSchemesForIssueType(final IssueType issueType)
@@ -271,6 +320,7 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
         }
         // now clean up the fieldconfigschemeissue type associations.
         schemePersister.removeByIssueType(issueType);
+        relevantSchemesCache.removeAll();
     }
 
     public void removeInvalidFieldConfigSchemesForCustomField(final String customFieldId)
@@ -319,8 +369,7 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
 
     public FieldConfigScheme getRelevantConfigScheme(final IssueContext issueContext, final ConfigurableField field)
     {
-        final JiraContextNode context = new ProjectContext(issueContext, treeManager);
-        return (FieldConfigScheme) getValue(context, field.getId());
+        return relevantSchemesCache.get(field.getId()).get(issueContext.getProjectId());
     }
 
     FieldConfigSchemePersister getFieldConfigSchemePersister()
@@ -331,5 +380,61 @@ public class FieldConfigSchemeManagerImpl implements FieldConfigSchemeManager
     private void storeAssociateContexts(final FieldConfigScheme config, final List<JiraContextNode> contexts, final ConfigurableField field)
     {
         contextPersister.store(contexts, field.getId(), config);
+        clearRelevantSchemes(field);
+    }
+
+    private void clearRelevantSchemes(final ConfigurableField field)
+    {
+        if (field != null)
+        {
+            relevantSchemesCache.remove(field.getId());
+        }
+        else
+        {
+            relevantSchemesCache.removeAll();
+        }
+    }
+
+    /**
+     * The relevant config schemes of a custom field, by project. A new instance replaces this one whenever the field's
+     * configuration changes, so a lookup never sees a mix of old and new schemes.
+     */
+    private class RelevantSchemes
+    {
+        private final String fieldId;
+        private final ConcurrentMap<Long, CacheObject<FieldConfigScheme>> schemesByProjectId = new ConcurrentHashMap<Long, CacheObject<FieldConfigScheme>>();
+        private volatile CacheObject<FieldConfigScheme> schemeForNoProject;
+
+        RelevantSchemes(final String fieldId)
+        {
+            this.fieldId = fieldId;
+        }
+
+        FieldConfigScheme get(final Long projectId)
+        {
+            CacheObject<FieldConfigScheme> scheme = projectId == null ? schemeForNoProject : schemesByProjectId.get(projectId);
+            if (scheme == null)
+            {
+                scheme = CacheObject.wrap((FieldConfigScheme) getValue(new ProjectContext(projectId, treeManager), fieldId));
+                if (projectId == null)
+                {
+                    schemeForNoProject = scheme;
+                }
+                else
+                {
+                    schemesByProjectId.put(projectId, scheme);
+                }
+            }
+            return scheme.getValue();
+        }
+    }
+
+    private class RelevantSchemesCacheLoader implements CacheLoader<String, RelevantSchemes>
+    {
+        @Override
+        public RelevantSchemes load(@Nonnull final String fieldId)
+        {
+            return new RelevantSchemes(fieldId);
+        }
     }
 }
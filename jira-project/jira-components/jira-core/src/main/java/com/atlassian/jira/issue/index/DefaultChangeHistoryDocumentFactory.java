@@ -1,14 +1,18 @@
 package com.atlassian.jira.issue.index;
 
+import java.util.Date;
+
 import com.atlassian.fugue.Option;
 import com.atlassian.jira.index.SearchExtractorRegistrationManager;
 import com.atlassian.jira.issue.changehistory.ChangeHistoryGroup;
 import com.atlassian.jira.issue.changehistory.ChangeHistoryItem;
 import com.atlassian.jira.issue.search.SearchProviderFactory;
+import com.atlassian.jira.issue.search.filters.ChangeHistoryDateRangeFilter;
 import com.atlassian.jira.util.LuceneUtils;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericField;
 
 /**
  * @since v4.3
@@ -36,6 +40,8 @@ public class DefaultChangeHistoryDocumentFactory implements ChangeHistoryDocumen
                         .addField(DocumentConstants.ISSUE_KEY, String.valueOf(changeHistoryGroup.getIssueKey()), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS)
                         .addField(DocumentConstants.CHANGE_ACTIONER, encodeProtocolPreservingCase(changeItemUser), Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS)
                         .addField(DocumentConstants.CHANGE_DATE, LuceneUtils.dateToString(changeHistoryGroup.getCreated()), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS)
+                        .addSeconds(DocumentConstants.CHANGE_DATE_SECONDS, changeHistoryGroup.getCreated())
+                        .addField(DocumentConstants.CHANGE_NUMERIC_DATES, ChangeHistoryDateRangeFilter.NUMERIC_DATES.text(), Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS)
                         .addAllExtractors(searchExtractorManager.findExtractorsForEntity(ChangeHistoryGroup.class));
 
         for (final ChangeHistoryItem changeItem : changeHistoryGroup.getChangeItems())
@@ -43,7 +49,8 @@ public class DefaultChangeHistoryDocumentFactory implements ChangeHistoryDocumen
             final String changedField = changeItem.getField();
 
             builder.addField(encodeChangedField(changedField, DocumentConstants.CHANGE_DURATION), String.valueOf(changeItem.getDuration()), Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS)
-                   .addField(encodeChangedField(changedField, DocumentConstants.NEXT_CHANGE_DATE), LuceneUtils.dateToString(changeItem.getNextChangeCreated()), Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS);
+                   .addField(encodeChangedField(changedField, DocumentConstants.NEXT_CHANGE_DATE), LuceneUtils.dateToString(changeItem.getNextChangeCreated()), Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS)
+                   .addSeconds(encodeChangedField(changedField, DocumentConstants.NEXT_CHANGE_DATE_SECONDS), changeItem.getNextChangeCreated());
             for (final String from : changeItem.getFroms().values())
             {
                 builder.addField(encodeChangedField(changedField, DocumentConstants.CHANGE_FROM), encodeProtocol(from), Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS);
@@ -85,5 +92,16 @@ public class DefaultChangeHistoryDocumentFactory implements ChangeHistoryDocumen
         {
             super(entity, SearchProviderFactory.CHANGE_HISTORY_INDEX);
         }
+
+        /**
+         * Adds a date as a numeric field of seconds, so that it can be searched by {@link ChangeHistoryDateRangeFilter}.
+         * A missing date is indexed as the end of time, like {@link LuceneUtils#dateToString(java.util.Date)} does.
+         */
+        private Builder addSeconds(final String name, final Date date)
+        {
+            final long seconds = date == null ? Long.MAX_VALUE : date.getTime() / 1000;
+            doc.add(new NumericField(name, ChangeHistoryDateRangeFilter.PRECISION_STEP, Field.Store.NO, true).setLongValue(seconds));
+            return this;
+        }
     }
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -20,6 +21,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
 
@@ -46,6 +48,20 @@ public class DefaultChangeHistoryRetriever implements ChangeHistoryRetriever
 
     }
 
+    @Override
+    public Map<Long, List<ChangeHistoryGroup>> retrieveAll(final Collection<Issue> issues)
+    {
+        final Map<Long, List<ChangeHistoryItem>> changeHistoryItems = changeManager.getAllChangeItems(issues);
+        final Map<Long, List<ChangeHistoryGroup>> changeHistoryGroups = Maps.newHashMapWithExpectedSize(issues.size());
+        for (final Issue issue : issues)
+        {
+            final List<ChangeHistoryItem> changeHistoryItemsForIssue = changeHistoryItems.get(issue.getId());
+            changeHistoryGroups.put(issue.getId(), createChangeGroupsFromChangeItems(changeHistoryItemsForIssue != null ?
+                    changeHistoryItemsForIssue : Collections.<ChangeHistoryItem>emptyList(), issue));
+        }
+        return changeHistoryGroups;
+    }
+
     private List<ChangeHistoryGroup> createChangeGroupsFromChangeItems(final List<ChangeHistoryItem> changeHistoryItems, final Issue issue)
     {
         // need to maintain sorting order here, for this to work
@@ -16,13 +16,16 @@
 
 package com.atlassian.jira.issue.index;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.comments.Comment;
 import com.atlassian.jira.issue.comments.CommentManager;
+import com.atlassian.jira.issue.comments.CommentSearchManager;
 import com.atlassian.jira.issue.index.DefaultIssueIndexer.CommentRetriever;
 
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
@@ -30,10 +33,12 @@ import static com.atlassian.jira.util.dbc.Assertions.notNull;
 public class DefaultCommentRetriever implements CommentRetriever
 {
     private final CommentManager commentManager;
+    private final CommentSearchManager commentSearchManager;
 
-    public DefaultCommentRetriever(@Nonnull final CommentManager commentManager)
+    public DefaultCommentRetriever(@Nonnull final CommentManager commentManager, @Nonnull final CommentSearchManager commentSearchManager)
     {
         this.commentManager = notNull("commentManager", commentManager);
+        this.commentSearchManager = notNull("commentSearchManager", commentSearchManager);
     }
 
     @Override
@@ -41,4 +46,10 @@ public class DefaultCommentRetriever implements CommentRetriever
     {
         return commentManager.getComments(issue);
     }
+
+    @Override
+    public Map<Long, List<Comment>> retrieveAll(final Collection<Issue> issues)
+    {
+        return commentSearchManager.getCommentsForIssues(issues);
+    }
 }
\ No newline at end of file
@@ -82,6 +82,7 @@ import org.ofbiz.core.entity.EntityCondition;
 import org.ofbiz.core.entity.EntityExpr;
 import org.ofbiz.core.entity.EntityFieldMap;
 import org.ofbiz.core.entity.EntityOperator;
+import org.ofbiz.core.entity.EntityUtil;
 import org.ofbiz.core.entity.GenericValue;
 
 import net.jcip.annotations.GuardedBy;
@@ -256,6 +257,8 @@ public class DefaultIndexManager implements IssueIndexManager
 
         if (reindex)
         {
+            // a new index path or imported data, so never resume a previous re-index
+            getReindexCheckpoints().clear();
             return reIndexAll(context);
         }
         return 0;
@@ -959,6 +962,8 @@ public class DefaultIndexManager implements IssueIndexManager
         }
 
         issueIndexHelper.fixupIndexCorruptions(resultBuilder, reconciler);
+        // every issue has been rewritten, so there is nothing left for an interrupted stop-the-world re-index to resume
+        getReindexCheckpoints().clear();
 
         log.info("Reindexing " + getIssueSearcher().getIndexReader().numDocs() + " issues in the background completed in " + watch.getTime() + " millis");
     }
@@ -983,12 +988,25 @@ public class DefaultIndexManager implements IssueIndexManager
                 log.warn("Unable to place the scheduler service in standby mode during reindex", e);
             }
 
-            // Recreate the index as we are about to reindex all issues
-            issueIndexer.deleteIndexes();
-            doIndexIssuesInBatchMode(context);
+            final ReindexCheckpoints checkpoints = getReindexCheckpoints();
+            List<ReindexCheckpoints.Range> ranges = checkpoints.getRanges();
+            final boolean resume = !ranges.isEmpty();
+            if (!resume)
+            {
+                // Recreate the index as we are about to reindex all issues
+                issueIndexer.deleteIndexes();
+                ranges = checkpoints.start(Math.max(0, selectIssueId("IssueMinId", "min")), selectIssueId("IssueMaxId", "max"));
+            }
+            else
+            {
+                log.info("Resuming the interrupted reindex of " + ranges.size() + " issue id ranges");
+                ranges = addIssuesCreatedSince(checkpoints, ranges);
+            }
+            doIndexIssuesInBatchMode(context, checkpoints, ranges, resume);
 
             // optimise logic, passes 'true' for 'recreateIndex', which forces the optimize
             optimize0();
+            checkpoints.clear();
         }
         finally
         {
@@ -1007,18 +1025,90 @@ public class DefaultIndexManager implements IssueIndexManager
         }
     }
 
-    private void doIndexIssuesInBatchMode(Context context)
+    private void doIndexIssuesInBatchMode(Context context, ReindexCheckpoints checkpoints, List<ReindexCheckpoints.Range> ranges, boolean resume)
+    {
+        // newest issues first, like a single batcher would. Ranges are indexed one at a time, because batch mode
+        // switches the writers that all indexing shares; only the documents of a batch are created in parallel.
+        for (ReindexCheckpoints.Range range : Lists.reverse(ranges))
+        {
+            if (!range.isFinished())
+            {
+                doIndexRangeInBatchMode(context, checkpoints, range, ranges.size(), resume);
+            }
+        }
+    }
+
+    private void doIndexRangeInBatchMode(Context context, ReindexCheckpoints checkpoints, ReindexCheckpoints.Range range, int rangeCount, boolean resume)
     {
+        final String name = "Issue (range " + (range.getIndex() + 1) + " of " + rangeCount + ", " + range + ")";
+        context.setName(name);
+        final StopWatch watch = new StopWatch();
+        watch.start();
+
         // Index the issues one batch at a time.  This stops various database drivers sucking all issues into
         // memory at once.
-        AccumulatingResultBuilder resultBuilder = new AccumulatingResultBuilder();
-        IssuesBatcher batcher = getIssueBatcherFactory().getBatcher();
+        final LowestIdSpy spy = new LowestIdSpy();
+        final IssuesBatcher batcher = getIssueBatcherFactory().getBatcher(range.getMinId(), range.getNextId(), spy);
+        // the batch that was being indexed when a re-index was interrupted may have been partly written
+        boolean update = resume;
+        ReindexCheckpoints.Range checkpoint = range;
         for (IssuesIterable batchOfIssues : batcher)
         {
-            // do not timeout on reindexAll
-            resultBuilder.add(issueIndexer.indexIssuesBatchMode(batchOfIssues, context));
+            // do not timeout on reindexAll, but wait for the batch before recording that it is in the index
+            if (update)
+            {
+                issueIndexer.reindexIssues(batchOfIssues, context, true, true, false).await();
+                update = false;
+            }
+            else
+            {
+                issueIndexer.indexIssuesBatchMode(batchOfIssues, context).await();
+            }
+            checkpoint = checkpoint.next(spy.lowestId - 1);
+            checkpoints.save(checkpoint);
+            context.setName(name + " " + issuesPerSecond(spy.count, watch) + " issues/s");
+        }
+        checkpoints.save(range.next(range.getMinId() - 1));
+        log.info("Reindexed " + spy.count + " issues with " + range + " in " + watch.getTime() + " millis ("
+                + issuesPerSecond(spy.count, watch) + " issues/s)");
+    }
+
+    private static long issuesPerSecond(final int count, final StopWatch watch)
+    {
+        return count * 1000L / Math.max(1, watch.getTime());
+    }
+
+    /**
+     * Adds a range for the issues created since an interrupted re-index was started.
+     */
+    private List<ReindexCheckpoints.Range> addIssuesCreatedSince(ReindexCheckpoints checkpoints, List<ReindexCheckpoints.Range> ranges)
+    {
+        final ReindexCheckpoints.Range last = ranges.get(ranges.size() - 1);
+        final long maxId = selectIssueId("IssueMaxId", "max");
+        if (maxId <= last.getMaxId())
+        {
+            return ranges;
         }
-        resultBuilder.toResult().await();
+        final ReindexCheckpoints.Range created = new ReindexCheckpoints.Range(ranges.size(), last.getMaxId() + 1, maxId, maxId);
+        checkpoints.add(created);
+        return ImmutableList.<ReindexCheckpoints.Range>builder().addAll(ranges).add(created).build();
+    }
+
+    /**
+     * SELECTs the min or max issue id from the Issue table.
+     *
+     * @return the issue id, or -1 if there are no issues
+     */
+    private long selectIssueId(final String entityName, final String fieldName)
+    {
+        final GenericValue idGV = EntityUtil.getOnly(ofBizDelegator.findByCondition(entityName, null, ImmutableList.of(fieldName)));
+        final Long id = idGV != null ? idGV.getLong(fieldName) : null;
+        return id != null ? id : -1;
+    }
+
+    ReindexCheckpoints getReindexCheckpoints()
+    {
+        return ComponentAccessor.getComponent(ReindexCheckpoints.class);
     }
 
     public static void flushThreadLocalSearchers()
@@ -1045,6 +1135,22 @@ public class DefaultIndexManager implements IssueIndexManager
         boolean await(long time, TimeUnit unit) throws InterruptedException;
     }
 
+    /**
+     * Records the number of issues in a range that have been read for indexing and the lowest id among them.
+     */
+    private static class LowestIdSpy implements IssueIdBatcher.Spy
+    {
+        private long lowestId = Long.MAX_VALUE;
+        private int count;
+
+        @Override
+        public void spy(final Issue next)
+        {
+            lowestId = Math.min(lowestId, next.getId());
+            count++;
+        }
+    }
+
     class ProjectBatcher implements IssuesBatcher
     {
         private final OfBizDelegator delegator;
@@ -68,6 +68,12 @@ public class DefaultIssueBatcherFactory implements IssueBatcherFactory
         return new IssueIdBatcher(delegator, issueFactory, barrierFactory, batchSize, condition, spy);
     }
 
+    @Override
+    public IssuesBatcher getBatcher(final long minId, final long maxId, final IssueIdBatcher.Spy spy)
+    {
+        return new IssueIdBatcher(delegator, issueFactory, barrierFactory, getConfiguredBatchSize(), null, spy, minId, maxId);
+    }
+
     /**
      * Returns the batch size that is configured using the '{@value #BATCH_SIZE_PROPERTY_NAME}' advanced property, or
      * {@value #BATCH_SIZE_DEFAULT_VALUE} if the property is not defined.
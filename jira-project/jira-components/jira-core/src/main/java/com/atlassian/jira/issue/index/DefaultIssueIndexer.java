@@ -1,5 +1,6 @@
 package com.atlassian.jira.issue.index;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -30,6 +31,7 @@ import com.atlassian.jira.issue.changehistory.ChangeHistoryGroup;
 import com.atlassian.jira.issue.comments.Comment;
 import com.atlassian.jira.issue.index.IndexDirectoryFactory.Mode;
 import com.atlassian.jira.issue.index.IndexDirectoryFactory.Name;
+import com.atlassian.jira.issue.util.IssueObjectIssuesIterable;
 import com.atlassian.jira.security.JiraAuthenticationContextImpl;
 import com.atlassian.jira.security.RequestCacheKeys;
 import com.atlassian.jira.task.context.Context;
@@ -152,12 +154,17 @@ public class DefaultIssueIndexer implements IssueIndexer
             return indexIssues(issues, context);
         }
 
+        // load the comments and change history for the whole batch up front, so that creating the documents
+        // does not need to go to the database once per issue
+        final List<Issue> batch = toList(issues);
+        final DocumentCreationStrategy prefetchingStrategy = new PrefetchedDocumentCreationStrategy(batch);
+
         lifecycle.close();
         lifecycle.setMode(Mode.DIRECT);
         try
         {
-            return perform(issues, new MultiThreadedIndexingStrategy(simpleIndexingStrategy, multiThreadedIndexingConfiguration, "IssueIndexer"),
-                    context, new IndexIssuesOperation(UpdateMode.BATCH));
+            return perform(new IssueObjectIssuesIterable(batch), new MultiThreadedIndexingStrategy(simpleIndexingStrategy, multiThreadedIndexingConfiguration, "IssueIndexer"),
+                    context, new IndexIssuesOperation(UpdateMode.BATCH, prefetchingStrategy));
         }
         finally
         {
@@ -298,6 +305,19 @@ public class DefaultIssueIndexer implements IssueIndexer
         return lifecycle.getIndexRootPath();
     }
 
+    private static List<Issue> toList(final EnclosedIterable<Issue> issues)
+    {
+        final List<Issue> list = new ArrayList<Issue>(issues.size());
+        issues.foreach(new Consumer<Issue>()
+        {
+            public void consume(@Nonnull final Issue issue)
+            {
+                list.add(issue);
+            }
+        });
+        return list;
+    }
+
     /**
      * Perform an {@link IndexOperation} on some {@link EnclosedIterable issues} using a particular {@link
      * IndexingStrategy strategy}. There is a {@link Context task context} that must be updated to provide feedback to
@@ -399,10 +419,24 @@ public class DefaultIssueIndexer implements IssueIndexer
 
     public interface CommentRetriever extends Function<Issue, List<Comment>>
     {
+        /**
+         * Retrieves the comments for a whole batch of issues at once.
+         *
+         * @param issues the issues in the batch
+         * @return the comments for each issue, keyed by issue id
+         */
+        Map<Long, List<Comment>> retrieveAll(Collection<Issue> issues);
     }
 
     public interface ChangeHistoryRetriever extends Function<Issue, List<ChangeHistoryGroup>>
     {
+        /**
+         * Retrieves the change history for a whole batch of issues at once.
+         *
+         * @param issues the issues in the batch
+         * @return the change groups for each issue, keyed by issue id
+         */
+        Map<Long, List<ChangeHistoryGroup>> retrieveAll(Collection<Issue> issues);
     }
 
     /**
@@ -489,10 +523,17 @@ public class DefaultIssueIndexer implements IssueIndexer
     private class IndexIssuesOperation implements IndexOperation
     {
         final UpdateMode mode;
+        final DocumentCreationStrategy documentCreationStrategy;
 
         IndexIssuesOperation(final UpdateMode mode)
+        {
+            this(mode, DefaultIssueIndexer.this.documentCreationStrategy);
+        }
+
+        IndexIssuesOperation(final UpdateMode mode, final DocumentCreationStrategy documentCreationStrategy)
         {
             this.mode = mode;
+            this.documentCreationStrategy = documentCreationStrategy;
         }
 
         public Index.Result perform(final Issue issue, final Context.Task task)
@@ -665,6 +706,35 @@ public class DefaultIssueIndexer implements IssueIndexer
         }
     }
 
+    /**
+     * Get the documents (issue and comments) for an issue in a batch, using comments and change history that were
+     * retrieved for the whole batch up front.
+     */
+    class PrefetchedDocumentCreationStrategy implements DocumentCreationStrategy
+    {
+        private final Map<Long, List<Comment>> comments;
+        private final Map<Long, List<ChangeHistoryGroup>> changes;
+
+        PrefetchedDocumentCreationStrategy(final Collection<Issue> batch)
+        {
+            this.comments = commentRetriever.retrieveAll(batch);
+            this.changes = changeHistoryRetriever.retrieveAll(batch);
+        }
+
+        public Documents get(final Issue issue, final boolean includeComments, final boolean includeChangeHistory)
+        {
+            final Collection<Option<Document>> commentDocuments = includeComments ? Collections2.transform(prefetched(comments, issue), commentDocumentFactory) : Collections.<Option<Document>>emptyList();
+            final Collection<Option<Document>> changeDocuments = includeChangeHistory ? Collections2.transform(prefetched(changes, issue), changeHistoryDocumentFactory) : Collections.<Option<Document>>emptyList();
+            return new Documents(issue, issueDocumentFactory.apply(issue), commentDocuments, changeDocuments);
+        }
+
+        private <T> List<T> prefetched(final Map<Long, List<T>> values, final Issue issue)
+        {
+            final List<T> result = values.get(issue.getId());
+            return result != null ? result : Collections.<T>emptyList();
+        }
+    }
+
     static class PropertiesAdapter implements MultiThreadedIndexingConfiguration
     {
         private final ApplicationProperties applicationProperties;
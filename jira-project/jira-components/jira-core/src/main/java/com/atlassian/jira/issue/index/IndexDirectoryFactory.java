@@ -20,9 +20,11 @@ import com.atlassian.jira.index.DefaultConfiguration;
 import com.atlassian.jira.index.Index;
 import com.atlassian.jira.index.Index.Manager;
 import com.atlassian.jira.index.Indexes;
+import com.atlassian.jira.index.SearcherRefreshConfiguration;
 import com.atlassian.jira.util.LuceneDirectoryUtils;
 import com.atlassian.jira.util.Supplier;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.lucene.store.Directory;
 
 import static com.atlassian.jira.util.dbc.Assertions.notNull;
@@ -50,7 +52,22 @@ public interface IndexDirectoryFactory extends Supplier<Map<IndexDirectoryFactor
             Manager createIndexManager(final String name, final Configuration configuration, final ApplicationProperties applicationProperties)
             {
                 int maxQueueSize = PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.MAX_QUEUE_SIZE, 1000);
-                return Indexes.createQueuedIndexManager(name, configuration, maxQueueSize);
+                return Indexes.createQueuedIndexManager(name, configuration, maxQueueSize, getRefreshConfiguration(applicationProperties));
+            }
+
+            private SearcherRefreshConfiguration getRefreshConfiguration(final ApplicationProperties applicationProperties)
+            {
+                // a refresh interval of zero keeps the old behaviour of reopening the searcher after every write
+                final int refreshInterval = PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.SEARCHER_REFRESH_INTERVAL, 0);
+                if (refreshInterval <= 0)
+                {
+                    return SearcherRefreshConfiguration.ON_EVERY_WRITE;
+                }
+                // by default a search waits for a refresh once the searcher is a whole interval behind
+                final String maxStalenessValue = applicationProperties.getDefaultBackedString(APKeys.JiraIndexConfiguration.Issue.SEARCHER_MAX_STALENESS);
+                final int maxStaleness = StringUtils.isBlank(maxStalenessValue) ? refreshInterval
+                        : PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.SEARCHER_MAX_STALENESS, refreshInterval);
+                return SearcherRefreshConfiguration.nearRealTime(refreshInterval, Math.max(0, maxStaleness));
             }
         };
 
@@ -16,4 +16,11 @@ public interface IssueBatcherFactory
     IssuesBatcher getBatcher(EntityCondition condition, IssueIdBatcher.Spy spy);
     
     IssuesBatcher getBatcher(EntityCondition condition, IssueIdBatcher.Spy spy, int batchSize);
+
+    /**
+     * Returns a batcher for the issues with an id between {@code minId} and {@code maxId}, both inclusive.
+     *
+     * @since v6.3.15
+     */
+    IssuesBatcher getBatcher(long minId, long maxId, IssueIdBatcher.Spy spy);
 }
@@ -22,6 +22,7 @@ import java.util.List;
 import javax.annotation.Nullable;
 
 import static org.ofbiz.core.entity.EntityFindOptions.findOptions;
+import static org.ofbiz.core.entity.EntityOperator.GREATER_THAN_EQUAL_TO;
 import static org.ofbiz.core.entity.EntityOperator.LESS_THAN_EQUAL_TO;
 
 /**
@@ -37,6 +38,10 @@ class IssueIdBatcher implements IssuesBatcher
 
     private EntityCondition condition;
 
+    /**
+     * The lowest "id" to return, or -1 to return all issues up to the max "id".
+     */
+    private final long minId;
 
     /**
      * This barrier is used for testing race conditions in background indexing. The barrier should never be raised in
@@ -50,14 +55,27 @@ class IssueIdBatcher implements IssuesBatcher
     private long maxIdNextBatch;
 
     IssueIdBatcher(final OfBizDelegator delegator, final IssueFactory issueFactory, BarrierFactory barrierFactory, final int batchSize, final EntityCondition condition, final Spy spy)
+    {
+        this(delegator, issueFactory, barrierFactory, batchSize, condition, spy, -1, null);
+    }
+
+    /**
+     * Creates a batcher that only returns the issues with an "id" between {@code minId} and {@code maxId}, both
+     * inclusive.
+     *
+     * @param minId the lowest issue id to return, or -1 for no lower bound
+     * @param maxId the highest issue id to return, or null to start from the newest issue
+     */
+    IssueIdBatcher(final OfBizDelegator delegator, final IssueFactory issueFactory, BarrierFactory barrierFactory, final int batchSize, final EntityCondition condition, final Spy spy,
+            final long minId, @Nullable final Long maxId)
     {
         this.delegator = delegator;
         this.issueFactory = issueFactory;
         this.batchSize = batchSize;
         this.spy = spy;
-        this.maxIdNextBatch = selectMaxId();
-        this.condition = null;
-        this.condition = condition;
+        this.minId = minId;
+        this.maxIdNextBatch = maxId != null ? maxId : selectMaxId();
+        this.condition = minId < 0 ? condition : and(new EntityExpr("id", GREATER_THAN_EQUAL_TO, minId), condition);
 
         backgroundReindexBarrier = barrierFactory.getBarrier("backgroundReindex");
     }
@@ -86,6 +104,11 @@ class IssueIdBatcher implements IssuesBatcher
         return max != null ? max : -1;
     }
 
+    private static EntityCondition and(final EntityCondition idCondition, @Nullable final EntityCondition condition)
+    {
+        return condition == null ? idCondition : new EntityConditionList(ImmutableList.of(idCondition, condition), EntityOperator.AND);
+    }
+
     /**
      * Iterates through all issues starting from the issue with {@code maxId} and working backwards.
      */
@@ -94,14 +117,14 @@ class IssueIdBatcher implements IssuesBatcher
         @Override
         protected IssuesIterable computeNext()
         {
-            if (maxIdNextBatch < 0)
+            if (maxIdNextBatch < 0 || maxIdNextBatch < minId)
             {
                 return endOfData();
             }
 
             // include up to BATCH_SIZE issues in the next batch
             EntityCondition idCondition = new EntityExpr("id", LESS_THAN_EQUAL_TO, maxIdNextBatch);
-            EntityCondition where = condition == null ? idCondition : new EntityConditionList(ImmutableList.of(idCondition, condition), EntityOperator.AND);
+            EntityCondition where = and(idCondition, condition);
 
             maxIdNextBatch -= batchSize;
 
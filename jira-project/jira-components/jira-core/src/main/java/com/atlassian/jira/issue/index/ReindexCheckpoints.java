@@ -0,0 +1,268 @@
+package com.atlassian.jira.issue.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import com.atlassian.core.util.Clock;
+import com.atlassian.jira.cluster.ClusterManager;
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.config.properties.PropertiesUtil;
+import com.atlassian.jira.config.util.IndexPathManager;
+import com.atlassian.jira.propertyset.JiraPropertySetFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.opensymphony.module.propertyset.PropertySet;
+
+import org.apache.log4j.Logger;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Records the progress of a stop-the-world re-index in the database, so that a re-index that was interrupted, for
+ * example because the node was restarted, continues with the issues that have not been indexed yet instead of
+ * starting over.
+ * <p>
+ * The issue id space is split into {@link APKeys.JiraIndexConfiguration.Issue#REINDEX_RANGES} {@link Range ranges},
+ * each of which is indexed from its highest id down. After every batch has been written to the index, the highest id
+ * of the range that still has to be indexed is saved. Ranges only divide up the progress that is recorded: they are
+ * indexed one after another through the writers of the issue indexes, not by workers with writers of their own.
+ * Checkpoints belong to the node and the index directory they were recorded for, and are cleared when the re-index
+ * completes and whenever the index is replaced. A re-index is only resumed within
+ * {@link APKeys.JiraIndexConfiguration.Issue#REINDEX_RESUME_MAX_AGE} minutes of its last checkpoint, unless
+ * {@link APKeys.JiraIndexConfiguration.Issue#REINDEX_RESUME} asks for it to be resumed regardless, because the longer
+ * the index has been left half built the more of it is out of date.
+ *
+ * @since v6.3.15
+ */
+public class ReindexCheckpoints
+{
+    private static final Logger log = Logger.getLogger(ReindexCheckpoints.class);
+
+    private static final int DEFAULT_RANGES = 8;
+    private static final int DEFAULT_RESUME_MAX_AGE_MINUTES = 60;
+
+    static final String ENTITY_NAME = "jira.index.reindex.checkpoints";
+    private static final Long ENTITY_ID = 1L;
+
+    private static final String INDEX_PATH = "index.path";
+    private static final String RANGE_COUNT = "range.count";
+    private static final String SAVED = "saved";
+
+    private final JiraPropertySetFactory jiraPropertySetFactory;
+    private final IndexPathManager indexPathManager;
+    private final ClusterManager clusterManager;
+    private final ApplicationProperties applicationProperties;
+    private final Clock clock;
+
+    public ReindexCheckpoints(final JiraPropertySetFactory jiraPropertySetFactory, final IndexPathManager indexPathManager,
+            final ClusterManager clusterManager, final ApplicationProperties applicationProperties, final Clock clock)
+    {
+        this.jiraPropertySetFactory = jiraPropertySetFactory;
+        this.indexPathManager = indexPathManager;
+        this.clusterManager = clusterManager;
+        this.applicationProperties = applicationProperties;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the ranges of a re-index of the current index directory that did not complete, including the ranges
+     * that were finished.
+     *
+     * @return the ranges ordered by id, or an empty list if there is no re-index to resume or its checkpoints are too
+     * old to be resumed
+     */
+    @Nonnull
+    public synchronized List<Range> getRanges()
+    {
+        final PropertySet propertySet = getPropertySet();
+        if (!propertySet.exists(RANGE_COUNT) || !indexPathManager.getIndexRootPath().equals(propertySet.getString(INDEX_PATH)))
+        {
+            return Collections.emptyList();
+        }
+        if (!applicationProperties.getOption(APKeys.JiraIndexConfiguration.Issue.REINDEX_RESUME))
+        {
+            final long maxAge = TimeUnit.MINUTES.toMillis(PropertiesUtil.getIntProperty(applicationProperties,
+                    APKeys.JiraIndexConfiguration.Issue.REINDEX_RESUME_MAX_AGE, DEFAULT_RESUME_MAX_AGE_MINUTES));
+            final long age = clock.getCurrentDate().getTime() - (propertySet.exists(SAVED) ? propertySet.getLong(SAVED) : 0);
+            if (age > maxAge)
+            {
+                log.info("Not resuming the interrupted reindex, its last checkpoint is " + TimeUnit.MILLISECONDS.toMinutes(age) + " minutes old");
+                return Collections.emptyList();
+            }
+        }
+        final int count = propertySet.getInt(RANGE_COUNT);
+        final ImmutableList.Builder<Range> ranges = ImmutableList.builder();
+        for (int i = 0; i < count; i++)
+        {
+            ranges.add(new Range(i, propertySet.getLong(key(i, "min")), propertySet.getLong(key(i, "max")), propertySet.getLong(key(i, "next"))));
+        }
+        return ranges.build();
+    }
+
+    /**
+     * Replaces any recorded checkpoints with those of a new re-index.
+     *
+     * @param minId the lowest issue id
+     * @param maxId the highest issue id
+     * @return the ranges the re-index is to index, ordered by id
+     */
+    @Nonnull
+    public synchronized List<Range> start(final long minId, final long maxId)
+    {
+        clear();
+        final List<Range> ranges = partition(minId, maxId, PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.REINDEX_RANGES, DEFAULT_RANGES));
+        final PropertySet propertySet = getPropertySet();
+        propertySet.setString(INDEX_PATH, indexPathManager.getIndexRootPath());
+        for (final Range range : ranges)
+        {
+            add(propertySet, range);
+        }
+        return ranges;
+    }
+
+    /**
+     * Adds a range to the re-index that is being recorded, used for issues created after the re-index started.
+     *
+     * @param range the range to add, whose index must follow the recorded ranges
+     */
+    public synchronized void add(@Nonnull final Range range)
+    {
+        add(getPropertySet(), range);
+    }
+
+    /**
+     * Records how far a range has been indexed. Must only be called once the issues above
+     * {@link Range#getNextId()} have been written to the index.
+     *
+     * @param range the range, as returned by {@link Range#next(long)}
+     */
+    public synchronized void save(@Nonnull final Range range)
+    {
+        final PropertySet propertySet = getPropertySet();
+        propertySet.setLong(key(range.getIndex(), "next"), range.getNextId());
+        propertySet.setLong(SAVED, clock.getCurrentDate().getTime());
+    }
+
+    public synchronized void clear()
+    {
+        final PropertySet propertySet = getPropertySet();
+        for (final Object key : ImmutableList.copyOf(propertySet.getKeys()))
+        {
+            propertySet.remove((String) key);
+        }
+    }
+
+    /**
+     * Splits the ids from {@code minId} to {@code maxId} into ranges of about the same size.
+     *
+     * @param minId the lowest issue id
+     * @param maxId the highest issue id
+     * @param count the number of ranges
+     * @return at most {@code count} ranges ordered by id, none of which has been indexed yet
+     */
+    @Nonnull
+    static List<Range> partition(final long minId, final long maxId, final int count)
+    {
+        if (maxId < minId)
+        {
+            return Collections.emptyList();
+        }
+        final long size = Math.max(1, (maxId - minId + count) / Math.max(1, count));
+        final List<Range> ranges = Lists.newArrayList();
+        for (long start = minId; start <= maxId; start += size)
+        {
+            final long end = Math.min(maxId, start + size - 1);
+            ranges.add(new Range(ranges.size(), start, end, end));
+        }
+        return ranges;
+    }
+
+    private void add(final PropertySet propertySet, final Range range)
+    {
+        propertySet.setLong(key(range.getIndex(), "min"), range.getMinId());
+        propertySet.setLong(key(range.getIndex(), "max"), range.getMaxId());
+        propertySet.setLong(key(range.getIndex(), "next"), range.getNextId());
+        propertySet.setInt(RANGE_COUNT, range.getIndex() + 1);
+        propertySet.setLong(SAVED, clock.getCurrentDate().getTime());
+    }
+
+    private PropertySet getPropertySet()
+    {
+        // nodes of a cluster each have their own index
+        final String nodeId = clusterManager.getNodeId();
+        return jiraPropertySetFactory.buildNoncachingPropertySet(nodeId == null ? ENTITY_NAME : ENTITY_NAME + "." + nodeId, ENTITY_ID);
+    }
+
+    private static String key(final int range, final String field)
+    {
+        return "range." + range + "." + field;
+    }
+
+    /**
+     * A range of issue ids, indexed from {@link #getMaxId()} down to {@link #getMinId()}.
+     */
+    @Immutable
+    public static final class Range
+    {
+        private final int index;
+        private final long minId;
+        private final long maxId;
+        private final long nextId;
+
+        Range(final int index, final long minId, final long maxId, final long nextId)
+        {
+            this.index = index;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.nextId = nextId;
+        }
+
+        public int getIndex()
+        {
+            return index;
+        }
+
+        public long getMinId()
+        {
+            return minId;
+        }
+
+        public long getMaxId()
+        {
+            return maxId;
+        }
+
+        /**
+         * @return the highest id that still has to be indexed
+         */
+        public long getNextId()
+        {
+            return nextId;
+        }
+
+        public boolean isFinished()
+        {
+            return nextId < minId;
+        }
+
+        /**
+         * @param nextId the highest id that still has to be indexed
+         * @return this range, indexed down to {@code nextId}
+         */
+        public Range next(final long nextId)
+        {
+            return new Range(index, minId, maxId, Math.min(this.nextId, nextId));
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ids " + minId + "-" + maxId;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.atlassian.jira.issue.search;
 
 import com.atlassian.jira.cluster.ClusterSafe;
+import com.atlassian.jira.issue.search.parameters.lucene.sort.DocumentTermOrdinals;
 import com.atlassian.jira.util.Supplier;
 import com.atlassian.jira.util.cache.CompositeKeyCache;
 import org.apache.lucene.index.IndexReader;
@@ -8,12 +9,18 @@ import org.apache.lucene.index.IndexReader;
 import java.util.Collection;
 
 @ClusterSafe
-public class DefaultReaderCache implements ReaderCache
+public class DefaultReaderCache implements OrdinalsReaderCache
 {
     private final CompositeKeyCache<IndexReader, String, Collection<String>[]> cache = CompositeKeyCache.createWeakFirstKeySoftValueCache(DefaultReaderCache.class.getSimpleName());
+    private final CompositeKeyCache<IndexReader, String, DocumentTermOrdinals> ordinalsCache = CompositeKeyCache.createWeakFirstKeySoftValueCache(DefaultReaderCache.class.getSimpleName() + ".ordinals");
 
     public Collection<String>[] get(final IndexReader reader, final String key, final Supplier<Collection<String>[]> supplier)
     {
         return cache.get(reader, key, supplier);
     }
+
+    public DocumentTermOrdinals getOrdinals(final IndexReader reader, final String key, final Supplier<DocumentTermOrdinals> supplier)
+    {
+        return ordinalsCache.get(reader, key, supplier);
+    }
 }
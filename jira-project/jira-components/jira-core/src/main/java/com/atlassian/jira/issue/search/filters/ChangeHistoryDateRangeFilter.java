@@ -0,0 +1,111 @@
+package com.atlassian.jira.issue.search.filters;
+
+import java.io.IOException;
+import java.util.Date;
+
+import javax.annotation.Nullable;
+
+import com.atlassian.jira.issue.index.DocumentConstants;
+import com.atlassian.jira.util.LuceneUtils;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.NumericRangeFilter;
+import org.apache.lucene.search.TermRangeFilter;
+
+/**
+ * Matches the change history documents with a date in a range.
+ * <p>
+ * Change history documents index their dates as prefix coded seconds, and since v6.3.15 also as trie encoded numeric
+ * fields. A range over the prefix coded terms has to visit every distinct second in the range, which is slow for the
+ * long ranges of WAS, DURING, BEFORE and AFTER predicates. Segments in which every document has the numeric fields
+ * are therefore searched with a {@link NumericRangeFilter}, which visits a few terms per precision level. Segments that
+ * still contain documents indexed before the numeric fields were added fall back to the prefix coded terms.
+ *
+ * @since v6.3.15
+ */
+public class ChangeHistoryDateRangeFilter extends Filter
+{
+    /**
+     * The precision step of the numeric date fields of change history documents.
+     */
+    public static final int PRECISION_STEP = 8;
+
+    /**
+     * The term that marks change history documents that have the numeric date fields.
+     */
+    public static final Term NUMERIC_DATES = new Term(DocumentConstants.CHANGE_NUMERIC_DATES, "true");
+
+    private final Filter numericFilter;
+    private final Filter termFilter;
+
+    /**
+     * @param termField the prefix coded date field, for example {@link DocumentConstants#CHANGE_DATE}
+     * @param numericField the numeric date field, for example {@link DocumentConstants#CHANGE_DATE_SECONDS}
+     * @param from the start of the range, or null for no lower bound
+     * @param to the end of the range, or null for no upper bound
+     * @param includeFrom whether the range includes its start
+     * @param includeTo whether the range includes its end
+     */
+    public ChangeHistoryDateRangeFilter(final String termField, final String numericField, @Nullable final Date from, @Nullable final Date to,
+            final boolean includeFrom, final boolean includeTo)
+    {
+        numericFilter = NumericRangeFilter.newLongRange(numericField, PRECISION_STEP, toSeconds(from), toSeconds(to), includeFrom, includeTo);
+        termFilter = new TermRangeFilter(termField, toTerm(from), toTerm(to), includeFrom, includeTo);
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(final IndexReader reader) throws IOException
+    {
+        return hasNumericDates(reader) ? numericFilter.getDocIdSet(reader) : termFilter.getDocIdSet(reader);
+    }
+
+    /**
+     * @param reader a segment of the change history index
+     * @return whether all documents of the segment have the numeric date fields
+     */
+    static boolean hasNumericDates(final IndexReader reader) throws IOException
+    {
+        final int maxDoc = reader.maxDoc();
+        return maxDoc > 0 && reader.docFreq(NUMERIC_DATES) == maxDoc;
+    }
+
+    private static Long toSeconds(final Date date)
+    {
+        return date == null ? null : date.getTime() / 1000;
+    }
+
+    private static String toTerm(final Date date)
+    {
+        return date == null ? null : LuceneUtils.dateToString(date);
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+        final ChangeHistoryDateRangeFilter that = (ChangeHistoryDateRangeFilter) o;
+        return numericFilter.equals(that.numericFilter) && termFilter.equals(that.termFilter);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * numericFilter.hashCode() + termFilter.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return numericFilter.toString();
+    }
+}
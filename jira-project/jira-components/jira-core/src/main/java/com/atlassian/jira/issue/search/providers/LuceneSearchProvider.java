@@ -37,12 +37,10 @@ import org.apache.log4j.Logger;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.CachingWrapperFilter;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
-import org.apache.lucene.search.QueryWrapperFilter;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
@@ -66,11 +64,14 @@ public class LuceneSearchProvider implements SearchProvider
     private final SearchSortUtil searchSortUtil;
     private final LuceneQueryBuilder luceneQueryBuilder;
     private final QueryOptimizationService queryOptimizationService;
+    private final SharedPermissionsFilterCache sharedPermissionsFilterCache;
+    private final ParallelSearchExecutor parallelSearchExecutor;
 
     public LuceneSearchProvider(final IssueFactory issueFactory, final SearchProviderFactory searchProviderFactory,
             final PermissionsFilterGenerator permissionsFilterGenerator, final SearchHandlerManager searchHandlerManager,
             final SearchSortUtil searchSortUtil, final LuceneQueryBuilder luceneQueryBuilder,
-            final QueryOptimizationService queryOptimizationService)
+            final QueryOptimizationService queryOptimizationService, final SharedPermissionsFilterCache sharedPermissionsFilterCache,
+            final ParallelSearchExecutor parallelSearchExecutor)
     {
         this.issueFactory = issueFactory;
         this.searchProviderFactory = searchProviderFactory;
@@ -79,6 +80,8 @@ public class LuceneSearchProvider implements SearchProvider
         this.searchSortUtil = searchSortUtil;
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.queryOptimizationService = queryOptimizationService;
+        this.sharedPermissionsFilterCache = sharedPermissionsFilterCache;
+        this.parallelSearchExecutor = parallelSearchExecutor;
     }
 
     public SearchResults search(final Query query, final User searcher, final PagerFilter pager) throws SearchException
@@ -247,7 +250,7 @@ public class LuceneSearchProvider implements SearchProvider
         }
         try
         {
-            final Filter permissionsFilter = getPermissionsFilter(overrideSecurity, searchUser);
+            final Filter permissionsFilter = getPermissionsFilter(overrideSecurity, searchUser, issueSearcher);
             final org.apache.lucene.search.Query finalQuery = createLuceneQuery(searchQuery, andQuery, searchUser, overrideSecurity);
             final TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
             issueSearcher.search(finalQuery, permissionsFilter, hitCountCollector);
@@ -284,7 +287,7 @@ public class LuceneSearchProvider implements SearchProvider
             return null;
         }
         try {
-            final Filter permissionsFilter = getPermissionsFilter(overrideSecurity, searchUser);
+            final Filter permissionsFilter = getPermissionsFilter(overrideSecurity, searchUser, issueSearcher);
             final Query optimizedQuery = queryOptimizationService.optimizeQuery(searchQuery);
             final org.apache.lucene.search.Query finalQuery = createLuceneQuery(optimizedQuery, andQuery, searchUser, overrideSecurity);
             if (log.isDebugEnabled())
@@ -336,7 +339,7 @@ public class LuceneSearchProvider implements SearchProvider
             }
         }
 
-        final Filter permissionsFilter = getPermissionsFilter(overrideSecurity, user);
+        final Filter permissionsFilter = getPermissionsFilter(overrideSecurity, user, searcher);
         UtilTimerStack.push("Searching with Collector");
 
         // NOTE: we do this because when you are searching for everything the query is EMPTY
@@ -512,7 +515,7 @@ public class LuceneSearchProvider implements SearchProvider
         return cache;
     }
 
-    private Filter getPermissionsFilter(final boolean overRideSecurity, final User searchUser)
+    private Filter getPermissionsFilter(final boolean overRideSecurity, final User searchUser, final IndexSearcher searcher)
     {
         if (!overRideSecurity)
         {
@@ -525,9 +528,10 @@ public class LuceneSearchProvider implements SearchProvider
                 return filter;
             }
 
-            // if not in cache, construct a query (also using a cache)
+            // if not in cache, construct a query (also using a cache) and share the filter with users who have the
+            // same permissions, so that its per-segment bitsets outlive the request
             final org.apache.lucene.search.Query permissionQuery = permissionsFilterGenerator.getQuery(searchUser);
-            filter = new CachingWrapperFilter(new QueryWrapperFilter(permissionQuery));
+            filter = sharedPermissionsFilterCache.getFilter(searchUser, permissionQuery, searcher.maxDoc());
 
             // JRA-14980: store the wrapped filter in the cache
             // this is because the CachingWrapperFilter gives us an extra benefit of precalculating its BitSet, and so
@@ -561,20 +565,25 @@ public class LuceneSearchProvider implements SearchProvider
             {
                 maxHits = Integer.MAX_VALUE;
             }
+            // large indexes may be searched one segment per thread, the top hits of the segments are merged by Lucene
+            final boolean parallel = parallelSearchExecutor.isParallel(searcher);
+            final IndexSearcher segmentSearcher = parallel ? parallelSearchExecutor.getSearcher(searcher) : searcher;
             if ((sortFields != null) && (sortFields.length > 0)) // a zero length array sorts in very weird ways! JRA-5151
             {
-                hits = searcher.search(query, filter, maxHits, new Sort(sortFields));
+                hits = segmentSearcher.search(query, filter, maxHits, new Sort(sortFields));
             }
             else
             {
-                hits = searcher.search(query, filter, maxHits);
+                hits = segmentSearcher.search(query, filter, maxHits);
             }
             // NOTE: this is only here so we can flag any queries in production that are taking long and try to figure out
             // why they are doing that.
             final long timeQueryTook = opTimer.end().getMillisecondsTaken();
             if (timeQueryTook > 400)
             {
-                logSlowQuery(query, searchQueryString, timeQueryTook);
+                // say how the index was searched, so slow parallel and serial searches can be compared
+                final String searchMode = parallel ? "in parallel across " + parallelSearchExecutor.getSegmentCount(searcher) + " segments" : "serially";
+                logSlowQuery(query, searchQueryString, timeQueryTook, searchMode);
             }
         } finally {
 
@@ -660,11 +669,20 @@ public class LuceneSearchProvider implements SearchProvider
     }
 
     protected void logSlowQuery(final org.apache.lucene.search.Query query, final String searchQueryString, final long timeQueryTook)
+    {
+        logSlowQuery(query, searchQueryString, timeQueryTook, null);
+    }
+
+    private void logSlowQuery(final org.apache.lucene.search.Query query, final String searchQueryString, final long timeQueryTook, final String searchMode)
     {
         if (log.isDebugEnabled() || slowLog.isInfoEnabled())
         {
             // truncate lucene query at 800 characters
             String msg = String.format("JQL query '%s' produced lucene query '%-1.800s' and took '%d' ms to run.", searchQueryString, query.toString(), timeQueryTook);
+            if (searchMode != null)
+            {
+                msg += " The index was searched " + searchMode + ".";
+            }
             if (log.isDebugEnabled())
             {
                 log.debug(msg);
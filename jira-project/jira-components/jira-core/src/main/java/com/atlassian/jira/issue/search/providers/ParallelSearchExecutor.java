@@ -0,0 +1,197 @@
+package com.atlassian.jira.issue.search.providers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.jira.EventComponent;
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.config.properties.PropertiesUtil;
+import com.atlassian.jira.event.ComponentManagerShutdownEvent;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Runs large searches across the segments of the issue index concurrently.
+ * <p>
+ * Lucene searches each segment of an {@link IndexSearcher} built with an executor as a separate task and merges the
+ * top hits of the segments. This supplies such searchers for indexes that have more than one segment and at least
+ * {@link APKeys.JiraIndexConfiguration.Issue#SEARCH_PARALLEL_MIN_DOCS} documents. Parallel searching is disabled
+ * unless {@link APKeys.JiraIndexConfiguration.Issue#SEARCH_THREADS} is set.
+ * <p>
+ * The pool is shared by all requests and never queues: when all its threads are busy, or the request already has
+ * {@link APKeys.JiraIndexConfiguration.Issue#SEARCH_THREADS_PER_REQUEST} segments being searched by the pool, the
+ * segment is searched by the requesting thread. Concurrent users can therefore not starve each other, a busy node just
+ * falls back to searching serially.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+@EventComponent
+public class ParallelSearchExecutor
+{
+    private static final int DEFAULT_THREADS_PER_REQUEST = 2;
+    private static final int DEFAULT_PARALLEL_MIN_DOCS = 100000;
+
+    private final ThreadPoolExecutor pool;
+    private final int threadsPerRequest;
+    private final int minDocs;
+
+    public ParallelSearchExecutor(final ApplicationProperties applicationProperties)
+    {
+        final int threads = PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.SEARCH_THREADS, 0);
+        threadsPerRequest = PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.SEARCH_THREADS_PER_REQUEST, DEFAULT_THREADS_PER_REQUEST);
+        minDocs = PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.SEARCH_PARALLEL_MIN_DOCS, DEFAULT_PARALLEL_MIN_DOCS);
+        if (threads > 0 && threadsPerRequest > 0)
+        {
+            final ThreadFactoryBuilder builder = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("JIRA-ParallelSearch-%d");
+            pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), builder.build(), new CallerRuns());
+            pool.allowCoreThreadTimeOut(true);
+        }
+        else
+        {
+            pool = null;
+        }
+    }
+
+    /**
+     * Returns a searcher that searches the segments of the index concurrently, if the index is worth it.
+     * <p>
+     * The returned searcher shares the reader of the given searcher and must only be used for a single search, while
+     * the given searcher is open.
+     *
+     * @param searcher the searcher for the issue index
+     * @return a parallel searcher over the same reader, or the given searcher
+     */
+    @Nonnull
+    public IndexSearcher getSearcher(@Nonnull final IndexSearcher searcher)
+    {
+        if (!isParallel(searcher))
+        {
+            return searcher;
+        }
+        final IndexSearcher parallelSearcher = new IndexSearcher(searcher.getIndexReader(), new RequestExecutor());
+        parallelSearcher.setSimilarity(searcher.getSimilarity());
+        return parallelSearcher;
+    }
+
+    /**
+     * @param searcher the searcher for the issue index
+     * @return whether {@link #getSearcher(IndexSearcher)} would search the index in parallel
+     */
+    public boolean isParallel(@Nonnull final IndexSearcher searcher)
+    {
+        final IndexReader reader = searcher.getIndexReader();
+        return pool != null && !pool.isShutdown() && reader.maxDoc() >= minDocs && getSegmentCount(searcher) > 1;
+    }
+
+    /**
+     * @param searcher the searcher for the issue index
+     * @return the number of segments of its index
+     */
+    public int getSegmentCount(@Nonnull final IndexSearcher searcher)
+    {
+        return searcher.getSubReaders().length;
+    }
+
+    @EventListener
+    public void onShutdown(final ComponentManagerShutdownEvent event)
+    {
+        shutdown();
+    }
+
+    public void shutdown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Hands at most {@link #threadsPerRequest} tasks of one search to the shared pool and runs the rest in the calling
+     * thread. Only the methods Lucene uses are meaningful, the executor is never shut down.
+     */
+    private class RequestExecutor extends AbstractExecutorService
+    {
+        private final Semaphore permits = new Semaphore(threadsPerRequest);
+
+        @Override
+        public void execute(@Nonnull final Runnable command)
+        {
+            if (!permits.tryAcquire())
+            {
+                command.run();
+                return;
+            }
+            pool.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        command.run();
+                    }
+                    finally
+                    {
+                        permits.release();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void shutdown()
+        {
+        }
+
+        @Nonnull
+        @Override
+        public List<Runnable> shutdownNow()
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, @Nonnull final TimeUnit unit)
+        {
+            return false;
+        }
+    }
+
+    private static class CallerRuns implements RejectedExecutionHandler
+    {
+        @Override
+        public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor)
+        {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.atlassian.jira.issue.search.providers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.atlassian.crowd.embedded.api.User;
+import com.atlassian.crowd.embedded.impl.IdentifierUtils;
+import com.atlassian.crowd.event.group.GroupMembershipCreatedEvent;
+import com.atlassian.crowd.event.group.GroupMembershipDeletedEvent;
+import com.atlassian.crowd.model.membership.MembershipType;
+import com.atlassian.event.api.EventListener;
+import com.atlassian.jira.EventComponent;
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.config.properties.PropertiesUtil;
+import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.event.issue.security.IssueSecurityLevelAddedEvent;
+import com.atlassian.jira.event.issue.security.IssueSecurityLevelDeletedEvent;
+import com.atlassian.jira.event.issue.security.IssueSecuritySchemeAddedToProjectEvent;
+import com.atlassian.jira.event.issue.security.IssueSecuritySchemeRemovedFromProjectEvent;
+import com.atlassian.jira.event.permission.PermissionAddedEvent;
+import com.atlassian.jira.event.permission.PermissionDeletedEvent;
+import com.atlassian.jira.event.permission.PermissionSchemeAddedToProjectEvent;
+import com.atlassian.jira.event.permission.PermissionSchemeDeletedEvent;
+import com.atlassian.jira.event.permission.PermissionSchemeRemovedFromProjectEvent;
+import com.atlassian.jira.event.role.ProjectRoleDeletedEvent;
+import com.atlassian.jira.event.role.ProjectRoleUpdatedEvent;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+import org.apache.lucene.search.CachingWrapperFilter;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryWrapperFilter;
+
+import net.jcip.annotations.ThreadSafe;
+
+import static com.atlassian.jira.util.dbc.Assertions.notNull;
+
+/**
+ * Permission filters shared by all requests.
+ * <p>
+ * Filters are keyed by the permission query rather than by the user. The query only depends on the projects and issue
+ * security levels the user can see, so users with the same permissions share a filter. Each filter is a
+ * {@link CachingWrapperFilter}, which keeps one bitset per index segment and so survives searchers being reopened
+ * after writes: only new segments have to be filtered again.
+ * <p>
+ * Entries are evicted once the estimated size of their bitsets exceeds
+ * {@link APKeys.JiraIndexConfiguration.Issue#PERMISSIONS_FILTER_CACHE_MB}. The cache is also emptied when
+ * permissions, project roles, nested groups or issue security levels change. When a user joins or leaves a group only
+ * the filter that user last searched with is dropped. Either way that only frees memory early, as a change in
+ * permissions produces a different query and hence a different key.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+@EventComponent
+public class SharedPermissionsFilterCache
+{
+    private static final int DEFAULT_CACHE_MB = 32;
+    private static final int KB = 1024;
+    private static final int MAX_TRACKED_USERS = 10000;
+
+    private final Cache<Query, WeighedFilter> cache;
+    // the permission query each user last searched with, by lower case user name
+    private final Cache<String, Query> queryByUser = CacheBuilder.newBuilder().maximumSize(MAX_TRACKED_USERS).build();
+
+    public SharedPermissionsFilterCache(final ApplicationProperties applicationProperties)
+    {
+        final int cacheMb = PropertiesUtil.getIntProperty(applicationProperties, APKeys.JiraIndexConfiguration.Issue.PERMISSIONS_FILTER_CACHE_MB, DEFAULT_CACHE_MB);
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight((long) cacheMb * KB)
+                .weigher(new Weigher<Query, WeighedFilter>()
+                {
+                    @Override
+                    public int weigh(final Query key, final WeighedFilter value)
+                    {
+                        return value.weightKb;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the shared filter for a permission query, creating it if necessary.
+     *
+     * @param user the user searching, or null for anonymous
+     * @param permissionQuery the query matching the issues the user can see
+     * @param maxDoc the number of documents in the issue index, used to estimate the size of the filter
+     * @return a filter that caches its bitsets per index segment
+     */
+    @Nonnull
+    public Filter getFilter(@Nullable final User user, @Nonnull final Query permissionQuery, final int maxDoc)
+    {
+        notNull("permissionQuery", permissionQuery);
+        if (user != null)
+        {
+            queryByUser.put(IdentifierUtils.toLowerCase(user.getName()), permissionQuery);
+        }
+        try
+        {
+            return cache.get(permissionQuery, new Callable<WeighedFilter>()
+            {
+                @Override
+                public WeighedFilter call()
+                {
+                    return new WeighedFilter(new CachingWrapperFilter(new QueryWrapperFilter(permissionQuery)), maxDoc);
+                }
+            }).filter;
+        }
+        catch (final ExecutionException e)
+        {
+            // the loader does not throw checked exceptions, but be safe and build an uncached filter
+            return new CachingWrapperFilter(new QueryWrapperFilter(permissionQuery));
+        }
+    }
+
+    public void clear()
+    {
+        cache.invalidateAll();
+        queryByUser.invalidateAll();
+    }
+
+    private void onMembershipChanged(final MembershipType membershipType, final String entityName)
+    {
+        if (membershipType != MembershipType.GROUP_USER)
+        {
+            // the members of a nested group are not known here
+            clear();
+            return;
+        }
+        final String userName = IdentifierUtils.toLowerCase(entityName);
+        final Query permissionQuery = queryByUser.getIfPresent(userName);
+        if (permissionQuery != null)
+        {
+            cache.invalidate(permissionQuery);
+            queryByUser.invalidate(userName);
+        }
+    }
+
+    @EventListener
+    public void onClearCache(final ClearCacheEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onPermissionAdded(final PermissionAddedEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onPermissionDeleted(final PermissionDeletedEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onPermissionSchemeAddedToProject(final PermissionSchemeAddedToProjectEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onPermissionSchemeRemovedFromProject(final PermissionSchemeRemovedFromProjectEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onPermissionSchemeDeleted(final PermissionSchemeDeletedEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onProjectRoleUpdated(final ProjectRoleUpdatedEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onProjectRoleDeleted(final ProjectRoleDeletedEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onGroupMembershipCreated(final GroupMembershipCreatedEvent event)
+    {
+        onMembershipChanged(event.getMembershipType(), event.getEntityName());
+    }
+
+    @EventListener
+    public void onGroupMembershipDeleted(final GroupMembershipDeletedEvent event)
+    {
+        onMembershipChanged(event.getMembershipType(), event.getEntityName());
+    }
+
+    @EventListener
+    public void onIssueSecurityLevelAdded(final IssueSecurityLevelAddedEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onIssueSecurityLevelDeleted(final IssueSecurityLevelDeletedEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onIssueSecuritySchemeAddedToProject(final IssueSecuritySchemeAddedToProjectEvent event)
+    {
+        clear();
+    }
+
+    @EventListener
+    public void onIssueSecuritySchemeRemovedFromProject(final IssueSecuritySchemeRemovedFromProjectEvent event)
+    {
+        clear();
+    }
+
+    /**
+     * A filter together with the estimated size of its bitsets, one bit per document in the index.
+     */
+    private static class WeighedFilter
+    {
+        private final Filter filter;
+        private final int weightKb;
+
+        WeighedFilter(final Filter filter, final int maxDoc)
+        {
+            this.filter = filter;
+            this.weightKb = Math.max(1, maxDoc / 8 / KB);
+        }
+    }
+}
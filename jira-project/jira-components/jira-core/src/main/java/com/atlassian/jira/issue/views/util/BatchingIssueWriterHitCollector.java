@@ -0,0 +1,101 @@
+package com.atlassian.jira.issue.views.util;
+
+import com.atlassian.jira.exception.DataAccessException;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.IssueFactory;
+import com.atlassian.jira.issue.customfields.persistence.CustomFieldValuePrefetcher;
+import com.atlassian.jira.issue.statistics.util.DocumentHitCollector;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the issues of a search in batches. The custom field values of each batch are loaded with a single query
+ * before the batch is written, and released afterwards, and the writer is flushed after every batch. Memory use
+ * therefore does not depend on the number of issues, and the response starts as soon as the first batch is written.
+ * <p/>
+ * {@link #finish()} must be called once the search is done, to write the last batch.
+ *
+ * @since v6.3.15
+ */
+public abstract class BatchingIssueWriterHitCollector extends DocumentHitCollector
+{
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    protected final Writer writer;
+    private final IssueFactory issueFactory;
+    private final CustomFieldValuePrefetcher customFieldValuePrefetcher;
+    private final int batchSize;
+    private final List<Issue> batch;
+
+    public BatchingIssueWriterHitCollector(final IndexSearcher searcher, final Writer writer, final IssueFactory issueFactory,
+            final CustomFieldValuePrefetcher customFieldValuePrefetcher)
+    {
+        this(searcher, writer, issueFactory, customFieldValuePrefetcher, DEFAULT_BATCH_SIZE);
+    }
+
+    BatchingIssueWriterHitCollector(final IndexSearcher searcher, final Writer writer, final IssueFactory issueFactory,
+            final CustomFieldValuePrefetcher customFieldValuePrefetcher, final int batchSize)
+    {
+        super(searcher);
+        this.writer = writer;
+        this.issueFactory = issueFactory;
+        this.customFieldValuePrefetcher = customFieldValuePrefetcher;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<Issue>(batchSize);
+    }
+
+    public void collect(final Document d)
+    {
+        batch.add(issueFactory.getIssue(d));
+        if (batch.size() >= batchSize)
+        {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Writes the issues that have been collected but not written yet.
+     */
+    public void finish()
+    {
+        writeBatch();
+    }
+
+    private void writeBatch()
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+        final List<Long> issueIds = new ArrayList<Long>(batch.size());
+        for (final Issue issue : batch)
+        {
+            issueIds.add(issue.getId());
+        }
+        customFieldValuePrefetcher.prefetchValues(issueIds);
+        try
+        {
+            for (final Issue issue : batch)
+            {
+                writeIssue(issue, writer);
+            }
+            writer.flush();
+        }
+        catch (final IOException e)
+        {
+            throw new DataAccessException(e);
+        }
+        finally
+        {
+            customFieldValuePrefetcher.releaseValues(issueIds);
+            batch.clear();
+        }
+    }
+
+    protected abstract void writeIssue(Issue issue, Writer writer) throws IOException;
+}
@@ -2,11 +2,11 @@ package com.atlassian.jira.issue.views.util;
 
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.IssueFactory;
+import com.atlassian.jira.issue.customfields.persistence.CustomFieldValuePrefetcher;
 import com.atlassian.jira.issue.search.SearchException;
 import com.atlassian.jira.issue.search.SearchProvider;
 import com.atlassian.jira.issue.search.SearchProviderFactory;
 import com.atlassian.jira.issue.search.SearchRequest;
-import com.atlassian.jira.issue.statistics.util.DocumentHitCollector;
 import com.atlassian.jira.issue.views.SingleIssueWriter;
 import com.atlassian.jira.plugin.issueview.AbstractIssueView;
 import com.atlassian.jira.security.JiraAuthenticationContext;
@@ -19,6 +19,9 @@ import java.io.Writer;
 
 /**
  * A simple class to centralize the body writes for search request view implementations.
+ * <p/>
+ * Issues are written in batches by a {@link BatchingIssueWriterHitCollector}, so that large exports are streamed to
+ * the writer with bounded memory.
  */
 public class DefaultSearchRequestViewBodyWriterUtil implements SearchRequestViewBodyWriterUtil
 {
@@ -26,13 +29,17 @@ public class DefaultSearchRequestViewBodyWriterUtil implements SearchRequestView
     private final IssueFactory issueFactory;
     private final JiraAuthenticationContext authenticationContext;
     private final SearchProvider searchProvider;
+    private final CustomFieldValuePrefetcher customFieldValuePrefetcher;
 
-    public DefaultSearchRequestViewBodyWriterUtil(final SearchProviderFactory searchProviderFactory, final IssueFactory issueFactory, final JiraAuthenticationContext authenticationContext, final SearchProvider searchProvider)
+    public DefaultSearchRequestViewBodyWriterUtil(final SearchProviderFactory searchProviderFactory, final IssueFactory issueFactory,
+            final JiraAuthenticationContext authenticationContext, final SearchProvider searchProvider,
+            final CustomFieldValuePrefetcher customFieldValuePrefetcher)
     {
         this.searchProviderFactory = searchProviderFactory;
         this.issueFactory = issueFactory;
         this.authenticationContext = authenticationContext;
         this.searchProvider = searchProvider;
+        this.customFieldValuePrefetcher = customFieldValuePrefetcher;
     }
 
     /* (non-Javadoc)
@@ -41,7 +48,7 @@ public class DefaultSearchRequestViewBodyWriterUtil implements SearchRequestView
     public void writeBody(final Writer writer, final AbstractIssueView issueView, final SearchRequest searchRequest, final SingleIssueWriter singleIssueWriter, final PagerFilter pagerFilter) throws IOException, SearchException
     {
         final IndexSearcher searcher = searchProviderFactory.getSearcher(SearchProviderFactory.ISSUE_INDEX);
-        final DocumentHitCollector hitCollector = new IssueWriterHitCollector(searcher, writer, issueFactory)
+        final BatchingIssueWriterHitCollector hitCollector = new BatchingIssueWriterHitCollector(searcher, writer, issueFactory, customFieldValuePrefetcher)
         {
             @Override
             protected void writeIssue(final Issue issue, final Writer writer) throws IOException
@@ -51,6 +58,7 @@ public class DefaultSearchRequestViewBodyWriterUtil implements SearchRequestView
         };
 
         searchProvider.searchAndSort((searchRequest != null) ? searchRequest.getQuery() : null, authenticationContext.getLoggedInUser(), hitCollector, pagerFilter);
+        hitCollector.finish();
     }
 
     /* (non-Javadoc)
@@ -59,7 +67,7 @@ public class DefaultSearchRequestViewBodyWriterUtil implements SearchRequestView
     public void writeTableBody(final Writer writer, final IssueTableWriter issueTableWriter, final SearchRequest searchRequest, final PagerFilter pagerFilter) throws IOException, SearchException
     {
         final IndexSearcher searcher = searchProviderFactory.getSearcher(SearchProviderFactory.ISSUE_INDEX);
-        final DocumentHitCollector hitCollector = new IssueWriterHitCollector(searcher, writer, issueFactory)
+        final BatchingIssueWriterHitCollector hitCollector = new BatchingIssueWriterHitCollector(searcher, writer, issueFactory, customFieldValuePrefetcher)
         {
             @Override
             protected void writeIssue(final Issue issue, final Writer writer) throws IOException
@@ -69,6 +77,7 @@ public class DefaultSearchRequestViewBodyWriterUtil implements SearchRequestView
         };
 
         searchProvider.searchAndSort((searchRequest != null) ? searchRequest.getQuery() : null, authenticationContext.getLoggedInUser(), hitCollector, pagerFilter);
+        hitCollector.finish();
         issueTableWriter.close();
     }
 
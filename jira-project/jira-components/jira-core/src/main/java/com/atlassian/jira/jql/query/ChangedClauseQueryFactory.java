@@ -6,7 +6,7 @@ import java.util.Set;
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.jira.issue.index.DocumentConstants;
 import com.atlassian.jira.issue.search.SearchProviderFactory;
-import com.atlassian.jira.issue.search.filters.IssueIdFilter;
+import com.atlassian.jira.issue.search.filters.IssueIdJoinFilter;
 import com.atlassian.jira.util.lucene.ConstantScorePrefixQuery;
 import com.atlassian.query.clause.ChangedClause;
 import com.atlassian.query.operator.Operator;
@@ -82,7 +82,7 @@ public class ChangedClauseQueryFactory
                 log.debug("History query returned: " + issueIds);
             }
 
-            issueQuery = new ConstantScoreQuery(new IssueIdFilter(issueIds));
+            issueQuery = new ConstantScoreQuery(IssueIdJoinFilter.forIndexedIds(issueIds));
         }
         catch (IOException e)
         {
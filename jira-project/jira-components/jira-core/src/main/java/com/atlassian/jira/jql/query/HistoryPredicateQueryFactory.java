@@ -3,6 +3,7 @@ package com.atlassian.jira.jql.query;
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.issue.index.DocumentConstants;
+import com.atlassian.jira.issue.search.filters.ChangeHistoryDateRangeFilter;
 import com.atlassian.jira.jql.operand.PredicateOperandResolver;
 import com.atlassian.jira.jql.operand.QueryLiteral;
 import com.atlassian.jira.jql.operator.OperatorClasses;
@@ -22,9 +23,9 @@ import org.apache.commons.lang.time.DateUtils;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
-import org.apache.lucene.search.TermRangeQuery;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -282,22 +283,26 @@ public class HistoryPredicateQueryFactory
             // one we are looking for.
             //
             fromDate = (inclusiveSearch ? addOneUnit(fromDate) : fromDate);
-            String searchStart = jqlDateSupport.getIndexedValue(fromDate);
-            String searchEnd = jqlDateSupport.getIndexedValue(toDate);
             // startSearch <= NEXT_CHANGE_DATE  AND  CHANGE_DATE <= searchEND
+            // a change item holds its value from CHANGE_DATE until NEXT_CHANGE_DATE, which must intersect the search range
             if (isChangedSearch)
             {
-                bq.add(new TermRangeQuery(DocumentConstants.CHANGE_DATE, searchStart, searchEnd, true, inclusiveSearch), BooleanClause.Occur.MUST);
+                bq.add(dateRangeQuery(DocumentConstants.CHANGE_DATE, DocumentConstants.CHANGE_DATE_SECONDS, fromDate, toDate, true, inclusiveSearch), BooleanClause.Occur.MUST);
             }
             else
             {
-                bq.add(new TermRangeQuery(field+"."+DocumentConstants.NEXT_CHANGE_DATE, searchStart, null, inclusiveSearch, true), BooleanClause.Occur.MUST);
-                bq.add(new TermRangeQuery(DocumentConstants.CHANGE_DATE, null, searchEnd, true, inclusiveSearch), BooleanClause.Occur.MUST);
+                bq.add(dateRangeQuery(field + "." + DocumentConstants.NEXT_CHANGE_DATE, field + "." + DocumentConstants.NEXT_CHANGE_DATE_SECONDS, fromDate, null, inclusiveSearch, true), BooleanClause.Occur.MUST);
+                bq.add(dateRangeQuery(DocumentConstants.CHANGE_DATE, DocumentConstants.CHANGE_DATE_SECONDS, null, toDate, true, inclusiveSearch), BooleanClause.Occur.MUST);
             }
         }
     }
 
 
+    private static Query dateRangeQuery(String termField, String numericField, Date fromDate, Date toDate, boolean includeFrom, boolean includeTo)
+    {
+        return new ConstantScoreQuery(new ChangeHistoryDateRangeFilter(termField, numericField, fromDate, toDate, includeFrom, includeTo));
+    }
+
     private DateRange convertToDateRangeWithImpliedPrecision(QueryLiteral literal)
     {
         return literal == null ? null : literal.getLongValue() != null ?
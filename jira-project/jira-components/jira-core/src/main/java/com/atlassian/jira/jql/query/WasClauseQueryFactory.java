@@ -9,7 +9,7 @@ import java.util.Set;
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.jira.issue.index.DocumentConstants;
 import com.atlassian.jira.issue.search.SearchProviderFactory;
-import com.atlassian.jira.issue.search.filters.IssueIdFilter;
+import com.atlassian.jira.issue.search.filters.IssueIdJoinFilter;
 import com.atlassian.jira.jql.operand.EmptyWasClauseOperandHandler;
 import com.atlassian.jira.jql.operand.JqlOperandResolver;
 import com.atlassian.jira.jql.operand.QueryLiteral;
@@ -102,7 +102,7 @@ public class WasClauseQueryFactory
                 log.debug("History query returned: " + issueIds);
             }
 
-            issueQuery = new ConstantScoreQuery(new IssueIdFilter(issueIds));
+            issueQuery = new ConstantScoreQuery(IssueIdJoinFilter.forIndexedIds(issueIds));
         }
         catch (IOException e)
         {
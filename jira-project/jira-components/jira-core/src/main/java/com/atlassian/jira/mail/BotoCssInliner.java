@@ -6,8 +6,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -39,6 +41,17 @@ public class BotoCssInliner implements CssInliner
      */
     private final Cache<Object, BotocssStyles> botocssStyles;
 
+    /**
+     * The most characters of HTML, before and after inlining, to keep in {@link #inlinedHtml}.
+     */
+    static final long MAX_INLINED_CHARS = 4 * 1024 * 1024;
+
+    /**
+     * The HTML with styles applied, by the HTML it was applied to. Notifications to several recipients often render
+     * the same HTML, which then only has its styles applied once.
+     */
+    private final LoadingCache<String, String> inlinedHtml;
+
     private final ImmutableList<String> cssFilenames;
 
     /**
@@ -60,6 +73,12 @@ public class BotoCssInliner implements CssInliner
                 .expireAfterAccess(EXPIRE_SECS, SECONDS)
                 .removalListener(new BotocssRemovalListener())
                 .build(new BotocssCreator());
+
+        inlinedHtml = CacheBuilder.newBuilder()
+                .maximumWeight(MAX_INLINED_CHARS)
+                .weigher(new HtmlWeigher())
+                .expireAfterAccess(EXPIRE_SECS, SECONDS)
+                .build(new InliningLoader());
     }
 
     @Override
@@ -70,13 +89,14 @@ public class BotoCssInliner implements CssInliner
             return null;
         }
 
-        return Botocss.inject(html, botocssStyles.getUnchecked(this));
+        return inlinedHtml.getUnchecked(html);
     }
 
 
     void performCacheMaintenance()
     {
         botocssStyles.cleanUp();
+        inlinedHtml.cleanUp();
     }
 
     private BotocssStyles createStyles()
@@ -115,6 +135,24 @@ public class BotoCssInliner implements CssInliner
         }
     }
 
+    private class InliningLoader extends CacheLoader<String, String>
+    {
+        @Override
+        public String load(final String html) throws Exception
+        {
+            return Botocss.inject(html, botocssStyles.getUnchecked(BotoCssInliner.this));
+        }
+    }
+
+    private static class HtmlWeigher implements Weigher<String, String>
+    {
+        @Override
+        public int weigh(final String html, final String inlined)
+        {
+            return html.length() + inlined.length();
+        }
+    }
+
     private static class BotocssRemovalListener implements RemovalListener<Object, BotocssStyles>
     {
         @Override
@@ -1,5 +1,6 @@
 package com.atlassian.jira.mail;
 
+import com.atlassian.jira.mail.pipeline.MailPipeline;
 import com.atlassian.jira.util.BaseUrl;
 import com.atlassian.mail.queue.MailQueue;
 import com.atlassian.mail.queue.MailQueueImpl;
@@ -14,6 +15,8 @@ import javax.annotation.Nullable;
 /**
  * A {@link com.atlassian.mail.queue.MailQueue} that ensures the {@code baseURL} for all e-mails is correct. When
  * sending e-mails the {@code baseURL} should always use JIRA's configured URL.
+ * <p>
+ * Items that the {@link MailPipeline} can render are handed to it instead of being queued in memory.
  *
  * @since v6.3.1
  */
@@ -21,17 +24,25 @@ public class JiraMailQueue implements MailQueue
 {
     private final MailQueue delegate;
     private final BaseUrl baseUrl;
+    private final MailPipeline mailPipeline;
 
-    public JiraMailQueue(final BaseUrl baseUrl)
+    public JiraMailQueue(final BaseUrl baseUrl, final MailPipeline mailPipeline)
     {
-        this(new MailQueueImpl(), baseUrl);
+        this(new MailQueueImpl(), baseUrl, mailPipeline);
     }
 
     @VisibleForTesting
     JiraMailQueue(final MailQueue delegate, final BaseUrl baseUrl)
+    {
+        this(delegate, baseUrl, null);
+    }
+
+    @VisibleForTesting
+    JiraMailQueue(final MailQueue delegate, final BaseUrl baseUrl, @Nullable final MailPipeline mailPipeline)
     {
         this.delegate = delegate;
         this.baseUrl = baseUrl;
+        this.mailPipeline = mailPipeline;
     }
 
     /**
@@ -67,7 +78,13 @@ public class JiraMailQueue implements MailQueue
     public int errorSize() {return delegate.errorSize();}
 
     @Override
-    public void addItem(final MailQueueItem item) {delegate.addItem(item);}
+    public void addItem(final MailQueueItem item)
+    {
+        if (mailPipeline == null || !mailPipeline.offer(item))
+        {
+            delegate.addItem(item);
+        }
+    }
 
     @Override
     public void addErrorItem(final MailQueueItem item) {delegate.addErrorItem(item);}
@@ -5,11 +5,21 @@
 
 package com.atlassian.jira.mail;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import com.atlassian.core.util.ClassLoaderUtils;
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.config.properties.ApplicationProperties;
@@ -19,22 +29,25 @@ import com.atlassian.jira.issue.comments.Comment;
 import com.atlassian.jira.issue.comments.CommentManager;
 import com.atlassian.jira.issue.worklog.TimeTrackingIssueUpdater;
 import com.atlassian.jira.issue.worklog.Worklog;
+import com.atlassian.jira.mail.builder.EmailAudience;
 import com.atlassian.jira.mail.builder.EmailBuilder;
+import com.atlassian.jira.mail.builder.RenderingMailQueueItem;
 import com.atlassian.jira.notification.NotificationRecipient;
 import com.atlassian.jira.project.Project;
 import com.atlassian.jira.security.roles.ProjectRole;
 import com.atlassian.jira.security.roles.ProjectRoleManager;
 import com.atlassian.jira.template.TemplateManager;
+import com.atlassian.jira.timezone.TimeZoneManager;
 import com.atlassian.jira.util.I18nHelper;
 import com.atlassian.jira.web.bean.I18nBean;
 import com.atlassian.jira.web.util.OutlookDate;
 import com.atlassian.mail.MailThreader;
 import com.atlassian.mail.queue.MailQueue;
 
-import com.atlassian.mail.queue.SingleMailQueueItem;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.apache.velocity.exception.VelocityException;
 
@@ -50,13 +63,29 @@ public class MailingListCompiler
     private static final String GETS_COMMENT_NO_ORIGINAL = "commentnooriginal";
     private static final String NOCOMMENT = "nocomment";
 
+    /**
+     * Matches templates that refer to the recipient, which cannot be rendered once for several recipients.
+     */
+    private static final Pattern RECIPIENT_REFERENCE = Pattern.compile("\\$!?\\{?recipient\\b");
+
+    /**
+     * Matches the <code>#parse</code> directives of a template. The included template is the first group if it is
+     * given as a string literal, and unknown until the template is rendered otherwise.
+     */
+    private static final Pattern PARSE_DIRECTIVE = Pattern.compile("#\\{?parse\\}?\\s*\\(\\s*(?:(?:'([^']*)'|\"([^\"]*)\")\\s*\\))?");
+
     private final TemplateManager templateManager;
     private final ProjectRoleManager projectRoleManager;
+    private final TimeZoneManager timeZoneManager;
+    // the included templates are read from the classpath, so whether they refer to the recipient never changes
+    private final ConcurrentMap<String, Boolean> includeRefersToRecipient = new ConcurrentHashMap<String, Boolean>();
 
-    public MailingListCompiler(final TemplateManager templateManager, final ProjectRoleManager projectRoleManager)
+    public MailingListCompiler(final TemplateManager templateManager, final ProjectRoleManager projectRoleManager,
+            final TimeZoneManager timeZoneManager)
     {
         this.templateManager = templateManager;
         this.projectRoleManager = projectRoleManager;
+        this.timeZoneManager = timeZoneManager;
     }
 
     /**
@@ -251,6 +280,11 @@ public class MailingListCompiler
         final String subjectTemplate = templateManager.getTemplateContent(templateId, "subject");
         final String bodyTemplate = templateManager.getTemplateContent(templateId, format);
 
+        // All of these recipients get the same format and see the same comments and worklogs, so the e-mail only
+        // needs to be rendered once for each locale and time zone among them
+        final boolean renderPerRecipient = refersToRecipient(subjectTemplate) || refersToRecipient(bodyTemplate);
+        final Map<List<Object>, EmailAudience> audiences = new HashMap<List<Object>, EmailAudience>();
+
         if (!textRecipients.isEmpty())
         {
             final NotificationRecipientProcessor processor = new NotificationRecipientProcessor(textRecipients)
@@ -277,37 +311,54 @@ public class MailingListCompiler
                     }
                     else
                     {
+                        // The e-mail is rendered later, possibly on another thread, so each recipient gets its own copy
+                        // of the context rather than sharing one that is changed for the next recipient
+                        final Map<String, Object> recipientParams = new HashMap<String, Object>(contextParams);
+
                         // Pass the i18nHelper to the template - allows the email notification to be displayed in the language of the recipient
                         // Specify the translation file as an additional resource
                         final I18nHelper i18nBean = new I18nBean(recipientUser);
-                        contextParams.put("i18n", i18nBean);
-                        final IssueTemplateContext templateContext = (IssueTemplateContext) contextParams.get("context");
+                        recipientParams.put("i18n", i18nBean);
+                        final IssueTemplateContext templateContext = (IssueTemplateContext) recipientParams.get("context");
 
                         if (templateContext != null)
                         {
-                            contextParams.put("eventTypeName", templateContext.getEventTypeName(i18nBean));
+                            recipientParams.put("eventTypeName", templateContext.getEventTypeName(i18nBean));
                         }
 
                         // Provide an OutlookDate formatter with the users locale
                         final OutlookDate formatter = new OutlookDate(i18nBean.getLocale());
-                        contextParams.put("dateformatter", formatter);
-                        contextParams.put("lfbean", LookAndFeelBean.getInstance(ComponentAccessor.getComponent(ApplicationProperties.class)));
+                        recipientParams.put("dateformatter", formatter);
+                        recipientParams.put("lfbean", LookAndFeelBean.getInstance(ComponentAccessor.getComponent(ApplicationProperties.class)));
 
                         // Place the recipient in the velocity context
                         if (recipientUser != null)
                         {
-                            contextParams.put("recipient", recipientUser);
+                            recipientParams.put("recipient", recipientUser);
                         }
 
                         Email email = new Email(recipient.getEmail());
                         email.setFrom(sender);
                         email.setFromName(senderFrom);
 
-                        final SingleMailQueueItem item = new EmailBuilder(email, recipient)
+                        final EmailBuilder builder = new EmailBuilder(email, recipient)
                                 .withSubject(subjectTemplate)
                                 .withBody(bodyTemplate)
-                                .addParameters(contextParams)
-                                .renderNowAsQueueItem();
+                                .addParameters(recipientParams);
+                        if (!renderPerRecipient)
+                        {
+                            final TimeZone timeZone = recipientUser == null ? timeZoneManager.getDefaultTimezone()
+                                    : timeZoneManager.getTimeZoneforUser(recipientUser);
+                            final List<Object> audienceKey = Arrays.<Object>asList(i18nBean.getLocale(), timeZone);
+                            EmailAudience audience = audiences.get(audienceKey);
+                            if (audience == null)
+                            {
+                                audience = new EmailAudience();
+                                audiences.put(audienceKey, audience);
+                            }
+                            builder.withAudience(audience);
+                        }
+                        final RenderingMailQueueItem item = builder.renderLater();
 
                         item.setMailThreader(threader);
                         getMailQueue().addItem(item);
@@ -331,6 +382,73 @@ public class MailingListCompiler
             processor.process();
         }
     }
+
+    /**
+     * Whether the template, or any template it includes with <code>#parse</code>, refers to the recipient. Templates
+     * whose includes cannot be found before rendering are assumed to.
+     */
+    private boolean refersToRecipient(final String template)
+    {
+        return template != null && refersToRecipient(template, new HashSet<String>());
+    }
+
+    private boolean refersToRecipient(final String template, final Set<String> visited)
+    {
+        if (RECIPIENT_REFERENCE.matcher(template).find())
+        {
+            return true;
+        }
+        final Matcher parse = PARSE_DIRECTIVE.matcher(template);
+        while (parse.find())
+        {
+            final String include = parse.group(1) != null ? parse.group(1) : parse.group(2);
+            if (include == null)
+            {
+                return true;
+            }
+            if (visited.add(include) && includeRefersToRecipient(include, visited))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean includeRefersToRecipient(final String include, final Set<String> visited)
+    {
+        final Boolean cached = includeRefersToRecipient.get(include);
+        if (cached != null)
+        {
+            return cached;
+        }
+        final String template = readInclude(include);
+        final boolean refersToRecipient = template == null || refersToRecipient(template, visited);
+        includeRefersToRecipient.put(include, refersToRecipient);
+        return refersToRecipient;
+    }
+
+    private static String readInclude(final String include)
+    {
+        final InputStream in = ClassLoaderUtils.getResourceAsStream(include.startsWith("/") ? include.substring(1) : include, MailingListCompiler.class);
+        if (in == null)
+        {
+            return null;
+        }
+        try
+        {
+            return IOUtils.toString(in, "UTF-8");
+        }
+        catch (IOException e)
+        {
+            log.warn("Could not read the e-mail template include '" + include + "'", e);
+            return null;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
     @VisibleForTesting
     MailQueue getMailQueue()
     {
@@ -0,0 +1,69 @@
+package com.atlassian.jira.mail.builder;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.atlassian.jira.mail.util.MailAttachmentsManager;
+
+/**
+ * Recipients who are all sent the same e-mail, because they share the locale, time zone, format and visibility of
+ * comments and worklogs that the templates depend on.
+ * <p/>
+ * The subject and body are rendered for the first e-mail of the audience that is rendered, and reused for the rest,
+ * so a notification to hundreds of recipients is rendered a handful of times rather than once per recipient. The
+ * e-mails may be rendered on different threads, see {@link com.atlassian.jira.mail.pipeline.MailPipeline}.
+ *
+ * @see EmailBuilder#withAudience(EmailAudience)
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class EmailAudience
+{
+    @GuardedBy ("this")
+    private Rendering rendering;
+
+    synchronized Rendering render(final EmailRenderer renderer)
+    {
+        // if rendering fails, the next e-mail tries again
+        if (rendering == null)
+        {
+            rendering = renderer.renderContent();
+        }
+        return rendering;
+    }
+
+    /**
+     * A rendered subject and body, and the images they refer to.
+     */
+    static class Rendering
+    {
+        private final String subject;
+        private final String body;
+        private final MailAttachmentsManager attachmentsManager;
+
+        Rendering(final String subject, final String body, final MailAttachmentsManager attachmentsManager)
+        {
+            this.subject = subject;
+            this.body = body;
+            this.attachmentsManager = attachmentsManager;
+        }
+
+        String getSubject()
+        {
+            return subject;
+        }
+
+        String getBody()
+        {
+            return body;
+        }
+
+        /**
+         * @return the images referred to by the body, which build new body parts for every e-mail
+         */
+        MailAttachmentsManager getAttachmentsManager()
+        {
+            return attachmentsManager;
+        }
+    }
+}
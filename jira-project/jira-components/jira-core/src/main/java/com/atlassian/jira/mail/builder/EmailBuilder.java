@@ -17,7 +17,6 @@ import com.atlassian.jira.mail.util.MimeTypes;
 import com.atlassian.jira.notification.NotificationRecipient;
 import com.atlassian.jira.template.TemplateSource;
 import com.atlassian.jira.web.bean.I18nBean;
-import com.atlassian.mail.queue.MailQueueItem;
 import com.atlassian.mail.queue.SingleMailQueueItem;
 
 import com.google.common.base.Preconditions;
@@ -39,6 +38,7 @@ public class EmailBuilder
     private TemplateSource bodyTemplate;
     private Set<BodyPart> attachments = Sets.newHashSet();
     private Map<String, Object> templateParameters;
+    private EmailAudience audience;
 
     public EmailBuilder(Email email, String mimeType, Locale recipientLocale, IssueEvent issueEvent)
     {
@@ -131,6 +131,20 @@ public class EmailBuilder
         return this;
     }
 
+    /**
+     * Shares the rendered subject and body with the other e-mails of an audience, rather than rendering them for
+     * this e-mail alone. The parameters of all the e-mails of the audience must render the same subject and body.
+     * This is optional
+     * @param audience the recipients that are sent the same e-mail
+     * @return this builder for chain invocations
+     * @since v6.3.15
+     */
+    public EmailBuilder withAudience(EmailAudience audience)
+    {
+        this.audience = audience;
+        return this;
+    }
+
     private void validate() {
         Preconditions.checkNotNull(subjectTemplate);
         Preconditions.checkNotNull(bodyTemplate);
@@ -138,7 +152,7 @@ public class EmailBuilder
     }
 
     private EmailRenderer createEmailRenderer() {
-        return new EmailRenderer(email, subjectTemplate, bodyTemplate, attachments, templateParameters);
+        return new EmailRenderer(email, subjectTemplate, bodyTemplate, attachments, templateParameters, audience);
     }
 
 
@@ -166,7 +180,7 @@ public class EmailBuilder
      * Returns a MailQueueItem which will render email message during send
      * @return
      */
-    public MailQueueItem renderLater() {
+    public RenderingMailQueueItem renderLater() {
 
         return new RenderingMailQueueItem(createEmailRenderer());
     }
@@ -3,6 +3,7 @@ package com.atlassian.jira.mail.builder;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
 import javax.mail.BodyPart;
 import javax.mail.MessagingException;
 import javax.mail.Multipart;
@@ -44,14 +45,25 @@ class EmailRenderer
     private final TemplateSource bodyTemplate;
     private final Set<BodyPart> attachments;
     private final Map<String, Object> templateParameters;
+    private final EmailAudience audience;
 
     public EmailRenderer(final Email email, final TemplateSource subjectTemplate, final TemplateSource bodyTemplate, final Set<BodyPart> attachments, final Map<String, Object> templateParameters)
+    {
+        this(email, subjectTemplate, bodyTemplate, attachments, templateParameters, null);
+    }
+
+    /**
+     * @param audience the recipients that share the rendered subject and body with this e-mail, or null if it is
+     * rendered for its recipient alone
+     */
+    public EmailRenderer(final Email email, final TemplateSource subjectTemplate, final TemplateSource bodyTemplate, final Set<BodyPart> attachments, final Map<String, Object> templateParameters, @Nullable final EmailAudience audience)
     {
         this.email = email;
         this.subjectTemplate = subjectTemplate;
         this.bodyTemplate = bodyTemplate;
         this.attachments = attachments;
         this.templateParameters = templateParameters;
+        this.audience = audience;
     }
 
     /**
@@ -98,11 +110,10 @@ class EmailRenderer
         return ComponentAccessor.getComponent(VelocityTemplatingEngine.class);
     }
 
-    private void renderEmailBody(final Map<String, Object> contextParams) throws MessagingException
+    private String renderEmailBody(final Map<String, Object> contextParams, final MailAttachmentsManager attachmentsManager)
     {
         String renderedMailBody;
 
-        final MailAttachmentsManager attachmentsManager = createAttachmentsManager();
         contextParams.put("attachmentsManager", attachmentsManager);
 
         if (email.getMimeType().equals(MimeTypes.Text.HTML))
@@ -116,7 +127,12 @@ class EmailRenderer
         {
             renderedMailBody = getTemplatingEngine().render(bodyTemplate).applying(contextParams).asPlainText();
         }
+        return renderedMailBody;
+    }
 
+    private void setEmailBody(final String renderedMailBody, final MailAttachmentsManager attachmentsManager)
+            throws MessagingException
+    {
         if (attachmentsManager.getAttachmentsCount() > 0) {
             final String contentType = String.format("%s; charset=%s", email.getMimeType(), email.getEncoding());
             final Multipart multiPart = buildMailWithAttachments(attachmentsManager, renderedMailBody, contentType);
@@ -161,8 +177,20 @@ class EmailRenderer
      */
     public Email render() throws MessagingException
     {
-        email.setSubject(renderEmailSubject(templateParameters));
-        renderEmailBody(templateParameters);
+        final EmailAudience.Rendering rendering = audience == null ? renderContent() : audience.render(this);
+        email.setSubject(rendering.getSubject());
+        setEmailBody(rendering.getBody(), rendering.getAttachmentsManager());
         return email;
     }
+
+    /**
+     * Renders the subject and body from this e-mail's templates and parameters, without changing the e-mail.
+     */
+    EmailAudience.Rendering renderContent()
+    {
+        final String subject = renderEmailSubject(templateParameters);
+        final MailAttachmentsManager attachmentsManager = createAttachmentsManager();
+        final String body = renderEmailBody(templateParameters, attachmentsManager);
+        return new EmailAudience.Rendering(subject, body, attachmentsManager);
+    }
 }
@@ -2,6 +2,7 @@ package com.atlassian.jira.mail.builder;
 
 import com.atlassian.mail.Email;
 import com.atlassian.mail.MailException;
+import com.atlassian.mail.MailThreader;
 import com.atlassian.mail.queue.SingleMailQueueItem;
 
 import javax.mail.MessagingException;
@@ -26,6 +27,27 @@ public class RenderingMailQueueItem extends SingleMailQueueItem
         return emailRenderer.getSubject();
     }
 
+    /**
+     * Renders the e-mail without sending it, for the {@link com.atlassian.jira.mail.pipeline.MailPipeline}.
+     *
+     * @return the rendered e-mail
+     * @throws MessagingException if the e-mail could not be rendered
+     * @since v6.3.15
+     */
+    public Email render() throws MessagingException
+    {
+        return emailRenderer.render();
+    }
+
+    /**
+     * @return the threader that should thread the e-mail when it is sent, or null if it is not threaded
+     * @since v6.3.15
+     */
+    public MailThreader getMailThreader()
+    {
+        return mailThreader;
+    }
+
     @Override
     public void send() throws MailException
     {
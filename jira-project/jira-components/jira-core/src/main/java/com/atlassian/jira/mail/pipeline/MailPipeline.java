@@ -0,0 +1,544 @@
+package com.atlassian.jira.mail.pipeline;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.instrumentation.ExternalCounter;
+import com.atlassian.instrumentation.ExternalGauge;
+import com.atlassian.instrumentation.ExternalValue;
+import com.atlassian.instrumentation.Instrument;
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.config.util.JiraHome;
+import com.atlassian.jira.event.ComponentManagerShutdownEvent;
+import com.atlassian.jira.event.ComponentManagerStartedEvent;
+import com.atlassian.jira.extension.Startable;
+import com.atlassian.jira.instrumentation.Instrumentation;
+import com.atlassian.jira.instrumentation.LatencyHistogram;
+import com.atlassian.jira.mail.builder.RenderingMailQueueItem;
+import com.atlassian.mail.Email;
+import com.atlassian.mail.MailFactory;
+import com.atlassian.mail.MailThreader;
+import com.atlassian.mail.queue.MailQueueItem;
+import com.atlassian.mail.server.SMTPMailServer;
+import com.atlassian.mail.server.impl.ExtendedMimeMessage;
+import com.atlassian.mail.server.impl.util.MessageCreator;
+import com.atlassian.util.concurrent.ThreadFactories;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
+import org.apache.log4j.Logger;
+
+import static com.atlassian.util.concurrent.ThreadFactories.Type.DAEMON;
+
+/**
+ * Renders and sends notification e-mails in the background, so that the thread that fired an event does not wait for
+ * one template to be rendered per recipient, and e-mails are not lost on a restart.
+ * <p/>
+ * E-mails pass through three stages:
+ * <ol>
+ * <li>A pool of renderers renders each {@link RenderingMailQueueItem}, threads it, and writes it to the {@link MailSpool}
+ * in the local home directory. Rendering happens without an HTTP request, so JIRA's configured base URL is used, as
+ * it is by the scheduled mail queue. At most {@link #RENDER_QUEUE_CAPACITY} items wait to be rendered; while the
+ * queue is full, further items are left to the {@link com.atlassian.mail.queue.MailQueue}.</li>
+ * <li>A pool of senders takes the spooled e-mails in order. Each sender keeps its own connection to the SMTP server
+ * open while there is mail to send, rather than connecting once per e-mail.</li>
+ * <li>An e-mail that could not be sent is retried after a delay that doubles with each attempt, and moved to the
+ * spool's {@code failed} directory after {@link #MAX_SEND_ATTEMPTS} attempts.</li>
+ * </ol>
+ * E-mails that were spooled but not sent are sent after a restart, carrying on from the number of attempts already
+ * made. E-mails that were still waiting to be rendered are lost, as their template parameters only live in memory,
+ * which is why the render queue is kept short.
+ * <p/>
+ * E-mails in the pipeline are not shown on the mail queue administration page.
+ * <p/>
+ * Queue depths, render times and send times are published as instruments. Other mail queue items, and all items
+ * while the pipeline is not running, are left to the {@link com.atlassian.mail.queue.MailQueue}.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class MailPipeline implements Startable
+{
+    private static final Logger log = Logger.getLogger(MailPipeline.class);
+
+    static final String SPOOL_DIRECTORY = "mailspool";
+    static final int MAX_SEND_ATTEMPTS = 10;
+    static final int RENDER_QUEUE_CAPACITY = 1000;
+    static final long INITIAL_RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final int DEFAULT_RENDER_THREADS = 4;
+    private static final int DEFAULT_SEND_THREADS = 2;
+    private static final long IDLE_CONNECTION_SECONDS = 30;
+    private static final long SHUTDOWN_SECONDS = 30;
+    private static final String INSTRUMENT_PREFIX = "mail.pipeline.";
+
+    private final EventPublisher eventPublisher;
+    private final ApplicationProperties applicationProperties;
+    private final MailSpool spool;
+
+    private final DelayQueue<SpooledMail> sendQueue = new DelayQueue<SpooledMail>();
+    private final LatencyHistogram renderTimes = new LatencyHistogram();
+    private final LatencyHistogram sendTimes = new LatencyHistogram();
+    private final AtomicLong renderFailureCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong giveUpCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    private volatile ThreadPoolExecutor renderers;
+    private volatile ExecutorService senders;
+
+    public MailPipeline(final EventPublisher eventPublisher, final ApplicationProperties applicationProperties, final JiraHome jiraHome)
+    {
+        this(eventPublisher, applicationProperties, new MailSpool(new File(jiraHome.getLocalHome(), SPOOL_DIRECTORY)));
+    }
+
+    @VisibleForTesting
+    MailPipeline(final EventPublisher eventPublisher, final ApplicationProperties applicationProperties, final MailSpool spool)
+    {
+        this.eventPublisher = eventPublisher;
+        this.applicationProperties = applicationProperties;
+        this.spool = spool;
+    }
+
+    @Override
+    public void start() throws Exception
+    {
+        eventPublisher.register(this);
+    }
+
+    @EventListener
+    public void onComponentManagerStarted(final ComponentManagerStartedEvent startedEvent)
+    {
+        final int renderThreads = getThreadCount(APKeys.JIRA_MAIL_PIPELINE_RENDER_THREADS, DEFAULT_RENDER_THREADS);
+        final int sendThreads = getThreadCount(APKeys.JIRA_MAIL_PIPELINE_SEND_THREADS, DEFAULT_SEND_THREADS);
+        if (renderThreads <= 0 || sendThreads <= 0)
+        {
+            log.info("The mail pipeline is disabled, e-mails are rendered and sent by the mail queue");
+            return;
+        }
+
+        final List<SpooledMail> recovered = spool.recover();
+        if (!recovered.isEmpty())
+        {
+            log.info("Sending " + recovered.size() + " e-mails that were spooled before the last shutdown");
+        }
+        for (final SpooledMail mail : recovered)
+        {
+            if (mail.getAttempts() > 0)
+            {
+                // carry on backing off from the last failed attempt
+                mail.postpone(mail.getFile().lastModified() + getRetryDelayMillis(mail.getAttempts()));
+            }
+        }
+        sendQueue.addAll(recovered);
+
+        for (final Instrument instrument : getInstruments())
+        {
+            Instrumentation.putInstrument(instrument);
+        }
+
+        senders = Executors.newFixedThreadPool(sendThreads, ThreadFactories.named("mail-sender").type(DAEMON).build());
+        for (int i = 0; i < sendThreads; i++)
+        {
+            senders.execute(new Sender());
+        }
+        renderers = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(RENDER_QUEUE_CAPACITY), ThreadFactories.named("mail-renderer").type(DAEMON).build());
+    }
+
+    @EventListener
+    public void onComponentManagerShutdown(final ComponentManagerShutdownEvent shutdownEvent)
+    {
+        final ThreadPoolExecutor renderers = this.renderers;
+        final ExecutorService senders = this.senders;
+        this.renderers = null;
+        this.senders = null;
+        if (renderers != null)
+        {
+            // let the e-mails that are waiting to be rendered reach the spool
+            renderers.shutdown();
+            try
+            {
+                if (!renderers.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS))
+                {
+                    log.warn(renderers.getQueue().size() + " e-mails were not rendered before shutdown and are lost");
+                    renderers.shutdownNow();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (senders != null)
+        {
+            // unsent e-mails stay in the spool
+            senders.shutdownNow();
+        }
+        sendQueue.clear();
+    }
+
+    public boolean isRunning()
+    {
+        return renderers != null;
+    }
+
+    /**
+     * Hands an e-mail to the pipeline, if the pipeline can render it.
+     *
+     * @param item the e-mail to render and send
+     * @return false if the item should be sent by the mail queue instead, because the pipeline is not running, its
+     * render queue is full, or the item is not a {@link RenderingMailQueueItem}
+     */
+    public boolean offer(@Nonnull final MailQueueItem item)
+    {
+        final ThreadPoolExecutor renderers = this.renderers;
+        if (renderers == null || !(item instanceof RenderingMailQueueItem))
+        {
+            return false;
+        }
+        try
+        {
+            renderers.execute(new Renderer((RenderingMailQueueItem) item));
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            if (!renderers.isShutdown())
+            {
+                overflowCount.incrementAndGet();
+                log.debug("The mail pipeline's render queue is full, leaving e-mail to the mail queue: " + item);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of e-mails waiting to be rendered
+     */
+    public int getRenderQueueDepth()
+    {
+        final ThreadPoolExecutor renderers = this.renderers;
+        return renderers == null ? 0 : renderers.getQueue().size();
+    }
+
+    /**
+     * @return the number of rendered e-mails waiting to be sent, including those waiting to be retried
+     */
+    public int getSendQueueDepth()
+    {
+        return sendQueue.size();
+    }
+
+    public MailSpool getSpool()
+    {
+        return spool;
+    }
+
+    /**
+     * @return the statistics of the pipeline as instruments
+     */
+    @Nonnull
+    public List<Instrument> getInstruments()
+    {
+        final ImmutableList.Builder<Instrument> instruments = ImmutableList.builder();
+        instruments.add(new ExternalGauge(INSTRUMENT_PREFIX + "renderQueue", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return getRenderQueueDepth();
+            }
+        }));
+        instruments.add(new ExternalGauge(INSTRUMENT_PREFIX + "sendQueue", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return getSendQueueDepth();
+            }
+        }));
+        instruments.add(new ExternalCounter(INSTRUMENT_PREFIX + "renderFailureCount", new Value(renderFailureCount)));
+        instruments.add(new ExternalCounter(INSTRUMENT_PREFIX + "retryCount", new Value(retryCount)));
+        instruments.add(new ExternalCounter(INSTRUMENT_PREFIX + "failedCount", new Value(giveUpCount)));
+        instruments.add(new ExternalCounter(INSTRUMENT_PREFIX + "overflowCount", new Value(overflowCount)));
+        addLatencyInstruments(instruments, INSTRUMENT_PREFIX + "render", renderTimes);
+        addLatencyInstruments(instruments, INSTRUMENT_PREFIX + "send", sendTimes);
+        return instruments.build();
+    }
+
+    private static void addLatencyInstruments(final ImmutableList.Builder<Instrument> instruments, final String name,
+            final LatencyHistogram histogram)
+    {
+        instruments.add(new ExternalCounter(name + "Count", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return histogram.getCount();
+            }
+        }));
+        instruments.add(new ExternalCounter(name + "Time.total", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return histogram.getTotalMillis();
+            }
+        }));
+        instruments.add(new ExternalGauge(name + "Time.p95", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return Math.round(histogram.getPercentileMillis(95));
+            }
+        }));
+        instruments.add(new ExternalGauge(name + "Time.max", new ExternalValue()
+        {
+            @Override
+            public long getValue()
+            {
+                return histogram.getMaxMillis();
+            }
+        }));
+    }
+
+    /**
+     * @param attempts the number of failed attempts so far
+     * @return how long to wait before the next attempt
+     */
+    static long getRetryDelayMillis(final int attempts)
+    {
+        if (attempts <= 1)
+        {
+            return INITIAL_RETRY_DELAY_MILLIS;
+        }
+        // stop shifting well before the delay could overflow
+        final int shift = Math.min(attempts - 1, 20);
+        return Math.min(INITIAL_RETRY_DELAY_MILLIS << shift, MAX_RETRY_DELAY_MILLIS);
+    }
+
+    private int getThreadCount(final String key, final int defaultCount)
+    {
+        final String count = applicationProperties.getDefaultBackedString(key);
+        try
+        {
+            return count == null ? defaultCount : Integer.parseInt(count);
+        }
+        catch (NumberFormatException e)
+        {
+            log.error("Error while converting " + key + " '" + count + "'. Using default value of " + defaultCount);
+            return defaultCount;
+        }
+    }
+
+    @VisibleForTesting
+    void render(final RenderingMailQueueItem item)
+    {
+        final long start = System.nanoTime();
+        try
+        {
+            final SMTPMailServer server = MailFactory.getServerManager().getDefaultSMTPMailServer();
+            if (server == null)
+            {
+                log.debug("Not sending message as the default SMTP Mail Server is not defined.");
+                return;
+            }
+            if (MailFactory.getSettings().isSendingDisabled())
+            {
+                log.debug("Not sending message as sending is turned off.");
+                return;
+            }
+
+            final Email email = item.render();
+            String messageId = null;
+            final MailThreader threader = item.getMailThreader();
+            if (threader != null)
+            {
+                threader.threadEmail(email);
+                messageId = threader.getCustomMessageId(email);
+            }
+            final MimeMessage message = new ExtendedMimeMessage(server.getSession(), messageId);
+            new MessageCreator().updateMimeMessage(email, server.getDefaultFrom(), server.getPrefix(), message);
+            message.saveChanges();
+
+            final SpooledMail mail = spool.write(message);
+            renderTimes.record(System.nanoTime() - start);
+            sendQueue.add(mail);
+        }
+        catch (Exception e) // yes, we want to catch RuntimeException as well
+        {
+            renderFailureCount.incrementAndGet();
+            log.error("Error occurred in rendering e-mail: " + item, e);
+        }
+    }
+
+    @VisibleForTesting
+    void retryOrFail(final SpooledMail mail, final Exception cause)
+    {
+        final int attempts = mail.failedAttempt(System.currentTimeMillis() + getRetryDelayMillis(mail.getAttempts() + 1));
+        if (attempts >= MAX_SEND_ATTEMPTS)
+        {
+            giveUpCount.incrementAndGet();
+            log.error("Error occurred in sending e-mail: " + mail + ", giving up and moving it to " + spool.getFailedDirectory(), cause);
+            spool.fail(mail);
+        }
+        else
+        {
+            retryCount.incrementAndGet();
+            log.warn("Error occurred in sending e-mail: " + mail + ", retrying in "
+                    + TimeUnit.MILLISECONDS.toSeconds(mail.getDelay(TimeUnit.MILLISECONDS)) + " seconds", cause);
+            spool.recordAttempts(mail);
+            sendQueue.add(mail);
+        }
+    }
+
+    private class Renderer implements Runnable
+    {
+        private final RenderingMailQueueItem item;
+
+        Renderer(final RenderingMailQueueItem item)
+        {
+            this.item = item;
+        }
+
+        @Override
+        public void run()
+        {
+            render(item);
+        }
+    }
+
+    /**
+     * Sends spooled e-mails over its own SMTP connection, which it keeps open until it has been idle for a while.
+     */
+    private class Sender implements Runnable
+    {
+        private SMTPMailServer connectedServer;
+        private Transport transport;
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!Thread.currentThread().isInterrupted())
+                {
+                    final SpooledMail mail = sendQueue.poll(IDLE_CONNECTION_SECONDS, TimeUnit.SECONDS);
+                    if (mail == null)
+                    {
+                        disconnect();
+                    }
+                    else
+                    {
+                        send(mail);
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                disconnect();
+            }
+        }
+
+        private void send(final SpooledMail mail)
+        {
+            final SMTPMailServer server = MailFactory.getServerManager().getDefaultSMTPMailServer();
+            if (server == null || MailFactory.getSettings().isSendingDisabled())
+            {
+                // keep it spooled until mail is configured or sending is enabled again
+                log.debug("Not sending message as sending is turned off or the default SMTP Mail Server is not defined.");
+                mail.postpone(System.currentTimeMillis() + INITIAL_RETRY_DELAY_MILLIS);
+                sendQueue.add(mail);
+                return;
+            }
+
+            final long start = System.nanoTime();
+            try
+            {
+                final Transport transport = connect(server);
+                final MimeMessage message = spool.read(mail, server.getSession());
+                transport.sendMessage(message, message.getAllRecipients());
+                sendTimes.record(System.nanoTime() - start);
+                spool.remove(mail);
+            }
+            catch (Exception e) // yes, we want to catch RuntimeException as well
+            {
+                // the connection may be broken, start again with a new one
+                disconnect();
+                retryOrFail(mail, e);
+            }
+        }
+
+        private Transport connect(final SMTPMailServer server) throws Exception
+        {
+            if (transport != null && server.equals(connectedServer) && transport.isConnected())
+            {
+                return transport;
+            }
+            disconnect();
+            final Transport newTransport = server.getSession().getTransport(server.getMailProtocol().getProtocol());
+            newTransport.connect();
+            transport = newTransport;
+            connectedServer = server;
+            return transport;
+        }
+
+        private void disconnect()
+        {
+            if (transport != null)
+            {
+                try
+                {
+                    transport.close();
+                }
+                catch (MessagingException e)
+                {
+                    log.debug("Error closing the connection to the outgoing mail server", e);
+                }
+                transport = null;
+                connectedServer = null;
+            }
+        }
+    }
+
+    private static class Value implements ExternalValue
+    {
+        private final AtomicLong value;
+
+        Value(final AtomicLong value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        public long getValue()
+        {
+            return value.get();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.atlassian.jira.mail.pipeline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+import com.google.common.collect.Lists;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import static com.atlassian.jira.util.dbc.Assertions.notNull;
+
+/**
+ * Keeps rendered e-mails in a directory until they are sent, so that they survive a restart.
+ * <p/>
+ * Each e-mail is written as a complete MIME message, so it is sent exactly as it was rendered, with its Message-ID
+ * and threading headers. It is written to a temporary file and renamed, so a crash never leaves a half written
+ * e-mail to be sent. The number of failed attempts to send an e-mail is kept in the name of its file, such as
+ * {@code 0000001412345678-0000000001.3.eml}. E-mails that could not be sent are moved to the {@code failed}
+ * sub-directory.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class MailSpool
+{
+    private static final Logger log = Logger.getLogger(MailSpool.class);
+
+    static final String MAIL_SUFFIX = ".eml";
+    static final String TEMP_SUFFIX = ".tmp";
+    static final String FAILED_DIRECTORY = "failed";
+    private static final char ATTEMPTS_SEPARATOR = '.';
+
+    private final File directory;
+    private final File failedDirectory;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public MailSpool(@Nonnull final File directory)
+    {
+        this.directory = notNull("directory", directory);
+        this.failedDirectory = new File(directory, FAILED_DIRECTORY);
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    public File getFailedDirectory()
+    {
+        return failedDirectory;
+    }
+
+    /**
+     * Writes a rendered e-mail to the spool.
+     *
+     * @param message the e-mail
+     * @return the spooled e-mail, ready to be sent
+     * @throws IOException if the e-mail could not be written
+     * @throws MessagingException if the e-mail could not be encoded
+     */
+    public SpooledMail write(@Nonnull final MimeMessage message) throws IOException, MessagingException
+    {
+        mkdirs(directory);
+        // names sort in the order the e-mails were written, even across restarts
+        final String name = String.format("%016d-%010d", System.currentTimeMillis(), sequence.incrementAndGet());
+        final File temp = new File(directory, name + TEMP_SUFFIX);
+        final File file = new File(directory, name + MAIL_SUFFIX);
+
+        final FileOutputStream fileOut = new FileOutputStream(temp);
+        boolean written = false;
+        try
+        {
+            final OutputStream out = new BufferedOutputStream(fileOut);
+            message.writeTo(out);
+            out.flush();
+            fileOut.getFD().sync();
+            written = true;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(fileOut);
+            if (!written && !temp.delete())
+            {
+                log.warn("Could not delete partly written e-mail '" + temp + "'");
+            }
+        }
+        if (!temp.renameTo(file))
+        {
+            temp.delete();
+            throw new IOException("Could not rename '" + temp + "' to '" + file + "'");
+        }
+        return new SpooledMail(file, 0);
+    }
+
+    /**
+     * Reads a spooled e-mail back in to be sent.
+     *
+     * @param mail the spooled e-mail
+     * @param session the mail session to send it with
+     * @return the e-mail
+     * @throws IOException if the e-mail could not be read
+     * @throws MessagingException if the e-mail could not be parsed
+     */
+    public MimeMessage read(@Nonnull final SpooledMail mail, final Session session) throws IOException, MessagingException
+    {
+        final InputStream in = new BufferedInputStream(new FileInputStream(mail.getFile()));
+        try
+        {
+            return new MimeMessage(session, in);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Removes an e-mail that has been sent.
+     */
+    public void remove(@Nonnull final SpooledMail mail)
+    {
+        if (!mail.getFile().delete() && mail.getFile().exists())
+        {
+            log.error("Could not delete sent e-mail '" + mail.getFile() + "', it will be sent again after a restart");
+        }
+    }
+
+    /**
+     * Records the number of failed attempts to send an e-mail with its file, so that it carries on backing off after
+     * a restart rather than starting again. The modification time of the file is set to the time of the last attempt.
+     */
+    public void recordAttempts(@Nonnull final SpooledMail mail)
+    {
+        final File file = new File(directory, getBaseName(mail.getFile()) + ATTEMPTS_SEPARATOR + mail.getAttempts() + MAIL_SUFFIX);
+        if (mail.getFile().renameTo(file))
+        {
+            file.setLastModified(System.currentTimeMillis());
+            mail.setFile(file);
+        }
+        else
+        {
+            log.warn("Could not record the attempts to send e-mail '" + mail.getFile() + "', they will be counted from 0 after a restart");
+        }
+    }
+
+    /**
+     * Moves an e-mail that could not be sent out of the spool, so that an administrator can inspect it.
+     */
+    public void fail(@Nonnull final SpooledMail mail)
+    {
+        try
+        {
+            mkdirs(failedDirectory);
+            if (!mail.getFile().renameTo(new File(failedDirectory, mail.getFile().getName())))
+            {
+                throw new IOException("Could not rename '" + mail.getFile() + "'");
+            }
+        }
+        catch (IOException e)
+        {
+            log.error("Could not move e-mail '" + mail.getFile() + "' to '" + failedDirectory + "', deleting it", e);
+            remove(mail);
+        }
+    }
+
+    /**
+     * Finds the e-mails that were spooled but not sent before the last shutdown, and cleans up the e-mails that
+     * were being written.
+     *
+     * @return the spooled e-mails, the oldest first, with the number of times sending them has failed
+     */
+    public List<SpooledMail> recover()
+    {
+        final File[] temps = directory.listFiles(new SuffixFilter(TEMP_SUFFIX));
+        if (temps != null)
+        {
+            for (final File temp : temps)
+            {
+                if (!temp.delete())
+                {
+                    log.warn("Could not delete partly written e-mail '" + temp + "'");
+                }
+            }
+        }
+
+        final File[] files = directory.listFiles(new SuffixFilter(MAIL_SUFFIX));
+        if (files == null)
+        {
+            return Lists.newArrayList();
+        }
+        Arrays.sort(files);
+        final List<SpooledMail> mails = Lists.newArrayListWithCapacity(files.length);
+        for (final File file : files)
+        {
+            mails.add(new SpooledMail(file, getAttempts(file)));
+        }
+        return mails;
+    }
+
+    /**
+     * @return the number of e-mails that could not be sent and were moved out of the spool
+     */
+    public int getFailedCount()
+    {
+        final String[] names = failedDirectory.list(new SuffixFilter(MAIL_SUFFIX));
+        return names == null ? 0 : names.length;
+    }
+
+    private static String getBaseName(final File file)
+    {
+        final String name = getNameWithoutSuffix(file);
+        final int separator = name.indexOf(ATTEMPTS_SEPARATOR);
+        return separator < 0 ? name : name.substring(0, separator);
+    }
+
+    private static int getAttempts(final File file)
+    {
+        final String name = getNameWithoutSuffix(file);
+        final int separator = name.indexOf(ATTEMPTS_SEPARATOR);
+        try
+        {
+            return separator < 0 ? 0 : Integer.parseInt(name.substring(separator + 1));
+        }
+        catch (NumberFormatException e)
+        {
+            log.warn("Could not read the attempts to send e-mail '" + file + "', counting them from 0");
+            return 0;
+        }
+    }
+
+    private static String getNameWithoutSuffix(final File file)
+    {
+        return file.getName().substring(0, file.getName().length() - MAIL_SUFFIX.length());
+    }
+
+    private static void mkdirs(final File dir) throws IOException
+    {
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory())
+        {
+            throw new IOException("Could not create directory '" + dir + "'");
+        }
+    }
+
+    private static class SuffixFilter implements FilenameFilter
+    {
+        private final String suffix;
+
+        SuffixFilter(final String suffix)
+        {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean accept(final File dir, final String name)
+        {
+            return name.endsWith(suffix);
+        }
+    }
+}
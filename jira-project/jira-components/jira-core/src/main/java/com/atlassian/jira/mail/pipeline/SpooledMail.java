@@ -0,0 +1,97 @@
+package com.atlassian.jira.mail.pipeline;
+
+import java.io.File;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A rendered e-mail in the {@link MailSpool}, waiting for its next attempt to be sent.
+ * <p/>
+ * Only one sender holds a spooled mail at a time, so it needs no locking.
+ *
+ * @since v6.3.15
+ */
+@NotThreadSafe
+public class SpooledMail implements Delayed
+{
+    private File file;
+    private int attempts;
+    private long nextAttemptTime;
+
+    SpooledMail(final File file, final int attempts)
+    {
+        this.file = file;
+        this.attempts = attempts;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    void setFile(final File file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * @return the number of times sending this mail has failed
+     */
+    public int getAttempts()
+    {
+        return attempts;
+    }
+
+    /**
+     * Records a failed attempt to send this mail.
+     *
+     * @param nextAttemptTime when to try again, in milliseconds since the epoch
+     * @return the number of times sending this mail has failed
+     */
+    int failedAttempt(final long nextAttemptTime)
+    {
+        this.nextAttemptTime = nextAttemptTime;
+        return ++attempts;
+    }
+
+    /**
+     * Puts off sending this mail without counting it as a failed attempt.
+     *
+     * @param nextAttemptTime when to try again, in milliseconds since the epoch
+     */
+    void postpone(final long nextAttemptTime)
+    {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+
+    @Override
+    public long getDelay(final TimeUnit unit)
+    {
+        return unit.convert(nextAttemptTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(final Delayed o)
+    {
+        if (o instanceof SpooledMail)
+        {
+            final SpooledMail other = (SpooledMail) o;
+            if (nextAttemptTime != other.nextAttemptTime)
+            {
+                return nextAttemptTime < other.nextAttemptTime ? -1 : 1;
+            }
+            // the spool names its files in the order they were written
+            return file.getName().compareTo(other.file.getName());
+        }
+        final long delay = getDelay(TimeUnit.MILLISECONDS) - o.getDelay(TimeUnit.MILLISECONDS);
+        return delay == 0 ? 0 : (delay < 0 ? -1 : 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return file.getName() + " (attempts: " + attempts + ")";
+    }
+}
@@ -0,0 +1,511 @@
+package com.atlassian.jira.ofbiz;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.exception.DataAccessException;
+import com.atlassian.jira.util.Closeable;
+
+import org.apache.log4j.Logger;
+import org.ofbiz.core.entity.DelegatorInterface;
+import org.ofbiz.core.entity.GenericEntityException;
+import org.ofbiz.core.entity.GenericValue;
+import org.ofbiz.core.entity.jdbc.ExplicitCommitSQLProcessor;
+import org.ofbiz.core.entity.jdbc.SQLProcessor;
+import org.ofbiz.core.entity.jdbc.SqlJdbcUtil;
+import org.ofbiz.core.entity.model.ModelEntity;
+import org.ofbiz.core.entity.model.ModelField;
+import org.ofbiz.core.entity.model.ModelFieldType;
+import org.ofbiz.core.entity.model.ModelFieldTypeReader;
+
+import static com.atlassian.jira.util.dbc.Assertions.notNull;
+
+/**
+ * Writes many entities to the database in JDBC batches, rather than with a statement and a round trip each as
+ * {@link OfBizDelegator#createValue(String, java.util.Map)} and {@link OfBizDelegator#storeAll(java.util.List)} do.
+ * <p/>
+ * Inserts and updates are queued per entity, and each queue is sent to the database as one batch once it holds
+ * {@link #getWriteBatchSize() batch size} rows, or when the writer is {@link #flush() flushed} or {@link #close()
+ * closed}. The queued inserts of an entity are always sent before its queued updates, but the batches of different
+ * entities may reach the database in a different order than their rows were given to the writer. Each batch is
+ * committed as a whole, or rolled back if any of its rows fails to be written.
+ * <p/>
+ * As with the entity engine's own update, an update only writes the fields that are present on the value, so a
+ * partly populated value leaves the other columns as they are. Values with the same fields present are updated in
+ * the same batch, and entities with no fields but their primary key are never updated.
+ * <p/>
+ * The ids of new entities are allocated as they are queued, from the entity engine's sequence banks, which already
+ * reserve ids in blocks; the returned values therefore have their ids before they are written. Entities with binary
+ * or large object fields cannot be bound in a batch, so they are written one at a time by the entity engine.
+ * <p/>
+ * A writer is meant for a single unit of work, such as an import, and must be closed at the end of it.
+ *
+ * @since v6.3.15
+ */
+@NotThreadSafe
+public class BatchedEntityWriter implements Closeable
+{
+    private static final Logger log = Logger.getLogger(BatchedEntityWriter.class);
+    private static final int DEFAULT_DATABASE_WRITE_BATCH_SIZE = 500;
+
+    // the Java types of fields, as numbered by SqlJdbcUtil.getType(String)
+    private static final int JAVA_STRING = 1;
+    private static final int JAVA_TIMESTAMP = 2;
+    private static final int JAVA_TIME = 3;
+    private static final int JAVA_DATE = 4;
+    private static final int JAVA_INTEGER = 5;
+    private static final int JAVA_LONG = 6;
+    private static final int JAVA_FLOAT = 7;
+    private static final int JAVA_DOUBLE = 8;
+    private static final int JAVA_BOOLEAN = 9;
+
+    public static int getWriteBatchSize()
+    {
+        String size = null;
+        try
+        {
+            size = ComponentAccessor.getApplicationProperties().getDefaultBackedString(APKeys.DATABASE_WRITE_BATCH_SIZE);
+            return Integer.parseInt(size);
+        }
+        catch (final NumberFormatException e)
+        {
+            log.error("Error while converting database write batch size '" + size + "'. Using default value of " + DEFAULT_DATABASE_WRITE_BATCH_SIZE);
+            return DEFAULT_DATABASE_WRITE_BATCH_SIZE;
+        }
+    }
+
+    private final DelegatorInterface delegatorInterface;
+    private final int batchSize;
+
+    private final Map<String, List<GenericValue>> pendingInserts = new LinkedHashMap<String, List<GenericValue>>();
+    private final Map<String, List<GenericValue>> pendingUpdates = new LinkedHashMap<String, List<GenericValue>>();
+
+    private long rowsWritten;
+    private long batchesWritten;
+    private long writeTimeNanos;
+
+    public BatchedEntityWriter(@Nonnull final OfBizDelegator ofBizDelegator)
+    {
+        this(ofBizDelegator.getDelegatorInterface(), getWriteBatchSize());
+    }
+
+    public BatchedEntityWriter(@Nonnull final DelegatorInterface delegatorInterface, final int batchSize)
+    {
+        this.delegatorInterface = notNull("delegatorInterface", delegatorInterface);
+        if (batchSize <= 0)
+        {
+            throw new IllegalArgumentException("batchSize must be greater than 0: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Queues a new entity to be inserted, allocating its id if it does not have one.
+     *
+     * @param entityName the name of the entity
+     * @param fields the fields of the new entity
+     * @return the new entity, with its id, which may not have been written yet
+     */
+    @Nonnull
+    public GenericValue create(@Nonnull final String entityName, final Map<String, Object> fields)
+    {
+        final Map<String, Object> params = (fields == null) ? new HashMap<String, Object>(2) : new HashMap<String, Object>(fields);
+        if (params.get("id") == null)
+        {
+            params.put("id", delegatorInterface.getNextSeqId(entityName));
+        }
+        final GenericValue value = delegatorInterface.makeValue(entityName, params);
+        queue(pendingInserts, value);
+        return value;
+    }
+
+    /**
+     * Queues changes to an existing entity to be written.
+     *
+     * @param value the entity to update, identified by its primary key
+     */
+    public void store(@Nonnull final GenericValue value)
+    {
+        queue(pendingUpdates, value);
+    }
+
+    /**
+     * Queues changes to existing entities to be written.
+     *
+     * @param values the entities to update, identified by their primary keys
+     */
+    public void storeAll(@Nonnull final List<GenericValue> values)
+    {
+        for (GenericValue value : values)
+        {
+            store(value);
+        }
+    }
+
+    /**
+     * Writes everything that has been queued. The queues are emptied first, so that rows which fail to be written are
+     * not sent again by a later flush.
+     */
+    public void flush()
+    {
+        final Map<String, List<GenericValue>> inserts = new LinkedHashMap<String, List<GenericValue>>(pendingInserts);
+        final Map<String, List<GenericValue>> updates = new LinkedHashMap<String, List<GenericValue>>(pendingUpdates);
+        pendingInserts.clear();
+        pendingUpdates.clear();
+        for (Map.Entry<String, List<GenericValue>> entry : inserts.entrySet())
+        {
+            write(entry.getKey(), entry.getValue(), true);
+        }
+        for (Map.Entry<String, List<GenericValue>> entry : updates.entrySet())
+        {
+            write(entry.getKey(), entry.getValue(), false);
+        }
+    }
+
+    /**
+     * Writes everything that has been queued and logs how fast the rows were written.
+     */
+    @Override
+    public void close()
+    {
+        flush();
+        if (log.isDebugEnabled() && rowsWritten > 0)
+        {
+            log.debug("Wrote " + rowsWritten + " rows in " + batchesWritten + " batches in " + getWriteTimeMillis()
+                    + "ms (" + Math.round(getRowsPerSecond()) + " rows/sec)");
+        }
+    }
+
+    public long getRowsWritten()
+    {
+        return rowsWritten;
+    }
+
+    public long getBatchesWritten()
+    {
+        return batchesWritten;
+    }
+
+    /**
+     * @return the time spent writing to the database, which excludes the time spent by the caller between writes
+     */
+    public long getWriteTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(writeTimeNanos);
+    }
+
+    public double getRowsPerSecond()
+    {
+        return writeTimeNanos == 0 ? 0 : rowsWritten * (double) TimeUnit.SECONDS.toNanos(1) / writeTimeNanos;
+    }
+
+    private void queue(final Map<String, List<GenericValue>> pending, final GenericValue value)
+    {
+        final String entityName = value.getEntityName();
+        List<GenericValue> values = pending.get(entityName);
+        if (values == null)
+        {
+            values = new ArrayList<GenericValue>(Math.min(batchSize, 64));
+            pending.put(entityName, values);
+        }
+        values.add(value);
+        if (values.size() >= batchSize)
+        {
+            pending.remove(entityName);
+            // inserts must reach the database before any updates to the rows they insert
+            if (pending == pendingUpdates)
+            {
+                final List<GenericValue> inserts = pendingInserts.remove(entityName);
+                if (inserts != null)
+                {
+                    write(entityName, inserts, true);
+                }
+            }
+            write(entityName, values, pending == pendingInserts);
+        }
+    }
+
+    private void write(final String entityName, final List<GenericValue> values, final boolean insert)
+    {
+        if (values.isEmpty())
+        {
+            return;
+        }
+        final long start = System.nanoTime();
+        try
+        {
+            final ModelEntity modelEntity = delegatorInterface.getModelEntity(entityName);
+            final String helperName = delegatorInterface.getEntityHelperName(entityName);
+            final ModelFieldTypeReader fieldTypeReader = ModelFieldTypeReader.getModelFieldTypeReader(helperName);
+            final String tableName = modelEntity.getTableName(helperName);
+
+            if (insert)
+            {
+                final List<ModelField> fields = modelEntity.getFieldsCopy();
+                final String sql = "INSERT INTO " + tableName + " (" + modelEntity.colNameString(fields)
+                        + ") VALUES (" + modelEntity.fieldsStringList(fields, "?", ", ") + ")";
+                write(entityName, helperName, sql, fields, fieldTypeReader, values, true);
+                return;
+            }
+
+            for (Map.Entry<List<ModelField>, List<GenericValue>> entry : groupByFieldsPresent(modelEntity, values).entrySet())
+            {
+                final List<ModelField> nopks = entry.getKey();
+                if (nopks.isEmpty())
+                {
+                    // there is nothing to update, as the entity engine's own update also decides
+                    rowsWritten += entry.getValue().size();
+                    continue;
+                }
+                final List<ModelField> fields = new ArrayList<ModelField>(nopks);
+                fields.addAll(modelEntity.getPksCopy());
+                final String sql = "UPDATE " + tableName + " SET " + modelEntity.colNameString(nopks, "=?, ", "=?")
+                        + " WHERE " + modelEntity.colNameString(modelEntity.getPksCopy(), "=? AND ", "=?");
+                write(entityName, helperName, sql, fields, fieldTypeReader, entry.getValue(), false);
+            }
+        }
+        catch (final GenericEntityException e)
+        {
+            throw new DataAccessException(e);
+        }
+        finally
+        {
+            writeTimeNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void write(final String entityName, final String helperName, final String sql, final List<ModelField> fields,
+            final ModelFieldTypeReader fieldTypeReader, final List<GenericValue> values, final boolean insert)
+            throws GenericEntityException
+    {
+        final int[] types = sqlTypes(entityName, fields, fieldTypeReader);
+        if (types == null)
+        {
+            writeOneAtATime(values, insert);
+        }
+        else
+        {
+            writeBatch(entityName, helperName, sql, fields, types, values, insert);
+        }
+        rowsWritten += values.size();
+    }
+
+    /**
+     * @return the values keyed by the non primary key fields that are present on them, in the order of the entity's
+     * fields
+     */
+    private static Map<List<ModelField>, List<GenericValue>> groupByFieldsPresent(final ModelEntity modelEntity,
+            final List<GenericValue> values)
+    {
+        final List<ModelField> nopks = modelEntity.getNopksCopy();
+        final Map<List<ModelField>, List<GenericValue>> groups = new LinkedHashMap<List<ModelField>, List<GenericValue>>();
+        for (GenericValue value : values)
+        {
+            final Collection<String> keys = value.getAllKeys();
+            final List<ModelField> present = new ArrayList<ModelField>(nopks.size());
+            for (ModelField field : nopks)
+            {
+                if (keys.contains(field.getName()))
+                {
+                    present.add(field);
+                }
+            }
+            List<GenericValue> group = groups.get(present);
+            if (group == null)
+            {
+                group = new ArrayList<GenericValue>();
+                groups.put(present, group);
+            }
+            group.add(value);
+        }
+        return groups;
+    }
+
+    private void writeBatch(final String entityName, final String helperName, final String sql, final List<ModelField> fields,
+            final int[] types, final List<GenericValue> values, final boolean insert) throws GenericEntityException
+    {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        int rowsUpdated = 0;
+        final SQLProcessor processor = new ExplicitCommitSQLProcessor(helperName);
+        try
+        {
+            processor.prepareStatement(sql);
+            final PreparedStatement statement = processor.getPreparedStatement();
+            for (GenericValue value : values)
+            {
+                for (int i = 0; i < fields.size(); i++)
+                {
+                    setParameter(statement, i + 1, types[i], value.get(fields.get(i).getName()));
+                }
+                statement.addBatch();
+            }
+            final int[] counts = statement.executeBatch();
+            int notFound = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                if (counts[i] == 0 && !insert)
+                {
+                    notFound++;
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("No " + entityName + " was updated for " + values.get(i).getPrimaryKey());
+                    }
+                }
+                // drivers may report Statement.SUCCESS_NO_INFO instead of a count
+                rowsUpdated += counts[i] >= 0 ? counts[i] : 1;
+            }
+            if (notFound > 0)
+            {
+                log.warn(notFound + " of " + values.size() + " updates to " + entityName + " did not match a row");
+            }
+            batchesWritten++;
+            failed = false;
+        }
+        catch (final SQLException e)
+        {
+            throw new DataAccessException("Unable to write a batch of " + values.size() + " rows: " + sql, e);
+        }
+        finally
+        {
+            // the statements in a batch do not pass through the SQL interceptors
+            SqlStatistics.getInstance().record(sql, fields.size() * values.size(), System.nanoTime() - start, rowsUpdated, failed);
+            try
+            {
+                if (failed)
+                {
+                    // none of the batch is written, so that it can be written again as a whole
+                    processor.rollback();
+                }
+            }
+            finally
+            {
+                processor.close();
+            }
+        }
+    }
+
+    private void writeOneAtATime(final List<GenericValue> values, final boolean insert) throws GenericEntityException
+    {
+        for (GenericValue value : values)
+        {
+            if (insert)
+            {
+                delegatorInterface.create(value);
+            }
+            else
+            {
+                delegatorInterface.store(value);
+            }
+        }
+    }
+
+    /**
+     * @return the JDBC types of the fields, or null if any of them cannot be bound in a batch
+     */
+    private static int[] sqlTypes(final String entityName, final List<ModelField> fields, final ModelFieldTypeReader fieldTypeReader)
+            throws GenericEntityException
+    {
+        final int[] types = new int[fields.size()];
+        for (int i = 0; i < types.length; i++)
+        {
+            final ModelFieldType fieldType = fieldTypeReader.getModelFieldType(fields.get(i).getType());
+            if (fieldType == null)
+            {
+                throw new DataAccessException("Unknown field type " + fields.get(i).getType() + " for " + entityName + "." + fields.get(i).getName());
+            }
+            switch (SqlJdbcUtil.getType(fieldType.getJavaType()))
+            {
+                case JAVA_STRING:
+                    types[i] = Types.VARCHAR;
+                    break;
+                case JAVA_TIMESTAMP:
+                    types[i] = Types.TIMESTAMP;
+                    break;
+                case JAVA_TIME:
+                    types[i] = Types.TIME;
+                    break;
+                case JAVA_DATE:
+                    types[i] = Types.DATE;
+                    break;
+                case JAVA_INTEGER:
+                    types[i] = Types.INTEGER;
+                    break;
+                case JAVA_LONG:
+                    types[i] = Types.BIGINT;
+                    break;
+                case JAVA_FLOAT:
+                    types[i] = Types.REAL;
+                    break;
+                case JAVA_DOUBLE:
+                    types[i] = Types.DOUBLE;
+                    break;
+                case JAVA_BOOLEAN:
+                    types[i] = Types.BOOLEAN;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return types;
+    }
+
+    private static void setParameter(final PreparedStatement statement, final int index, final int type, final Object value)
+            throws SQLException
+    {
+        if (value == null)
+        {
+            // the entity engine binds nulls of numeric fields as NUMERIC, which all of the supported databases accept
+            statement.setNull(index, type == Types.BIGINT || type == Types.INTEGER || type == Types.REAL || type == Types.DOUBLE ? Types.NUMERIC : type);
+            return;
+        }
+        switch (type)
+        {
+            case Types.VARCHAR:
+                statement.setString(index, value.toString());
+                break;
+            case Types.TIMESTAMP:
+                statement.setTimestamp(index, value instanceof Timestamp ? (Timestamp) value : new Timestamp(((java.util.Date) value).getTime()));
+                break;
+            case Types.TIME:
+                statement.setTime(index, value instanceof Time ? (Time) value : new Time(((java.util.Date) value).getTime()));
+                break;
+            case Types.DATE:
+                statement.setDate(index, value instanceof Date ? (Date) value : new Date(((java.util.Date) value).getTime()));
+                break;
+            case Types.INTEGER:
+                statement.setInt(index, ((Number) value).intValue());
+                break;
+            case Types.BIGINT:
+                statement.setLong(index, ((Number) value).longValue());
+                break;
+            case Types.REAL:
+                statement.setFloat(index, ((Number) value).floatValue());
+                break;
+            case Types.DOUBLE:
+                statement.setDouble(index, ((Number) value).doubleValue());
+                break;
+            case Types.BOOLEAN:
+                statement.setBoolean(index, value instanceof Boolean ? (Boolean) value : Boolean.valueOf(value.toString()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported SQL type: " + type);
+        }
+    }
+}
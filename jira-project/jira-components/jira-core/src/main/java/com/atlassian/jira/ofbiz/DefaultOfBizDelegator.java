@@ -54,6 +54,12 @@ public class DefaultOfBizDelegator implements OfBizDelegator
     private static final String COUNT_FIELD_NAME = "count";
     private static final Collection<String> UNSUPPORTED_TYPES_FOR_FINDBY = CollectionBuilder.newBuilder("very-long", "extremely-long", "text", "blob").asCollection();
 
+    /**
+     * The maximum number of elements to put in a SQL IN clause, as some databases limit it. Queries for more values
+     * must be split into batches of at most this many.
+     */
+    public static final int MAX_ELEMS_IN_CLAUSE = 750;
+
     public static int getQueryBatchSize()
     {
         String size = null;
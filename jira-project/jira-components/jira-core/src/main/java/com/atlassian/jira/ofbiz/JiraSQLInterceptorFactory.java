@@ -26,6 +26,7 @@ public class JiraSQLInterceptorFactory implements SQLInterceptorFactory
         builder
                 .add(new LoggingSQLInterceptor())
                 .add(new InstrumentedSQLInterceptor())
+                .add(new SqlStatisticsInterceptor())
                 .add(new XsrfVulnerabilityDetectionSQLInterceptor());
         if (showPerformanceMonitor)
         {
@@ -0,0 +1,102 @@
+package com.atlassian.jira.ofbiz;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * One of the slowest SQL executions seen by {@link SqlStatistics}.
+ * <p/>
+ * Only the statement's template is kept, never its bind values; the number of bind values is kept in their place.
+ *
+ * @since v6.3.15
+ */
+@Immutable
+public class SlowSqlExecution implements Comparable<SlowSqlExecution>
+{
+    private final String template;
+    private final String requestType;
+    private final long nanos;
+    private final int parameterCount;
+    private final boolean failed;
+    private final long timestamp;
+    private final String threadName;
+    private final String callStack;
+
+    SlowSqlExecution(final String template, final String requestType, final long nanos, final int parameterCount,
+            final boolean failed, final long timestamp, final String threadName, final String callStack)
+    {
+        this.template = template;
+        this.requestType = requestType;
+        this.nanos = nanos;
+        this.parameterCount = parameterCount;
+        this.failed = failed;
+        this.timestamp = timestamp;
+        this.threadName = threadName;
+        this.callStack = callStack;
+    }
+
+    @Nonnull
+    public String getTemplate()
+    {
+        return template;
+    }
+
+    @Nonnull
+    public String getRequestType()
+    {
+        return requestType;
+    }
+
+    long getNanos()
+    {
+        return nanos;
+    }
+
+    public long getTimeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public int getParameterCount()
+    {
+        return parameterCount;
+    }
+
+    public boolean isFailed()
+    {
+        return failed;
+    }
+
+    @Nonnull
+    public Date getTimestamp()
+    {
+        return new Date(timestamp);
+    }
+
+    public String getThreadName()
+    {
+        return threadName;
+    }
+
+    public String getCallStack()
+    {
+        return callStack;
+    }
+
+    @Override
+    public int compareTo(final SlowSqlExecution other)
+    {
+        return nanos < other.nanos ? -1 : (nanos == other.nanos ? 0 : 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] %dms%s at %tFT%<tT on %s with %d bind values redacted: %s",
+                requestType, getTimeMillis(), failed ? " (failed)" : "", getTimestamp(), threadName, parameterCount,
+                template);
+    }
+}
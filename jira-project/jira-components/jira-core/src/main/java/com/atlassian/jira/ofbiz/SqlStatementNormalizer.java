@@ -0,0 +1,101 @@
+package com.atlassian.jira.ofbiz;
+
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Reduces a SQL statement to its template, so that executions of the same statement with different values can be
+ * counted together.
+ * <p/>
+ * String and numeric literals are replaced by {@code ?}, lists of bind markers in an {@code IN} clause are reduced to
+ * one, and whitespace is collapsed. Bind values are never part of the statement, so the template cannot contain any
+ * of the data being queried.
+ *
+ * @since v6.3.15
+ */
+public final class SqlStatementNormalizer
+{
+    /**
+     * Templates are cut off at this length, so that each one takes a bounded amount of memory.
+     */
+    static final int MAX_TEMPLATE_LENGTH = 2000;
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN \\( ?\\?(?: ?, ?\\?)* ?\\)");
+
+    private SqlStatementNormalizer()
+    {
+    }
+
+    @Nonnull
+    public static String normalize(final String sql)
+    {
+        final String statement = StringUtils.defaultString(sql);
+        final StringBuilder template = new StringBuilder(Math.min(statement.length(), MAX_TEMPLATE_LENGTH));
+        final int length = statement.length();
+        int i = 0;
+        while (i < length && template.length() < MAX_TEMPLATE_LENGTH)
+        {
+            final char c = statement.charAt(i);
+            if (c == '\'')
+            {
+                // skip to the closing quote, treating a doubled quote as an escaped one
+                i++;
+                while (i < length)
+                {
+                    if (statement.charAt(i) == '\'')
+                    {
+                        if (i + 1 < length && statement.charAt(i + 1) == '\'')
+                        {
+                            i++;
+                        }
+                        else
+                        {
+                            break;
+                        }
+                    }
+                    i++;
+                }
+                template.append('?');
+                i++;
+            }
+            else if (Character.isDigit(c) && !isPartOfIdentifier(template))
+            {
+                while (i < length && (Character.isDigit(statement.charAt(i)) || statement.charAt(i) == '.'))
+                {
+                    i++;
+                }
+                template.append('?');
+            }
+            else if (Character.isWhitespace(c))
+            {
+                while (i < length && Character.isWhitespace(statement.charAt(i)))
+                {
+                    i++;
+                }
+                if (template.length() > 0)
+                {
+                    template.append(' ');
+                }
+            }
+            else
+            {
+                template.append(c);
+                i++;
+            }
+        }
+        return IN_LIST.matcher(template.toString().trim()).replaceAll("IN (?)");
+    }
+
+    private static boolean isPartOfIdentifier(final StringBuilder template)
+    {
+        if (template.length() == 0)
+        {
+            return false;
+        }
+        final char previous = template.charAt(template.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '.' || previous == '"';
+    }
+}
@@ -0,0 +1,103 @@
+package com.atlassian.jira.ofbiz;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.atlassian.jira.instrumentation.LatencyHistogram;
+
+/**
+ * The statistics of the executions of one statement template by one type of request.
+ *
+ * @see SqlStatistics
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class SqlStatementStatistics
+{
+    private final String template;
+    private final String requestType;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+
+    SqlStatementStatistics(@Nonnull final String template, @Nonnull final String requestType)
+    {
+        this.template = template;
+        this.requestType = requestType;
+    }
+
+    void record(final long nanos, final int rowsUpdated, final boolean failed)
+    {
+        latencies.record(nanos);
+        if (failed)
+        {
+            failureCount.incrementAndGet();
+        }
+        if (rowsUpdated > 0)
+        {
+            this.rowsUpdated.addAndGet(rowsUpdated);
+        }
+    }
+
+    @Nonnull
+    public String getTemplate()
+    {
+        return template;
+    }
+
+    @Nonnull
+    public String getRequestType()
+    {
+        return requestType;
+    }
+
+    public long getCallCount()
+    {
+        return latencies.getCount();
+    }
+
+    public long getFailureCount()
+    {
+        return failureCount.get();
+    }
+
+    /**
+     * @return the number of rows inserted, updated or deleted; the rows returned by queries are read after the
+     * statement has executed and are not counted
+     */
+    public long getRowsUpdated()
+    {
+        return rowsUpdated.get();
+    }
+
+    public long getTotalTimeMillis()
+    {
+        return latencies.getTotalMillis();
+    }
+
+    public long getMaxTimeMillis()
+    {
+        return latencies.getMaxMillis();
+    }
+
+    public double getMeanTimeMillis()
+    {
+        return latencies.getMeanMillis();
+    }
+
+    public double getPercentileTimeMillis(final double percentile)
+    {
+        return latencies.getPercentileMillis(percentile);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%s] calls=%d failures=%d rowsUpdated=%d totalMs=%d meanMs=%.2f p50Ms=%.2f p95Ms=%.2f p99Ms=%.2f maxMs=%d %s",
+                requestType, getCallCount(), getFailureCount(), getRowsUpdated(), getTotalTimeMillis(), getMeanTimeMillis(),
+                getPercentileTimeMillis(50), getPercentileTimeMillis(95), getPercentileTimeMillis(99), getMaxTimeMillis(),
+                template);
+    }
+}
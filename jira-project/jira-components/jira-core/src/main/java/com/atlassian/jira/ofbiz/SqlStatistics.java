@@ -0,0 +1,260 @@
+package com.atlassian.jira.ofbiz;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletRequest;
+
+import com.atlassian.jira.extension.Startable;
+import com.atlassian.jira.web.ExecutingHttpRequest;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Aggregates the latency of SQL statements by their template and the type of request that ran them, and keeps the
+ * slowest executions.
+ * <p/>
+ * Statements are recorded by the {@link SqlStatisticsInterceptor}, which OfBiz creates without going through the
+ * component container, so there is a single instance shared by all of them. It takes a fixed amount of memory: at
+ * most {@link #MAX_STATEMENTS} templates are tracked, after which the executions of new templates are counted together
+ * under {@link #OTHER_STATEMENTS}, and only the {@link #MAX_SLOW_EXECUTIONS} slowest executions are kept.
+ * <p/>
+ * The statistics are shown on the SQL Statistics admin page and published as the MBean
+ * {@code com.atlassian.jira:type=SqlStatistics}.
+ *
+ * @since v6.3.15
+ */
+@ThreadSafe
+public class SqlStatistics implements SqlStatisticsMBean, Startable
+{
+    private static final Logger log = Logger.getLogger(SqlStatistics.class);
+
+    static final int MAX_STATEMENTS = 1000;
+    static final int MAX_SLOW_EXECUTIONS = 25;
+    static final String OTHER_STATEMENTS = "<other statements>";
+
+    static final String REQUEST_TYPE_REST = "rest";
+    static final String REQUEST_TYPE_WEB = "web";
+    static final String REQUEST_TYPE_BACKGROUND = "background";
+
+    private static final String OBJECT_NAME = "com.atlassian.jira:type=SqlStatistics";
+
+    private static final SqlStatistics INSTANCE = new SqlStatistics(MAX_STATEMENTS, MAX_SLOW_EXECUTIONS);
+
+    private final int maxStatements;
+    private final int maxSlowExecutions;
+
+    private final ConcurrentMap<String, SqlStatementStatistics> statements = new ConcurrentHashMap<String, SqlStatementStatistics>();
+    private final AtomicLong untrackedExecutionCount = new AtomicLong();
+
+    // a min-heap, so that the fastest of the slow executions is the one replaced
+    private final PriorityQueue<SlowSqlExecution> slowExecutions;
+    // executions no slower than this cannot make it into the slow executions, so are turned away without locking
+    private volatile long slowExecutionThresholdNanos;
+
+    public static SqlStatistics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    @VisibleForTesting
+    SqlStatistics(final int maxStatements, final int maxSlowExecutions)
+    {
+        this.maxStatements = maxStatements;
+        this.maxSlowExecutions = maxSlowExecutions;
+        this.slowExecutions = new PriorityQueue<SlowSqlExecution>(maxSlowExecutions);
+    }
+
+    @Override
+    public void start() throws Exception
+    {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try
+        {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            // JIRA may be restarted in the same JVM, as after a data import
+            if (mBeanServer.isRegistered(name))
+            {
+                mBeanServer.unregisterMBean(name);
+            }
+            mBeanServer.registerMBean(this, name);
+        }
+        catch (JMException e)
+        {
+            log.warn("Unable to register the SQL statistics MBean", e);
+        }
+    }
+
+    /**
+     * Records one execution of a statement by the current thread.
+     *
+     * @param sql the statement, with bind markers in place of its bind values
+     * @param parameterCount the number of bind values
+     * @param nanos how long the statement took to execute
+     * @param rowsUpdated the number of rows inserted, updated or deleted
+     * @param failed whether the statement threw an exception
+     */
+    public void record(final String sql, final int parameterCount, final long nanos, final int rowsUpdated, final boolean failed)
+    {
+        final String template = SqlStatementNormalizer.normalize(sql);
+        final String requestType = currentRequestType();
+        getStatementStatistics(template, requestType).record(nanos, rowsUpdated, failed);
+        if (nanos > slowExecutionThresholdNanos)
+        {
+            recordSlowExecution(new SlowSqlExecution(template, requestType, nanos, parameterCount, failed,
+                    System.currentTimeMillis(), Thread.currentThread().getName(), OfBizLogHelper.logTheCallStack()));
+        }
+    }
+
+    private SqlStatementStatistics getStatementStatistics(final String template, final String requestType)
+    {
+        final String key = requestType + ' ' + template;
+        final SqlStatementStatistics statistics = statements.get(key);
+        if (statistics != null)
+        {
+            return statistics;
+        }
+        if (statements.size() >= maxStatements)
+        {
+            untrackedExecutionCount.incrementAndGet();
+            return getOrCreate(requestType + ' ' + OTHER_STATEMENTS, OTHER_STATEMENTS, requestType);
+        }
+        return getOrCreate(key, template, requestType);
+    }
+
+    private SqlStatementStatistics getOrCreate(final String key, final String template, final String requestType)
+    {
+        final SqlStatementStatistics newStatistics = new SqlStatementStatistics(template, requestType);
+        final SqlStatementStatistics statistics = statements.putIfAbsent(key, newStatistics);
+        return statistics != null ? statistics : newStatistics;
+    }
+
+    private synchronized void recordSlowExecution(final SlowSqlExecution execution)
+    {
+        if (slowExecutions.size() < maxSlowExecutions)
+        {
+            slowExecutions.add(execution);
+        }
+        else if (execution.getNanos() > slowExecutions.peek().getNanos())
+        {
+            slowExecutions.poll();
+            slowExecutions.add(execution);
+        }
+        if (slowExecutions.size() == maxSlowExecutions)
+        {
+            slowExecutionThresholdNanos = slowExecutions.peek().getNanos();
+        }
+    }
+
+    /**
+     * @return the statistics of every tracked statement template, the one that took the longest in total first
+     */
+    @Nonnull
+    public List<SqlStatementStatistics> getStatementStatistics()
+    {
+        final List<SqlStatementStatistics> result = new ArrayList<SqlStatementStatistics>(statements.values());
+        Collections.sort(result, new Comparator<SqlStatementStatistics>()
+        {
+            @Override
+            public int compare(final SqlStatementStatistics statistics1, final SqlStatementStatistics statistics2)
+            {
+                final long time1 = statistics1.getTotalTimeMillis();
+                final long time2 = statistics2.getTotalTimeMillis();
+                if (time1 != time2)
+                {
+                    return time1 > time2 ? -1 : 1;
+                }
+                final long count1 = statistics1.getCallCount();
+                final long count2 = statistics2.getCallCount();
+                return count1 > count2 ? -1 : (count1 == count2 ? 0 : 1);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return the slowest executions, the slowest first
+     */
+    @Nonnull
+    public synchronized List<SlowSqlExecution> getSlowExecutions()
+    {
+        final List<SlowSqlExecution> result = new ArrayList<SlowSqlExecution>(slowExecutions);
+        Collections.sort(result, Collections.reverseOrder());
+        return result;
+    }
+
+    @Override
+    public int getStatementCount()
+    {
+        return statements.size();
+    }
+
+    @Override
+    public long getUntrackedExecutionCount()
+    {
+        return untrackedExecutionCount.get();
+    }
+
+    @Override
+    public String[] getStatementSummaries()
+    {
+        final List<SqlStatementStatistics> statistics = getStatementStatistics();
+        final String[] summaries = new String[statistics.size()];
+        for (int i = 0; i < summaries.length; i++)
+        {
+            summaries[i] = statistics.get(i).toString();
+        }
+        return summaries;
+    }
+
+    @Override
+    public String[] getSlowestExecutions()
+    {
+        final List<SlowSqlExecution> executions = getSlowExecutions();
+        final String[] summaries = new String[executions.size()];
+        for (int i = 0; i < summaries.length; i++)
+        {
+            summaries[i] = executions.get(i).toString();
+        }
+        return summaries;
+    }
+
+    @Override
+    public synchronized void reset()
+    {
+        statements.clear();
+        untrackedExecutionCount.set(0);
+        slowExecutions.clear();
+        slowExecutionThresholdNanos = 0;
+    }
+
+    /**
+     * Buckets the work being done by the current thread into a few types, so that the latency of a statement run by
+     * users can be told from that of the same statement run by a re-index or a service.
+     */
+    @VisibleForTesting
+    static String currentRequestType()
+    {
+        final HttpServletRequest request = ExecutingHttpRequest.get();
+        if (request == null)
+        {
+            return REQUEST_TYPE_BACKGROUND;
+        }
+        final String servletPath = request.getServletPath();
+        return servletPath != null && servletPath.startsWith("/rest") ? REQUEST_TYPE_REST : REQUEST_TYPE_WEB;
+    }
+}
@@ -0,0 +1,59 @@
+package com.atlassian.jira.ofbiz;
+
+import org.ofbiz.core.entity.jdbc.interceptors.connection.ConnectionPoolState;
+import org.ofbiz.core.entity.jdbc.interceptors.connection.SQLConnectionInterceptor;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * A SQL interceptor that records the latency of every statement in the {@link SqlStatistics}.
+ *
+ * @since v6.3.15
+ */
+public class SqlStatisticsInterceptor implements SQLConnectionInterceptor
+{
+    private final SqlStatistics sqlStatistics;
+    private long startTime;
+
+    public SqlStatisticsInterceptor()
+    {
+        this(SqlStatistics.getInstance());
+    }
+
+    SqlStatisticsInterceptor(final SqlStatistics sqlStatistics)
+    {
+        this.sqlStatistics = sqlStatistics;
+    }
+
+    @Override
+    public void onConnectionTaken(Connection connection, ConnectionPoolState connectionPoolState)
+    {
+    }
+
+    @Override
+    public void onConnectionReplaced(Connection connection, ConnectionPoolState connectionPoolState)
+    {
+    }
+
+    @Override
+    public void beforeExecution(String sql, List<String> params, Statement statement)
+    {
+        startTime = System.nanoTime();
+    }
+
+    @Override
+    public void afterSuccessfulExecution(String sql, List<String> params, Statement statement, ResultSet resultSet, int rowsUpdated)
+    {
+        sqlStatistics.record(sql, params == null ? 0 : params.size(), System.nanoTime() - startTime, rowsUpdated, false);
+    }
+
+    @Override
+    public void onException(String sql, List<String> params, Statement statement, SQLException e)
+    {
+        sqlStatistics.record(sql, params == null ? 0 : params.size(), System.nanoTime() - startTime, 0, true);
+    }
+}
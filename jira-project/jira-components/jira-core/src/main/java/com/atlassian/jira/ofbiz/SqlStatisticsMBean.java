@@ -0,0 +1,32 @@
+package com.atlassian.jira.ofbiz;
+
+/**
+ * The JMX view of the {@link SqlStatistics}.
+ *
+ * @since v6.3.15
+ */
+public interface SqlStatisticsMBean
+{
+    /**
+     * @return the number of statement templates being tracked, per type of request
+     */
+    int getStatementCount();
+
+    /**
+     * @return the number of executions that were counted as other statements, because too many templates were
+     * already being tracked
+     */
+    long getUntrackedExecutionCount();
+
+    /**
+     * @return a summary of each statement template, the one that took the longest in total first
+     */
+    String[] getStatementSummaries();
+
+    /**
+     * @return a summary of each of the slowest executions, the slowest first
+     */
+    String[] getSlowestExecutions();
+
+    void reset();
+}
@@ -11,11 +11,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.atlassian.cache.Cache;
+import com.atlassian.cache.CacheLoader;
 import com.atlassian.cache.CacheManager;
-import com.atlassian.cache.CachedReference;
-import com.atlassian.cache.Supplier;
+import com.atlassian.cache.CacheSettingsBuilder;
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.event.api.EventListener;
 import com.atlassian.jira.EventComponent;
@@ -23,27 +25,49 @@ import com.atlassian.jira.association.NodeAssociationStore;
 import com.atlassian.jira.bc.EntityNotFoundException;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.bc.project.component.ProjectComponentManager;
+import com.atlassian.jira.cache.DeltaInvalidationChannel;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.config.properties.ApplicationProperties;
 import com.atlassian.jira.entity.Entity;
 import com.atlassian.jira.event.ClearCacheEvent;
 import com.atlassian.jira.exception.DataAccessException;
 import com.atlassian.jira.exception.RemoveException;
+import com.atlassian.jira.extension.Startable;
 import com.atlassian.jira.issue.comparator.ComponentComparator;
 import com.atlassian.jira.project.util.ProjectKeyStore;
 import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.jira.user.util.UserManager;
 
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+
 import org.ofbiz.core.entity.GenericValue;
 
+/**
+ * Caches all the projects and project categories in a {@link ProjectCache}. A change to a project only reloads that
+ * project into a patched copy of the cache, and only the ids of the changed projects are sent to the other nodes of a
+ * cluster, which patch their own copies.
+ */
 @EventComponent
-public class CachingProjectManager extends AbstractProjectManager
+public class CachingProjectManager extends AbstractProjectManager implements Startable
 {
+    private static final String PROJECT_CHANNEL = "ProjectCacheDelta";
+    private static final String PROJECT_CATEGORY_CHANNEL = "CategoryCacheDelta";
+    private static final String CACHE_KEY = "projects";
+
     private final ProjectManager delegateProjectManager;
     private final ProjectComponentManager projectComponentManager;
     private final ProjectFactory projectFactory;
     private final ProjectKeyStore projectKeyStore;
-    private final CachedReference<ProjectCache> cache;
+    /**
+     * Holds the one ProjectCache of this node. The cache is local, because each node patches its own copy.
+     */
+    private final Cache<String, ProjectCache> cache;
     private final NodeAssociationStore nodeAssociationStore;
+    private final Object patchLock = new Object();
+    private final DeltaInvalidationChannel projectInvalidations;
+    private final DeltaInvalidationChannel projectCategoryInvalidations;
 
     public CachingProjectManager(ProjectManager delegateProjectManager, ProjectComponentManager projectComponentManager,
             ProjectFactory projectFactory, UserManager userManager, ApplicationProperties applicationProperties,
@@ -55,14 +79,48 @@ public class CachingProjectManager extends AbstractProjectManager
         this.projectFactory = projectFactory;
         this.projectKeyStore = projectKeyStore;
         this.nodeAssociationStore = nodeAssociationStore;
-        this.cache = cacheManager.getCachedReference(CachingProjectManager.class.getName() + ".cache",
-                new ProjectCacheSupplier());
+        this.cache = cacheManager.getCache(CachingProjectManager.class.getName() + ".cache",
+                new ProjectCacheLoader(),
+                new CacheSettingsBuilder().local().build());
+        this.projectInvalidations = new DeltaInvalidationChannel(PROJECT_CHANNEL, new DeltaInvalidationChannel.Listener()
+        {
+            @Override
+            public void onInvalidation(final Set<Long> projectIds)
+            {
+                if (projectIds != null)
+                {
+                    patchProjects(projectIds);
+                }
+                else
+                {
+                    cache.removeAll();
+                }
+            }
+        });
+        this.projectCategoryInvalidations = new DeltaInvalidationChannel(PROJECT_CATEGORY_CHANNEL, new DeltaInvalidationChannel.Listener()
+        {
+            @Override
+            public void onInvalidation(final Set<Long> projectCategoryIds)
+            {
+                patchProjectCategories();
+            }
+        });
+    }
+
+    @Override
+    public void start()
+    {
+        // Can't constructor-inject the ClusterMessagingService as it creates a circular dependency
+        final ClusterMessagingService messagingService = ComponentAccessor.getComponent(ClusterMessagingService.class);
+        projectInvalidations.start(messagingService);
+        projectCategoryInvalidations.start(messagingService);
     }
 
     @EventListener
     public void onClearCache(final ClearCacheEvent event)
     {
-        updateCache();
+        // every node gets its own ClearCacheEvent
+        cache.removeAll();
         //make sure the project count cache is reloaded (the delegate may also do some caching)
         delegateProjectManager.refresh();
     }
@@ -70,7 +128,78 @@ public class CachingProjectManager extends AbstractProjectManager
     public void updateCache()
     {
         // refresh the project cache
-        cache.reset();
+        cache.removeAll();
+        projectInvalidations.publishAll();
+    }
+
+    private ProjectCache getCache()
+    {
+        return cache.get(CACHE_KEY);
+    }
+
+    /**
+     * Reloads the given projects, on this node and on the others.
+     */
+    private void updateCache(final Long projectId)
+    {
+        if (projectId == null)
+        {
+            updateCache();
+            return;
+        }
+        final List<Long> projectIds = ImmutableList.of(projectId);
+        patchProjects(projectIds);
+        projectInvalidations.publish(projectIds);
+    }
+
+    /**
+     * Reloads the project categories, on this node and on the others.
+     */
+    private void updateProjectCategoryCache(final Long projectCategoryId)
+    {
+        patchProjectCategories();
+        projectCategoryInvalidations.publish(projectCategoryId != null ? ImmutableList.of(projectCategoryId) : ImmutableList.<Long>of());
+    }
+
+    private void patchProjects(final Collection<Long> projectIds)
+    {
+        patchCache(new Function<ProjectCache, ProjectCache>()
+        {
+            @Override
+            public ProjectCache apply(final ProjectCache projectCache)
+            {
+                return projectCache.withProjects(projectIds);
+            }
+        });
+    }
+
+    private void patchProjectCategories()
+    {
+        patchCache(new Function<ProjectCache, ProjectCache>()
+        {
+            @Override
+            public ProjectCache apply(final ProjectCache projectCache)
+            {
+                return projectCache.withProjectCategories();
+            }
+        });
+    }
+
+    private void patchCache(final Function<ProjectCache, ProjectCache> patch)
+    {
+        synchronized (patchLock)
+        {
+            // if the cache is not loaded, the next read will load the changes anyway
+            if (cache.containsKey(CACHE_KEY))
+            {
+                final ProjectCache projectCache = cache.get(CACHE_KEY);
+                if (!cache.replace(CACHE_KEY, projectCache, patch.apply(projectCache)))
+                {
+                    // it was reset while being patched
+                    cache.remove(CACHE_KEY);
+                }
+            }
+        }
     }
 
     // Business Methods ------------------------------------------------------------------------------------------------
@@ -92,26 +221,26 @@ public class CachingProjectManager extends AbstractProjectManager
     @Override
     public GenericValue getProject(Long id)
     {
-        return cache.get().getProject(id);
+        return getCache().getProject(id);
     }
 
     @Override
     public Project getProjectObj(Long id)
     {
-        GenericValue projectGv = cache.get().getProject(id);
+        GenericValue projectGv = getCache().getProject(id);
         return genericValueToProject(projectGv);
     }
 
     @Override
     public GenericValue getProjectByName(String name)
     {
-        return cache.get().getProjectByName(name);
+        return getCache().getProjectByName(name);
     }
 
     @Override
     public GenericValue getProjectByKey(String key)
     {
-        return cache.get().getProjectByKey(key);
+        return getCache().getProjectByKey(key);
     }
 
     @Override
@@ -134,25 +263,25 @@ public class CachingProjectManager extends AbstractProjectManager
     @Override
     public Project getProjectByCurrentKey(final String projectKey)
     {
-        return genericValueToProject(cache.get().getProjectByCurrentKey(projectKey));
+        return genericValueToProject(getCache().getProjectByCurrentKey(projectKey));
     }
 
     @Override
     public Project getProjectByCurrentKeyIgnoreCase(final String projectKey)
     {
-        return genericValueToProject(cache.get().getProjectByCurrentKeyIgnoreCase(projectKey));
+        return genericValueToProject(getCache().getProjectByCurrentKeyIgnoreCase(projectKey));
     }
 
     @Override
     public Project getProjectObjByKeyIgnoreCase(final String projectKey)
     {
-        return genericValueToProject(cache.get().getProjectByKeyIgnoreCase(projectKey));
+        return genericValueToProject(getCache().getProjectByKeyIgnoreCase(projectKey));
     }
 
     @Override
     public Set<String> getAllProjectKeys(Long projectId)
     {
-        return cache.get().getAllProjectKeys(projectId);
+        return getCache().getAllProjectKeys(projectId);
     }
 
     @Override
@@ -218,13 +347,13 @@ public class CachingProjectManager extends AbstractProjectManager
     @Override
     public Collection<GenericValue> getProjects()
     {
-        return noNull(cache.get().getProjects());
+        return noNull(getCache().getProjects());
     }
 
     @Override
     public List<Project> getProjectObjects()
     {
-        List<Project> projects = cache.get().getProjectObjects();
+        List<Project> projects = getCache().getProjectObjects();
         if (projects == null)
         {
             return Collections.emptyList();
@@ -254,13 +383,15 @@ public class CachingProjectManager extends AbstractProjectManager
     public Project createProject(final String name, final String key, final String description, final String leadKey,
             final String url, final Long assigneeType, final Long avatarId)
     {
+        Project project = null;
         try
         {
-            return delegateProjectManager.createProject(name, key, description, leadKey, url, assigneeType, avatarId);
+            project = delegateProjectManager.createProject(name, key, description, leadKey, url, assigneeType, avatarId);
+            return project;
         }
         finally
         {
-            updateCache();
+            updateCache(project != null ? project.getId() : null);
         }
     }
 
@@ -274,7 +405,7 @@ public class CachingProjectManager extends AbstractProjectManager
         }
         finally
         {
-            updateCache();
+            updateCache(updatedProject.getId());
         }
     }
 
@@ -293,14 +424,14 @@ public class CachingProjectManager extends AbstractProjectManager
         }
         finally
         {
-            updateCache();
+            updateCache(project.getId());
         }
     }
 
     @Override
     public Collection<GenericValue> getProjectCategories()
     {
-        return noNull(cache.get().getProjectCategories());
+        return noNull(getCache().getProjectCategories());
     }
 
     @Override
@@ -312,13 +443,13 @@ public class CachingProjectManager extends AbstractProjectManager
     @Override
     public GenericValue getProjectCategory(Long id)
     {
-        return cache.get().getProjectCategory(id);
+        return getCache().getProjectCategory(id);
     }
 
     @Override
     public ProjectCategory getProjectCategoryObject(Long id)
     {
-        return Entity.PROJECT_CATEGORY.build(cache.get().getProjectCategory(id));
+        return Entity.PROJECT_CATEGORY.build(getCache().getProjectCategory(id));
     }
 
     @Override
@@ -330,7 +461,7 @@ public class CachingProjectManager extends AbstractProjectManager
         }
         finally
         {
-            updateCache();
+            updateProjectCategoryCache(projectCat.getLong("id"));
         }
     }
 
@@ -343,14 +474,14 @@ public class CachingProjectManager extends AbstractProjectManager
         }
         finally
         {
-            updateCache();
+            updateProjectCategoryCache(projectCategory.getId());
         }
     }
 
     @Override
     public Collection<GenericValue> getProjectsFromProjectCategory(GenericValue projectCategory)
     {
-        return cache.get().getProjectsFromProjectCategory(projectCategory);
+        return getCache().getProjectsFromProjectCategory(projectCategory);
     }
 
     @Override
@@ -369,13 +500,13 @@ public class CachingProjectManager extends AbstractProjectManager
     @Override
     public GenericValue getProjectCategoryFromProject(GenericValue project)
     {
-        return cache.get().getProjectCategoryFromProject(project);
+        return getCache().getProjectCategoryFromProject(project);
     }
 
     @Override
     public ProjectCategory getProjectCategoryForProject(Project project)
     {
-        GenericValue projectCategoryForProject = cache.get().getProjectCategoryForProject(project);
+        GenericValue projectCategoryForProject = getCache().getProjectCategoryForProject(project);
         if (projectCategoryForProject != null)
         {
             return Entity.PROJECT_CATEGORY.build(projectCategoryForProject);
@@ -386,7 +517,7 @@ public class CachingProjectManager extends AbstractProjectManager
     @Override
     public Collection<GenericValue> getProjectsWithNoCategory()
     {
-        return cache.get().getProjectsWithNoCategory();
+        return getCache().getProjectsWithNoCategory();
     }
 
     @Override
@@ -404,7 +535,7 @@ public class CachingProjectManager extends AbstractProjectManager
         }
         finally
         {
-            updateCache();
+            updateCache(project != null ? project.getLong("id") : null);
         }
     }
 
@@ -417,7 +548,7 @@ public class CachingProjectManager extends AbstractProjectManager
         }
         finally
         {
-            updateCache();
+            updateCache(project != null ? project.getId() : null);
         }
     }
 
@@ -442,13 +573,15 @@ public class CachingProjectManager extends AbstractProjectManager
     @Override
     public ProjectCategory createProjectCategory(String name, String description)
     {
+        ProjectCategory projectCategory = null;
         try
         {
-            return delegateProjectManager.createProjectCategory(name, description);
+            projectCategory = delegateProjectManager.createProjectCategory(name, description);
+            return projectCategory;
         }
         finally
         {
-            updateCache();
+            updateProjectCategoryCache(projectCategory != null ? projectCategory.getId() : null);
         }
     }
 
@@ -461,7 +594,7 @@ public class CachingProjectManager extends AbstractProjectManager
         }
         finally
         {
-            updateCache();
+            updateProjectCategoryCache(id);
         }
     }
 
@@ -477,10 +610,10 @@ public class CachingProjectManager extends AbstractProjectManager
         delegateProjectManager.setCurrentCounterForProject(project, counter);
     }
 
-    private class ProjectCacheSupplier implements Supplier<ProjectCache>
+    private class ProjectCacheLoader implements CacheLoader<String, ProjectCache>
     {
         @Override
-        public ProjectCache get()
+        public ProjectCache load(@Nonnull final String key)
         {
             return new ProjectCache(delegateProjectManager, projectKeyStore, nodeAssociationStore);
         }
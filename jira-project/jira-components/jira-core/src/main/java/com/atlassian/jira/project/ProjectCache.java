@@ -42,7 +42,8 @@ import static java.util.Collections.sort;
 /**
  * This is a very basic cache that stores projects and components
  * <p/>
- * When constructed, or when you call refresh() - it will find and cache all projects, components
+ * When constructed it will find and cache all projects, components. A cache is never changed once built: {@link
+ * #withProjects(java.util.Collection)} and {@link #withProjectCategories()} return a patched copy instead.
  */
 public class ProjectCache
 {
@@ -82,6 +83,71 @@ public class ProjectCache
         init();
     }
 
+    private ProjectCache(final ProjectCache previous)
+    {
+        this.projectManager = previous.projectManager;
+        this.projectKeyStore = previous.projectKeyStore;
+        this.nodeAssociationStore = previous.nodeAssociationStore;
+        this.projectCategories = previous.projectCategories;
+    }
+
+    /**
+     * Returns a copy of this cache in which only the given projects, and the categories they belong to, are reloaded.
+     * Projects that no longer exist are left out of the copy.
+     * <p/>
+     * IMPACT: Should perform two SQL select statements per project
+     *
+     * @param projectIds the ids of the projects that changed
+     * @return the patched copy
+     */
+    public ProjectCache withProjects(final Collection<Long> projectIds)
+    {
+        final Map<Long, GenericValue> tmpById = Maps.newHashMap(projectsById);
+        final Map<String, Long> tmpProjectToProjectCategories = Maps.newHashMap(projectToProjectCategories);
+        for (final Long projectId : projectIds)
+        {
+            final GenericValue oldProject = tmpById.remove(projectId);
+            if (oldProject != null)
+            {
+                tmpProjectToProjectCategories.remove(oldProject.getString("key"));
+            }
+            final GenericValue project = projectManager.getProject(projectId);
+            if (project != null)
+            {
+                tmpById.put(projectId, project);
+                final List<Long> categoryIds = nodeAssociationStore.getSinkIdsFromSource(project, "ProjectCategory", ProjectRelationConstants.PROJECT_CATEGORY);
+                if (!categoryIds.isEmpty())
+                {
+                    tmpProjectToProjectCategories.put(project.getString("key"), categoryIds.get(0));
+                }
+            }
+        }
+
+        final ProjectCache copy = new ProjectCache(this);
+        copy.setProjects(tmpById.values());
+        copy.setCategoryProjectMappings(tmpProjectToProjectCategories);
+        copy.refreshProjectsWithNoCategory();
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this cache in which only the project categories are reloaded. Projects in a category that no
+     * longer exists are left without a category.
+     * <p/>
+     * IMPACT: Should perform only one SQL select statement
+     *
+     * @return the patched copy
+     */
+    public ProjectCache withProjectCategories()
+    {
+        final ProjectCache copy = new ProjectCache(this);
+        copy.refreshProjectCategories();
+        copy.setProjects(projectsById.values());
+        copy.setCategoryProjectMappings(projectToProjectCategories);
+        copy.refreshProjectsWithNoCategory();
+        return copy;
+    }
+
     private void init()
     {
         if (LOG.isDebugEnabled())
@@ -116,7 +182,12 @@ public class ProjectCache
      */
     private void refreshProjectList()
     {
-        final List<GenericValue> dbProjects = newArrayList(projectManager.getProjects());
+        setProjects(projectManager.getProjects());
+    }
+
+    private void setProjects(final Collection<GenericValue> projects)
+    {
+        final List<GenericValue> dbProjects = newArrayList(projects);
         sort(dbProjects, PROJECT_NAME_COMPARATOR);
 
         final Map<Long, GenericValue> tmpById = Maps.newLinkedHashMap();
@@ -234,6 +305,35 @@ public class ProjectCache
         projectCategoriesToProjects = ImmutableMap.copyOf(tmpProjectCategoriesToProjects);
     }
 
+    /**
+     * Sets the mapping from projectCategory to projects from the mapping of projects to their projectCategory, for
+     * the projects and project categories in the cache.
+     */
+    private void setCategoryProjectMappings(final Map<String, Long> projectKeysToProjectCategories)
+    {
+        final Map<Long, List<Long>> tmpProjectCategoriesToProjects = Maps.newHashMapWithExpectedSize(projectCategories.size());
+        for (final Long categoryId : projectCategories.keySet())
+        {
+            tmpProjectCategoriesToProjects.put(categoryId, new ArrayList<Long>());
+        }
+        final Map<String, Long> tmpProjectToProjectCategories = new HashMap<String, Long>(64);
+        // the projects are in name order, so the projects of each category will be too
+        for (final GenericValue project : projectsById.values())
+        {
+            final String projectKey = project.getString("key");
+            final Long categoryId = projectKeysToProjectCategories.get(projectKey);
+            final List<Long> categoryProjects = categoryId != null ? tmpProjectCategoriesToProjects.get(categoryId) : null;
+            if (categoryProjects != null)
+            {
+                categoryProjects.add(project.getLong("id"));
+                tmpProjectToProjectCategories.put(projectKey, categoryId);
+            }
+        }
+
+        projectToProjectCategories = ImmutableMap.copyOf(tmpProjectToProjectCategories);
+        projectCategoriesToProjects = ImmutableMap.copyOf(tmpProjectCategoriesToProjects);
+    }
+
     private static List<Long> getIdsFromGenericValues(Collection<GenericValue> genericValues)
     {
         if (genericValues == null)
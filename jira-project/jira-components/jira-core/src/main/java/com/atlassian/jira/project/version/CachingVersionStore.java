@@ -6,9 +6,12 @@ package com.atlassian.jira.project.version;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -16,33 +19,60 @@ import javax.annotation.Nullable;
 import com.atlassian.cache.Cache;
 import com.atlassian.cache.CacheLoader;
 import com.atlassian.cache.CacheManager;
-import com.atlassian.cache.CachedReference;
-import com.atlassian.cache.Supplier;
+import com.atlassian.cache.CacheSettingsBuilder;
 import com.atlassian.event.api.EventListener;
 import com.atlassian.jira.EventComponent;
+import com.atlassian.jira.cache.DeltaInvalidationChannel;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.extension.Startable;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.primitives.Longs;
 
 import org.ofbiz.core.entity.GenericValue;
 
 /**
  * A caching implementation of the VersionStore that relies on a delegate to do the DB operations.
+ * <p/>
+ * The list of all versions is local to each node: a change only reloads the changed versions into a patched copy of
+ * the list, and their ids are sent to the other nodes, which patch their own copies.
  */
 @EventComponent
-public class CachingVersionStore implements VersionStore
+public class CachingVersionStore implements VersionStore, Startable
 {
+    private static final String CHANNEL = "VersionCacheDelta";
+    private static final String ALL_VERSIONS_KEY = "allVersions";
+
+    private static final Comparator<GenericValue> SEQUENCE_COMPARATOR = new Comparator<GenericValue>()
+    {
+        @Override
+        public int compare(final GenericValue version1, final GenericValue version2)
+        {
+            final Long sequence1 = version1.getLong("sequence");
+            final Long sequence2 = version2.getLong("sequence");
+            if (sequence1 == null || sequence2 == null)
+            {
+                return sequence1 == null ? (sequence2 == null ? 0 : -1) : 1;
+            }
+            return sequence1.compareTo(sequence2);
+        }
+    };
 
     private final VersionStore delegate;
 
     private final Cache<Long, Optional<GenericValue>> versionById;
-    private final CachedReference<List<GenericValue>> allVersions;
+    private final Cache<String, List<GenericValue>> allVersions;
     private final Cache<String, List<GenericValue>> versionsByName;
     private final Cache<Long, List<GenericValue>> versionsByProjectId;
+    private final Object patchLock = new Object();
+    private final DeltaInvalidationChannel invalidations;
 
     public CachingVersionStore(final VersionStore delegate, final CacheManager cacheManager)
     {
@@ -58,16 +88,17 @@ public class CachingVersionStore implements VersionStore
             }
 
         });
-        allVersions = cacheManager.getCachedReference(getCacheReferenceName("allVersions"), new Supplier<List<GenericValue>>()
+        allVersions = cacheManager.getCache(getCacheReferenceName("allVersions"), new CacheLoader<String, List<GenericValue>>()
         {
 
+            @Nonnull
             @Override
-            public List<GenericValue> get()
+            public List<GenericValue> load(@Nonnull final String key)
             {
                 return ImmutableList.copyOf(delegate.getAllVersions());
             }
 
-        });
+        }, new CacheSettingsBuilder().local().build());
         versionsByName = cacheManager.getCache(getCacheReferenceName("versionsByName"), new CacheLoader<String, List<GenericValue>>()
         {
             @Nonnull
@@ -88,6 +119,29 @@ public class CachingVersionStore implements VersionStore
             }
 
         });
+        invalidations = new DeltaInvalidationChannel(CHANNEL, new DeltaInvalidationChannel.Listener()
+        {
+            @Override
+            public void onInvalidation(final Set<Long> versionIds)
+            {
+                // the other caches are clustered, so only the list of all versions needs patching
+                if (versionIds != null)
+                {
+                    patchAllVersions(versionIds);
+                }
+                else
+                {
+                    allVersions.removeAll();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void start()
+    {
+        // Can't constructor-inject the ClusterMessagingService as it creates a circular dependency
+        invalidations.start(ComponentAccessor.getComponent(ClusterMessagingService.class));
     }
 
     private String getCacheReferenceName(String name)
@@ -98,12 +152,16 @@ public class CachingVersionStore implements VersionStore
     @EventListener
     public void onClearCache(final ClearCacheEvent event)
     {
-        refreshCache(Collections.<Long>emptyList());
+        // every node gets its own ClearCacheEvent
+        versionById.removeAll();
+        allVersions.removeAll();
+        versionsByName.removeAll();
+        versionsByProjectId.removeAll();
     }
 
     public List<GenericValue> getAllVersions()
     {
-        return allVersions.get();
+        return allVersions.get(ALL_VERSIONS_KEY);
     }
 
     public GenericValue getVersion(final Long id)
@@ -114,35 +172,37 @@ public class CachingVersionStore implements VersionStore
     public GenericValue createVersion(final Map<String, Object> versionParams)
     {
         final GenericValue version = delegate.createVersion(versionParams);
-        refreshCache(Collections.singletonList(version.getLong("id")));
+        refreshCache(Collections.singletonList(version.getLong("id")), Collections.singletonList(version.getLong("project")));
         return version;
     }
 
     public void storeVersion(final Version version)
     {
         delegate.storeVersion(version);
-        refreshCache(Collections.singletonList(version.getId()));
+        refreshCache(Collections.singletonList(version.getId()), Collections.singletonList(version.getProjectId()));
     }
 
     public void storeVersions(final Collection<Version> versions)
     {
         delegate.storeVersions(versions);
         List<Long> versionIds = new LinkedList<Long>();
+        Set<Long> projectIds = Sets.newHashSet();
         for (Version version : versions)
         {
             if (version != null)
             {
                 versionIds.add(version.getId());
+                projectIds.add(version.getProjectId());
             }
         }
-        refreshCache(versionIds);
+        refreshCache(versionIds, projectIds);
     }
 
     public void deleteVersion(final GenericValue versionGV)
     {
         long versionId = versionGV.getLong("id");
         delegate.deleteVersion(versionGV);
-        refreshCache(Collections.singletonList(versionId));
+        refreshCache(Collections.singletonList(versionId), Collections.singletonList(versionGV.getLong("project")));
     }
 
 
@@ -168,22 +228,125 @@ public class CachingVersionStore implements VersionStore
         return result != null ?  result : Collections.<GenericValue> emptyList();
     }
 
-    private void refreshCache(Collection<Long> versionIds)
+    /**
+     * Invalidates just the entries that hold the given versions, on this node and on the others.
+     *
+     * @param versionIds the ids of the versions that changed
+     * @param projectIds the ids of the projects of those versions
+     */
+    private void refreshCache(Collection<Long> versionIds, Collection<Long> projectIds)
     {
-        if (!versionIds.isEmpty())
+        for (Long versionId : versionIds)
         {
-            for (long versionId : versionIds)
+            if (versionId != null)
             {
                 versionById.remove(versionId);
             }
         }
-        else
+        for (Long projectId : projectIds)
         {
-            versionById.removeAll();
+            if (projectId != null)
+            {
+                versionsByProjectId.remove(projectId);
+            }
         }
-        allVersions.reset();
-        versionsByName.removeAll();
-        versionsByProjectId.removeAll();
+        final List<GenericValue> changedVersions = loadVersions(versionIds);
+        removeVersionsByName(versionIds, changedVersions);
+        patchAllVersions(versionIds, changedVersions);
+        invalidations.publish(versionIds);
+    }
+
+    private List<GenericValue> loadVersions(Collection<Long> versionIds)
+    {
+        final List<GenericValue> versions = Lists.newArrayListWithCapacity(versionIds.size());
+        for (Long versionId : versionIds)
+        {
+            final GenericValue version = versionId != null ? delegate.getVersion(versionId) : null;
+            if (version != null)
+            {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * A version may have been renamed, and its old name is gone from its GenericValue, so this removes the names whose
+     * cached versions include it, as well as its new name.
+     */
+    private void removeVersionsByName(Collection<Long> versionIds, Collection<GenericValue> changedVersions)
+    {
+        final Set<String> newNames = Sets.newHashSet();
+        for (GenericValue version : changedVersions)
+        {
+            final String name = version.getString("name");
+            if (name != null)
+            {
+                newNames.add(name.toLowerCase());
+            }
+        }
+        for (String name : versionsByName.getKeys())
+        {
+            if (newNames.contains(name.toLowerCase()))
+            {
+                versionsByName.remove(name);
+                continue;
+            }
+            final List<GenericValue> versions = versionsByName.get(name);
+            if (containsAny(versions, versionIds))
+            {
+                versionsByName.remove(name);
+            }
+        }
+    }
+
+    private void patchAllVersions(Collection<Long> versionIds)
+    {
+        patchAllVersions(versionIds, loadVersions(versionIds));
+    }
+
+    /**
+     * Replaces the given versions in the list of all versions, when it is loaded.
+     */
+    private void patchAllVersions(Collection<Long> versionIds, Collection<GenericValue> changedVersions)
+    {
+        synchronized (patchLock)
+        {
+            // if the list is not loaded, the next read will load the changes anyway
+            if (!allVersions.containsKey(ALL_VERSIONS_KEY))
+            {
+                return;
+            }
+            final List<GenericValue> versions = allVersions.get(ALL_VERSIONS_KEY);
+            final List<GenericValue> patched = Lists.newArrayList(versions);
+            for (Iterator<GenericValue> iterator = patched.iterator(); iterator.hasNext(); )
+            {
+                if (versionIds.contains(iterator.next().getLong("id")))
+                {
+                    iterator.remove();
+                }
+            }
+            patched.addAll(changedVersions);
+            // stable, so the versions keep their order within a sequence
+            Collections.sort(patched, SEQUENCE_COMPARATOR);
+            if (!allVersions.replace(ALL_VERSIONS_KEY, versions, ImmutableList.copyOf(patched)))
+            {
+                // it was reset while being patched
+                allVersions.remove(ALL_VERSIONS_KEY);
+            }
+        }
+    }
+
+    private static boolean containsAny(List<GenericValue> versions, Collection<Long> versionIds)
+    {
+        for (GenericValue version : versions)
+        {
+            if (versionIds.contains(version.getLong("id")))
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
 }
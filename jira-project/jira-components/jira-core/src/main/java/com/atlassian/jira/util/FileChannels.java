@@ -0,0 +1,52 @@
+package com.atlassian.jira.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Static utilities for sending the contents of files.
+ *
+ * @since v6.3.15
+ */
+public class FileChannels
+{
+    private FileChannels()
+    {
+    }
+
+    /**
+     * Sends part of a file with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which leaves the
+     * copying to the operating system where it can, rather than reading the file through a buffer on the heap.
+     * <p/>
+     * Neither the channel nor the stream is closed.
+     *
+     * @param channel the file
+     * @param position the position in the file of the first byte to send
+     * @param count the number of bytes to send
+     * @param out where to send them
+     * @return the number of bytes sent, which is less than {@code count} if the file ends first
+     * @throws IOException if the file could not be read or the bytes could not be written
+     */
+    public static long transfer(@Nonnull final FileChannel channel, final long position, final long count,
+            @Nonnull final OutputStream out) throws IOException
+    {
+        final WritableByteChannel target = Channels.newChannel(out);
+        long transferred = 0;
+        while (transferred < count)
+        {
+            final long sent = channel.transferTo(position + transferred, count - transferred, target);
+            if (sent <= 0)
+            {
+                // the file is shorter than we were told
+                break;
+            }
+            transferred += sent;
+        }
+        return transferred;
+    }
+}
@@ -0,0 +1,187 @@
+package com.atlassian.jira.web.action.admin.instrumentation;
+
+import java.text.NumberFormat;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.atlassian.cache.CacheManager;
+import com.atlassian.cache.CacheStatisticsKey;
+import com.atlassian.cache.ManagedCache;
+import com.atlassian.jira.cache.CacheStatistics;
+import com.atlassian.jira.cache.InstrumentedCacheManager;
+import com.atlassian.jira.web.action.JiraWebActionSupport;
+import com.atlassian.sal.api.websudo.WebSudoRequired;
+import com.atlassian.util.concurrent.Supplier;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Lists JIRA's caches, the most expensive to load first.
+ *
+ * @since v6.3.15
+ */
+@WebSudoRequired
+public class ViewCacheStatistics extends JiraWebActionSupport
+{
+    private final CacheManager cacheManager;
+
+    private boolean estimateHeapSize;
+    private List<CacheDisplayBean> caches;
+
+    public ViewCacheStatistics(CacheManager cacheManager)
+    {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    protected String doExecute() throws Exception
+    {
+        return SUCCESS;
+    }
+
+    public boolean isInstrumented()
+    {
+        return cacheManager instanceof InstrumentedCacheManager;
+    }
+
+    public List<CacheDisplayBean> getCaches()
+    {
+        if (caches == null)
+        {
+            caches = Lists.newArrayList();
+            if (isInstrumented())
+            {
+                for (final CacheStatistics statistics : ((InstrumentedCacheManager) cacheManager).getStatistics().values())
+                {
+                    caches.add(new CacheDisplayBean(statistics, cacheManager.getManagedCache(statistics.getCacheName())));
+                }
+            }
+            Collections.sort(caches, new Comparator<CacheDisplayBean>()
+            {
+                @Override
+                public int compare(CacheDisplayBean bean1, CacheDisplayBean bean2)
+                {
+                    final long loadTime1 = bean1.statistics.getTotalLoadTimeMillis();
+                    final long loadTime2 = bean2.statistics.getTotalLoadTimeMillis();
+                    if (loadTime1 != loadTime2)
+                    {
+                        return loadTime1 > loadTime2 ? -1 : 1;
+                    }
+                    return bean1.getName().compareTo(bean2.getName());
+                }
+            });
+        }
+        return caches;
+    }
+
+    public boolean isEstimateHeapSize()
+    {
+        return estimateHeapSize;
+    }
+
+    /**
+     * Estimating the heap size of a cache walks all its entries, so it is only done when asked for.
+     */
+    public void setEstimateHeapSize(boolean estimateHeapSize)
+    {
+        this.estimateHeapSize = estimateHeapSize;
+    }
+
+    public class CacheDisplayBean
+    {
+        private final CacheStatistics statistics;
+        private final Map<CacheStatisticsKey, Supplier<Long>> cacheStatistics;
+
+        CacheDisplayBean(CacheStatistics statistics, ManagedCache managedCache)
+        {
+            this.statistics = statistics;
+            this.cacheStatistics = managedCache != null ? managedCache.getStatistics() : Collections.<CacheStatisticsKey, Supplier<Long>>emptyMap();
+        }
+
+        public String getName()
+        {
+            return statistics.getCacheName();
+        }
+
+        public String getSize()
+        {
+            return cacheStatistic(CacheStatisticsKey.SIZE);
+        }
+
+        public String getHeapSize()
+        {
+            return estimateHeapSize ? cacheStatistic(CacheStatisticsKey.HEAP_SIZE) : "";
+        }
+
+        public String getHitCount()
+        {
+            return cacheStatistic(CacheStatisticsKey.HIT_COUNT);
+        }
+
+        public String getMissCount()
+        {
+            return cacheStatistic(CacheStatisticsKey.MISS_COUNT);
+        }
+
+        public String getEvictionCount()
+        {
+            return cacheStatistic(CacheStatisticsKey.EVICTION_COUNT);
+        }
+
+        public String getLoadCount()
+        {
+            return format(statistics.getLoadCount());
+        }
+
+        public String getLoadFailureCount()
+        {
+            return format(statistics.getLoadFailureCount());
+        }
+
+        public String getTotalLoadTime()
+        {
+            return format(statistics.getTotalLoadTimeMillis());
+        }
+
+        public String getMeanLoadTime()
+        {
+            final NumberFormat format = NumberFormat.getNumberInstance(getLocale());
+            format.setMaximumFractionDigits(2);
+            return format.format(statistics.getMeanLoadTimeMillis());
+        }
+
+        public String getMaxLoadTime()
+        {
+            return format(statistics.getMaxLoadTimeMillis());
+        }
+
+        public String getRemoveCount()
+        {
+            return format(statistics.getRemoveCount());
+        }
+
+        public String getRemoveAllCount()
+        {
+            return format(statistics.getRemoveAllCount());
+        }
+
+        public String getFlushCount()
+        {
+            return format(statistics.getFlushCount());
+        }
+
+        private String cacheStatistic(CacheStatisticsKey key)
+        {
+            final Supplier<Long> supplier = cacheStatistics.get(key);
+            final Long value = supplier != null ? supplier.get() : null;
+            return value != null ? format(value) : "";
+        }
+
+        private String format(long value)
+        {
+            return NumberFormat.getNumberInstance(getLocale()).format(value);
+        }
+    }
+}
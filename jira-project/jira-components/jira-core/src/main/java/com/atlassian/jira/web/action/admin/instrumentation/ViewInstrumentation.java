@@ -19,6 +19,8 @@ import com.atlassian.instrumentation.Counter;
 import com.atlassian.instrumentation.Gauge;
 import com.atlassian.instrumentation.Instrument;
 import com.atlassian.instrumentation.operations.OpInstrument;
+import com.atlassian.jira.cache.CacheStatistics;
+import com.atlassian.jira.cache.InstrumentedCacheManager;
 import com.atlassian.jira.cache.ManagedCacheInstruments;
 import com.atlassian.jira.cluster.lock.ClusterLockInstruments;
 import com.atlassian.jira.instrumentation.Instrumentation;
@@ -122,6 +124,13 @@ public class ViewInstrumentation extends JiraWebActionSupport
         {
             sortedInstruments.addAll(new ManagedCacheInstruments(cache).getInstruments());
         }
+        if (cacheManager instanceof InstrumentedCacheManager)
+        {
+            for (final CacheStatistics statistics : ((InstrumentedCacheManager) cacheManager).getStatistics().values())
+            {
+                sortedInstruments.addAll(statistics.getInstruments());
+            }
+        }
     }
 
     private void collectClusterLockInstruments(SortedSet<Instrument> sortedInstruments)
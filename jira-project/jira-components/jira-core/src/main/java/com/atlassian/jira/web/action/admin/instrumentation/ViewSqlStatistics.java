@@ -0,0 +1,153 @@
+package com.atlassian.jira.web.action.admin.instrumentation;
+
+import java.text.NumberFormat;
+import java.util.List;
+
+import com.atlassian.jira.ofbiz.SlowSqlExecution;
+import com.atlassian.jira.ofbiz.SqlStatementStatistics;
+import com.atlassian.jira.ofbiz.SqlStatistics;
+import com.atlassian.jira.security.xsrf.RequiresXsrfCheck;
+import com.atlassian.jira.web.action.JiraWebActionSupport;
+import com.atlassian.sal.api.websudo.WebSudoRequired;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Lists the SQL statement templates, the most expensive in total first, and the slowest executions.
+ *
+ * @since v6.3.15
+ */
+@WebSudoRequired
+public class ViewSqlStatistics extends JiraWebActionSupport
+{
+    private static final double[] PERCENTILES = { 50, 95, 99 };
+
+    private final SqlStatistics sqlStatistics;
+
+    private List<StatementDisplayBean> statements;
+
+    public ViewSqlStatistics(SqlStatistics sqlStatistics)
+    {
+        this.sqlStatistics = sqlStatistics;
+    }
+
+    @Override
+    protected String doExecute() throws Exception
+    {
+        return SUCCESS;
+    }
+
+    @RequiresXsrfCheck
+    public String doReset() throws Exception
+    {
+        sqlStatistics.reset();
+        return getRedirect("ViewSqlStatistics.jspa");
+    }
+
+    public List<StatementDisplayBean> getStatements()
+    {
+        if (statements == null)
+        {
+            statements = Lists.newArrayList();
+            for (final SqlStatementStatistics statistics : sqlStatistics.getStatementStatistics())
+            {
+                statements.add(new StatementDisplayBean(statistics));
+            }
+        }
+        return statements;
+    }
+
+    public List<SlowSqlExecution> getSlowExecutions()
+    {
+        return sqlStatistics.getSlowExecutions();
+    }
+
+    /**
+     * Once too many statement templates are tracked, the executions of new ones are counted together.
+     */
+    public boolean isStatementsUntracked()
+    {
+        return sqlStatistics.getUntrackedExecutionCount() > 0;
+    }
+
+    public String getUntrackedExecutionCount()
+    {
+        return format(sqlStatistics.getUntrackedExecutionCount());
+    }
+
+    private String format(long value)
+    {
+        return NumberFormat.getNumberInstance(getLocale()).format(value);
+    }
+
+    private String format(double value)
+    {
+        final NumberFormat format = NumberFormat.getNumberInstance(getLocale());
+        format.setMaximumFractionDigits(2);
+        return format.format(value);
+    }
+
+    public class StatementDisplayBean
+    {
+        private final SqlStatementStatistics statistics;
+
+        StatementDisplayBean(SqlStatementStatistics statistics)
+        {
+            this.statistics = statistics;
+        }
+
+        public String getTemplate()
+        {
+            return statistics.getTemplate();
+        }
+
+        public String getRequestType()
+        {
+            return statistics.getRequestType();
+        }
+
+        public String getCallCount()
+        {
+            return format(statistics.getCallCount());
+        }
+
+        public String getFailureCount()
+        {
+            return format(statistics.getFailureCount());
+        }
+
+        public String getRowsUpdated()
+        {
+            return format(statistics.getRowsUpdated());
+        }
+
+        public String getTotalTime()
+        {
+            return format(statistics.getTotalTimeMillis());
+        }
+
+        public String getMeanTime()
+        {
+            return format(statistics.getMeanTimeMillis());
+        }
+
+        public String getPercentileTimes()
+        {
+            final StringBuilder times = new StringBuilder();
+            for (double percentile : PERCENTILES)
+            {
+                if (times.length() > 0)
+                {
+                    times.append(" / ");
+                }
+                times.append(format(statistics.getPercentileTimeMillis(percentile)));
+            }
+            return times.toString();
+        }
+
+        public String getMaxTime()
+        {
+            return format(statistics.getMaxTimeMillis());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.atlassian.jira.exception.DataAccessException;
 import com.atlassian.jira.exception.PermissionException;
 import com.atlassian.jira.security.JiraAuthenticationContext;
 import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.util.FileChannels;
 import com.atlassian.jira.util.http.JiraHttpUtils;
 import com.atlassian.jira.util.io.InputStreamConsumer;
 import com.atlassian.jira.web.exception.WebExceptionChecker;
@@ -18,10 +19,12 @@ import com.atlassian.seraph.util.RedirectUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -34,6 +37,14 @@ public abstract class AbstractViewFileServlet extends HttpServlet
 {
     private static final Logger log = Logger.getLogger(ViewAttachmentServlet.class);
 
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final String CONTENT_RANGE = "Content-Range";
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_RANGE = "If-Range";
+    private static final String RANGE = "Range";
+
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException
     {
         try
@@ -92,6 +103,21 @@ public abstract class AbstractViewFileServlet extends HttpServlet
     {
         try
         {
+            // a conditional GET for a file the client already has is answered without opening the file
+            final String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+            if (ifNoneMatch != null)
+            {
+                final String eTag = getETag(request);
+                if (eTag != null && matchesAny(ifNoneMatch, eTag))
+                {
+                    checkPermission(attachmentPath);
+                    response.setHeader(ETAG, eTag);
+                    HttpResponseHeaders.cachePrivatelyForAboutOneYear(response);
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+
             getInputStream(attachmentPath, new InputStreamConsumer<Unit>() {
                 @Override
                 public Unit withInputStream(final InputStream is) throws IOException
@@ -99,6 +125,18 @@ public abstract class AbstractViewFileServlet extends HttpServlet
                     // can only set headers after knowing that we have the file - otherwise we can't do response.sendError()
                     setResponseHeaders(request, response);
 
+                    final String eTag = getETag(request);
+                    if (eTag != null)
+                    {
+                        response.setHeader(ETAG, eTag);
+                    }
+
+                    if (is instanceof FileInputStream)
+                    {
+                        streamFile(request, response, ((FileInputStream) is).getChannel(), eTag);
+                        return Unit.UNIT;
+                    }
+
                     final OutputStream out = response.getOutputStream();
                     try
                     {
@@ -144,6 +182,78 @@ public abstract class AbstractViewFileServlet extends HttpServlet
         }
     }
 
+    /**
+     * Sends the file, or the range of it that was asked for, straight from its channel.
+     */
+    private void streamFile(final HttpServletRequest request, final HttpServletResponse response,
+            final FileChannel channel, final String eTag) throws IOException
+    {
+        final long length = channel.size();
+        response.setHeader(ACCEPT_RANGES, "bytes");
+
+        // a range of a file that has changed since the client saw it is no use, so send the whole file instead
+        final String ifRange = request.getHeader(IF_RANGE);
+        final ByteRange range = ifRange == null || ifRange.trim().equals(eTag)
+                ? ByteRange.parse(request.getHeader(RANGE), length)
+                : null;
+        if (range != null && !range.isSatisfiable())
+        {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(CONTENT_RANGE, range.toContentRange(length));
+            response.setHeader(CONTENT_LENGTH, "0");
+            return;
+        }
+
+        final long position;
+        final long count;
+        if (range != null)
+        {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(CONTENT_RANGE, range.toContentRange(length));
+            response.setHeader(CONTENT_LENGTH, String.valueOf(range.getLength()));
+            position = range.getFirst();
+            count = range.getLength();
+        }
+        else
+        {
+            position = 0;
+            count = length;
+        }
+
+        final OutputStream out = response.getOutputStream();
+        try
+        {
+            FileChannels.transfer(channel, position, count, out);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * @param header the value of an <code>If-None-Match</code> header
+     * @param eTag the entity tag of the file
+     * @return true if the header names the entity tag, or any entity tag at all
+     */
+    static boolean matchesAny(final String header, final String eTag)
+    {
+        if (header == null)
+        {
+            return false;
+        }
+        for (final String tag : header.split(","))
+        {
+            final String trimmed = tag.trim();
+            // If-None-Match uses the weak comparison, which ignores the W/ prefix
+            if (trimmed.equals("*") || trimmed.equals(eTag) || (trimmed.startsWith("W/") && trimmed.substring(2).equals(eTag)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Validates that path is valid attachment path.
      *
@@ -173,6 +283,18 @@ public abstract class AbstractViewFileServlet extends HttpServlet
     protected abstract void getInputStream(String attachmentPath, InputStreamConsumer<Unit> consumer)
             throws InvalidAttachmentPathException, DataAccessException, IOException, PermissionException;
 
+    /**
+     * Checks that the user may see the requested file. This is done by {@link #getInputStream} as well, and is only
+     * called on its own when a conditional <code>GET</code> can be answered without opening the file.
+     *
+     * @param attachmentPath the attachment path
+     * @throws DataAccessException If there is a problem looking up the data to support the attachment.
+     * @throws PermissionException if the user has insufficient permission to see the attachment.
+     */
+    protected void checkPermission(String attachmentPath) throws DataAccessException, PermissionException
+    {
+    }
+
     /**
      * Sets the content type, content length and "Content-Disposition" header
      * of the response based on the values of the attachement found.
@@ -183,6 +305,18 @@ public abstract class AbstractViewFileServlet extends HttpServlet
     protected abstract void setResponseHeaders(HttpServletRequest request, HttpServletResponse response)
             throws InvalidAttachmentPathException, DataAccessException, IOException;
 
+    /**
+     * Returns a strong entity tag for the requested file, which lets browsers revalidate the file with a conditional
+     * <code>GET</code> and resume a download with a <code>Range</code> request.
+     *
+     * @param request HTTP request
+     * @return the quoted entity tag, or null if the file has none
+     */
+    protected String getETag(HttpServletRequest request)
+    {
+        return null;
+    }
+
     /**
      * @return The logged-in user's name, or null (anonymous)
      */
@@ -29,9 +29,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -93,22 +91,13 @@ public class AttachmentZipServlet extends HttpServlet
             throws IOException, ServletException
     {
         String issueKey = issue.getKey();
-        File zipFile;
+        OutputStream out = null;
         try
         {
-            zipFile = createAttachmentsZipFile(issue);
-        }
-        catch (IOException e)
-        {
-            log.error("Can not create temporary zip file : " + httpServletRequest.getPathInfo() + ": " + e.getMessage(), e);
-            httpServletResponse.sendError(404, "Could not create zip file for issue : " + issueKey);
-            return;
-        }
-
-        try
-        {
-            setResponseHeaders(httpServletRequest, httpServletResponse, zipFile, issueKey);
-            writeZipResponse(httpServletResponse, new FileInputStream(zipFile));
+            // the zip is written as it is sent, so its length is not known up front
+            setFileDownloadHeaders(httpServletRequest, httpServletResponse, null, -1, issueKey + ".zip", "application/zip");
+            out = httpServletResponse.getOutputStream();
+            createAttachmentZipFileCreator(issue).writeZip(out);
         }
         catch (Exception e)
         {
@@ -119,7 +108,9 @@ public class AttachmentZipServlet extends HttpServlet
             // now send a 404 only if we have not yet written any bytes to the out stream
             if (!httpServletResponse.isCommitted())
             {
-                httpServletResponse.sendError(404, "Could not serve zip file of attachments for issue " + issueKey + " : " + e.getMessage());
+                log.error("Can not create zip file : " + httpServletRequest.getPathInfo() + ": " + e.getMessage(), e);
+                httpServletResponse.reset();
+                httpServletResponse.sendError(404, "Could not create zip file for issue : " + issueKey);
             }
             else
             {
@@ -128,7 +119,7 @@ public class AttachmentZipServlet extends HttpServlet
         }
         finally
         {
-            deleteFile(zipFile);
+            IOUtil.shutdownStream(out);
         }
     }
 
@@ -268,54 +259,9 @@ public class AttachmentZipServlet extends HttpServlet
         }
     }
 
-    private File createAttachmentsZipFile(final Issue issue) throws IOException
+    AttachmentZipFileCreator createAttachmentZipFileCreator(final Issue issue)
     {
-        AttachmentZipFileCreator zipFileCreator = new AttachmentZipFileCreator(issue);
-        return zipFileCreator.toZipFile();
-    }
-
-    private boolean writeZipResponse(final HttpServletResponse httpServletResponse, final InputStream inputStream)
-            throws IOException
-    {
-        boolean bytesWritten = false;
-        OutputStream out = httpServletResponse.getOutputStream();
-
-        byte[] buffer = new byte[4096];
-        try
-        {
-            while (true)
-            {
-                int bytesRead = inputStream.read(buffer);
-                if (bytesRead == -1)
-                {
-                    break;
-                }
-                out.write(buffer, 0, bytesRead);
-                bytesWritten = true;
-            }
-        }
-        finally
-        {
-            IOUtil.shutdownStream(inputStream);
-            IOUtil.shutdownStream(out);
-        }
-        return bytesWritten;
-    }
-
-    /**
-     * Sets the content type, content length and "Content-Disposition" header of the response
-     *
-     * @param request the HTTP request
-     * @param response HTTP response
-     * @param file the zip file created
-     * @param issueKey the issue key in play
-     * @throws java.io.IOException if the stream cant be written to
-     */
-    private void setResponseHeaders(final HttpServletRequest request, final HttpServletResponse response,
-            final File file, final String issueKey) throws IOException
-    {
-        setFileDownloadHeaders(request, response, new BufferedInputStream(new FileInputStream(file)),
-                file.length(), issueKey + ".zip", "application/zip");
+        return new AttachmentZipFileCreator(issue);
     }
 
     private void setFileDownloadHeaders(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse,
@@ -323,7 +269,10 @@ public class AttachmentZipServlet extends HttpServlet
             throws IOException
     {
         httpServletResponse.setContentType(contentType);
-        httpServletResponse.setContentLength((int) fileSize);
+        if (fileSize >= 0)
+        {
+            httpServletResponse.setContentLength((int) fileSize);
+        }
 
         MimeSniffingKit sniffingKit = ComponentAccessor.getComponent(MimeSniffingKit.class);
         String userAgent = httpServletRequest.getHeader(BrowserUtils.USER_AGENT_HEADER);
@@ -344,16 +293,6 @@ public class AttachmentZipServlet extends HttpServlet
         return ComponentAccessor.getPermissionManager().hasPermission(Permissions.BROWSE, issue, getLoggedInUser());
     }
 
-    @SuppressWarnings ("ResultOfMethodCallIgnored")
-    private void deleteFile(final File zipFile)
-    {
-        if (zipFile != null)
-        {
-            zipFile.delete();
-        }
-    }
-
-
     private boolean checkSupportEnabled()
     {
         ApplicationProperties ap = getApplicationProperties();
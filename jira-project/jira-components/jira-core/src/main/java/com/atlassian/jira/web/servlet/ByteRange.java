@@ -0,0 +1,156 @@
+package com.atlassian.jira.web.servlet;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A single range of bytes requested with the HTTP <code>Range</code> header, such as <code>bytes=500-999</code>,
+ * <code>bytes=500-</code> or <code>bytes=-500</code>.
+ * <p/>
+ * Requests for several ranges at once are answered with the whole file, which HTTP allows, rather than with a
+ * multipart response.
+ *
+ * @since v6.3.15
+ */
+@Immutable
+public final class ByteRange
+{
+    /**
+     * A range that lies entirely beyond the end of the file, to be answered with
+     * <code>416 Requested Range Not Satisfiable</code>.
+     */
+    public static final ByteRange NOT_SATISFIABLE = new ByteRange(0, -1);
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*");
+
+    private final long first;
+    private final long last;
+
+    private ByteRange(final long first, final long last)
+    {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parses a <code>Range</code> header.
+     *
+     * @param header the value of the header
+     * @param length the length of the file
+     * @return the range, {@link #NOT_SATISFIABLE} if it starts beyond the end of the file, or null if the whole file
+     * should be sent because there is no header, or it is malformed or asks for several ranges
+     */
+    @Nullable
+    public static ByteRange parse(@Nullable final String header, final long length)
+    {
+        if (header == null)
+        {
+            return null;
+        }
+        final Matcher matcher = SINGLE_RANGE.matcher(header);
+        if (!matcher.matches())
+        {
+            return null;
+        }
+        final String first = matcher.group(1);
+        final String last = matcher.group(2);
+        try
+        {
+            if (first.isEmpty())
+            {
+                if (last.isEmpty())
+                {
+                    return null;
+                }
+                // the last n bytes
+                final long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0)
+                {
+                    return NOT_SATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+
+            final long from = Long.parseLong(first);
+            if (!last.isEmpty() && Long.parseLong(last) < from)
+            {
+                return null;
+            }
+            if (from >= length)
+            {
+                return NOT_SATISFIABLE;
+            }
+            return new ByteRange(from, last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1));
+        }
+        catch (NumberFormatException e)
+        {
+            // too many digits for a long
+            return null;
+        }
+    }
+
+    public boolean isSatisfiable()
+    {
+        return last >= first;
+    }
+
+    /**
+     * @return the position of the first byte in the range
+     */
+    public long getFirst()
+    {
+        return first;
+    }
+
+    /**
+     * @return the position of the last byte in the range, which is always within the file
+     */
+    public long getLast()
+    {
+        return last;
+    }
+
+    public long getLength()
+    {
+        return last - first + 1;
+    }
+
+    /**
+     * @param length the length of the file
+     * @return the value of the <code>Content-Range</code> header that answers the request for this range
+     */
+    public String toContentRange(final long length)
+    {
+        return isSatisfiable() ? "bytes " + first + "-" + last + "/" + length : "bytes */" + length;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof ByteRange))
+        {
+            return false;
+        }
+        final ByteRange other = (ByteRange) o;
+        return first == other.first && last == other.last;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * (int) (first ^ (first >>> 32)) + (int) (last ^ (last >>> 32));
+    }
+
+    @Override
+    public String toString()
+    {
+        return isSatisfiable() ? first + "-" + last : "not satisfiable";
+    }
+}
@@ -46,6 +46,15 @@ public class ViewAttachmentServlet extends AbstractViewFileServlet
         ComponentAccessor.getAttachmentManager().streamAttachmentContent(attachment, consumer);
     }
 
+    @Override
+    protected void checkPermission(String attachmentQuery) throws DataAccessException, PermissionException
+    {
+        if (!hasPermissionToViewAttachment(getUserName(), getAttachment(attachmentQuery)))
+        {
+            throw new PermissionException("You do not have permissions to view this issue");
+        }
+    }
+
     /**
      * Looks up the attachment by reading the id from the query string.
      *
@@ -94,6 +103,16 @@ public class ViewAttachmentServlet extends AbstractViewFileServlet
         HttpResponseHeaders.cachePrivatelyForAboutOneYear(response);
     }
 
+    /**
+     * Attachments never change once they are created, so the id and size of the attachment identify its contents.
+     */
+    @Override
+    protected String getETag(HttpServletRequest request)
+    {
+        final Attachment attachment = getAttachment(attachmentQuery(request));
+        return "\"" + attachment.getId() + "-" + attachment.getFilesize() + "\"";
+    }
+
     /**
      * Gets MimeSniffingKit from PICO container, you should not cache it in the servlet because servlets have a different
      * lifecycle than PICO.
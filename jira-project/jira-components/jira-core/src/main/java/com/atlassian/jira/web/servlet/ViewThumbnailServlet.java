@@ -47,4 +47,12 @@ public class ViewThumbnailServlet extends ViewAttachmentServlet
 
         HttpResponseHeaders.cachePrivatelyForAboutOneYear(response);
     }
+
+    @Override
+    protected String getETag(HttpServletRequest request)
+    {
+        final Attachment attachment = getAttachment(attachmentQuery(request));
+        final File thumbnailFile = AttachmentUtils.getThumbnailFile(attachment);
+        return "\"" + attachment.getId() + "-" + thumbnailFile.length() + "-thumbnail\"";
+    }
 }
@@ -1,9 +1,12 @@
 package com.atlassian.jira.rest.v2.issue;
 
+import com.atlassian.jira.issue.BulkIssueLoader;
 import com.atlassian.jira.issue.fields.Field;
+import com.atlassian.jira.issue.fields.FieldManager;
 import com.atlassian.jira.issue.fields.NavigableField;
 import com.atlassian.jira.rest.api.util.StringList;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -91,4 +94,27 @@ public class IncludedFields
         return include.contains(fieldId);
     }
 
+    /**
+     * Returns the ids of the custom fields that are explicitly included, or {@link BulkIssueLoader#ALL_CUSTOM_FIELDS} if
+     * custom fields are included by default.
+     *
+     * @return a Set&lt;String&gt; of custom field ids
+     */
+    public Set<String> includedCustomFieldIds()
+    {
+        if (includeAll || includeNavigable)
+        {
+            return Collections.singleton(BulkIssueLoader.ALL_CUSTOM_FIELDS);
+        }
+        Set<String> customFieldIds = new HashSet<String>();
+        for (String fieldId : include)
+        {
+            if (fieldId.startsWith(FieldManager.CUSTOM_FIELD_PREFIX))
+            {
+                customFieldIds.add(fieldId);
+            }
+        }
+        return customFieldIds;
+    }
+
 }
@@ -2,7 +2,9 @@ package com.atlassian.jira.rest.v2.search;
 
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.issue.BulkIssueLoader;
 import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.IssueFieldConstants;
 import com.atlassian.jira.issue.search.SearchException;
 import com.atlassian.jira.issue.search.SearchResults;
 import com.atlassian.jira.rest.api.util.ErrorCollection;
@@ -24,6 +26,7 @@ import com.atlassian.plugins.rest.common.security.AnonymousAllowed;
 import com.google.common.base.Function;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -79,13 +82,19 @@ public class SearchResource
      */
     private final BeanBuilderFactory beanBuilderFactory;
 
+    /**
+     * Loads the fields of the found issues in bulk.
+     */
+    private final BulkIssueLoader bulkIssueLoader;
+
     public SearchResource(SearchService searchService, JiraAuthenticationContext jiraAuthenticationContext,
-            IssueSearchLimits searchLimits, BeanBuilderFactory beanBuilderFactory)
+            IssueSearchLimits searchLimits, BeanBuilderFactory beanBuilderFactory, BulkIssueLoader bulkIssueLoader)
     {
         this.searchService = searchService;
         this.jiraAuthenticationContext = jiraAuthenticationContext;
         this.searchLimits = searchLimits;
         this.beanBuilderFactory = beanBuilderFactory;
+        this.bulkIssueLoader = bulkIssueLoader;
     }
 
     /**
@@ -230,6 +239,7 @@ public class SearchResource
      */
     protected SearchResultsBean asResultsBean(SearchResults results, PagerFilter filter, IncludedFields fields, StringList expand, Set<String> warningMessages)
     {
+        bulkIssueLoader.loadFields(results.getIssues(), getBulkLoadedFieldIds(fields));
         List<IssueBean> issues = newArrayList(transform(results.getIssues(), new IssueToIssueBean(fields, expand)));
         return new SearchResultsBean(
                 results.getStart(),
@@ -240,6 +250,26 @@ public class SearchResource
         );
     }
 
+    /**
+     * Returns the ids of the fields that will be rendered and can be loaded for all the issues at once.
+     *
+     * @param fields the fields to include
+     * @return a Set&lt;String&gt; of field ids
+     */
+    private Set<String> getBulkLoadedFieldIds(IncludedFields fields)
+    {
+        Set<String> fieldIds = new HashSet<String>();
+        for (String fieldId : new String[] { IssueFieldConstants.COMPONENTS, IssueFieldConstants.AFFECTED_VERSIONS, IssueFieldConstants.FIX_FOR_VERSIONS, IssueFieldConstants.LABELS })
+        {
+            if (fields.included(fieldId, true))
+            {
+                fieldIds.add(fieldId);
+            }
+        }
+        fieldIds.addAll(fields.includedCustomFieldIds());
+        return fieldIds;
+    }
+
     /**
      * Creates a new PagerFilter for the given search request. If the maxResults specified in the search request is
      * greater than the value returned by {@link com.atlassian.jira.web.action.issue.IssueSearchLimits#getMaxResults()},
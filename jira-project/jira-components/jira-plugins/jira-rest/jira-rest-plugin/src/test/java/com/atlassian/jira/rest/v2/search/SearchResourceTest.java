@@ -1,6 +1,7 @@
 package com.atlassian.jira.rest.v2.search;
 
 import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.issue.BulkIssueLoader;
 import com.atlassian.jira.rest.v2.issue.builder.BeanBuilderFactory;
 import com.atlassian.jira.security.JiraAuthenticationContext;
 import com.atlassian.jira.web.action.issue.IssueSearchLimits;
@@ -28,12 +29,15 @@ public class SearchResourceTest
     @Mock
     BeanBuilderFactory beanBuildFactory;
 
+    @Mock
+    BulkIssueLoader bulkIssueLoader;
+
     @Test
     public void testCreateFilterShouldNotCreateUnlimitedFilterWhenMaxResultsIsMinusOne() throws Exception
     {
         when(issueSearchLimits.getMaxResults()).thenReturn(200);
 
-        SearchResource search = new SearchResource(searchService, jiraAuthenticationContext, issueSearchLimits, beanBuildFactory);
+        SearchResource search = new SearchResource(searchService, jiraAuthenticationContext, issueSearchLimits, beanBuildFactory, bulkIssueLoader);
         PagerFilter filter = search.createFilter(0, -1);
 
         assertThat(filter.getMax(), equalTo(200));
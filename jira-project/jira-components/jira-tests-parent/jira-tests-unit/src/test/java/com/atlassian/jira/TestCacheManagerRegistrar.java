@@ -11,6 +11,7 @@ import com.atlassian.cache.ehcache.EhCacheManager;
 import com.atlassian.cache.memory.MemoryCacheManager;
 import com.atlassian.jira.cache.CacheCompactor;
 import com.atlassian.jira.cache.EhCacheCompactor;
+import com.atlassian.jira.cache.InstrumentedCacheManager;
 import com.atlassian.jira.cluster.ClusterNodeProperties;
 import com.atlassian.jira.cluster.EhCacheConfigurationFactory;
 import com.atlassian.jira.config.properties.JiraSystemProperties;
@@ -152,7 +153,8 @@ public class TestCacheManagerRegistrar
         verify(mockComponentContainer).instance(eq(MANAGER_SCOPE), eq(MANAGER_KEY), cacheManagerCaptor.capture());
         final CacheManager cacheManager = cacheManagerCaptor.getValue();
         assertNotNull(cacheManager);
-        assertEquals(expectedCacheManagerClass, cacheManager.getClass());
+        assertEquals(InstrumentedCacheManager.class, cacheManager.getClass());
+        assertEquals(expectedCacheManagerClass, ((InstrumentedCacheManager) cacheManager).getDelegate().getClass());
         return cacheManager;
     }
 
@@ -12,6 +12,7 @@ import java.util.Map;
 
 import com.atlassian.cache.memory.MemoryCacheManager;
 import com.atlassian.core.util.map.EasyMap;
+import com.atlassian.jira.cache.ReplaceFailingCacheManager;
 import com.atlassian.jira.mock.ofbiz.MockGenericValue;
 import com.atlassian.jira.mock.project.MockVersion;
 import com.atlassian.jira.project.version.CachingVersionStore;
@@ -22,6 +23,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.ofbiz.core.entity.GenericValue;
 
+import com.google.common.collect.ImmutableList;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -95,6 +98,66 @@ public class TestCachingVersionStore
 
     }
 
+    @Test
+    public void createdVersionsArePatchedIntoTheListOfAllVersions()
+    {
+        final GenericValue version1 = cachingVersionStore.createVersion(versionParams(1, "v1.0", 1));
+        final GenericValue version3 = cachingVersionStore.createVersion(versionParams(3, "v3.0", 3));
+        assertEquals(ImmutableList.of(version1, version3), cachingVersionStore.getAllVersions());
+
+        final GenericValue version2 = cachingVersionStore.createVersion(versionParams(2, "v2.0", 2));
+
+        assertEquals(ImmutableList.of(version1, version2, version3), cachingVersionStore.getAllVersions());
+        assertEquals(1, underlyingStore.allVersionsLoads);
+    }
+
+    @Test
+    public void updatedVersionsArePatchedIntoTheListOfAllVersions()
+    {
+        final MockVersion version1 = new MockVersion(1, "v1.0", null, 1L);
+        final MockVersion version2 = new MockVersion(2, "v2.0", null, 2L);
+        cachingVersionStore.storeVersions(ImmutableList.<Version>of(version1, version2));
+        assertEquals(ImmutableList.of(version1.getGenericValue(), version2.getGenericValue()), cachingVersionStore.getAllVersions());
+
+        version1.setSequence(3L);
+        cachingVersionStore.storeVersion(version1);
+
+        assertEquals(ImmutableList.of(version2.getGenericValue(), version1.getGenericValue()), cachingVersionStore.getAllVersions());
+        assertEquals(1, underlyingStore.allVersionsLoads);
+    }
+
+    @Test
+    public void deletedVersionsArePatchedOutOfTheListOfAllVersions()
+    {
+        final GenericValue version1 = cachingVersionStore.createVersion(versionParams(1, "v1.0", 1));
+        final GenericValue version2 = cachingVersionStore.createVersion(versionParams(2, "v2.0", 2));
+        assertEquals(ImmutableList.of(version1, version2), cachingVersionStore.getAllVersions());
+
+        cachingVersionStore.deleteVersion(version1);
+
+        assertEquals(ImmutableList.of(version2), cachingVersionStore.getAllVersions());
+        assertEquals(1, underlyingStore.allVersionsLoads);
+    }
+
+    @Test
+    public void theListOfAllVersionsIsReloadedWhenItCannotBePatched()
+    {
+        cachingVersionStore = new CachingVersionStore(underlyingStore, ReplaceFailingCacheManager.create(new MemoryCacheManager(),
+                CachingVersionStore.class.getCanonicalName() + ".cache.allVersions"));
+        final GenericValue version1 = cachingVersionStore.createVersion(versionParams(1, "v1.0", 1));
+        assertEquals(ImmutableList.of(version1), cachingVersionStore.getAllVersions());
+
+        final GenericValue version2 = cachingVersionStore.createVersion(versionParams(2, "v2.0", 2));
+
+        assertEquals(ImmutableList.of(version1, version2), cachingVersionStore.getAllVersions());
+        assertEquals(2, underlyingStore.allVersionsLoads);
+    }
+
+    private static Map<String, Object> versionParams(final long id, final String name, final long sequence)
+    {
+        return EasyMap.build("id", id, "name", name, "sequence", sequence);
+    }
+
     private void assertGetVersion(GenericValue version, Long id)
     {
         assertEquals(version, underlyingStore.getVersion(id));
@@ -105,9 +168,11 @@ public class TestCachingVersionStore
     {
 
         private List versions = new ArrayList();
+        private int allVersionsLoads;
 
         public List<GenericValue> getAllVersions()
         {
+            allVersionsLoads++;
             List versionGVs = new ArrayList(versions.size());
             for (Iterator iterator = versions.iterator(); iterator.hasNext();)
             {
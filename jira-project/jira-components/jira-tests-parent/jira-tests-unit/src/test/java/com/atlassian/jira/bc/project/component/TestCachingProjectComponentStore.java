@@ -1,12 +1,16 @@
 package com.atlassian.jira.bc.project.component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import com.atlassian.beehive.ClusterLockService;
 import com.atlassian.beehive.simple.SimpleClusterLockService;
+import com.atlassian.cache.CacheManager;
 import com.atlassian.cache.memory.MemoryCacheManager;
 import com.atlassian.jira.bc.EntityNotFoundException;
+import com.atlassian.jira.cache.ReplaceFailingCacheManager;
 import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.mock.component.MockComponentWorker;
 import com.atlassian.jira.mock.ofbiz.MockOfBizDelegator;
@@ -14,11 +18,17 @@ import com.atlassian.jira.project.MockProject;
 import com.atlassian.jira.project.Project;
 import com.atlassian.jira.project.ProjectManager;
 
+import com.google.common.collect.ImmutableList;
+
 import org.junit.After;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -111,5 +121,93 @@ public class TestCachingProjectComponentStore extends TestOfBizProjectComponentS
         }
     }
 
+    @Test
+    public void insertedComponentIsPatchedIntoTheComponentsOfItsProject() throws Exception
+    {
+        final ProjectComponentStore delegate = Mockito.mock(ProjectComponentStore.class);
+        final MutableProjectComponent beta = component(1001L, "beta");
+        when(delegate.findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1)).thenReturn(ImmutableList.of(beta));
+        when(delegate.store(any(MutableProjectComponent.class))).thenReturn(component(1000L, "alpha"));
+        final ProjectComponentStore store = createStore(delegate, new MemoryCacheManager());
+        assertEquals(ImmutableList.of("beta"), namesOfComponents(store));
+
+        store.store(new MutableProjectComponent(null, "alpha", "desc", null, 0, ProjectComponentStoreTester.PROJECT_ID_1));
+
+        assertEquals(ImmutableList.of("alpha", "beta"), namesOfComponents(store));
+        verify(delegate, times(1)).findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1);
+    }
+
+    @Test
+    public void updatedComponentIsPatchedIntoTheComponentsOfItsProject() throws Exception
+    {
+        final ProjectComponentStore delegate = Mockito.mock(ProjectComponentStore.class);
+        final MutableProjectComponent alpha = component(1000L, "alpha");
+        when(delegate.find(1000L)).thenReturn(alpha);
+        when(delegate.findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1)).thenReturn(ImmutableList.of(alpha, component(1001L, "beta")));
+        final ProjectComponentStore store = createStore(delegate, new MemoryCacheManager());
+        assertEquals(ImmutableList.of("alpha", "beta"), namesOfComponents(store));
+
+        store.store(component(1000L, "gamma"));
+
+        assertEquals(ImmutableList.of("beta", "gamma"), namesOfComponents(store));
+        verify(delegate, times(1)).findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1);
+    }
+
+    @Test
+    public void deletedComponentIsPatchedOutOfTheComponentsOfItsProject() throws Exception
+    {
+        final ProjectComponentStore delegate = Mockito.mock(ProjectComponentStore.class);
+        final MutableProjectComponent alpha = component(1000L, "alpha");
+        when(delegate.find(1000L)).thenReturn(alpha);
+        when(delegate.findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1)).thenReturn(ImmutableList.of(alpha, component(1001L, "beta")));
+        final ProjectComponentStore store = createStore(delegate, new MemoryCacheManager());
+        assertEquals(ImmutableList.of("alpha", "beta"), namesOfComponents(store));
+
+        store.delete(1000L);
+
+        assertEquals(ImmutableList.of("beta"), namesOfComponents(store));
+        verify(delegate, times(1)).findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1);
+    }
+
+    @Test
+    public void componentsOfTheProjectAreReloadedWhenTheyCannotBePatched() throws Exception
+    {
+        final ProjectComponentStore delegate = Mockito.mock(ProjectComponentStore.class);
+        final MutableProjectComponent beta = component(1001L, "beta");
+        final MutableProjectComponent alpha = component(1000L, "alpha");
+        when(delegate.findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1))
+                .thenReturn(ImmutableList.of(beta), ImmutableList.of(alpha, beta));
+        when(delegate.store(any(MutableProjectComponent.class))).thenReturn(alpha);
+        final ProjectComponentStore store = createStore(delegate, ReplaceFailingCacheManager.create(new MemoryCacheManager(),
+                CachingProjectComponentStore.class.getName() + ".projectIdToComponentsMap"));
+        assertEquals(ImmutableList.of("beta"), namesOfComponents(store));
+
+        store.store(new MutableProjectComponent(null, "alpha", "desc", null, 0, ProjectComponentStoreTester.PROJECT_ID_1));
+
+        assertEquals(ImmutableList.of("alpha", "beta"), namesOfComponents(store));
+        verify(delegate, times(2)).findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1);
+    }
+
+    private ProjectComponentStore createStore(final ProjectComponentStore delegate, final CacheManager cacheManager)
+    {
+        final CachingProjectComponentStore store = new CachingProjectComponentStore(delegate, cacheManager, getClusterLockService());
+        store.start();
+        return store;
+    }
+
+    private static MutableProjectComponent component(final Long id, final String name)
+    {
+        return new MutableProjectComponent(id, name, "desc", null, 0, ProjectComponentStoreTester.PROJECT_ID_1);
+    }
 
+    private static List<String> namesOfComponents(final ProjectComponentStore store)
+    {
+        final Collection<MutableProjectComponent> components = store.findAllForProject(ProjectComponentStoreTester.PROJECT_ID_1);
+        final List<String> names = new ArrayList<String>(components.size());
+        for (final MutableProjectComponent component : components)
+        {
+            names.add(component.getName());
+        }
+        return names;
+    }
 }
@@ -0,0 +1,66 @@
+package com.atlassian.jira.cache;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import com.atlassian.cache.Cache;
+import com.atlassian.cache.CacheManager;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Creates cache managers whose cache with a given name fails every <code>replace</code>, as it would if the entry
+ * were changed by another thread in the meantime. Everything else is passed to a real cache manager.
+ *
+ * @since v6.3.15
+ */
+public class ReplaceFailingCacheManager
+{
+    public static CacheManager create(final CacheManager delegate, final String cacheName)
+    {
+        return mock(CacheManager.class, new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable
+            {
+                final Object result = invoke(delegate, invocation.getMethod(), invocation.getArguments());
+                if (result instanceof Cache && cacheName.equals(invocation.getArguments()[0]))
+                {
+                    return replaceFailing((Cache<?, ?>) result);
+                }
+                return result;
+            }
+        });
+    }
+
+    private static Cache<?, ?> replaceFailing(final Cache<?, ?> cache)
+    {
+        return mock(Cache.class, new Answer<Object>()
+        {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable
+            {
+                if (invocation.getMethod().getName().equals("replace"))
+                {
+                    return false;
+                }
+                return invoke(cache, invocation.getMethod(), invocation.getArguments());
+            }
+        });
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] arguments) throws Throwable
+    {
+        try
+        {
+            return method.invoke(target, arguments);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.atlassian.jira.cache;
+
+import java.util.List;
+import java.util.Set;
+
+import com.atlassian.jira.cluster.ClusterMessageConsumer;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TestDeltaInvalidationChannel
+{
+    @Test
+    public void testIdsAreSentAndReceived()
+    {
+        final List<Set<Long>> received = Lists.newArrayList();
+        final DeltaInvalidationChannel channel = new DeltaInvalidationChannel("TestDelta", new DeltaInvalidationChannel.Listener()
+        {
+            @Override
+            public void onInvalidation(final Set<Long> ids)
+            {
+                received.add(ids);
+            }
+        });
+        final ClusterMessagingService messagingService = mock(ClusterMessagingService.class);
+        channel.start(messagingService);
+
+        final ArgumentCaptor<ClusterMessageConsumer> consumer = ArgumentCaptor.forClass(ClusterMessageConsumer.class);
+        verify(messagingService).registerListener(eq("TestDelta"), consumer.capture());
+
+        channel.publish(ImmutableList.of(10000L, 10001L));
+        verify(messagingService).sendRemote("TestDelta", "10000,10001");
+
+        consumer.getValue().receive("TestDelta", "10000,10001", "node2");
+        consumer.getValue().receive("TestDelta", "", "node2");
+        assertEquals(ImmutableSet.of(10000L, 10001L), received.get(0));
+        assertNull(received.get(1));
+    }
+
+    @Test
+    public void testNothingIsSentWhenNothingChanged()
+    {
+        final ClusterMessagingService messagingService = mock(ClusterMessagingService.class);
+        final DeltaInvalidationChannel channel = new DeltaInvalidationChannel("TestDelta", mock(DeltaInvalidationChannel.Listener.class));
+        channel.start(messagingService);
+
+        channel.publish(ImmutableList.<Long>of());
+
+        verify(messagingService, never()).sendRemote(anyString(), anyString());
+    }
+
+    @Test
+    public void testTooManyIdsMeansEverything()
+    {
+        final List<Long> ids = Lists.newArrayList();
+        for (long id = 10000; id < 10100; id++)
+        {
+            ids.add(id);
+        }
+        assertEquals("", DeltaInvalidationChannel.encode(ids));
+        assertNull(DeltaInvalidationChannel.decode(""));
+    }
+
+    @Test
+    public void testMalformedMessageMeansEverything()
+    {
+        assertNull(DeltaInvalidationChannel.decode("10000,abc"));
+        assertEquals(ImmutableSet.of(1L, 2L), DeltaInvalidationChannel.decode("1, 2,"));
+    }
+}
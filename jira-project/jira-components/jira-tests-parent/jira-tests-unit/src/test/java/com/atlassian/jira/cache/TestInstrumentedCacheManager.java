@@ -0,0 +1,83 @@
+package com.atlassian.jira.cache;
+
+import com.atlassian.cache.Cache;
+import com.atlassian.cache.CacheLoader;
+import com.atlassian.cache.memory.MemoryCacheManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TestInstrumentedCacheManager
+{
+    private InstrumentedCacheManager cacheManager;
+
+    @Before
+    public void setUp()
+    {
+        cacheManager = new InstrumentedCacheManager(new MemoryCacheManager());
+    }
+
+    @Test
+    public void testLoadsAreCounted()
+    {
+        final Cache<String, String> cache = cacheManager.getCache("test", new CacheLoader<String, String>()
+        {
+            @Override
+            public String load(final String key)
+            {
+                if ("bad".equals(key))
+                {
+                    throw new IllegalArgumentException(key);
+                }
+                return key.toUpperCase();
+            }
+        });
+
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("B", cache.get("b"));
+        try
+        {
+            cache.get("bad");
+            fail("Expected the loader's exception");
+        }
+        catch (RuntimeException expected)
+        {
+        }
+
+        final CacheStatistics statistics = cacheManager.getStatistics("test");
+        assertEquals(3, statistics.getLoadCount());
+        assertEquals(1, statistics.getLoadFailureCount());
+        long histogramTotal = 0;
+        for (long count : statistics.getLoadTimeHistogram())
+        {
+            histogramTotal += count;
+        }
+        assertEquals(3, histogramTotal);
+    }
+
+    @Test
+    public void testInvalidationCausesAreCounted()
+    {
+        final Cache<String, String> cache = cacheManager.getCache("test");
+        cache.put("a", "A");
+        cache.remove("a");
+        cache.removeAll();
+        cacheManager.flushCaches();
+
+        final CacheStatistics statistics = cacheManager.getStatistics("test");
+        assertEquals(1, statistics.getRemoveCount());
+        assertEquals(1, statistics.getRemoveAllCount());
+        assertEquals(1, statistics.getFlushCount());
+    }
+
+    @Test
+    public void testNoStatisticsForUnknownCache()
+    {
+        assertNull(cacheManager.getStatistics("unknown"));
+    }
+}
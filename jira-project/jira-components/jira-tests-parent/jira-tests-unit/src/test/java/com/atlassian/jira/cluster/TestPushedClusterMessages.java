@@ -0,0 +1,288 @@
+package com.atlassian.jira.cluster;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.instrumentation.DefaultInstrumentRegistry;
+import com.atlassian.instrumentation.InstrumentRegistry;
+import com.atlassian.jira.instrumentation.InstrumentationName;
+import com.atlassian.jira.junit.rules.AvailableInContainer;
+import com.atlassian.jira.junit.rules.MockitoContainer;
+import com.atlassian.jira.ofbiz.OfBizDelegator;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs several nodes' message handler services in one JVM, pushing messages to each other over sockets and sharing an
+ * in-memory message store.
+ *
+ * @since v6.3.15
+ */
+public class TestPushedClusterMessages
+{
+    private static final String CHANNEL = "test";
+    // the services do not poll the database during a test, so anything that is delivered was pushed, or read from the
+    // database because a push said a message was missed
+    private static final long POLL_DELAY_SECONDS = TimeUnit.HOURS.toSeconds(1);
+    // only reached if a message is never delivered
+    private static final long PUSH_TIMEOUT_MILLIS = 30000;
+
+    @AvailableInContainer private final InstrumentRegistry instrumentRegistry = new DefaultInstrumentRegistry();
+    @Rule public MockitoContainer mockitoContainer = new MockitoContainer(this);
+
+    private final Node node1 = new Node("node1", Node.NodeState.ACTIVE);
+    private final Node node2 = new Node("node2", Node.NodeState.ACTIVE);
+    private final Node node3 = new Node("node3", Node.NodeState.ACTIVE);
+    private final Map<String, InetSocketAddress> addresses = new ConcurrentHashMap<String, InetSocketAddress>();
+    private final Map<String, Semaphore> connections = new ConcurrentHashMap<String, Semaphore>();
+    private final List<OfBizMessageHandlerService> services = new ArrayList<OfBizMessageHandlerService>();
+    private InMemoryClusterMessageStore store;
+
+    private OfBizMessageHandlerService service1;
+    private RecordingConsumer consumer2;
+    private RecordingConsumer consumer3;
+
+    @Before
+    public void setUp()
+    {
+        store = new InMemoryClusterMessageStore();
+        service1 = startNode(node1);
+        consumer2 = new RecordingConsumer();
+        startNode(node2).registerListener(CHANNEL, consumer2);
+        consumer3 = new RecordingConsumer();
+        startNode(node3).registerListener(CHANNEL, consumer3);
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (OfBizMessageHandlerService service : services)
+        {
+            service.stop();
+        }
+    }
+
+    @Test
+    public void messagesToAllNodesArePushed() throws Exception
+    {
+        service1.sendRemote(CHANNEL, "one");
+        service1.sendRemote(CHANNEL, "two");
+
+        assertEquals("one", consumer2.next());
+        assertEquals("two", consumer2.next());
+        assertEquals("one", consumer3.next());
+        assertEquals("two", consumer3.next());
+        assertEquals(4, instrumentRegistry.pullOpCounter(InstrumentationName.CLUSTER_MESSAGES_PUSHED.getInstrumentName()).getInvocationCount());
+    }
+
+    @Test
+    public void messagesToOneNodeArePushedOnlyToThatNode() throws Exception
+    {
+        service1.sendMessage(node3.getNodeId(), new Message(CHANNEL, "three"));
+        service1.sendRemote(CHANNEL, "all");
+
+        assertEquals("three", consumer3.next());
+        assertEquals("all", consumer3.next());
+        assertEquals("all", consumer2.next());
+        // each node is pushed its messages in order, so "three" would have arrived before "all"
+        assertNull(consumer2.poll());
+    }
+
+    @Test
+    public void messagesThatWereNotPushedAreReadFromTheDatabaseFirst() throws Exception
+    {
+        // nothing listens on a closed port, so the push to node2 is lost
+        final InetSocketAddress node2Address = addresses.get(node2.getNodeId());
+        final ServerSocket closed = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        closed.close();
+        addresses.put(node2.getNodeId(), new InetSocketAddress("127.0.0.1", closed.getLocalPort()));
+        service1.sendRemote(CHANNEL, "lost");
+        assertEquals("lost", consumer3.next());
+        // the push is tried twice before it is dropped
+        awaitConnections(node2, 2);
+
+        addresses.put(node2.getNodeId(), node2Address);
+        service1.sendRemote(CHANNEL, "pushed");
+
+        assertEquals("lost", consumer2.next());
+        assertEquals("pushed", consumer2.next());
+        assertEquals("pushed", consumer3.next());
+        assertEquals(2, instrumentRegistry.pullOpCounter(InstrumentationName.CLUSTER_MESSAGES_POLLED.getInstrumentName()).getInvocationCount());
+        assertEquals(2, instrumentRegistry.pullOpCounter(InstrumentationName.CLUSTER_MESSAGES_PUSHED.getInstrumentName()).getInvocationCount());
+    }
+
+    @Test
+    public void messagesToAnyNodeAreClaimedByOneNode() throws Exception
+    {
+        service1.sendMessage(ClusterManager.ANY_NODE, new Message(CHANNEL, "any"));
+        service1.sendRemote(CHANNEL, "all");
+
+        // "all" is pushed after "any", so once both nodes have it, "any" has been delivered if it is going to be
+        final List<String> received = new ArrayList<String>();
+        received.addAll(consumer2.nextUpTo("all"));
+        received.addAll(consumer3.nextUpTo("all"));
+        assertNull(consumer2.poll());
+        assertNull(consumer3.poll());
+        assertEquals(1, Collections.frequency(received, "any"));
+        assertEquals(2, Collections.frequency(received, "all"));
+        assertEquals(3, received.size());
+    }
+
+    private OfBizMessageHandlerService startNode(final Node node)
+    {
+        final NodeStateManager nodeStateManager = mock(NodeStateManager.class);
+        when(nodeStateManager.getNode()).thenReturn(node);
+        when(nodeStateManager.getAllNodes()).thenReturn(ImmutableSet.of(node1, node2, node3));
+
+        final SocketMessageTransport transport = new SocketMessageTransport("127.0.0.1", 0, new Function<Node, InetSocketAddress>()
+        {
+            @Override
+            public InetSocketAddress apply(final Node node)
+            {
+                connections.get(node.getNodeId()).release();
+                return addresses.get(node.getNodeId());
+            }
+        });
+        final OfBizMessageHandlerService service = new OfBizMessageHandlerService(nodeStateManager, store, mock(EventPublisher.class), transport);
+        services.add(service);
+        connections.put(node.getNodeId(), new Semaphore(0));
+        service.start(POLL_DELAY_SECONDS);
+        addresses.put(node.getNodeId(), new InetSocketAddress("127.0.0.1", transport.getLocalPort()));
+        return service;
+    }
+
+    private void awaitConnections(final Node node, final int count) throws InterruptedException
+    {
+        if (!connections.get(node.getNodeId()).tryAcquire(count, PUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+        {
+            fail("node " + node.getNodeId() + " was not connected to " + count + " times");
+        }
+    }
+
+    private static class RecordingConsumer implements ClusterMessageConsumer
+    {
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<String>();
+
+        @Override
+        public void receive(final String channel, final String message, final String senderId)
+        {
+            messages.add(message);
+        }
+
+        String next() throws InterruptedException
+        {
+            final String message = messages.poll(PUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertTrue("no message was pushed", message != null);
+            return message;
+        }
+
+        /**
+         * @return the message that has already been delivered, if there is one
+         */
+        String poll()
+        {
+            return messages.poll();
+        }
+
+        /**
+         * @return the messages delivered up to and including the given one
+         */
+        List<String> nextUpTo(final String last) throws InterruptedException
+        {
+            final List<String> received = new ArrayList<String>();
+            String message;
+            do
+            {
+                message = next();
+                received.add(message);
+            }
+            while (!message.equals(last));
+            return received;
+        }
+    }
+
+    /**
+     * Shares messages between the nodes the way the cluster message table does.
+     */
+    private static class InMemoryClusterMessageStore extends OfBizClusterMessageStore
+    {
+        private final List<ClusterMessage> messages = new ArrayList<ClusterMessage>();
+
+        InMemoryClusterMessageStore()
+        {
+            super(mock(OfBizDelegator.class));
+        }
+
+        @Override
+        public synchronized ClusterMessage createMessage(final String sourceNode, final String destinationNode, final String message)
+        {
+            final ClusterMessage clusterMessage = new ClusterMessage((long) messages.size() + 1, sourceNode, destinationNode, null,
+                    Message.fromString(message), new Timestamp(System.currentTimeMillis()));
+            messages.add(clusterMessage);
+            return clusterMessage;
+        }
+
+        @Override
+        public synchronized List<ClusterMessage> getMessages(final Node sourceNode, final Node destinationNode, final Long afterMessageId)
+        {
+            final List<ClusterMessage> result = new ArrayList<ClusterMessage>();
+            for (int i = 0; i < messages.size(); i++)
+            {
+                final ClusterMessage message = messages.get(i);
+                final String destination = message.getDestinationNode();
+                if (message.getSourceNode().equals(sourceNode.getNodeId())
+                        && (afterMessageId == null || message.getId() > afterMessageId)
+                        && (destination.equals(ClusterManager.ALL_NODES) || destination.equals(destinationNode.getNodeId())
+                            || (destination.equals(ClusterManager.ANY_NODE) && message.getClaimedByNode() == null)))
+                {
+                    if (destination.equals(ClusterManager.ANY_NODE))
+                    {
+                        messages.set(i, new ClusterMessage(message.getId(), message.getSourceNode(), destination,
+                                destinationNode.getNodeId(), message.getMessage(), message.getTimestamp()));
+                    }
+                    result.add(message);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized Long getLatestMessageByNodeId(final String nodeId)
+        {
+            Long latest = null;
+            for (ClusterMessage message : messages)
+            {
+                if (message.getSourceNode().equals(nodeId))
+                {
+                    latest = message.getId();
+                }
+            }
+            return latest;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.atlassian.jira.entity;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.atlassian.jira.mock.ofbiz.MockGenericValue;
+import com.atlassian.jira.mock.ofbiz.MockOfBizDelegator;
+import com.atlassian.jira.ofbiz.FieldMap;
+import com.atlassian.jira.ofbiz.OfBizListIterator;
+import com.atlassian.jira.util.collect.CloseableIterator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ofbiz.core.entity.EntityCondition;
+import org.ofbiz.core.entity.EntityFindOptions;
+import org.ofbiz.core.entity.GenericValue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class TestSelectQueryPagingById
+{
+    private final List<EntityFindOptions> queries = Lists.newArrayList();
+    private MockOfBizDelegator ofBizDelegator;
+
+    @Before
+    public void setUp()
+    {
+        final List<GenericValue> worklogs = Lists.newArrayList();
+        // deliberately out of id order
+        for (long id : new long[] { 10004L, 10000L, 10003L, 10001L, 10002L })
+        {
+            worklogs.add(new MockGenericValue("Worklog", FieldMap.build("id", id, "issue", id % 2)));
+        }
+        ofBizDelegator = new MockOfBizDelegator(worklogs, null)
+        {
+            @Override
+            public OfBizListIterator findListIteratorByCondition(final String entityName, final EntityCondition whereEntityCondition,
+                    final EntityCondition havingEntityCondition, final Collection<String> fieldsToSelect, final List<String> orderBy,
+                    final EntityFindOptions entityFindOptions)
+            {
+                queries.add(entityFindOptions);
+                return super.findListIteratorByCondition(entityName, whereEntityCondition, havingEntityCondition,
+                        fieldsToSelect, orderBy, entityFindOptions);
+            }
+        };
+    }
+
+    @Test
+    public void testIteratorWalksTheTableInIdOrderAPageAtATime()
+    {
+        final CloseableIterator<Long> it = Select.id().from("Worklog").runWith(ofBizDelegator).iterateById(2);
+        final List<Long> ids = Lists.newArrayList();
+        try
+        {
+            while (it.hasNext())
+            {
+                ids.add(it.next());
+            }
+        }
+        finally
+        {
+            it.close();
+        }
+
+        assertEquals(ImmutableList.of(10000L, 10001L, 10002L, 10003L, 10004L), ids);
+        assertEquals(3, queries.size());
+        for (EntityFindOptions query : queries)
+        {
+            assertEquals(0, query.getOffset());
+            assertEquals(2, query.getMaxResults());
+        }
+    }
+
+    @Test
+    public void testIdIsSelectedEvenIfNotAskedFor()
+    {
+        final List<String> issues = Lists.newArrayList();
+        final CloseableIterator<GenericValue> it = Select.columns("issue").from("Worklog")
+                .whereEqual("issue", 1L)
+                .runWith(ofBizDelegator)
+                .iterateById(1);
+        while (it.hasNext())
+        {
+            final GenericValue worklog = it.next();
+            issues.add(worklog.getLong("id") + ":" + worklog.getLong("issue"));
+        }
+
+        assertEquals(ImmutableList.of("10001:1", "10003:1"), issues);
+    }
+
+    @Test
+    public void testConsumerCanStopTheQuery()
+    {
+        final List<List<Long>> pages = Select.id().from("Worklog").runWith(ofBizDelegator).consumeById(2, new EntityPageConsumer<Long, List<List<Long>>>()
+        {
+            private final List<List<Long>> pages = Lists.newArrayList();
+
+            @Override
+            public boolean consume(final List<Long> page)
+            {
+                pages.add(page);
+                return pages.size() < 2;
+            }
+
+            @Override
+            public List<List<Long>> result()
+            {
+                return pages;
+            }
+        });
+
+        assertEquals(ImmutableList.of(ImmutableList.of(10000L, 10001L), ImmutableList.of(10002L, 10003L)), pages);
+        assertEquals("The third page should never be queried", 2, queries.size());
+    }
+
+    @Test
+    public void testClosedIteratorQueriesNoMore()
+    {
+        final CloseableIterator<Long> it = Select.id().from("Worklog").runWith(ofBizDelegator).iterateById(2);
+        it.next();
+        it.close();
+
+        assertFalse(it.hasNext());
+        assertEquals(1, queries.size());
+    }
+
+    @Test
+    public void testOrderedQueriesCannotBePagedById()
+    {
+        try
+        {
+            Select.from("Worklog").orderBy("issue").runWith(ofBizDelegator).iterateById(2);
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException expected)
+        {
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.atlassian.jira.event;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.event.spi.EventExecutorFactory;
+import com.atlassian.event.spi.ListenerInvoker;
+import com.atlassian.instrumentation.Instrument;
+import com.atlassian.instrumentation.InstrumentRegistry;
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith (MockitoJUnitRunner.class)
+public class TestJiraEventDispatcher
+{
+    @Mock
+    private EventExecutorFactory executorFactory;
+    @Mock
+    private InstrumentRegistry instrumentRegistry;
+
+    private JiraEventDispatcher dispatcher;
+
+    @Before
+    public void setUp()
+    {
+        when(executorFactory.getExecutor()).thenReturn(MoreExecutors.sameThreadExecutor());
+    }
+
+    @After
+    public void tearDown()
+    {
+        if (dispatcher != null)
+        {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void eventsAreDeliveredOnThePublishingThreadByDefault()
+    {
+        dispatcher = new JiraEventDispatcher(executorFactory, instrumentRegistry, false, 10);
+        final RecordingInvoker invoker = new RecordingInvoker(true);
+
+        final IssueEvent event = mock(IssueEvent.class);
+        dispatcher.dispatch(invoker, event);
+
+        assertEquals(Collections.<Object>singletonList(event), invoker.events);
+        assertSame(Thread.currentThread(), invoker.threads.get(0));
+        assertEquals(1, dispatcher.getStatistics(RecordingInvoker.NAME).getLatency().getCount());
+        verify(instrumentRegistry, atLeastOnce()).putInstrument(any(Instrument.class));
+    }
+
+    @Test
+    public void issueEventsAreQueuedInOrderForEachListener() throws InterruptedException
+    {
+        dispatcher = new JiraEventDispatcher(executorFactory, instrumentRegistry, true, 10);
+        final RecordingInvoker invoker = new RecordingInvoker(true);
+        invoker.expect(3);
+
+        final IssueEvent first = mock(IssueEvent.class);
+        final IssueEvent second = mock(IssueEvent.class);
+        final IssueEvent third = mock(IssueEvent.class);
+        dispatcher.dispatch(invoker, first);
+        dispatcher.dispatch(invoker, second);
+        dispatcher.dispatch(invoker, third);
+
+        assertTrue(invoker.await());
+        assertEquals(Arrays.<Object>asList(first, second, third), invoker.events);
+        assertNotSame(Thread.currentThread(), invoker.threads.get(0));
+        assertSame(invoker.threads.get(0), invoker.threads.get(2));
+    }
+
+    @Test
+    public void slowListenerDropsEventsWhenItsQueueIsFull() throws InterruptedException
+    {
+        dispatcher = new JiraEventDispatcher(executorFactory, instrumentRegistry, true, 1);
+        final RecordingInvoker invoker = new RecordingInvoker(true);
+        invoker.block();
+
+        // the first event is taken by the worker and blocks it, the second waits in the queue
+        dispatcher.dispatch(invoker, mock(IssueEvent.class));
+        assertTrue(invoker.awaitBlocked());
+        dispatcher.dispatch(invoker, mock(IssueEvent.class));
+        dispatcher.dispatch(invoker, mock(IssueEvent.class));
+
+        final JiraEventDispatcher.ListenerStatistics statistics = dispatcher.getStatistics(RecordingInvoker.NAME);
+        assertEquals(1, statistics.getDroppedCount());
+        assertEquals(1, statistics.getQueueDepth());
+
+        invoker.expect(2);
+        invoker.unblock();
+        assertTrue(invoker.await());
+        assertEquals(2, invoker.events.size());
+    }
+
+    @Test
+    public void listenersThatDoNotSupportAsynchronousEventsAreNotQueued()
+    {
+        dispatcher = new JiraEventDispatcher(executorFactory, instrumentRegistry, true, 10);
+        final RecordingInvoker invoker = new RecordingInvoker(false);
+
+        dispatcher.dispatch(invoker, mock(IssueEvent.class));
+
+        assertSame(Thread.currentThread(), invoker.threads.get(0));
+    }
+
+    @Test
+    public void otherEventsAreNotQueued()
+    {
+        dispatcher = new JiraEventDispatcher(executorFactory, instrumentRegistry, true, 10);
+        final RecordingInvoker invoker = new RecordingInvoker(true);
+
+        dispatcher.dispatch(invoker, new ComponentManagerStartedEvent());
+
+        assertSame(Thread.currentThread(), invoker.threads.get(0));
+    }
+
+    @Test
+    public void eventsAreDeliveredOnThePublishingThreadAfterShutdown()
+    {
+        dispatcher = new JiraEventDispatcher(executorFactory, instrumentRegistry, true, 10);
+        final RecordingInvoker invoker = new RecordingInvoker(true);
+
+        dispatcher.shutdown();
+        dispatcher.dispatch(invoker, mock(IssueEvent.class));
+
+        assertSame(Thread.currentThread(), invoker.threads.get(0));
+    }
+
+    @Test
+    public void listenerNameIsTakenFromTheInvoker()
+    {
+        assertEquals("com.example.Listener.onIssueEvent", JiraEventDispatcher.listenerName(new NamedInvoker(
+                "SingleParameterMethodListenerInvoker{method=public void com.example.Listener.onIssueEvent(com.atlassian.jira.event.issue.IssueEvent), listener=com.example.Listener@1234}")));
+        assertEquals("com.example.LegacyListener", JiraEventDispatcher.listenerName(new NamedInvoker(
+                "IssueEventInvoker{listener=com.example.LegacyListener}")));
+        assertEquals(NamedInvoker.class.getName(), JiraEventDispatcher.listenerName(new NamedInvoker("something else")));
+        assertEquals(RecordingInvoker.NAME, JiraEventDispatcher.listenerName(new RecordingInvoker(true)));
+    }
+
+    private static class RecordingInvoker implements ListenerInvoker
+    {
+        static final String NAME = "com.example.RecordingListener";
+
+        final List<Object> events = new CopyOnWriteArrayList<Object>();
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+        private final boolean async;
+        private volatile CountDownLatch delivered = new CountDownLatch(0);
+        private volatile CountDownLatch blocked = new CountDownLatch(0);
+        private volatile CountDownLatch unblocked = new CountDownLatch(0);
+
+        RecordingInvoker(final boolean async)
+        {
+            this.async = async;
+        }
+
+        void expect(final int count)
+        {
+            delivered = new CountDownLatch(count);
+        }
+
+        boolean await() throws InterruptedException
+        {
+            return delivered.await(5, TimeUnit.SECONDS);
+        }
+
+        void block()
+        {
+            blocked = new CountDownLatch(1);
+            unblocked = new CountDownLatch(1);
+        }
+
+        boolean awaitBlocked() throws InterruptedException
+        {
+            return blocked.await(5, TimeUnit.SECONDS);
+        }
+
+        void unblock()
+        {
+            unblocked.countDown();
+        }
+
+        @Override
+        public Set<Class<?>> getSupportedEventTypes()
+        {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void invoke(final Object event)
+        {
+            blocked.countDown();
+            try
+            {
+                unblocked.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            threads.add(Thread.currentThread());
+            events.add(event);
+            delivered.countDown();
+        }
+
+        @Override
+        public boolean supportAsynchronousEvents()
+        {
+            return async;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "RecordingInvoker{listener=" + NAME + "}";
+        }
+    }
+
+    private static class NamedInvoker implements ListenerInvoker
+    {
+        private final String description;
+
+        NamedInvoker(final String description)
+        {
+            this.description = description;
+        }
+
+        @Override
+        public Set<Class<?>> getSupportedEventTypes()
+        {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void invoke(final Object event)
+        {
+        }
+
+        @Override
+        public boolean supportAsynchronousEvents()
+        {
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return description;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.atlassian.jira.index;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nonnull;
 
+import com.atlassian.core.util.Clock;
 import com.atlassian.instrumentation.Counter;
 import com.atlassian.instrumentation.InstrumentRegistry;
 import com.atlassian.jira.component.ComponentAccessor;
@@ -53,12 +55,16 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class TestDefaultIndexEngine
 {
+    private static final long HOUR = 60 * 60 * 1000;
+
     @Mock
     private InstrumentRegistry instrumentRegistry;
     @Mock
     private Counter counter;
     @Mock
     private Supplier<IndexSearcher> indexSearcherSupplier;
+    @Mock
+    private Clock clock;
 
     @Before
     public void setUp() throws Exception
@@ -95,6 +101,75 @@ public class TestDefaultIndexEngine
         assertNotSame(searcher, newSearcher);
     }
 
+    @Test
+    public void testSearcherKeptUntilRefreshedInNearRealTimeMode() throws Exception
+    {
+        final DefaultConfiguration configuration = new DefaultConfiguration(new RAMDirectory(), new StandardAnalyzer(LuceneVersion.get()));
+        final DefaultIndexEngine engine = new DefaultIndexEngine(toFactory(new Supplier<IndexSearcher>()
+        {
+            public IndexSearcher get()
+            {
+                return getCleanSearcher();
+            }
+        }), new Function<Index.UpdateMode, Writer>()
+        {
+            public Writer get(final Index.UpdateMode mode)
+            {
+                return new WriterWrapper(configuration, mode, indexSearcherSupplier);
+            }
+        }, configuration, FlushPolicy.NONE, SearcherRefreshConfiguration.nearRealTime(HOUR, HOUR), clock);
+
+        try
+        {
+            final IndexSearcher searcher = engine.getSearcher();
+            // written at 1000, searched at 1250
+            when(clock.getCurrentDate()).thenReturn(new Date(1000), new Date(1250));
+            touch(engine);
+            assertSame("should be same until refreshed", searcher, engine.getSearcher());
+            assertEquals(250, engine.getStalenessMillis());
+
+            engine.refresh();
+            assertNotSame(searcher, engine.getSearcher());
+            assertEquals(0, engine.getStalenessMillis());
+        }
+        finally
+        {
+            engine.close();
+        }
+    }
+
+    @Test
+    public void testStaleSearcherReopenedOnceMaxStalenessIsExceeded() throws Exception
+    {
+        final DefaultConfiguration configuration = new DefaultConfiguration(new RAMDirectory(), new StandardAnalyzer(LuceneVersion.get()));
+        final DefaultIndexEngine engine = new DefaultIndexEngine(toFactory(new Supplier<IndexSearcher>()
+        {
+            public IndexSearcher get()
+            {
+                return getCleanSearcher();
+            }
+        }), new Function<Index.UpdateMode, Writer>()
+        {
+            public Writer get(final Index.UpdateMode mode)
+            {
+                return new WriterWrapper(configuration, mode, indexSearcherSupplier);
+            }
+        }, configuration, FlushPolicy.NONE, SearcherRefreshConfiguration.nearRealTime(HOUR, 0), clock);
+
+        try
+        {
+            final IndexSearcher searcher = engine.getSearcher();
+            // written at 1000, searched at 1001
+            when(clock.getCurrentDate()).thenReturn(new Date(1000), new Date(1001));
+            touch(engine);
+            assertNotSame(searcher, engine.getSearcher());
+        }
+        finally
+        {
+            engine.close();
+        }
+    }
+
     @Test
     public void testWriterNotFlushedForWritePolicyNone() throws Exception
     {
@@ -1,5 +1,7 @@
 package com.atlassian.jira.index.ha;
 
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -7,16 +9,20 @@ import com.atlassian.instrumentation.InstrumentRegistry;
 import com.atlassian.jira.bc.project.index.ProjectReindexService;
 import com.atlassian.jira.cluster.ClusterManager;
 import com.atlassian.jira.cluster.Node;
-import com.atlassian.jira.issue.IssueManager;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.issue.BulkIssueLoader;
+import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.comments.CommentManager;
 import com.atlassian.jira.issue.index.IssueIndexManager;
 import com.atlassian.jira.mock.component.MockComponentWorker;
+import com.atlassian.jira.mock.issue.MockIssue;
 import com.atlassian.jira.ofbiz.OfBizDelegator;
 import com.atlassian.jira.project.ProjectManager;
 import com.atlassian.jira.sharing.index.SharedEntityIndexer;
 import com.atlassian.jira.task.TaskManager;
 import com.atlassian.jira.util.I18nHelper;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import org.junit.Before;
@@ -30,6 +36,8 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -53,7 +61,7 @@ public class TestDefaultNodeReindexService
     @Mock
     private ProjectReindexService projectReindexService;
     @Mock
-    private IssueManager issueManager;
+    private BulkIssueLoader bulkIssueLoader;
     @Mock
     private CommentManager commentManager;
     @Mock
@@ -66,6 +74,8 @@ public class TestDefaultNodeReindexService
     private I18nHelper i18nHelper;
     @Mock
     private InstrumentRegistry instruments;
+    @Mock
+    private ApplicationProperties applicationProperties;
 
     private DefaultNodeReindexService service;
 
@@ -84,8 +94,8 @@ public class TestDefaultNodeReindexService
         // We must initialise the DNRS after setting up the interactions for ClusterManager, as the ClusterManager is
         // interrogated during DNRS construction.
         service = new DefaultNodeReindexService(clusterManager, ofBizNodeIndexCounterStore, ofBizNodeIndexOperationStore,
-                indexManager, sharedEntityIndexer, projectManager, projectReindexService, issueManager, commentManager,
-                ofBizDelegator, sharedEntityResolver, null);
+                indexManager, sharedEntityIndexer, projectManager, projectReindexService, bulkIssueLoader, commentManager,
+                ofBizDelegator, sharedEntityResolver, null, applicationProperties);
     }
 
     @Test
@@ -99,6 +109,58 @@ public class TestDefaultNodeReindexService
         verify(indexManager, times(1)).isIndexConsistent();
     }
 
+    @Test
+    public void testIssuesTouchedRepeatedlyAreReindexedOnce() throws Exception
+    {
+        final Set<ReplicatedIndexOperation> operations = ImmutableSet.of(
+                issueOperation(1, ReplicatedIndexOperation.Operation.UPDATE, 10L, 11L),
+                issueOperation(2, ReplicatedIndexOperation.Operation.UPDATE, 11L, 12L),
+                issueOperation(3, ReplicatedIndexOperation.Operation.CREATE, 12L, 13L));
+        when(ofBizNodeIndexCounterStore.getIndexOperationCounterForNodeId("node1", "node1")).thenReturn(0L);
+        when(ofBizNodeIndexOperationStore.getIndexOperationsAfter("node1", 0L)).thenReturn(operations);
+        final List<Issue> issues = ImmutableList.<Issue>of(new MockIssue(10L), new MockIssue(11L), new MockIssue(12L), new MockIssue(13L));
+        when(bulkIssueLoader.getIssues(ImmutableList.of(10L, 11L, 12L, 13L), DefaultNodeReindexService.REPLAY_LOADED_FIELDS)).thenReturn(issues);
+
+        service.replayLocalOperations();
+
+        verify(indexManager, timeout(5000)).reIndexIssueObjects(eq(issues), eq(false), eq(true), eq(false));
+        verify(ofBizNodeIndexCounterStore, timeout(5000)).storeHighestIdForNode("node1", "node1", 3L);
+        verify(bulkIssueLoader, times(1)).getIssues(ImmutableList.of(10L, 11L, 12L, 13L), DefaultNodeReindexService.REPLAY_LOADED_FIELDS);
+    }
+
+    @Test
+    public void lagCountsTheOperationsWrittenDuringTheReplay() throws Exception
+    {
+        final ReplicatedIndexOperation replayed = issueOperation(6, "node2", 1000L, ReplicatedIndexOperation.Operation.UPDATE, 10L);
+        final ReplicatedIndexOperation written = issueOperation(9, "node2", 2000L, ReplicatedIndexOperation.Operation.UPDATE, 11L);
+        when(ofBizNodeIndexCounterStore.getIndexOperationCounterForNodeId("node1", "node2")).thenReturn(5L, 6L);
+        when(ofBizNodeIndexOperationStore.getIndexOperationsAfter("node2", 5L)).thenReturn(ImmutableSet.of(replayed));
+        when(ofBizNodeIndexOperationStore.getIndexOperationsAfter("node2", 6L)).thenReturn(ImmutableSet.of(written));
+        when(ofBizNodeIndexOperationStore.getLatestOperation("node2")).thenReturn(9L);
+        when(bulkIssueLoader.getIssues(ImmutableList.of(10L), DefaultNodeReindexService.REPLAY_LOADED_FIELDS)).thenReturn(ImmutableList.<Issue>of(new MockIssue(10L)));
+
+        service.reIndex();
+
+        verify(ofBizNodeIndexCounterStore).storeHighestIdForNode("node1", "node2", 6L);
+        assertThat(service.getPendingOperations(), is(1));
+        assertThat(service.getOldestPendingOperationTime(), is(2000L));
+    }
+
+    @Test
+    public void noLagOnceTheReplayHasCaughtUp() throws Exception
+    {
+        final ReplicatedIndexOperation replayed = issueOperation(6, "node2", 1000L, ReplicatedIndexOperation.Operation.UPDATE, 10L);
+        when(ofBizNodeIndexCounterStore.getIndexOperationCounterForNodeId("node1", "node2")).thenReturn(5L, 6L);
+        when(ofBizNodeIndexOperationStore.getIndexOperationsAfter("node2", 5L)).thenReturn(ImmutableSet.of(replayed));
+        when(ofBizNodeIndexOperationStore.getLatestOperation("node2")).thenReturn(6L);
+        when(bulkIssueLoader.getIssues(ImmutableList.of(10L), DefaultNodeReindexService.REPLAY_LOADED_FIELDS)).thenReturn(ImmutableList.<Issue>of(new MockIssue(10L)));
+
+        service.reIndex();
+
+        assertThat(service.getPendingOperations(), is(0));
+        assertThat(service.getOldestPendingOperationTime(), is(0L));
+    }
+
     @Test
     public void testMultipleStartCalls()
     {
@@ -124,6 +186,18 @@ public class TestDefaultNodeReindexService
         assertThat(service2, not(sameInstance(service1)));
     }
 
+    private static ReplicatedIndexOperation issueOperation(final long id, final ReplicatedIndexOperation.Operation operation, final Long... issueIds)
+    {
+        return issueOperation(id, "node1", System.currentTimeMillis(), operation, issueIds);
+    }
+
+    private static ReplicatedIndexOperation issueOperation(final long id, final String nodeId, final long indexTime,
+            final ReplicatedIndexOperation.Operation operation, final Long... issueIds)
+    {
+        return new ReplicatedIndexOperation(id, nodeId, new Timestamp(indexTime), ReplicatedIndexOperation.AffectedIndex.ISSUE,
+                ReplicatedIndexOperation.SharedEntityType.NONE, operation, ImmutableSet.copyOf(issueIds), "");
+    }
+
     @Test(expected = RejectedExecutionException.class)
     public void testStartAfterCancelIsRejected()
     {
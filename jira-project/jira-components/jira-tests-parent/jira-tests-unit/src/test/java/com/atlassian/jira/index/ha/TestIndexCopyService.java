@@ -95,10 +95,10 @@ public class TestIndexCopyService extends TestClusteredIndex
     public void testBackupIndex() throws Exception
     {
         when(mockDelegatorInterface.getNextSeqId("IndexBackupSequence")).thenReturn(1L);
-        when(mockIndexUtils.takeIndexSnapshot(eq(localHome.getAbsolutePath()),
-                eq(PathUtils.joinPaths(sharedHome.getAbsolutePath(), "caches")), eq("1"), eq(3))).thenReturn("IndexSnapshot_1.zip");
+        when(mockIndexUtils.takeIncrementalIndexSnapshot(eq(localHome.getAbsolutePath()),
+                eq(PathUtils.joinPaths(sharedHome.getAbsolutePath(), "caches")), eq("1"), eq(3))).thenReturn("IndexSnapshot_1.manifest");
         service.backupIndex("wantedHere");
-        verify(mockMessageHandlerService).sendMessage("wantedHere", new Message(BACKUP_INDEX_DONE, "IndexSnapshot_1.zip"));
+        verify(mockMessageHandlerService).sendMessage("wantedHere", new Message(BACKUP_INDEX_DONE, "IndexSnapshot_1.manifest"));
     }
 
     @Test
@@ -115,10 +115,10 @@ public class TestIndexCopyService extends TestClusteredIndex
         final long id = 1L;
         final String sourcePath = "a";
         final String destinationPath = "b";
-        final String destinationFile = "IndexSnapshot_" + id + ".zip";
+        final String destinationFile = "IndexSnapshot_" + id + ".manifest";
         try
         {
-            when(mockIndexUtils.takeIndexSnapshot(eq(sourcePath), eq(destinationPath),
+            when(mockIndexUtils.takeIncrementalIndexSnapshot(eq(sourcePath), eq(destinationPath),
                     eq("1"), eq(3))).thenReturn(destinationFile);
             final String filename = service.copyIndex(sourcePath, destinationPath, id);
             assertThat(filename, is(destinationFile));
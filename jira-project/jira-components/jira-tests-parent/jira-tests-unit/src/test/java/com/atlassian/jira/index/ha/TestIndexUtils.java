@@ -6,12 +6,15 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import com.atlassian.core.util.FileUtils;
 import com.atlassian.jira.util.PathUtils;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
@@ -22,7 +25,11 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static com.atlassian.jira.matchers.FileMatchers.exists;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
@@ -51,6 +58,83 @@ public class TestIndexUtils extends TestClusteredIndex
         assertThat("The destination folder contains a single document", documents, hasSize(1));
     }
 
+    @Test
+    public void testIncrementalSnapshotCanBeRestored() throws Exception
+    {
+        final String manifestName = clusteredIndexUtils.takeIncrementalIndexSnapshot(localHome.getAbsolutePath(), sharedHome.getAbsolutePath(), "1", 3);
+        assertThat(manifestName, is("IndexSnapshot_1.manifest"));
+
+        final File restored = Files.createTempDir();
+        try
+        {
+            final IndexSnapshotManifest manifest = IndexSnapshotManifest.read(new File(sharedHome, manifestName));
+            for (IndexSnapshotManifest.Entry entry : manifest.getEntries(IndexUtils.IndexPath.ISSUES))
+            {
+                final File published = new File(new File(sharedHome, IndexSnapshotManifest.FILES_DIRECTORY), entry.getFileName());
+                assertThat(entry.matches(published), is(true));
+                FileUtils.copyFile(published, new File(restored, entry.getName()));
+            }
+            assertThat("The restored index contains the document", getIssueDocuments(restored.getAbsolutePath()), hasSize(1));
+        }
+        finally
+        {
+            FileUtils.deleteDir(restored);
+        }
+    }
+
+    @Test
+    public void testIncrementalSnapshotOnlyCopiesChangedFiles() throws Exception
+    {
+        final File filesDirectory = new File(sharedHome, IndexSnapshotManifest.FILES_DIRECTORY);
+        final IndexSnapshotManifest first = IndexSnapshotManifest.read(new File(sharedHome,
+                clusteredIndexUtils.takeIncrementalIndexSnapshot(localHome.getAbsolutePath(), sharedHome.getAbsolutePath(), "1", 3)));
+        final Set<String> firstFiles = Sets.newHashSet(filesDirectory.list());
+
+        final IndexSnapshotManifest second = IndexSnapshotManifest.read(new File(sharedHome,
+                clusteredIndexUtils.takeIncrementalIndexSnapshot(localHome.getAbsolutePath(), sharedHome.getAbsolutePath(), "2", 3)));
+        assertThat("Nothing changed, so nothing was copied", Sets.newHashSet(filesDirectory.list()), equalTo(firstFiles));
+        assertThat(fileNames(second), equalTo(fileNames(first)));
+
+        populateLocalIndex(new File(PathUtils.joinPaths(localHome.getAbsolutePath(), IndexUtils.IndexPath.ISSUES.getPath())));
+        final IndexSnapshotManifest third = IndexSnapshotManifest.read(new File(sharedHome,
+                clusteredIndexUtils.takeIncrementalIndexSnapshot(localHome.getAbsolutePath(), sharedHome.getAbsolutePath(), "3", 3)));
+        final Set<String> copied = Sets.difference(Sets.newHashSet(filesDirectory.list()), firstFiles);
+        assertThat("Only the changed issue index was copied", copied, equalTo(Sets.difference(fileNames(third), fileNames(first))));
+        assertThat(copied, not(empty()));
+    }
+
+    @Test
+    public void testIncrementalSnapshotRecordsTheChecksumsOfTheIndexFiles() throws Exception
+    {
+        final IndexSnapshotManifest manifest = IndexSnapshotManifest.read(new File(sharedHome,
+                clusteredIndexUtils.takeIncrementalIndexSnapshot(localHome.getAbsolutePath(), sharedHome.getAbsolutePath(), "1", 3)));
+        assertThat(new File(localHome, IndexFileChecksums.FILE_NAME), exists());
+
+        final IndexFileChecksums checksums = IndexFileChecksums.read(localHome);
+        final List<IndexSnapshotManifest.Entry> entries = manifest.getEntries(IndexUtils.IndexPath.ISSUES);
+        assertThat(entries, not(empty()));
+        for (IndexSnapshotManifest.Entry entry : entries)
+        {
+            final File localFile = new File(PathUtils.joinPaths(localHome.getAbsolutePath(), IndexUtils.IndexPath.ISSUES.getPath()), entry.getName());
+            assertThat(checksums.get(localFile), equalTo(entry.getChecksum()));
+
+            // a file that has changed since has to be read again
+            localFile.setLastModified(localFile.lastModified() - 60000);
+            assertThat(checksums.get(localFile), nullValue());
+            assertThat(checksums.getOrCompute(localFile), equalTo(entry.getChecksum()));
+        }
+    }
+
+    private static Set<String> fileNames(final IndexSnapshotManifest manifest)
+    {
+        final Set<String> fileNames = Sets.newHashSet();
+        for (IndexSnapshotManifest.Entry entry : manifest.getEntries())
+        {
+            fileNames.add(entry.getFileName());
+        }
+        return fileNames;
+    }
+
     @Test
     public void testClearIndex() throws Exception
     {
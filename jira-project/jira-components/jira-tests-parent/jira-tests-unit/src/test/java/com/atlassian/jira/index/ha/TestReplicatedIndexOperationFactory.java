@@ -56,6 +56,22 @@ public class TestReplicatedIndexOperationFactory
         assertNull(operation.getEntityType().getTypeDescriptor());
     }
 
+    @Test
+    public void testAffectedIdsAreWrittenAsRanges()
+    {
+        assertEquals("", ReplicatedIndexOperationFactory.serialize(Sets.<Long>newHashSet()));
+        assertEquals("7", ReplicatedIndexOperationFactory.serialize(Sets.newHashSet(7L)));
+        assertEquals("1,2,5-8,10", ReplicatedIndexOperationFactory.serialize(Sets.newHashSet(10L, 8L, 7L, 6L, 5L, 2L, 1L)));
+    }
+
+    @Test
+    public void testAffectedIdsAreReadFromRangesAndLists()
+    {
+        assertEquals(Sets.newHashSet(1L, 2L, 5L, 6L, 7L, 8L, 10L), ReplicatedIndexOperationFactory.deserialize("1,2,5-8,10"));
+        assertEquals(Sets.newHashSet(1L, 2L, 3L), ReplicatedIndexOperationFactory.deserialize("3,1,2"));
+        assertEquals(Sets.<Long>newHashSet(), ReplicatedIndexOperationFactory.deserialize(""));
+    }
+
     private Map<String, Object> getFieldMapForIndexOperation()
     {
         return new FieldMap(ReplicatedIndexOperation.ID,1L)
@@ -64,7 +80,7 @@ public class TestReplicatedIndexOperationFactory
                 .add(ReplicatedIndexOperation.AFFECTED_INDEX, "ISSUE")
                 .add(ReplicatedIndexOperation.ENTITY_TYPE, "SEARCH_REQUEST")
                 .add(ReplicatedIndexOperation.OPERATION, "UPDATE")
-                .add(ReplicatedIndexOperation.AFFECTED_IDS, "1,2,3")
+                .add(ReplicatedIndexOperation.AFFECTED_IDS, "1-3")
                 .add(ReplicatedIndexOperation.BACKUP_FILENAME, UNUSED_FILENAME);
     }
 }
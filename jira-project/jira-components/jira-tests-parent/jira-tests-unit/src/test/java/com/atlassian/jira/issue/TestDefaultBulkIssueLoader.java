@@ -0,0 +1,142 @@
+package com.atlassian.jira.issue;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.atlassian.jira.config.SubTaskManager;
+import com.atlassian.jira.issue.customfields.persistence.CustomFieldValuePrefetcher;
+import com.atlassian.jira.issue.label.Label;
+import com.atlassian.jira.issue.link.IssueLinkType;
+import com.atlassian.jira.issue.link.IssueLinkTypeManager;
+import com.atlassian.jira.issue.link.MockIssueLinkType;
+import com.atlassian.jira.mock.ofbiz.MockGenericValue;
+import com.atlassian.jira.mock.ofbiz.MockOfBizDelegator;
+import com.atlassian.jira.mock.project.MockVersion;
+import com.atlassian.jira.project.MockProject;
+import com.atlassian.jira.project.version.Version;
+import com.atlassian.jira.project.version.VersionManager;
+import com.atlassian.jira.util.collect.MapBuilder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestDefaultBulkIssueLoader
+{
+    private static final Long ISSUE_1 = 10000L;
+    private static final Long ISSUE_2 = 10001L;
+
+    @Mock
+    private IssueManager issueManager;
+    @Mock
+    private VersionManager versionManager;
+    @Mock
+    private IssueLinkTypeManager issueLinkTypeManager;
+    @Mock
+    private CustomFieldValuePrefetcher customFieldValuePrefetcher;
+
+    private MockOfBizDelegator ofBizDelegator;
+    private DefaultBulkIssueLoader loader;
+
+    private final MockProject project = new MockProject(1L, "HSP");
+    private final Version version1 = new MockVersion(1, "1.0", project, 1L);
+    private final Version version2 = new MockVersion(2, "2.0", project, 2L);
+
+    @Before
+    public void setUp()
+    {
+        MockitoAnnotations.initMocks(this);
+        ofBizDelegator = new MockOfBizDelegator();
+        when(versionManager.getVersion(1L)).thenReturn(version1);
+        when(versionManager.getVersion(2L)).thenReturn(version2);
+        when(issueLinkTypeManager.getIssueLinkTypesByStyle(SubTaskManager.SUB_TASK_LINK_TYPE_STYLE)).thenReturn(
+                Collections.<IssueLinkType>singletonList(new MockIssueLinkType(100, "jira_subtask_link", "", "", SubTaskManager.SUB_TASK_LINK_TYPE_STYLE)));
+
+        loader = new DefaultBulkIssueLoader(issueManager, ofBizDelegator, versionManager, issueLinkTypeManager, customFieldValuePrefetcher);
+    }
+
+    @Test
+    public void testLoadFieldsLoadsRequestedFields()
+    {
+        associate(ISSUE_1, IssueRelationConstants.FIX_VERSION, 2L);
+        associate(ISSUE_1, IssueRelationConstants.FIX_VERSION, 1L);
+        associate(ISSUE_2, IssueRelationConstants.VERSION, 2L);
+        label(1L, ISSUE_1, "beta");
+        label(2L, ISSUE_1, "alpha");
+        ofBizDelegator.createValue("IssueLink", MapBuilder.<String, Object>build("linktype", 100L, "source", ISSUE_1, "destination", ISSUE_2));
+
+        final Issue issue1 = issue(ISSUE_1);
+        final Issue issue2 = issue(ISSUE_2);
+        loader.loadFields(ImmutableList.of(issue1, issue2), ImmutableSet.of(IssueFieldConstants.FIX_FOR_VERSIONS, IssueFieldConstants.LABELS));
+
+        assertEquals(ImmutableList.of(version1, version2), ImmutableList.copyOf(issue1.getFixVersions()));
+        assertEquals(Collections.<Version>emptyList(), ImmutableList.copyOf(issue2.getFixVersions()));
+        assertEquals(ImmutableList.of(version2), ImmutableList.copyOf(issue2.getAffectedVersions()));
+        assertEquals(ImmutableList.of("alpha", "beta"), labelNames(issue1));
+        assertEquals(Collections.<String>emptyList(), labelNames(issue2));
+        assertNull(issue1.getParentId());
+        assertEquals(ISSUE_1, issue2.getParentId());
+        verify(customFieldValuePrefetcher, never()).prefetchValues(anyCollectionOf(Long.class));
+    }
+
+    @Test
+    public void testGetIssuesLoadsTheRequestedFieldsOfTheIssues()
+    {
+        associate(ISSUE_2, IssueRelationConstants.FIX_VERSION, 1L);
+        final List<Issue> issues = ImmutableList.of(issue(ISSUE_1), issue(ISSUE_2));
+        when(issueManager.getIssueObjects(ImmutableList.of(ISSUE_1, ISSUE_2))).thenReturn(issues);
+
+        assertEquals(issues, loader.getIssues(ImmutableList.of(ISSUE_1, ISSUE_2), ImmutableSet.of(IssueFieldConstants.FIX_FOR_VERSIONS)));
+
+        assertEquals(Collections.<Version>emptyList(), ImmutableList.copyOf(issues.get(0).getFixVersions()));
+        assertEquals(ImmutableList.of(version1), ImmutableList.copyOf(issues.get(1).getFixVersions()));
+    }
+
+    @Test
+    public void testCustomFieldValuesArePrefetched()
+    {
+        loader.loadFields(ImmutableList.of(issue(ISSUE_1), issue(ISSUE_2)), ImmutableSet.of("customfield_10000"));
+
+        verify(customFieldValuePrefetcher).prefetchValues(ImmutableList.of(ISSUE_1, ISSUE_2));
+    }
+
+    private static Issue issue(final Long id)
+    {
+        // no managers, so the issue fails if it reads anything that was not loaded
+        return new IssueImpl(new MockGenericValue("Issue", id), null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private void associate(final Long issueId, final String associationType, final Long versionId)
+    {
+        ofBizDelegator.createValue("NodeAssociation", MapBuilder.<String, Object>newBuilder()
+                .add("sourceNodeId", issueId).add("sourceNodeEntity", "Issue")
+                .add("sinkNodeId", versionId).add("sinkNodeEntity", "Version")
+                .add("associationType", associationType).toMap());
+    }
+
+    private void label(final Long id, final Long issueId, final String label)
+    {
+        ofBizDelegator.createValue("Label", MapBuilder.<String, Object>build("id", id, "issue", issueId, "label", label));
+    }
+
+    private static List<String> labelNames(final Issue issue)
+    {
+        final ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (final Label label : issue.getLabels())
+        {
+            names.add(label.getLabel());
+        }
+        return names.build();
+    }
+}
@@ -1,12 +1,15 @@
 package com.atlassian.jira.issue.attachment;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -15,16 +18,21 @@ import com.atlassian.jira.mock.issue.MockIssue;
 import com.atlassian.jira.mock.ofbiz.MockGenericValue;
 import com.atlassian.jira.util.collect.CollectionBuilder;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  */
 public class TestAttachmentZipFileCreator
 {
+    private static final String CONTENT = "The quick brown fox jumps over the lazy dog";
+
     private class IssueWithAttachments extends MockIssue
     {
         private final String issueKey;
@@ -133,6 +141,85 @@ public class TestAttachmentZipFileCreator
 
     }
 
+    @Test
+    public void testZipStreaming() throws IOException
+    {
+        IssueWithAttachments issue = new IssueWithAttachments("TST-123");
+        Collection<AttachmentImpl> attachments = CollectionBuilder.newBuilder(
+                new AttachmentImpl(issue, "file1.txt"),
+                new AttachmentImpl(issue, "photo.jpg"),
+                new AttachmentImpl(issue, "file1.txt")
+        ).asArrayList();
+
+        issue.setAttachments(attachments);
+
+        final AtomicBoolean closed = new AtomicBoolean();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream()
+        {
+            @Override
+            public void close() throws IOException
+            {
+                closed.set(true);
+                super.close();
+            }
+        };
+        newAttachmentZipFileCreator(issue).writeZip(out);
+        assertFalse("The stream we were given should be left open", closed.get());
+
+        File zipFile = null;
+        try
+        {
+            zipFile = File.createTempFile("TST-123-", ".zip");
+            FileUtils.writeByteArrayToFile(zipFile, out.toByteArray());
+            final List<AttachmentZipKit.AttachmentZipEntry> entries = new AttachmentZipKit().listEntries(zipFile, -1, AttachmentZipKit.FileCriteria.ALL).getList();
+            assertEquals(3, entries.size());
+            assertEquals("file1.txt", entries.get(0).getName());
+            assertEquals("photo.jpg", entries.get(1).getName());
+            assertEquals("file1.txt.1", entries.get(2).getName());
+            assertEquals(CONTENT.length(), entries.get(1).getSize());
+        }
+        finally
+        {
+            deleteZipFile(zipFile);
+        }
+    }
+
+    @Test
+    public void testNothingIsWrittenWhenAnAttachmentFileIsMissing() throws IOException
+    {
+        IssueWithAttachments issue = new IssueWithAttachments("TST-123");
+        issue.setAttachments(CollectionBuilder.newBuilder(new AttachmentImpl(issue, "file1.txt")).asArrayList());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try
+        {
+            new AttachmentZipFileCreator(issue)
+            {
+                @Override
+                File getAttachmentFile(final Attachment attachment)
+                {
+                    return new File("does-not-exist");
+                }
+            }.writeZip(out);
+            fail("A missing attachment file should fail before anything is written");
+        }
+        catch (FileNotFoundException expected)
+        {
+            assertEquals(0, out.size());
+        }
+    }
+
+    @Test
+    public void testCompressedAttachmentsAreRecognised()
+    {
+        IssueWithAttachments issue = new IssueWithAttachments("TST-123");
+        assertTrue(AttachmentZipFileCreator.isCompressed(new AttachmentImpl(issue, "photo.JPG")));
+        assertTrue(AttachmentZipFileCreator.isCompressed(new AttachmentImpl(issue, "logs.tar.gz")));
+        assertTrue(AttachmentZipFileCreator.isCompressed(new AttachmentImpl(issue, "screencast.mp4")));
+        assertFalse(AttachmentZipFileCreator.isCompressed(new AttachmentImpl(issue, "catalina.out")));
+        assertFalse(AttachmentZipFileCreator.isCompressed(new AttachmentImpl(issue, "README")));
+    }
+
     private void assertZipFileContent(final File zipFile, final List<String> expectedFilesNames) throws IOException
     {
         assertNotNull(zipFile);
@@ -164,6 +251,7 @@ public class TestAttachmentZipFileCreator
                 {
                     File f = File.createTempFile("abc", "xyz");
                     f.deleteOnExit();
+                    FileUtils.writeStringToFile(f, CONTENT);
                     return f;
                 }
                 catch (IOException e)
@@ -12,6 +12,7 @@ import com.atlassian.jira.mock.issue.MockIssue;
 import com.atlassian.jira.mock.ofbiz.MockGenericValue;
 import com.atlassian.jira.mock.ofbiz.MockOfBizListIterator;
 import com.atlassian.jira.ofbiz.OfBizDelegator;
+import com.atlassian.jira.ofbiz.OfBizListIterator;
 import com.atlassian.jira.project.MockProject;
 import com.atlassian.jira.project.Project;
 import com.atlassian.jira.security.PermissionManager;
@@ -24,13 +25,17 @@ import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.hamcrest.collection.IsMapContaining;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.ofbiz.core.entity.EntityCondition;
 import org.ofbiz.core.entity.EntityConditionList;
 import org.ofbiz.core.entity.EntityExpr;
@@ -44,8 +49,10 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nullable;
 
+import static com.atlassian.jira.ofbiz.DefaultOfBizDelegator.MAX_ELEMS_IN_CLAUSE;
 import static com.google.common.collect.Lists.transform;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -61,6 +68,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith (MockitoJUnitRunner.class)
@@ -282,6 +290,74 @@ public class TestDefaultChangeHistoryManager
         assertThat(((Timestamp) dateCondition.getRhs()).getTime(), equalTo(sinceDate.getTime()));
     }
 
+    @Test
+    public void getAllChangeItemsFetchesTheItemsOfAtMostMaxElemsInClauseIssuesAtATime()
+    {
+        final Project project = new MockProject(10000L, "HSP");
+        final List<Issue> issues = Lists.newArrayList();
+        for (int id = 1; id <= 2 * MAX_ELEMS_IN_CLAUSE + 1; id++)
+        {
+            final MockIssue issue = new MockIssue(id, "HSP-" + id);
+            issue.setProjectObject(project);
+            issues.add(issue);
+        }
+        final List<Collection<?>> batches = Lists.newArrayList();
+        when(ofBizDelegator.findListIteratorByCondition(eq("ChangeGroupChangeItemView"), any(EntityCondition.class),
+                isNull(EntityCondition.class), anyCollectionOf(String.class), anyListOf(String.class), any(EntityFindOptions.class)))
+                .thenAnswer(new Answer<OfBizListIterator>()
+                {
+                    @Override
+                    public OfBizListIterator answer(final InvocationOnMock invocation)
+                    {
+                        final EntityExpr in = (EntityExpr) ((EntityConditionList) invocation.getArguments()[1]).getCondition(0);
+                        final Collection<?> issueIds = (Collection<?>) in.getRhs();
+                        batches.add(issueIds);
+                        // one change to every even numbered issue
+                        final List<GenericValue> rows = Lists.newArrayList();
+                        for (final Object issueId : issueIds)
+                        {
+                            if ((Long) issueId % 2 == 0)
+                            {
+                                rows.add(getMockChangeItemGV((Long) issueId));
+                            }
+                        }
+                        return new MockOfBizListIterator(rows);
+                    }
+                });
+
+        final Map<Long, List<ChangeHistoryItem>> changeItems = changeHistoryManager.getAllChangeItems(issues);
+
+        assertEquals(3, batches.size());
+        final Set<Object> queried = Sets.newHashSet();
+        for (final Collection<?> batch : batches)
+        {
+            assertTrue("batch of " + batch.size(), batch.size() <= MAX_ELEMS_IN_CLAUSE);
+            queried.addAll(batch);
+        }
+        assertEquals(issues.size(), queried.size());
+        assertEquals(issues.size(), changeItems.size());
+        for (final Issue issue : issues)
+        {
+            final List<ChangeHistoryItem> items = changeItems.get(issue.getId());
+            assertEquals(issue.getId() % 2 == 0 ? 1 : 0, items.size());
+            if (!items.isEmpty())
+            {
+                assertEquals(issue.getId(), items.get(0).getIssueId());
+                assertEquals(issue.getKey(), items.get(0).getIssueKey());
+            }
+        }
+    }
+
+    @Test
+    public void getAllChangeItemsSkipsIssuesWithoutAProjectAndQueriesNothingForNone()
+    {
+        final Map<Long, List<ChangeHistoryItem>> changeItems = changeHistoryManager.getAllChangeItems(
+                ImmutableList.<Issue>of(new MockIssue(1, "HSP-1")));
+
+        assertTrue(changeItems.isEmpty());
+        verifyZeroInteractions(ofBizDelegator);
+    }
+
     private List<GenericValue> groupList(Long... ids)
     {
         return transform(asList(ids), new Function<Long, GenericValue>()
@@ -295,6 +371,26 @@ public class TestDefaultChangeHistoryManager
     }
 
 
+    private GenericValue getMockChangeItemGV(final long issueId)
+    {
+        return new MockGenericValue
+                (
+                        "ChangeGroupChangeItemView",
+                        ImmutableMap.<String, Object>builder()
+                                .put("issue", issueId)
+                                .put("changegroupid", 100 + issueId)
+                                .put("changeitemid", 200 + issueId)
+                                .put("fieldtype", "jira")
+                                .put("field", "resolution")
+                                .put("oldvalue", "1")
+                                .put("oldstring", "Open")
+                                .put("newvalue", "5")
+                                .put("newstring", "Resolved")
+                                .put("created", new Timestamp(issueId))
+                                .build()
+                );
+    }
+
     private GenericValue getMockChangeItemGV(int timestamp)
     {
         return new MockGenericValue
@@ -1,9 +1,11 @@
 package com.atlassian.jira.issue.comments;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import com.atlassian.crowd.exception.InvalidCredentialException;
 import com.atlassian.crowd.exception.InvalidUserException;
@@ -46,6 +48,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -54,6 +57,7 @@ import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -237,4 +241,26 @@ public class TestDefaultCommentSearchManager
         assertThat(dateCondition.getOperator(), equalTo(EntityOperator.GREATER_THAN));
         assertThat(((Timestamp) dateCondition.getRhs()).getTime(), equalTo(sinceDate.getTime()));
     }
+
+    @Test
+    public void getCommentsForIssuesShouldLoadCommentsForAllIssuesInOneQuery()
+    {
+        // Set up
+        final Issue otherIssue = new MockIssue(2L);
+        final OfBizDelegator mockOfBizDelegator = mock(OfBizDelegator.class);
+        when(mockOfBizDelegator.findByCondition(eq(DefaultCommentManager.COMMENT_ENTITY), any(EntityCondition.class), isNull(Collection.class)))
+                .thenReturn(ImmutableList.of(commentGv));
+        ReflectionTestUtils.setField(commentSearchManager, "delegator", mockOfBizDelegator);
+
+        // Invoke
+        final Map<Long, List<Comment>> comments = commentSearchManager.getCommentsForIssues(ImmutableList.of(issueObject, otherIssue));
+
+        // Check
+        verify(mockOfBizDelegator, times(1)).findByCondition(eq(DefaultCommentManager.COMMENT_ENTITY), any(EntityCondition.class), isNull(Collection.class));
+        assertEquals(2, comments.size());
+        assertEquals(1, comments.get(L1).size());
+        assertEquals(L1000, comments.get(L1).get(0).getId());
+        assertSame(issueObject, comments.get(L1).get(0).getIssue());
+        assertTrue(comments.get(2L).isEmpty());
+    }
 }
@@ -4,8 +4,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.atlassian.bandana.BandanaContext;
+import com.atlassian.cache.memory.MemoryCacheManager;
 import com.atlassian.jira.exception.DataAccessException;
+import com.atlassian.jira.issue.context.IssueContext;
+import com.atlassian.jira.issue.context.IssueContextImpl;
+import com.atlassian.jira.issue.context.ProjectContext;
+import com.atlassian.jira.issue.context.manager.JiraContextTreeManager;
 import com.atlassian.jira.issue.context.persistence.FieldConfigContextPersister;
+import com.atlassian.jira.issue.fields.ConfigurableField;
 import com.atlassian.jira.issue.fields.config.FieldConfig;
 import com.atlassian.jira.issue.fields.config.FieldConfigScheme;
 import com.atlassian.jira.issue.fields.config.persistence.FieldConfigSchemePersister;
@@ -19,9 +26,16 @@ import com.mockobjects.dynamic.P;
 
 import org.easymock.MockControl;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @SuppressWarnings("deprecation")
 public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
@@ -41,7 +55,7 @@ public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
         mockController.replay();
 
         final FieldConfigSchemeManagerImpl configSchemeManager = new FieldConfigSchemeManagerImpl(fieldConfigSchemePersister,
-            fieldConfigContextPersister, null, null);
+            fieldConfigContextPersister, null, null, new MemoryCacheManager());
         configSchemeManager.getConfigSchemeForFieldConfig(fieldConfig);
 
         mockController.verify();
@@ -61,7 +75,7 @@ public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
         mockController.replay();
 
         final FieldConfigSchemeManagerImpl configSchemeManager = new FieldConfigSchemeManagerImpl(fieldConfigSchemePersister,
-            fieldConfigContextPersister, null, null);
+            fieldConfigContextPersister, null, null, new MemoryCacheManager());
         assertNull(configSchemeManager.getConfigSchemeForFieldConfig(fieldConfig));
 
         mockController.verify();
@@ -70,7 +84,7 @@ public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
     @Test
     public void testNullArgumentToGetInvalidFieldConfigSchemesForIssueTypeRemoval()
     {
-        final FieldConfigSchemeManagerImpl fcsm = new FieldConfigSchemeManagerImpl(null, null, null, null);
+        final FieldConfigSchemeManagerImpl fcsm = new FieldConfigSchemeManagerImpl(null, null, null, null, new MemoryCacheManager());
         try
         {
             fcsm.getInvalidFieldConfigSchemesForIssueTypeRemoval(null);
@@ -83,7 +97,7 @@ public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
     @Test
     public void testNullArgumentToRemoveInvalidFieldConfigSchemesForIssueType()
     {
-        final FieldConfigSchemeManagerImpl fcsm = new FieldConfigSchemeManagerImpl(null, null, null, null);
+        final FieldConfigSchemeManagerImpl fcsm = new FieldConfigSchemeManagerImpl(null, null, null, null, new MemoryCacheManager());
         try
         {
             fcsm.removeInvalidFieldConfigSchemesForIssueType(null);
@@ -104,7 +118,7 @@ public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
             Collections.EMPTY_LIST);
 
         final FieldConfigSchemeManagerImpl fcsm = new FieldConfigSchemeManagerImpl(
-            (FieldConfigSchemePersister) mockFieldConfigSchemePersister.proxy(), null, null, null);
+            (FieldConfigSchemePersister) mockFieldConfigSchemePersister.proxy(), null, null, null, new MemoryCacheManager());
         fcsm.getInvalidFieldConfigSchemesForIssueTypeRemoval(issueType);
 
         mockFieldConfigSchemePersister.verify();
@@ -147,7 +161,7 @@ public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
         mockFieldConfigSchemePersister.replay();
 
         final FieldConfigSchemeManagerImpl fcsm = new FieldConfigSchemeManagerImpl(fieldConfigSchemePersister, fieldConfigContextPersister, null,
-            fieldConfigManager);
+            fieldConfigManager, new MemoryCacheManager());
         fcsm.removeInvalidFieldConfigSchemesForIssueType(issueType);
 
         mockFieldConfigContextPersister.verify();
@@ -180,13 +194,37 @@ public class TestFieldConfigSchemeManagerImpl extends MockControllerTestCase
         mockFieldConfigSchemePersister.replay();
         mockController.replay();
 
-        final FieldConfigSchemeManagerImpl manager = new FieldConfigSchemeManagerImpl(persister, configContextPersister, null, fieldConfigManager);
+        final FieldConfigSchemeManagerImpl manager = new FieldConfigSchemeManagerImpl(persister, configContextPersister, null, fieldConfigManager, new MemoryCacheManager());
         manager.removeInvalidFieldConfigSchemesForCustomField("customfield_10000");
 
         mockController.verify();
         mockFieldConfigSchemePersister.verify();
     }
 
+    @Test
+    public void testRelevantConfigSchemeIsLookedUpOncePerProjectUntilItChanges()
+    {
+        final FieldConfigContextPersister contextPersister = Mockito.mock(FieldConfigContextPersister.class);
+        final FieldConfigSchemePersister schemePersister = Mockito.mock(FieldConfigSchemePersister.class);
+        final ConfigurableField field = Mockito.mock(ConfigurableField.class);
+        when(field.getId()).thenReturn("customfield_10000");
+        final FieldConfigScheme scheme = getFieldConfigScheme(10L);
+        when(contextPersister.retrieve(any(BandanaContext.class), eq("customfield_10000"))).thenReturn(10L);
+        when(schemePersister.getFieldConfigScheme(10L)).thenReturn(scheme);
+
+        final FieldConfigSchemeManagerImpl manager = new FieldConfigSchemeManagerImpl(schemePersister, contextPersister,
+                Mockito.mock(JiraContextTreeManager.class), null, new MemoryCacheManager());
+        final IssueContext issueContext = new IssueContextImpl(1L, "1");
+
+        assertSame(scheme, manager.getRelevantConfigScheme(issueContext, field));
+        assertSame(scheme, manager.getRelevantConfigScheme(issueContext, field));
+        verify(contextPersister, times(1)).retrieve(any(BandanaContext.class), eq("customfield_10000"));
+
+        manager.setValue(new ProjectContext(1L, Mockito.mock(JiraContextTreeManager.class)), "customfield_10000", null);
+        assertSame(scheme, manager.getRelevantConfigScheme(issueContext, field));
+        verify(contextPersister, times(2)).retrieve(any(BandanaContext.class), eq("customfield_10000"));
+    }
+
     private FieldConfigScheme getFieldConfigScheme(final long id)
     {
         return new FieldConfigScheme.Builder().setName("Name" + id).setDescription("Desc" + id).setId(id).toFieldConfigScheme();
@@ -28,6 +28,7 @@ import com.atlassian.core.ofbiz.test.UtilsForTests;
 import com.atlassian.event.api.EventPublisher;
 import com.atlassian.instrumentation.DefaultInstrumentRegistry;
 import com.atlassian.instrumentation.InstrumentRegistry;
+import com.atlassian.jira.cluster.ClusterManager;
 import com.atlassian.jira.concurrent.BarrierFactory;
 import com.atlassian.jira.concurrent.MockBarrierFactory;
 import com.atlassian.jira.config.FeatureManager;
@@ -77,13 +78,16 @@ import com.atlassian.jira.ofbiz.OfBizDelegator;
 import com.atlassian.jira.project.MockProject;
 import com.atlassian.jira.project.MockProjectFactory;
 import com.atlassian.jira.project.ProjectManager;
+import com.atlassian.jira.propertyset.JiraPropertySetFactory;
 import com.atlassian.jira.task.context.Context;
 import com.atlassian.jira.task.context.Contexts;
 import com.atlassian.jira.util.Consumer;
+import com.atlassian.jira.util.RealClock;
 import com.atlassian.jira.util.Function;
 import com.atlassian.jira.util.collect.EnclosedIterable;
 import com.atlassian.jira.util.searchers.MockSearcherFactory;
 import com.atlassian.jira.web.FieldVisibilityManager;
+import com.atlassian.mock.propertyset.MockPropertySet;
 import com.atlassian.scheduler.core.LifecycleAwareSchedulerService;
 
 import com.google.common.collect.ImmutableList;
@@ -175,6 +179,8 @@ public class TestDefaultIssueIndexManager
     @Mock private ReplicatedIndexManager mockReplicatedIndexManager;
     @Mock private ReindexMessageManager mockReindexMessageManager;
     @Mock private EventPublisher eventPublisher;
+    @Mock private ClusterManager clusterManager;
+    @Mock private JiraPropertySetFactory propertySetFactory;
 
     private GenericValue project;
     private IssueFactory issueFactory;
@@ -217,6 +223,10 @@ public class TestDefaultIssueIndexManager
         commentDirectory = MockSearcherFactory.getCleanRAMDirectory();
         changesDirectory = MockSearcherFactory.getCleanRAMDirectory();
 
+        when(propertySetFactory.buildNoncachingPropertySet(ReindexCheckpoints.ENTITY_NAME, 1L)).thenReturn(new MockPropertySet());
+        mockitoContainer.getMockComponentContainer().addMock(ReindexCheckpoints.class,
+                new ReindexCheckpoints(propertySetFactory, indexPath, clusterManager, mockApplicationProperties, RealClock.getInstance()));
+
         indexDirectoryFactory = new MockIndexDirectoryFactory(new Function<Name, Directory>()
         {
             public Directory get(final Name input)
@@ -270,6 +280,12 @@ public class TestDefaultIssueIndexManager
                     {
                         return new IssueIdBatcher(ofBizDelegator, issueFactory, barrierFactory, batchSize, null, null);
                     }
+
+                    @Override
+                    public IssuesBatcher getBatcher(final long minId, final long maxId, final IssueIdBatcher.Spy spy)
+                    {
+                        return new IssueIdBatcher(ofBizDelegator, issueFactory, barrierFactory, 1000, null, spy, minId, maxId);
+                    }
                 };
         mockitoContainer.getMockComponentContainer().addMock(IssueBatcherFactory.class, issueBatcherFactory);
         issueFactory = new DefaultIssueFactory(issueManager, mockProjectManager, null, null, null, null, null, null, null, null, null, null, null, null);
@@ -1117,6 +1133,9 @@ public class TestDefaultIssueIndexManager
         Mockito.doReturn(
                 ImmutableList.<GenericValue>of(new MockGenericValue("max", ImmutableMap.of("max", 1l))))
                 .when(ofBizDelegator).findByCondition("IssueMaxId", null, ImmutableList.of("max"));
+        Mockito.doReturn(
+                ImmutableList.<GenericValue>of(new MockGenericValue("min", ImmutableMap.of("min", 1l))))
+                .when(ofBizDelegator).findByCondition("IssueMinId", null, ImmutableList.of("min"));
 
         indexManager = new DefaultIndexManager(new MockIndexingConfiguration(), indexer, indexPath, mockReindexMessageManager, eventPublisher, null, mockProjectManager, issueManager, null, ofBizDelegator, mockReplicatedIndexManager);
         indexManager.reIndexAll(Contexts.nullContext());
@@ -0,0 +1,111 @@
+package com.atlassian.jira.issue.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.atlassian.fugue.Option;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.changehistory.ChangeHistoryGroup;
+import com.atlassian.jira.issue.comments.Comment;
+import com.atlassian.jira.mock.issue.MockIssue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith (MockitoJUnitRunner.class)
+public class TestDefaultIssueIndexer
+{
+    @Mock
+    private IndexDirectoryFactory indexDirectoryFactory;
+    @Mock
+    private DefaultIssueIndexer.CommentRetriever commentRetriever;
+    @Mock
+    private DefaultIssueIndexer.ChangeHistoryRetriever changeHistoryRetriever;
+    @Mock
+    private ApplicationProperties applicationProperties;
+    @Mock
+    private IssueDocumentFactory issueDocumentFactory;
+    @Mock
+    private CommentDocumentFactory commentDocumentFactory;
+    @Mock
+    private ChangeHistoryDocumentFactory changeHistoryDocumentFactory;
+
+    private DefaultIssueIndexer indexer;
+
+    private final Issue issue1 = new MockIssue(1, "HSP-1");
+    private final Issue issue2 = new MockIssue(2, "HSP-2");
+    private final Comment comment = mock(Comment.class);
+    private final ChangeHistoryGroup change = mock(ChangeHistoryGroup.class);
+    private final Document issueDocument = new Document();
+    private final Document commentDocument = new Document();
+    private final Document changeDocument = new Document();
+
+    @Before
+    public void setUp()
+    {
+        indexer = new DefaultIssueIndexer(indexDirectoryFactory, commentRetriever, changeHistoryRetriever,
+                applicationProperties, issueDocumentFactory, commentDocumentFactory, changeHistoryDocumentFactory);
+
+        when(issueDocumentFactory.apply(any(Issue.class))).thenReturn(Option.some(issueDocument));
+        when(issueDocumentFactory.getIdentifyingTerm(any(Issue.class))).thenReturn(new Term(DocumentConstants.ISSUE_ID, "1"));
+        when(commentDocumentFactory.apply(comment)).thenReturn(Option.some(commentDocument));
+        when(changeHistoryDocumentFactory.apply(change)).thenReturn(Option.some(changeDocument));
+
+        final Collection<Issue> batch = ImmutableList.of(issue1, issue2);
+        when(commentRetriever.retrieveAll(batch)).thenReturn(ImmutableMap.<Long, List<Comment>>of(1L, ImmutableList.of(comment)));
+        when(changeHistoryRetriever.retrieveAll(batch)).thenReturn(ImmutableMap.<Long, List<ChangeHistoryGroup>>of(1L, ImmutableList.of(change)));
+    }
+
+    @Test
+    public void prefetchedStrategyLoadsCommentsAndChangesForTheWholeBatchOnce()
+    {
+        final DefaultIssueIndexer.DocumentCreationStrategy strategy = indexer.new PrefetchedDocumentCreationStrategy(ImmutableList.of(issue1, issue2));
+        final DefaultIssueIndexer.Documents documents1 = strategy.get(issue1, true, true);
+        final DefaultIssueIndexer.Documents documents2 = strategy.get(issue2, true, true);
+
+        assertSame(issueDocument, documents1.getIssue());
+        assertEquals(ImmutableList.of(commentDocument), documents1.getComments());
+        assertEquals(ImmutableList.of(changeDocument), documents1.getChanges());
+        // nothing was fetched for the second issue
+        assertEquals(Collections.<Document>emptyList(), documents2.getComments());
+        assertEquals(Collections.<Document>emptyList(), documents2.getChanges());
+
+        verify(commentRetriever, times(1)).retrieveAll(any(Collection.class));
+        verify(changeHistoryRetriever, times(1)).retrieveAll(any(Collection.class));
+        verify(commentRetriever, never()).apply(any(Issue.class));
+        verify(changeHistoryRetriever, never()).apply(any(Issue.class));
+    }
+
+    @Test
+    public void prefetchedStrategyLeavesOutWhatIsNotAskedFor()
+    {
+        final DefaultIssueIndexer.DocumentCreationStrategy strategy = indexer.new PrefetchedDocumentCreationStrategy(ImmutableList.of(issue1, issue2));
+        final DefaultIssueIndexer.Documents documents = strategy.get(issue1, false, false);
+
+        assertSame(issueDocument, documents.getIssue());
+        assertTrue(documents.getComments().isEmpty());
+        assertTrue(documents.getChanges().isEmpty());
+        verify(commentDocumentFactory, never()).apply(any(Comment.class));
+        verify(changeHistoryDocumentFactory, never()).apply(any(ChangeHistoryGroup.class));
+    }
+}
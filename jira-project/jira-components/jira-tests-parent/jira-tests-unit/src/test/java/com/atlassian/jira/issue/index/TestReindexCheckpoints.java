@@ -0,0 +1,129 @@
+package com.atlassian.jira.issue.index;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.jira.cluster.ClusterManager;
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.config.util.MockIndexPathManager;
+import com.atlassian.jira.mock.MockApplicationProperties;
+import com.atlassian.jira.propertyset.JiraPropertySetFactory;
+import com.atlassian.jira.util.ConstantClock;
+import com.atlassian.mock.propertyset.MockPropertySet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith (MockitoJUnitRunner.class)
+public class TestReindexCheckpoints
+{
+    @Mock private JiraPropertySetFactory propertySetFactory;
+    @Mock private ClusterManager clusterManager;
+
+    private static final long NOW = 1400000000000L;
+
+    private MockIndexPathManager indexPathManager;
+    private MockApplicationProperties applicationProperties;
+    private ReindexCheckpoints checkpoints;
+
+    @Before
+    public void setUp()
+    {
+        when(propertySetFactory.buildNoncachingPropertySet(ReindexCheckpoints.ENTITY_NAME, 1L)).thenReturn(new MockPropertySet());
+        indexPathManager = new MockIndexPathManager();
+        applicationProperties = new MockApplicationProperties();
+        checkpoints = checkpointsAt(NOW);
+    }
+
+    @Test
+    public void partitionCoversAllIdsOnce()
+    {
+        final List<ReindexCheckpoints.Range> ranges = ReindexCheckpoints.partition(10000, 10009, 3);
+
+        assertEquals(3, ranges.size());
+        assertRange(ranges.get(0), 10000, 10003);
+        assertRange(ranges.get(1), 10004, 10007);
+        assertRange(ranges.get(2), 10008, 10009);
+        assertEquals(10009, ranges.get(2).getNextId());
+    }
+
+    @Test
+    public void partitionNeverReturnsEmptyRanges()
+    {
+        assertEquals(1, ReindexCheckpoints.partition(10000, 10000, 8).size());
+        assertTrue(ReindexCheckpoints.partition(0, -1, 8).isEmpty());
+    }
+
+    @Test
+    public void savedProgressIsResumed()
+    {
+        final List<ReindexCheckpoints.Range> ranges = checkpoints.start(1, 100);
+        checkpoints.save(ranges.get(0).next(5));
+        checkpoints.save(ranges.get(1).next(ranges.get(1).getMinId() - 1));
+
+        final List<ReindexCheckpoints.Range> resumed = checkpoints.getRanges();
+        assertEquals(ranges.size(), resumed.size());
+        assertEquals(5, resumed.get(0).getNextId());
+        assertFalse(resumed.get(0).isFinished());
+        assertTrue(resumed.get(1).isFinished());
+        assertEquals(ranges.get(2).getMaxId(), resumed.get(2).getNextId());
+    }
+
+    @Test
+    public void checkpointsOfAnotherIndexDirectoryAreIgnored()
+    {
+        checkpoints.start(1, 100);
+        indexPathManager.setIndexRootPath("/another/index");
+
+        assertTrue(checkpoints.getRanges().isEmpty());
+    }
+
+    @Test
+    public void oldCheckpointsAreOnlyResumedWhenAskedFor()
+    {
+        checkpoints.start(1, 100);
+        final long later = NOW + TimeUnit.MINUTES.toMillis(61);
+
+        assertTrue(checkpointsAt(later).getRanges().isEmpty());
+
+        applicationProperties.setOption(APKeys.JiraIndexConfiguration.Issue.REINDEX_RESUME, true);
+        assertFalse(checkpointsAt(later).getRanges().isEmpty());
+    }
+
+    @Test
+    public void savingProgressKeepsTheCheckpointsRecent()
+    {
+        final List<ReindexCheckpoints.Range> ranges = checkpoints.start(1, 100);
+        checkpointsAt(NOW + TimeUnit.MINUTES.toMillis(50)).save(ranges.get(0).next(5));
+
+        assertFalse(checkpointsAt(NOW + TimeUnit.MINUTES.toMillis(100)).getRanges().isEmpty());
+    }
+
+    @Test
+    public void clearForgetsProgress()
+    {
+        checkpoints.start(1, 100);
+        checkpoints.clear();
+
+        assertTrue(checkpoints.getRanges().isEmpty());
+    }
+
+    private ReindexCheckpoints checkpointsAt(final long time)
+    {
+        return new ReindexCheckpoints(propertySetFactory, indexPathManager, clusterManager, applicationProperties, new ConstantClock(time));
+    }
+
+    private static void assertRange(final ReindexCheckpoints.Range range, final long minId, final long maxId)
+    {
+        assertEquals(minId, range.getMinId());
+        assertEquals(maxId, range.getMaxId());
+    }
+}
@@ -0,0 +1,123 @@
+package com.atlassian.jira.issue.search.filters;
+
+import java.util.Date;
+
+import com.atlassian.jira.index.LuceneVersion;
+import com.atlassian.jira.issue.index.DocumentConstants;
+import com.atlassian.jira.util.LuceneUtils;
+
+import org.apache.lucene.analysis.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestChangeHistoryDateRangeFilter
+{
+    private static final long FIRST_SECOND = 1000;
+    private static final int DOCS_PER_SEGMENT = 10;
+
+    private RAMDirectory directory;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        directory = new RAMDirectory();
+        final IndexWriter writer = newWriter();
+        // a segment indexed before the numeric dates were added, and one indexed after
+        for (int i = 0; i < DOCS_PER_SEGMENT; i++)
+        {
+            writer.addDocument(document(FIRST_SECOND + i, false));
+        }
+        writer.commit();
+        for (int i = 0; i < DOCS_PER_SEGMENT; i++)
+        {
+            writer.addDocument(document(FIRST_SECOND + i, true));
+        }
+        writer.close();
+    }
+
+    @Test
+    public void onlySegmentsWithNumericDatesInAllDocumentsAreSearchedNumerically() throws Exception
+    {
+        final IndexReader reader = IndexReader.open(directory);
+        try
+        {
+            final IndexReader[] segments = reader.getSequentialSubReaders();
+            assertEquals(2, segments.length);
+            assertFalse(ChangeHistoryDateRangeFilter.hasNumericDates(segments[0]));
+            assertTrue(ChangeHistoryDateRangeFilter.hasNumericDates(segments[1]));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void matchesTheSameDocumentsInEitherFormat() throws Exception
+    {
+        assertEquals(8, count(date(FIRST_SECOND + 3), date(FIRST_SECOND + 6), true, true));
+        assertEquals(4, count(date(FIRST_SECOND + 3), date(FIRST_SECOND + 6), false, false));
+        assertEquals(14, count(date(FIRST_SECOND + 3), null, true, true));
+        assertEquals(6, count(null, date(FIRST_SECOND + 3), true, false));
+    }
+
+    @Test
+    public void mergedSegmentsFallBackToTerms() throws Exception
+    {
+        final IndexWriter writer = newWriter();
+        writer.optimize();
+        writer.close();
+
+        assertEquals(8, count(date(FIRST_SECOND + 3), date(FIRST_SECOND + 6), true, true));
+    }
+
+    private int count(final Date from, final Date to, final boolean includeFrom, final boolean includeTo) throws Exception
+    {
+        final IndexSearcher searcher = new IndexSearcher(directory);
+        try
+        {
+            final ChangeHistoryDateRangeFilter filter = new ChangeHistoryDateRangeFilter(DocumentConstants.CHANGE_DATE,
+                    DocumentConstants.CHANGE_DATE_SECONDS, from, to, includeFrom, includeTo);
+            return searcher.search(new ConstantScoreQuery(filter), Integer.MAX_VALUE).totalHits;
+        }
+        finally
+        {
+            searcher.close();
+        }
+    }
+
+    private IndexWriter newWriter() throws Exception
+    {
+        return new IndexWriter(directory, new IndexWriterConfig(LuceneVersion.get(), new WhitespaceAnalyzer(LuceneVersion.get())));
+    }
+
+    private static Document document(final long seconds, final boolean numericDates)
+    {
+        final Document document = new Document();
+        document.add(new Field(DocumentConstants.CHANGE_DATE, LuceneUtils.dateToString(date(seconds)), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS));
+        if (numericDates)
+        {
+            document.add(new NumericField(DocumentConstants.CHANGE_DATE_SECONDS, ChangeHistoryDateRangeFilter.PRECISION_STEP, Field.Store.NO, true).setLongValue(seconds));
+            document.add(new Field(DocumentConstants.CHANGE_NUMERIC_DATES, ChangeHistoryDateRangeFilter.NUMERIC_DATES.text(), Field.Store.NO, Field.Index.NOT_ANALYZED_NO_NORMS));
+        }
+        return document;
+    }
+
+    private static Date date(final long seconds)
+    {
+        return new Date(seconds * 1000);
+    }
+}
@@ -0,0 +1,115 @@
+package com.atlassian.jira.issue.search.filters;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.atlassian.jira.index.LuceneVersion;
+import com.atlassian.jira.issue.index.DocumentConstants;
+
+import com.google.common.collect.Lists;
+
+import org.apache.lucene.analysis.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestIssueIdJoinFilter
+{
+    private RAMDirectory directory;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        directory = new RAMDirectory();
+        final IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(LuceneVersion.get(), new WhitespaceAnalyzer(LuceneVersion.get())));
+        // two segments, with ids whose terms sort differently from their numbers
+        for (long id = 1; id <= 120; id++)
+        {
+            final Document document = new Document();
+            document.add(new Field(DocumentConstants.ISSUE_ID, String.valueOf(id), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS));
+            writer.addDocument(document);
+            if (id == 60)
+            {
+                writer.commit();
+            }
+        }
+        writer.close();
+    }
+
+    @Test
+    public void matchesTheIssuesWithTheGivenIds() throws Exception
+    {
+        assertEquals(Arrays.asList("2", "9", "10", "61", "100", "120"), search(new IssueIdJoinFilter(new long[] { 100, 9, 2, 120, 61, 10, 9 })));
+    }
+
+    @Test
+    public void idsThatAreNotIndexedAreIgnored() throws Exception
+    {
+        assertEquals(Arrays.asList("5"), search(new IssueIdJoinFilter(new long[] { 500, 5, 0 })));
+        assertEquals(Arrays.<String>asList(), search(new IssueIdJoinFilter(new long[0])));
+    }
+
+    @Test
+    public void manyIdsAreMatchedInOnePassOverTheTerms() throws Exception
+    {
+        // enough ids, against 120 documents, to walk the terms rather than seek each id
+        final long[] issueIds = new long[30];
+        final List<String> expected = Lists.newArrayList();
+        for (int i = 0; i < issueIds.length; i++)
+        {
+            issueIds[i] = 4 * i + 3;
+            if (issueIds[i] <= 120)
+            {
+                expected.add(String.valueOf(issueIds[i]));
+            }
+        }
+
+        assertEquals(expected, search(new IssueIdJoinFilter(issueIds)));
+    }
+
+    @Test
+    public void matchesTheIssuesWithTheGivenIndexedIds() throws Exception
+    {
+        assertEquals(Arrays.asList("7", "70"), search(IssueIdJoinFilter.forIndexedIds(Arrays.asList("70", "7", "700"))));
+    }
+
+    @Test
+    public void filtersWithTheSameIdsAreEqual()
+    {
+        final IssueIdJoinFilter filter = new IssueIdJoinFilter(new long[] { 3, 1, 2, 1 });
+
+        assertEquals(new IssueIdJoinFilter(Arrays.asList(1L, 2L, 3L)), filter);
+        assertEquals(new IssueIdJoinFilter(Arrays.asList(1L, 2L, 3L)).hashCode(), filter.hashCode());
+        assertEquals(3, filter.size());
+        assertFalse(filter.equals(new IssueIdJoinFilter(Arrays.asList(1L, 2L))));
+    }
+
+    private List<String> search(final IssueIdJoinFilter filter) throws Exception
+    {
+        final IndexSearcher searcher = new IndexSearcher(directory);
+        try
+        {
+            // every match scores the same, so the issues come back in the order they were indexed
+            final List<String> ids = Lists.newArrayList();
+            for (final ScoreDoc scoreDoc : searcher.search(new ConstantScoreQuery(filter), Integer.MAX_VALUE).scoreDocs)
+            {
+                ids.add(searcher.doc(scoreDoc.doc).get(DocumentConstants.ISSUE_ID));
+            }
+            return ids;
+        }
+        finally
+        {
+            searcher.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.atlassian.jira.issue.search.parameters.lucene.sort;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since v6.3.15
+ */
+public class TestOrdinalMatchHandler
+{
+    private void assertTerms(DocumentTermOrdinals ordinals, int doc, String... expectedTerms)
+    {
+        assertEquals("doc=" + doc, expectedTerms.length, ordinals.getEnd(doc) - ordinals.getStart(doc));
+        for (int i = 0; i < expectedTerms.length; i++)
+        {
+            assertEquals("doc=" + doc, expectedTerms[i], ordinals.getTerm(ordinals.getOrdinal(ordinals.getStart(doc) + i)));
+        }
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        final DocumentTermOrdinals ordinals = new OrdinalMatchHandler(3).getResults();
+
+        assertEquals(3, ordinals.getDocCount());
+        assertEquals(0, ordinals.getTermCount());
+        for (int doc = 0; doc < 3; doc++)
+        {
+            assertFalse(ordinals.hasTerms(doc));
+            assertEquals(DocumentTermOrdinals.NO_TERM, ordinals.getFirstOrdinal(doc));
+        }
+    }
+
+    @Test
+    public void testSingleValues()
+    {
+        final OrdinalMatchHandler handler = new OrdinalMatchHandler(5);
+        handler.handleMatchedDocument(4, "Fred");
+        handler.handleMatchedDocument(1, "George");
+        handler.handleMatchedDocument(2, "Ginny");
+        handler.handleMatchedDocument(3, "Ginny");
+
+        final DocumentTermOrdinals ordinals = handler.getResults();
+
+        assertEquals(3, ordinals.getTermCount());
+        assertFalse(ordinals.hasTerms(0));
+        assertTerms(ordinals, 1, "George");
+        assertTerms(ordinals, 2, "Ginny");
+        assertTerms(ordinals, 3, "Ginny");
+        assertTerms(ordinals, 4, "Fred");
+        assertEquals(ordinals.getFirstOrdinal(2), ordinals.getFirstOrdinal(3));
+    }
+
+    @Test
+    public void testMultipleValuesAreKeptInTermOrder()
+    {
+        final OrdinalMatchHandler handler = new OrdinalMatchHandler(3);
+        handler.handleMatchedDocument(2, "Fred");
+        handler.handleMatchedDocument(0, "Fred");
+        handler.handleMatchedDocument(2, "George");
+        handler.handleMatchedDocument(2, "Percy");
+        handler.handleMatchedDocument(0, "Percy");
+
+        final DocumentTermOrdinals ordinals = handler.getResults();
+
+        assertTerms(ordinals, 0, "Fred", "Percy");
+        assertTerms(ordinals, 1);
+        assertTerms(ordinals, 2, "Fred", "George", "Percy");
+    }
+
+    @Test
+    public void testNullValue()
+    {
+        final OrdinalMatchHandler handler = new OrdinalMatchHandler(2);
+        handler.handleMatchedDocument(1, null);
+
+        final DocumentTermOrdinals ordinals = handler.getResults();
+
+        assertTrue(ordinals.hasTerms(1));
+        assertTerms(ordinals, 1, (String) null);
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity()
+    {
+        final OrdinalMatchHandler handler = new OrdinalMatchHandler(100);
+        for (int term = 0; term < 40; term++)
+        {
+            for (int doc = 0; doc < 100; doc += 2)
+            {
+                handler.handleMatchedDocument(doc, String.format("%02d", term));
+            }
+        }
+
+        final DocumentTermOrdinals ordinals = handler.getResults();
+
+        assertEquals(40, ordinals.getTermCount());
+        assertEquals(40, ordinals.getEnd(98) - ordinals.getStart(98));
+        assertEquals("39", ordinals.getTerm(ordinals.getOrdinal(ordinals.getEnd(98) - 1)));
+        assertFalse(ordinals.hasTerms(99));
+    }
+}
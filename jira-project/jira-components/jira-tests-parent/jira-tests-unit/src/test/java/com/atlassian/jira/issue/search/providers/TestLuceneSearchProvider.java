@@ -56,6 +56,7 @@ import com.atlassian.jira.jql.query.LuceneQueryBuilder;
 import com.atlassian.jira.jql.query.QueryCreationContext;
 import com.atlassian.jira.junit.rules.AvailableInContainer;
 import com.atlassian.jira.junit.rules.MockitoMocksInContainer;
+import com.atlassian.jira.mock.MockApplicationProperties;
 import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.jira.user.ApplicationUsers;
 import com.atlassian.jira.user.UserKeyService;
@@ -114,7 +115,8 @@ public class TestLuceneSearchProvider
     public void onTestUp()
     {
         testedObject = new LuceneSearchProvider(issueFactory, searchProviderFactory, permissionsFilterGenerator, searchHandlerManager,
-                searchSortUtil, luceneQueryBuilder, queryOptimizationService);
+                searchSortUtil, luceneQueryBuilder, queryOptimizationService, new SharedPermissionsFilterCache(new MockApplicationProperties()),
+                new ParallelSearchExecutor(new MockApplicationProperties()));
         when(searchProviderFactory.getSearcher(SearchProviderFactory.ISSUE_INDEX)).thenReturn(indexSearcher);
         when(instrumentRegistry.pullTimer(InstrumentationName.ISSUE_INDEX_READS.getInstrumentName())).thenAnswer(new Answer<OpTimer>()
         {
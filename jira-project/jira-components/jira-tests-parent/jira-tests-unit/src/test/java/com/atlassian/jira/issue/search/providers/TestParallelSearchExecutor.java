@@ -0,0 +1,116 @@
+package com.atlassian.jira.issue.search.providers;
+
+import java.io.IOException;
+
+import com.atlassian.jira.config.properties.APKeys;
+import com.atlassian.jira.index.LuceneVersion;
+import com.atlassian.jira.mock.MockApplicationProperties;
+
+import org.apache.lucene.analysis.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestParallelSearchExecutor
+{
+    private static final int SEGMENTS = 4;
+    private static final int DOCS_PER_SEGMENT = 25;
+
+    private final MockApplicationProperties applicationProperties = new MockApplicationProperties();
+    private IndexSearcher searcher;
+    private ParallelSearchExecutor executor;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        final RAMDirectory directory = new RAMDirectory();
+        final IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(LuceneVersion.get(), new WhitespaceAnalyzer(LuceneVersion.get())));
+        for (int segment = 0; segment < SEGMENTS; segment++)
+        {
+            for (int i = 0; i < DOCS_PER_SEGMENT; i++)
+            {
+                addDocument(writer, String.format("%04d", (i * SEGMENTS + segment)));
+            }
+            writer.commit();
+        }
+        writer.close();
+        searcher = new IndexSearcher(directory);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (executor != null)
+        {
+            executor.shutdown();
+        }
+        searcher.close();
+    }
+
+    @Test
+    public void searchesSeriallyByDefault()
+    {
+        executor = new ParallelSearchExecutor(applicationProperties);
+
+        assertFalse(executor.isParallel(searcher));
+        assertSame(searcher, executor.getSearcher(searcher));
+    }
+
+    @Test
+    public void searchesSeriallyWhenIndexIsSmall()
+    {
+        applicationProperties.setString(APKeys.JiraIndexConfiguration.Issue.SEARCH_THREADS, "4");
+        applicationProperties.setString(APKeys.JiraIndexConfiguration.Issue.SEARCH_PARALLEL_MIN_DOCS, String.valueOf(SEGMENTS * DOCS_PER_SEGMENT + 1));
+        executor = new ParallelSearchExecutor(applicationProperties);
+
+        assertFalse(executor.isParallel(searcher));
+    }
+
+    @Test
+    public void parallelSearchReturnsTheSameHitsAsSerialSearch() throws IOException
+    {
+        applicationProperties.setString(APKeys.JiraIndexConfiguration.Issue.SEARCH_THREADS, "4");
+        applicationProperties.setString(APKeys.JiraIndexConfiguration.Issue.SEARCH_THREADS_PER_REQUEST, "2");
+        applicationProperties.setString(APKeys.JiraIndexConfiguration.Issue.SEARCH_PARALLEL_MIN_DOCS, "1");
+        executor = new ParallelSearchExecutor(applicationProperties);
+
+        assertTrue(executor.isParallel(searcher));
+        assertEquals(SEGMENTS, executor.getSegmentCount(searcher));
+        final IndexSearcher parallelSearcher = executor.getSearcher(searcher);
+        assertNotSame(searcher, parallelSearcher);
+
+        final Sort sort = new Sort(new SortField("key", SortField.STRING, true));
+        final TopDocs expected = searcher.search(new MatchAllDocsQuery(), null, 30, sort);
+        final TopDocs actual = parallelSearcher.search(new MatchAllDocsQuery(), null, 30, sort);
+
+        assertEquals(expected.totalHits, actual.totalHits);
+        assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++)
+        {
+            assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+        }
+    }
+
+    private static void addDocument(final IndexWriter writer, final String key) throws IOException
+    {
+        final Document doc = new Document();
+        doc.add(new Field("key", key, Field.Store.YES, Field.Index.NOT_ANALYZED));
+        writer.addDocument(doc);
+    }
+}
@@ -0,0 +1,111 @@
+package com.atlassian.jira.issue.search.providers;
+
+import com.atlassian.crowd.embedded.api.User;
+import com.atlassian.crowd.event.group.GroupMembershipCreatedEvent;
+import com.atlassian.crowd.event.group.GroupMembershipDeletedEvent;
+import com.atlassian.crowd.model.membership.MembershipType;
+import com.atlassian.jira.event.ClearCacheEvent;
+import com.atlassian.jira.mock.MockApplicationProperties;
+import com.atlassian.jira.user.MockUser;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestSharedPermissionsFilterCache
+{
+    private SharedPermissionsFilterCache cache;
+    private final User fred = new MockUser("fred");
+    private final User barney = new MockUser("barney");
+
+    @Before
+    public void setUp()
+    {
+        cache = new SharedPermissionsFilterCache(new MockApplicationProperties());
+    }
+
+    @Test
+    public void usersWithEqualPermissionQueriesShareTheFilter()
+    {
+        final Filter filter = cache.getFilter(fred, projects("10000", "10001"), 1000);
+
+        assertSame(filter, cache.getFilter(fred, projects("10000", "10001"), 1000));
+        assertNotSame(filter, cache.getFilter(fred, projects("10000"), 1000));
+    }
+
+    @Test
+    public void clearCacheEventDropsSharedFilters()
+    {
+        final Filter filter = cache.getFilter(fred, projects("10000"), 1000);
+
+        cache.onClearCache(ClearCacheEvent.INSTANCE);
+
+        assertNotSame(filter, cache.getFilter(fred, projects("10000"), 1000));
+    }
+
+    @Test
+    public void groupMembershipChangeDropsOnlyTheFilterOfTheUser()
+    {
+        final Filter fredsFilter = cache.getFilter(fred, projects("10000"), 1000);
+        final Filter barneysFilter = cache.getFilter(barney, projects("10001"), 1000);
+
+        cache.onGroupMembershipCreated(membershipCreated(MembershipType.GROUP_USER, "Fred"));
+
+        assertNotSame(fredsFilter, cache.getFilter(fred, projects("10000"), 1000));
+        assertSame(barneysFilter, cache.getFilter(barney, projects("10001"), 1000));
+
+        final Filter barneysNewFilter = cache.getFilter(barney, projects("10001", "10002"), 1000);
+        cache.onGroupMembershipDeleted(membershipDeleted(MembershipType.GROUP_USER, "barney"));
+
+        assertNotSame(barneysNewFilter, cache.getFilter(barney, projects("10001", "10002"), 1000));
+        assertSame(barneysFilter, cache.getFilter(barney, projects("10001"), 1000));
+    }
+
+    @Test
+    public void nestedGroupMembershipChangeDropsAllFilters()
+    {
+        final Filter fredsFilter = cache.getFilter(fred, projects("10000"), 1000);
+        final Filter anonymousFilter = cache.getFilter(null, projects("10001"), 1000);
+
+        cache.onGroupMembershipCreated(membershipCreated(MembershipType.GROUP_GROUP, "nested-group"));
+
+        assertNotSame(fredsFilter, cache.getFilter(fred, projects("10000"), 1000));
+        assertNotSame(anonymousFilter, cache.getFilter(null, projects("10001"), 1000));
+    }
+
+    private static GroupMembershipCreatedEvent membershipCreated(final MembershipType membershipType, final String entityName)
+    {
+        final GroupMembershipCreatedEvent event = mock(GroupMembershipCreatedEvent.class);
+        when(event.getMembershipType()).thenReturn(membershipType);
+        when(event.getEntityName()).thenReturn(entityName);
+        return event;
+    }
+
+    private static GroupMembershipDeletedEvent membershipDeleted(final MembershipType membershipType, final String entityName)
+    {
+        final GroupMembershipDeletedEvent event = mock(GroupMembershipDeletedEvent.class);
+        when(event.getMembershipType()).thenReturn(membershipType);
+        when(event.getEntityName()).thenReturn(entityName);
+        return event;
+    }
+
+    private static Query projects(final String... projectIds)
+    {
+        final BooleanQuery query = new BooleanQuery();
+        for (final String projectId : projectIds)
+        {
+            query.add(new TermQuery(new Term("projid", projectId)), BooleanClause.Occur.SHOULD);
+        }
+        return query;
+    }
+}
@@ -6,11 +6,14 @@ import java.util.List;
 
 import com.atlassian.jira.issue.fields.FieldManager;
 import com.atlassian.jira.issue.search.DefaultReaderCache;
+import com.atlassian.jira.issue.search.ReaderCache;
 import com.atlassian.jira.issue.search.constants.SystemSearchConstants;
 import com.atlassian.jira.project.ProjectManager;
+import com.atlassian.jira.util.Supplier;
 import com.atlassian.jira.web.FieldVisibilityManager;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
@@ -121,6 +124,41 @@ public class TestOneDimensionalTermHitCollector extends AbstractHitCollectorTest
         assertEquals(1, hitCollector.getIrrelevantCount());
     }
 
+    @Test
+    public void testOneDimensionalTermHitCollectorCountsTermsWithAReaderCacheWithoutOrdinals() throws IOException
+    {
+        index(doc, FIELD, "1");
+        index(doc, SystemSearchConstants.forProject().getIndexField(), "10000");
+        index(doc, SystemSearchConstants.forIssueType().getIndexField(), "1");
+        index(doc2, FIELD, "22");
+        index(doc2, SystemSearchConstants.forProject().getIndexField(), "10000");
+        index(doc2, SystemSearchConstants.forIssueType().getIndexField(), "1");
+        index(doc3, "OTHER_FIELD", "22");
+        index(doc3, SystemSearchConstants.forProject().getIndexField(), "10000");
+        index(doc3, SystemSearchConstants.forIssueType().getIndexField(), "2");
+
+        final FieldVisibilityManager fieldVisibilityManager = EasyMock.createStrictMock(FieldVisibilityManager.class);
+        EasyMock.expect(fieldVisibilityManager.isFieldVisible(10000L, FIELD, "2")).andReturn(false);
+        EasyMock.replay(fieldVisibilityManager);
+        // only caches terms, as reader caches written before the ordinals do
+        final DefaultReaderCache delegate = new DefaultReaderCache();
+        final ReaderCache readerCache = new ReaderCache()
+        {
+            public Collection<String>[] get(final IndexReader reader, final String key, final Supplier<Collection<String>[]> supplier)
+            {
+                return delegate.get(reader, key, supplier);
+            }
+        };
+        hitCollector = new OneDimensionalTermHitCollector(FIELD, fieldVisibilityManager, readerCache,
+                EasyMock.createMock(FieldManager.class), EasyMock.createMock(ProjectManager.class));
+
+        new IndexSearcher(addToIndex(ImmutableList.of(doc, doc2, doc3, doc))).search(new MatchAllDocsQuery(), hitCollector);
+
+        assertEquals(ImmutableMap.of("1", 2, "22", 1), hitCollector.getResult());
+        assertEquals(4, hitCollector.getHitCount());
+        assertEquals(1, hitCollector.getIrrelevantCount());
+    }
+
     private void collectStats(Collection<Document> docs) throws IOException
     {
         final IndexReader reader = addToIndex(docs);
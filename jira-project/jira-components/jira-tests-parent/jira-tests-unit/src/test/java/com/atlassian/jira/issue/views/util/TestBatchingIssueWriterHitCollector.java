@@ -0,0 +1,100 @@
+package com.atlassian.jira.issue.views.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.IssueFactory;
+import com.atlassian.jira.issue.customfields.persistence.CustomFieldValuePrefetcher;
+import com.atlassian.jira.mock.issue.MockIssue;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith (MockitoJUnitRunner.class)
+public class TestBatchingIssueWriterHitCollector
+{
+    @Mock
+    private IndexSearcher searcher;
+
+    @Mock
+    private IssueFactory issueFactory;
+
+    @Mock
+    private CustomFieldValuePrefetcher prefetcher;
+
+    private final Document doc1 = new Document();
+    private final Document doc2 = new Document();
+    private final Document doc3 = new Document();
+
+    private Writer writer;
+
+    @Before
+    public void setUp()
+    {
+        writer = spy(new StringWriter());
+        when(issueFactory.getIssue(doc1)).thenReturn(new MockIssue(1, "ONE-1"));
+        when(issueFactory.getIssue(doc2)).thenReturn(new MockIssue(2, "ONE-2"));
+        when(issueFactory.getIssue(doc3)).thenReturn(new MockIssue(3, "ONE-3"));
+    }
+
+    @Test
+    public void issuesAreWrittenInBatchesWithTheirCustomFieldValuesPrefetched() throws IOException
+    {
+        final BatchingIssueWriterHitCollector collector = new KeyWriter(2);
+
+        collector.collect(doc1);
+        verifyZeroInteractions(prefetcher);
+        collector.collect(doc2);
+        collector.collect(doc3);
+        collector.finish();
+
+        assertEquals("ONE-1 ONE-2 ONE-3 ", writer.toString());
+        final InOrder inOrder = inOrder(prefetcher, writer);
+        inOrder.verify(prefetcher).prefetchValues(Arrays.asList(1L, 2L));
+        inOrder.verify(writer).flush();
+        inOrder.verify(prefetcher).releaseValues(Arrays.asList(1L, 2L));
+        inOrder.verify(prefetcher).prefetchValues(Arrays.asList(3L));
+        inOrder.verify(writer).flush();
+        inOrder.verify(prefetcher).releaseValues(Arrays.asList(3L));
+    }
+
+    @Test
+    public void finishWithoutIssuesWritesNothing()
+    {
+        final BatchingIssueWriterHitCollector collector = new KeyWriter(2);
+
+        collector.finish();
+
+        assertEquals("", writer.toString());
+        verifyZeroInteractions(prefetcher);
+    }
+
+    private class KeyWriter extends BatchingIssueWriterHitCollector
+    {
+        KeyWriter(final int batchSize)
+        {
+            super(searcher, writer, issueFactory, prefetcher, batchSize);
+        }
+
+        @Override
+        protected void writeIssue(final Issue issue, final Writer writer) throws IOException
+        {
+            writer.write(issue.getKey() + " ");
+        }
+    }
+}
@@ -29,7 +29,6 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.when;
 
 /**
@@ -117,7 +116,6 @@ public class TestHistoryPredicateQueryFactory
         when(mockTerminalHistoryPredicate.getOperand()).thenReturn(operand);
         when(mockPredicateOperandResolver.getValues(mockSearcher, "field", operand)).thenReturn(Lists.newArrayList(new QueryLiteral(operand, now.getTime())));
         when(mockJqlDateSupport.convertToDateRange(now.getTime())).thenReturn(dateRange);
-        when(mockJqlDateSupport.getIndexedValue(isA(Date.class))).thenReturn("1");
     }
 
     private void assertInvalidPredicateQuery(final HistoryPredicate historyPredicate)
@@ -1,7 +1,11 @@
 package com.atlassian.jira.jql.query;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.atlassian.crowd.embedded.api.User;
 import com.atlassian.jira.issue.search.constants.SystemSearchConstants;
+import com.atlassian.jira.issue.search.filters.IssueIdJoinFilter;
 import com.atlassian.jira.jql.operand.JqlOperandResolver;
 import com.atlassian.jira.jql.operand.QueryLiteral;
 import com.atlassian.jira.jql.util.JqlIssueKeySupport;
@@ -22,6 +26,7 @@ import com.atlassian.query.operator.Operator;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TermRangeQuery;
@@ -197,6 +202,32 @@ public class TestIssueIdClauseQueryFactory
         assertFalse(query.mustNotOccur());
     }
 
+    @Test
+    public void testEqualsManyValuesJoinsIssueIds() throws Exception
+    {
+        final String fieldName = "equals";
+        final List<QueryLiteral> literals = new ArrayList<QueryLiteral>();
+        final List<Long> issueIds = new ArrayList<Long>();
+        for (long id = 1; id < IssueIdClauseQueryFactory.MIN_VALUES_FOR_JOIN; id++)
+        {
+            literals.add(createLiteral(id));
+            issueIds.add(id);
+        }
+        literals.add(createLiteral("KEY"));
+        literals.add(createLiteral("NOTFOUND"));
+        literals.add(new QueryLiteral());
+        issueIds.add(123L);
+        final TerminalClauseImpl clause = new TerminalClauseImpl(fieldName, Operator.IN, new MultiValueOperand(literals.toArray(new QueryLiteral[literals.size()])));
+
+        when(issueSupport.getIssue("KEY")).thenReturn(new MockIssue(123L));
+
+        final IssueIdClauseQueryFactory idClauseQueryFactory = new IssueIdClauseQueryFactory(jqlOperandResolver, issueKeySupport, issueSupport);
+        final QueryFactoryResult query = idClauseQueryFactory.getQuery(queryCreationContext, clause);
+
+        assertEquals(new ConstantScoreQuery(new IssueIdJoinFilter(issueIds)), query.getLuceneQuery());
+        assertFalse(query.mustNotOccur());
+    }
+
     @Test
     public void testNotEqualsSingleValueKey() throws Exception
     {
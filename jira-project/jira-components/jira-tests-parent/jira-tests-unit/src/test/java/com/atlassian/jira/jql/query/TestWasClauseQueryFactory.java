@@ -4,7 +4,7 @@ import java.util.Collections;
 
 import com.atlassian.jira.issue.changehistory.ChangeHistoryFieldConstants;
 import com.atlassian.jira.issue.search.SearchProviderFactory;
-import com.atlassian.jira.issue.search.filters.IssueIdFilter;
+import com.atlassian.jira.issue.search.filters.IssueIdJoinFilter;
 import com.atlassian.jira.jql.operand.OperandHandler;
 import com.atlassian.jira.jql.operand.QueryLiteral;
 import com.atlassian.jira.jql.resolver.ChangeHistoryFieldIdResolver;
@@ -84,7 +84,7 @@ public class TestWasClauseQueryFactory
         WasClause wasClause = new WasClauseImpl("status", Operator.WAS, singleValueOperand, null);
         final QueryFactoryResult result = wasClauseQueryFactory.create(fred, wasClause);
         final ConstantScoreQuery query = (ConstantScoreQuery) result.getLuceneQuery();
-        assertTrue("Query wraps an IssueIdFilter", query.getFilter() instanceof IssueIdFilter);
+        assertTrue("Query wraps an IssueIdJoinFilter", query.getFilter() instanceof IssueIdJoinFilter);
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.atlassian.jira.mail;
 
+import com.atlassian.jira.mail.pipeline.MailPipeline;
 import com.atlassian.jira.util.BaseUrl;
 import com.atlassian.mail.MailException;
 import com.atlassian.mail.queue.MailQueue;
@@ -20,6 +21,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +36,9 @@ public class JiraMailQueueTest
     @Mock
     private MailQueue delegate;
 
+    @Mock
+    private MailPipeline mailPipeline;
+
     private JiraMailQueue jmq;
 
     @Before
@@ -64,6 +69,29 @@ public class JiraMailQueueTest
         verify(delegate).addItem(item);
     }
 
+    @Test
+    public void addItemHandsOverToPipeline()
+    {
+        final MockMailQueueItem item = new MockMailQueueItem();
+        when(mailPipeline.offer(item)).thenReturn(true);
+
+        new JiraMailQueue(delegate, baseUrl, mailPipeline).addItem(item);
+
+        verify(mailPipeline).offer(item);
+        verify(delegate, never()).addItem(item);
+    }
+
+    @Test
+    public void addItemDelegatesWhenPipelineDeclines()
+    {
+        final MockMailQueueItem item = new MockMailQueueItem();
+        when(mailPipeline.offer(item)).thenReturn(false);
+
+        new JiraMailQueue(delegate, baseUrl, mailPipeline).addItem(item);
+
+        verify(delegate).addItem(item);
+    }
+
     @Test
     public void addErrorItemDelegates()
     {
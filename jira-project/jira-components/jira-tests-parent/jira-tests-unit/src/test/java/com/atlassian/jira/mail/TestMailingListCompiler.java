@@ -17,6 +17,7 @@ import com.atlassian.jira.issue.worklog.TimeTrackingIssueUpdater;
 import com.atlassian.jira.issue.worklog.Worklog;
 import com.atlassian.jira.junit.rules.AvailableInContainer;
 import com.atlassian.jira.junit.rules.MockitoMocksInContainer;
+import com.atlassian.jira.mail.builder.RenderingMailQueueItem;
 import com.atlassian.jira.mock.MockApplicationProperties;
 import com.atlassian.jira.mock.MockProjectRoleManager;
 import com.atlassian.jira.mock.i18n.MockI18nHelper;
@@ -34,6 +35,7 @@ import com.atlassian.jira.security.roles.ProjectRoleManager;
 import com.atlassian.jira.template.TemplateManager;
 import com.atlassian.jira.template.TemplateSource;
 import com.atlassian.jira.template.VelocityTemplatingEngine;
+import com.atlassian.jira.timezone.TimeZoneManager;
 import com.atlassian.jira.user.MockGroup;
 import com.atlassian.jira.user.MockUser;
 import com.atlassian.jira.user.MockUserLocaleStore;
@@ -56,10 +58,12 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.RuleChain;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -147,6 +151,9 @@ public class TestMailingListCompiler
     @AvailableInContainer
     private JiraAuthenticationContext jiraAuthenticationContext;
 
+    @Mock
+    private TimeZoneManager timeZoneManager;
+
     private final MockI18nHelper i18nHelper = new MockI18nHelper();
 
     @AvailableInContainer
@@ -242,6 +249,76 @@ public class TestMailingListCompiler
         sendList(ImmutableSet.of(new NotificationRecipient(user1)), Maps.<String, Object>newHashMap(), 1);
     }
 
+    @Test
+    public void recipientsWithTheSameLocaleAndTimeZoneShareOneRendering() throws Exception
+    {
+        when(templateManager.getTemplateContent(1L, "subject")).thenReturn("$issue.key");
+        when(templateManager.getTemplateContent(1L, "text")).thenReturn("Hello $i18n.getText('common.words.user')");
+
+        renderAll(ImmutableSet.of(new NotificationRecipient(user1), new NotificationRecipient(user3)));
+
+        // the subject and the body, once
+        verify(velocityTemplatingEngine, times(2)).render(any(TemplateSource.class));
+    }
+
+    @Test
+    public void templatesReferringToTheRecipientAreRenderedForEachRecipient() throws Exception
+    {
+        when(templateManager.getTemplateContent(1L, "subject")).thenReturn("$issue.key");
+        when(templateManager.getTemplateContent(1L, "text")).thenReturn("Hello ${recipient.displayName}");
+
+        renderAll(ImmutableSet.of(new NotificationRecipient(user1), new NotificationRecipient(user3)));
+
+        verify(velocityTemplatingEngine, times(4)).render(any(TemplateSource.class));
+    }
+
+    @Test
+    public void templatesIncludingATemplateWithoutTheRecipientShareOneRendering() throws Exception
+    {
+        when(templateManager.getTemplateContent(1L, "subject")).thenReturn("$issue.key");
+        when(templateManager.getTemplateContent(1L, "text")).thenReturn("#parse(\"com/atlassian/jira/mail/greeting.vm\")");
+
+        renderAll(ImmutableSet.of(new NotificationRecipient(user1), new NotificationRecipient(user3)));
+
+        verify(velocityTemplatingEngine, times(2)).render(any(TemplateSource.class));
+    }
+
+    @Test
+    public void templatesIncludingATemplateReferringToTheRecipientAreRenderedForEachRecipient() throws Exception
+    {
+        when(templateManager.getTemplateContent(1L, "subject")).thenReturn("$issue.key");
+        when(templateManager.getTemplateContent(1L, "text")).thenReturn("#parse('/com/atlassian/jira/mail/nested-recipient-greeting.vm')");
+
+        renderAll(ImmutableSet.of(new NotificationRecipient(user1), new NotificationRecipient(user3)));
+
+        verify(velocityTemplatingEngine, times(4)).render(any(TemplateSource.class));
+    }
+
+    @Test
+    public void templatesWithIncludesThatAreNotKnownBeforeRenderingAreRenderedForEachRecipient() throws Exception
+    {
+        when(templateManager.getTemplateContent(1L, "subject")).thenReturn("$issue.key");
+        when(templateManager.getTemplateContent(1L, "text")).thenReturn("#parse($greeting)");
+
+        renderAll(ImmutableSet.of(new NotificationRecipient(user1), new NotificationRecipient(user3)));
+
+        verify(velocityTemplatingEngine, times(4)).render(any(TemplateSource.class));
+    }
+
+    private void renderAll(final Set<NotificationRecipient> recipients) throws Exception
+    {
+        final MailingListCompiler mailingListCompiler = new MailingListCompiler(templateManager, projectRoleMangerMock, timeZoneManager);
+        mailingListCompiler.sendLists(recipients, user1.getEmailAddress(), null, 1L, "base", Maps.<String, Object>newHashMap(), null);
+
+        final ArgumentCaptor<MailQueueItem> items = ArgumentCaptor.forClass(MailQueueItem.class);
+        verify(mailQueue, times(recipients.size())).addItem(items.capture());
+        final List<MailQueueItem> queued = items.getAllValues();
+        for (final MailQueueItem item : queued)
+        {
+            ((RenderingMailQueueItem) item).render();
+        }
+    }
+
     /* Test by sending a non restricted worklog to two html users */
     @Test
     public void testSendingHtmlWorklog() throws Exception
@@ -466,7 +543,7 @@ public class TestMailingListCompiler
     private void sendList(final Set<NotificationRecipient> users, final Map<String, Object> contextParamsIn,
             final int numberOfRecipients) throws VelocityException
     {
-        final MailingListCompiler mailingListCompiler = new MailingListCompiler(templateManager, projectRoleMangerMock);
+        final MailingListCompiler mailingListCompiler = new MailingListCompiler(templateManager, projectRoleMangerMock, timeZoneManager);
         mailingListCompiler.sendLists(users, user1.getEmailAddress(), null, 1L, "base", contextParamsIn, null);
 
         verify(mailQueue, times(numberOfRecipients)).addItem(Mockito.any(MailQueueItem.class));
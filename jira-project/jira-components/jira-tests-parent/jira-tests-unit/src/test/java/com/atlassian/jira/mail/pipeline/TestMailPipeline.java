@@ -0,0 +1,106 @@
+package com.atlassian.jira.mail.pipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.mail.builder.RenderingMailQueueItem;
+import com.atlassian.mail.queue.MailQueueItem;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@RunWith (MockitoJUnitRunner.class)
+public class TestMailPipeline
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private EventPublisher eventPublisher;
+
+    @Mock
+    private ApplicationProperties applicationProperties;
+
+    private MailSpool spool;
+    private MailPipeline pipeline;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        spool = new MailSpool(new File(temporaryFolder.getRoot(), "mailspool"));
+        pipeline = new MailPipeline(eventPublisher, applicationProperties, spool);
+    }
+
+    @Test
+    public void retryDelayDoublesUpToTheMaximum()
+    {
+        assertEquals(MailPipeline.INITIAL_RETRY_DELAY_MILLIS, MailPipeline.getRetryDelayMillis(1));
+        assertEquals(MailPipeline.INITIAL_RETRY_DELAY_MILLIS * 2, MailPipeline.getRetryDelayMillis(2));
+        assertEquals(MailPipeline.INITIAL_RETRY_DELAY_MILLIS * 4, MailPipeline.getRetryDelayMillis(3));
+        assertEquals(MailPipeline.MAX_RETRY_DELAY_MILLIS, MailPipeline.getRetryDelayMillis(8));
+        assertEquals(MailPipeline.MAX_RETRY_DELAY_MILLIS, MailPipeline.getRetryDelayMillis(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void failedMailIsRetriedLater() throws Exception
+    {
+        final SpooledMail mail = spool.write(message());
+
+        pipeline.retryOrFail(mail, new IOException("Connection refused"));
+
+        assertEquals(1, mail.getAttempts());
+        assertTrue(mail.getDelay(TimeUnit.MILLISECONDS) > 0);
+        assertEquals(1, pipeline.getSendQueueDepth());
+        assertTrue(mail.getFile().exists());
+        assertEquals(1, spool.recover().get(0).getAttempts());
+    }
+
+    @Test
+    public void mailIsGivenUpAfterTooManyAttempts() throws Exception
+    {
+        final SpooledMail mail = spool.write(message());
+        for (int i = 1; i < MailPipeline.MAX_SEND_ATTEMPTS; i++)
+        {
+            mail.failedAttempt(0);
+        }
+
+        pipeline.retryOrFail(mail, new IOException("Connection refused"));
+
+        assertEquals(0, pipeline.getSendQueueDepth());
+        assertFalse(mail.getFile().exists());
+        assertEquals(1, spool.getFailedCount());
+    }
+
+    @Test
+    public void itemsAreDeclinedWhileThePipelineIsNotRunning()
+    {
+        assertFalse(pipeline.isRunning());
+        assertFalse(pipeline.offer(mock(RenderingMailQueueItem.class)));
+        assertFalse(pipeline.offer(mock(MailQueueItem.class)));
+    }
+
+    private MimeMessage message() throws Exception
+    {
+        final MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        message.setSubject("Subject");
+        message.setText("Body");
+        return message;
+    }
+}
@@ -0,0 +1,109 @@
+package com.atlassian.jira.mail.pipeline;
+
+import java.io.File;
+import java.util.List;
+import java.util.Properties;
+
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import com.atlassian.mail.server.impl.ExtendedMimeMessage;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestMailSpool
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Session session = Session.getInstance(new Properties());
+    private MailSpool spool;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        spool = new MailSpool(new File(temporaryFolder.getRoot(), "mailspool"));
+    }
+
+    @Test
+    public void spooledMailIsReadBackAsWritten() throws Exception
+    {
+        final SpooledMail mail = spool.write(message("fred@example.com", "Subject", "JIRA.10000.1.1"));
+
+        final MimeMessage read = spool.read(mail, session);
+        assertEquals("Subject", read.getSubject());
+        assertEquals("fred@example.com", read.getRecipients(Message.RecipientType.TO)[0].toString());
+        assertTrue(read.getMessageID().contains("JIRA.10000.1.1"));
+        assertEquals("Body", read.getContent());
+    }
+
+    @Test
+    public void recoverFindsUnsentMailsOldestFirstAndDropsPartlyWrittenOnes() throws Exception
+    {
+        final SpooledMail first = spool.write(message("fred@example.com", "First", null));
+        final SpooledMail second = spool.write(message("fred@example.com", "Second", null));
+        final SpooledMail sent = spool.write(message("fred@example.com", "Sent", null));
+        spool.remove(sent);
+        final File temp = new File(spool.getDirectory(), "0000000000000000-0000000000" + MailSpool.TEMP_SUFFIX);
+        FileUtils.writeStringToFile(temp, "Subject: half");
+
+        final List<SpooledMail> recovered = new MailSpool(spool.getDirectory()).recover();
+
+        assertEquals(2, recovered.size());
+        assertEquals(first.getFile(), recovered.get(0).getFile());
+        assertEquals(second.getFile(), recovered.get(1).getFile());
+        assertFalse(temp.exists());
+    }
+
+    @Test
+    public void recoverCarriesOnFromTheRecordedAttempts() throws Exception
+    {
+        final SpooledMail first = spool.write(message("fred@example.com", "First", null));
+        final SpooledMail second = spool.write(message("fred@example.com", "Second", null));
+        second.failedAttempt(0);
+        second.failedAttempt(0);
+        spool.recordAttempts(second);
+
+        final List<SpooledMail> recovered = new MailSpool(spool.getDirectory()).recover();
+
+        assertEquals(2, recovered.size());
+        assertEquals(first.getFile(), recovered.get(0).getFile());
+        assertEquals(0, recovered.get(0).getAttempts());
+        assertEquals(second.getFile(), recovered.get(1).getFile());
+        assertEquals(2, recovered.get(1).getAttempts());
+        assertEquals("Second", spool.read(recovered.get(1), session).getSubject());
+    }
+
+    @Test
+    public void failedMailIsMovedOutOfTheSpool() throws Exception
+    {
+        final SpooledMail mail = spool.write(message("fred@example.com", "Subject", null));
+
+        spool.fail(mail);
+
+        assertFalse(mail.getFile().exists());
+        assertTrue(spool.recover().isEmpty());
+        assertEquals(1, spool.getFailedCount());
+    }
+
+    private MimeMessage message(final String to, final String subject, final String messageId) throws Exception
+    {
+        final MimeMessage message = new ExtendedMimeMessage(session, messageId);
+        message.setFrom(new InternetAddress("jira@example.com"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        message.setSubject(subject);
+        message.setText("Body");
+        message.saveChanges();
+        return message;
+    }
+}
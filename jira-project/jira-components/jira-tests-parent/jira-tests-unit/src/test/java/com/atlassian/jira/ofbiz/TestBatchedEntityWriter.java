@@ -0,0 +1,170 @@
+package com.atlassian.jira.ofbiz;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.atlassian.jira.entity.Entity;
+import com.atlassian.jira.exception.DataAccessException;
+import com.atlassian.jira.mock.component.MockComponentWorker;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ofbiz.core.entity.EntityWhereString;
+import org.ofbiz.core.entity.GenericDelegator;
+import org.ofbiz.core.entity.GenericValue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration test of {@link BatchedEntityWriter} that uses an in-memory database.
+ */
+public class TestBatchedEntityWriter
+{
+    private static final String DELEGATOR_NAME = "default";
+    private static final String ENTITY_NAME = Entity.Name.PROJECT;
+
+    private GenericDelegator genericDelegator;
+    private OfBizDelegator ofBizDelegator;
+
+    @Before
+    @SuppressWarnings("deprecation")
+    public void setUp()
+    {
+        // Getting a new clean GenericDelegator sets up an in-memory database.
+        GenericDelegator.removeGenericDelegator(DELEGATOR_NAME);
+        genericDelegator = GenericDelegator.getGenericDelegator(DELEGATOR_NAME);
+        ofBizDelegator = new DefaultOfBizDelegator(genericDelegator);
+        new MockComponentWorker().init().addMock(OfBizDelegator.class, ofBizDelegator);
+        cleanup();
+    }
+
+    @After
+    public void tearDown()
+    {
+        cleanup();
+        GenericDelegator.removeGenericDelegator(DELEGATOR_NAME);
+    }
+
+    private void cleanup()
+    {
+        ofBizDelegator.removeByCondition(ENTITY_NAME, new EntityWhereString("1=1"));
+    }
+
+    @Test
+    public void testInsertsAreWrittenInBatches()
+    {
+        final BatchedEntityWriter writer = new BatchedEntityWriter(genericDelegator, 2);
+        final List<GenericValue> projects = Lists.newArrayList();
+        for (int i = 0; i < 5; i++)
+        {
+            projects.add(writer.create(ENTITY_NAME, projectFields("project " + i)));
+        }
+        // the fifth project is still queued
+        assertEquals(4, ofBizDelegator.getCount(ENTITY_NAME));
+        assertEquals(2, writer.getBatchesWritten());
+
+        writer.close();
+
+        assertEquals(5, ofBizDelegator.getCount(ENTITY_NAME));
+        assertEquals(5, writer.getRowsWritten());
+        assertEquals(3, writer.getBatchesWritten());
+        for (GenericValue project : projects)
+        {
+            assertNotNull("ids are allocated before the rows are written", project.getLong("id"));
+            final GenericValue written = ofBizDelegator.findById(ENTITY_NAME, project.getLong("id"));
+            assertEquals(project.getString("name"), written.getString("name"));
+        }
+    }
+
+    @Test
+    public void testUpdatesAreWrittenAfterTheirInserts()
+    {
+        final BatchedEntityWriter writer = new BatchedEntityWriter(genericDelegator, 2);
+        final GenericValue project1 = writer.create(ENTITY_NAME, projectFields("project 1"));
+        final GenericValue project2 = writer.create(ENTITY_NAME, projectFields("project 2"));
+        final GenericValue project3 = writer.create(ENTITY_NAME, projectFields("project 3"));
+        project3.set("name", "renamed 3");
+        project3.set("description", null);
+        writer.store(project3);
+        project1.set("name", "renamed 1");
+        writer.store(project1);
+        writer.close();
+
+        assertEquals("renamed 1", ofBizDelegator.findById(ENTITY_NAME, project1.getLong("id")).getString("name"));
+        assertEquals("project 2", ofBizDelegator.findById(ENTITY_NAME, project2.getLong("id")).getString("name"));
+        assertEquals("renamed 3", ofBizDelegator.findById(ENTITY_NAME, project3.getLong("id")).getString("name"));
+        assertEquals(5, writer.getRowsWritten());
+    }
+
+    @Test
+    public void testRowsThatFailToBeWrittenAreNotSentAgain()
+    {
+        final BatchedEntityWriter writer = new BatchedEntityWriter(genericDelegator, 10);
+        final GenericValue project = writer.create(ENTITY_NAME, projectFields("project 1"));
+        final Map<String, Object> duplicate = projectFields("duplicate");
+        duplicate.put("id", project.getLong("id"));
+        writer.create(ENTITY_NAME, duplicate);
+        try
+        {
+            writer.flush();
+            fail("the duplicate id should have been rejected");
+        }
+        catch (final DataAccessException expected)
+        {
+        }
+
+        writer.close();
+
+        assertEquals(0, writer.getRowsWritten());
+        assertEquals("the rows before the duplicate are rolled back with it", 0, ofBizDelegator.getCount(ENTITY_NAME));
+    }
+
+    @Test
+    public void testUpdatesOnlyWriteTheFieldsThatArePresent()
+    {
+        final BatchedEntityWriter writer = new BatchedEntityWriter(genericDelegator, 10);
+        final GenericValue project1 = writer.create(ENTITY_NAME, projectFields("project 1"));
+        final GenericValue project2 = writer.create(ENTITY_NAME, projectFields("project 2"));
+        writer.flush();
+
+        writer.store(genericDelegator.makeValue(ENTITY_NAME, ImmutableMap.<String, Object>of("id", project1.getLong("id"), "name", "renamed 1")));
+        writer.store(genericDelegator.makeValue(ENTITY_NAME, ImmutableMap.<String, Object>of("id", project2.getLong("id"), "description", "changed 2")));
+        writer.close();
+
+        final GenericValue written1 = ofBizDelegator.findById(ENTITY_NAME, project1.getLong("id"));
+        assertEquals("renamed 1", written1.getString("name"));
+        assertEquals("description of project 1", written1.getString("description"));
+        final GenericValue written2 = ofBizDelegator.findById(ENTITY_NAME, project2.getLong("id"));
+        assertEquals("project 2", written2.getString("name"));
+        assertEquals("changed 2", written2.getString("description"));
+        // one batch of inserts, and one batch for each set of fields updated
+        assertEquals(3, writer.getBatchesWritten());
+    }
+
+    @Test
+    public void testValuesWithOnlyTheirPrimaryKeyAreNotUpdated()
+    {
+        final BatchedEntityWriter writer = new BatchedEntityWriter(genericDelegator, 10);
+        writer.store(genericDelegator.makeValue("NodeAssociation", ImmutableMap.<String, Object>of("sourceNodeId", 1L,
+                "sourceNodeEntity", "Issue", "sinkNodeId", 2L, "sinkNodeEntity", "Version", "associationType", "IssueVersion")));
+        writer.close();
+
+        assertEquals(1, writer.getRowsWritten());
+        assertEquals(0, writer.getBatchesWritten());
+    }
+
+    private static Map<String, Object> projectFields(final String name)
+    {
+        final Map<String, Object> fields = new HashMap<String, Object>();
+        fields.put("name", name);
+        fields.put("description", "description of " + name);
+        return fields;
+    }
+}
@@ -0,0 +1,37 @@
+package com.atlassian.jira.ofbiz;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestSqlStatementNormalizer
+{
+    @Test
+    public void testLiteralsAreStripped()
+    {
+        assertEquals("SELECT ID FROM jiraissue WHERE PROJECT=? AND SUMMARY LIKE ? AND VOTES > ?",
+                SqlStatementNormalizer.normalize("SELECT ID FROM jiraissue WHERE PROJECT=10000 AND SUMMARY LIKE '%it''s broken%' AND VOTES > 1.5"));
+    }
+
+    @Test
+    public void testDigitsInIdentifiersAreKept()
+    {
+        assertEquals("SELECT O_S_PROPERTY_ENTRY.ID, t1.ENTITY_ID FROM propertyentry t1 WHERE t1.ID=?",
+                SqlStatementNormalizer.normalize("SELECT O_S_PROPERTY_ENTRY.ID, t1.ENTITY_ID FROM propertyentry t1 WHERE t1.ID=42"));
+    }
+
+    @Test
+    public void testInListsAndWhitespaceAreCollapsed()
+    {
+        assertEquals("SELECT * FROM project WHERE ID IN (?) AND pkey IN (?)",
+                SqlStatementNormalizer.normalize("SELECT *\n  FROM project\tWHERE ID IN (?, ?,?) AND pkey in ('A', 'B')"));
+    }
+
+    @Test
+    public void testTemplatesAreCutOff()
+    {
+        final String sql = "SELECT " + StringUtils.repeat("COLUMN_NAME, ", 500) + "ID FROM jiraissue";
+        assertEquals(SqlStatementNormalizer.MAX_TEMPLATE_LENGTH, SqlStatementNormalizer.normalize(sql).length());
+    }
+}
@@ -0,0 +1,103 @@
+package com.atlassian.jira.ofbiz;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSqlStatistics
+{
+    private SqlStatistics sqlStatistics;
+
+    @Before
+    public void setUp()
+    {
+        sqlStatistics = new SqlStatistics(2, 2);
+    }
+
+    @Test
+    public void testExecutionsAreAggregatedByTemplate()
+    {
+        for (int i = 1; i <= 100; i++)
+        {
+            sqlStatistics.record("SELECT * FROM jiraissue WHERE ID=" + i, 0, TimeUnit.MILLISECONDS.toNanos(i), 0, false);
+        }
+        sqlStatistics.record("UPDATE jiraissue SET VOTES=? WHERE ID=?", 2, TimeUnit.MILLISECONDS.toNanos(1), 1, false);
+        sqlStatistics.record("UPDATE jiraissue SET VOTES=? WHERE ID=?", 2, TimeUnit.MILLISECONDS.toNanos(1), 0, true);
+
+        final List<SqlStatementStatistics> statements = sqlStatistics.getStatementStatistics();
+        assertEquals(2, statements.size());
+
+        final SqlStatementStatistics select = statements.get(0);
+        assertEquals("SELECT * FROM jiraissue WHERE ID=?", select.getTemplate());
+        assertEquals(SqlStatistics.REQUEST_TYPE_BACKGROUND, select.getRequestType());
+        assertEquals(100, select.getCallCount());
+        assertEquals(5050, select.getTotalTimeMillis());
+        assertEquals(100, select.getMaxTimeMillis());
+        // the histogram is accurate to within 25%
+        assertEquals(50, select.getPercentileTimeMillis(50), 50 * 0.25);
+        assertEquals(99, select.getPercentileTimeMillis(99), 99 * 0.25);
+
+        final SqlStatementStatistics update = statements.get(1);
+        assertEquals(2, update.getCallCount());
+        assertEquals(1, update.getFailureCount());
+        assertEquals(1, update.getRowsUpdated());
+    }
+
+    @Test
+    public void testTemplatesBeyondTheLimitAreCountedTogether()
+    {
+        sqlStatistics.record("SELECT * FROM project", 0, 1000, 0, false);
+        sqlStatistics.record("SELECT * FROM component", 0, 1000, 0, false);
+        sqlStatistics.record("SELECT * FROM version", 0, 1000, 0, false);
+        sqlStatistics.record("SELECT * FROM worklog", 0, 1000, 0, false);
+
+        assertEquals(3, sqlStatistics.getStatementCount());
+        assertEquals(2, sqlStatistics.getUntrackedExecutionCount());
+        boolean foundOther = false;
+        for (SqlStatementStatistics statistics : sqlStatistics.getStatementStatistics())
+        {
+            if (SqlStatistics.OTHER_STATEMENTS.equals(statistics.getTemplate()))
+            {
+                foundOther = true;
+                assertEquals(2, statistics.getCallCount());
+            }
+        }
+        assertTrue(foundOther);
+    }
+
+    @Test
+    public void testOnlyTheSlowestExecutionsAreKeptWithoutBindValues()
+    {
+        sqlStatistics.record("SELECT * FROM jiraissue WHERE SUMMARY='secret'", 0, TimeUnit.MILLISECONDS.toNanos(30), 0, false);
+        sqlStatistics.record("SELECT * FROM jiraissue WHERE ID=?", 1, TimeUnit.MILLISECONDS.toNanos(10), 0, false);
+        sqlStatistics.record("SELECT * FROM jiraissue WHERE ID=?", 1, TimeUnit.MILLISECONDS.toNanos(20), 0, false);
+        sqlStatistics.record("SELECT * FROM jiraissue WHERE ID=?", 1, TimeUnit.MILLISECONDS.toNanos(5), 0, false);
+
+        final List<SlowSqlExecution> slowExecutions = sqlStatistics.getSlowExecutions();
+        assertEquals(2, slowExecutions.size());
+        assertEquals(30, slowExecutions.get(0).getTimeMillis());
+        assertEquals("SELECT * FROM jiraissue WHERE SUMMARY=?", slowExecutions.get(0).getTemplate());
+        assertEquals(20, slowExecutions.get(1).getTimeMillis());
+        assertEquals(1, slowExecutions.get(1).getParameterCount());
+        for (String summary : sqlStatistics.getSlowestExecutions())
+        {
+            assertFalse(summary.contains("secret"));
+        }
+    }
+
+    @Test
+    public void testReset()
+    {
+        sqlStatistics.record("SELECT * FROM project", 0, 1000, 0, false);
+        sqlStatistics.reset();
+
+        assertEquals(0, sqlStatistics.getStatementCount());
+        assertTrue(sqlStatistics.getSlowExecutions().isEmpty());
+    }
+}
@@ -153,4 +153,41 @@ public class TestProjectCache
         assertEquals(projectCat, pCache.getProjectCategory(30L));
     }
 
+    @Test
+    public void testWithProjectsReloadsOnlyTheGivenProjects()
+    {
+        mockOfBizDelegator.removeValue(project1);
+        final GenericValue project3 = mockOfBizDelegator.createValue("Project", FieldMap.build("id", 12L, "key", "ABC-125", "name", "A Project", "counter", 10L));
+        when(mockNodeAssociationStore.getSinkIdsFromSource(project3, "ProjectCategory", ProjectRelationConstants.PROJECT_CATEGORY)).thenReturn(Lists.newArrayList(30L));
+
+        final ProjectCache patched = pCache.withProjects(Lists.newArrayList(10L, 12L));
+
+        assertThat(patched.getProjects(), contains(project3, project2));
+        assertThat(patched.getProject(10L), nullValue());
+        assertThat(patched.getProjectByCurrentKey("ABC-125"), equalTo(project3));
+        assertThat(patched.getProjectCategoryFromProject(project3), equalTo(projectCat));
+        assertThat(patched.getProjectsFromProjectCategory(projectCat), contains(project3));
+        assertThat(patched.getProjectsWithNoCategory(), contains(project2));
+        // the original is a snapshot, and stays as it was
+        assertThat(pCache.getProjects(), contains(project1, project2));
+    }
+
+    @Test
+    public void testWithProjectCategoriesKeepsTheProjects()
+    {
+        when(mockNodeAssociationStore.getSourcesFromSink(projectCat, "Project", ProjectRelationConstants.PROJECT_CATEGORY)).thenReturn(Lists.newArrayList(project1));
+        pCache = new ProjectCache(projectManager, projectKeyStore, mockNodeAssociationStore);
+        final GenericValue projectCat2 = mockOfBizDelegator.createValue("ProjectCategory", FieldMap.build("id", 31L, "name", "cat2", "description", "cat2Description"));
+
+        ProjectCache patched = pCache.withProjectCategories();
+        assertThat(patched.getProjectCategories(), contains(projectCat, projectCat2));
+        assertThat(patched.getProjectCategoryFromProject(project1), equalTo(projectCat));
+
+        mockOfBizDelegator.removeValue(projectCat);
+        patched = patched.withProjectCategories();
+        assertThat(patched.getProjectCategories(), contains(projectCat2));
+        assertThat(patched.getProjectCategoryFromProject(project1), nullValue());
+        assertThat(patched.getProjectsWithNoCategory(), contains(project1, project2));
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.atlassian.jira.web.servlet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestByteRange
+{
+    @Test
+    public void parsesClosedRange()
+    {
+        final ByteRange range = ByteRange.parse("bytes=500-999", 10000);
+        assertEquals(500, range.getFirst());
+        assertEquals(999, range.getLast());
+        assertEquals(500, range.getLength());
+        assertEquals("bytes 500-999/10000", range.toContentRange(10000));
+    }
+
+    @Test
+    public void openRangeEndsAtTheEndOfTheFile()
+    {
+        final ByteRange range = ByteRange.parse("bytes=9000-", 10000);
+        assertEquals(9000, range.getFirst());
+        assertEquals(9999, range.getLast());
+    }
+
+    @Test
+    public void rangeBeyondTheEndOfTheFileIsTruncated()
+    {
+        final ByteRange range = ByteRange.parse("bytes=9000-20000", 10000);
+        assertEquals(9999, range.getLast());
+        assertEquals(1000, range.getLength());
+    }
+
+    @Test
+    public void suffixRangeIsTheEndOfTheFile()
+    {
+        final ByteRange range = ByteRange.parse("bytes=-500", 10000);
+        assertEquals(9500, range.getFirst());
+        assertEquals(9999, range.getLast());
+
+        final ByteRange wholeFile = ByteRange.parse("bytes=-20000", 10000);
+        assertEquals(0, wholeFile.getFirst());
+        assertEquals(10000, wholeFile.getLength());
+    }
+
+    @Test
+    public void rangeStartingBeyondTheEndOfTheFileIsNotSatisfiable()
+    {
+        assertSame(ByteRange.NOT_SATISFIABLE, ByteRange.parse("bytes=10000-", 10000));
+        assertSame(ByteRange.NOT_SATISFIABLE, ByteRange.parse("bytes=-0", 10000));
+        assertSame(ByteRange.NOT_SATISFIABLE, ByteRange.parse("bytes=-1", 0));
+        assertFalse(ByteRange.NOT_SATISFIABLE.isSatisfiable());
+        assertEquals("bytes */10000", ByteRange.NOT_SATISFIABLE.toContentRange(10000));
+    }
+
+    @Test
+    public void wholeFileIsSentForHeadersWeDoNotHandle()
+    {
+        assertNull(ByteRange.parse(null, 10000));
+        assertNull(ByteRange.parse("", 10000));
+        assertNull(ByteRange.parse("bytes=-", 10000));
+        assertNull(ByteRange.parse("bytes=999-500", 10000));
+        assertNull(ByteRange.parse("bytes=0-99,200-299", 10000));
+        assertNull(ByteRange.parse("items=0-99", 10000));
+        assertNull(ByteRange.parse("bytes=99999999999999999999-", 10000));
+    }
+
+    @Test
+    public void ignoresWhitespace()
+    {
+        assertTrue(ByteRange.parse("bytes = 0 - 99", 10000).isSatisfiable());
+        assertEquals(100, ByteRange.parse("bytes = 0 - 99", 10000).getLength());
+    }
+}
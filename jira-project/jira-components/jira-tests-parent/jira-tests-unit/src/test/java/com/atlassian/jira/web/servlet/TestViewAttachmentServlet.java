@@ -1,5 +1,10 @@
 package com.atlassian.jira.web.servlet;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
 import javax.servlet.RequestDispatcher;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -16,23 +21,34 @@ import com.atlassian.jira.issue.attachment.AttachmentConstants;
 import com.atlassian.jira.mock.component.MockComponentWorker;
 import com.atlassian.jira.mock.issue.MockIssue;
 import com.atlassian.jira.mock.ofbiz.MockOfBizDelegator;
+import com.atlassian.jira.mock.servlet.MockServletOutputStream;
 import com.atlassian.jira.ofbiz.OfBizDelegator;
 import com.atlassian.jira.security.JiraAuthenticationContext;
 import com.atlassian.jira.security.PermissionManager;
 import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.jira.user.MockApplicationUser;
 import com.atlassian.jira.user.util.UserManager;
+import com.atlassian.jira.util.io.InputStreamConsumer;
+
+import com.google.common.collect.ImmutableMap;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import io.atlassian.blobstore.client.api.Unit;
+
 import static com.atlassian.jira.security.Permissions.BROWSE;
 import static com.atlassian.jira.util.BrowserUtils.USER_AGENT_HEADER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -51,6 +67,9 @@ public class TestViewAttachmentServlet
     @Mock private RequestDispatcher mockRequestDispatcher;
     @Mock private UserManager mockUserManager;
 
+    private File file;
+    private final StringWriter output = new StringWriter();
+
     @Before
     public void setUp()
     {
@@ -67,6 +86,10 @@ public class TestViewAttachmentServlet
     public void tearDown()
     {
         ComponentAccessor.initialiseWorker(null);
+        if (file != null)
+        {
+            file.delete();
+        }
     }
 
     @Test
@@ -189,6 +212,151 @@ public class TestViewAttachmentServlet
         }
     }
 
+    @Test
+    public void ifNoneMatchUsesWeakComparison()
+    {
+        assertTrue(AbstractViewFileServlet.matchesAny("\"10000-42\"", "\"10000-42\""));
+        assertTrue(AbstractViewFileServlet.matchesAny("\"1-1\", W/\"10000-42\"", "\"10000-42\""));
+        assertTrue(AbstractViewFileServlet.matchesAny("*", "\"10000-42\""));
+        assertFalse(AbstractViewFileServlet.matchesAny("\"10000-43\"", "\"10000-42\""));
+        assertFalse(AbstractViewFileServlet.matchesAny(null, "\"10000-42\""));
+    }
+
+    @Test
+    public void rangeIsAnsweredWithPartialContent() throws Exception
+    {
+        when(mockRequest.getHeader("Range")).thenReturn("bytes=2-4");
+
+        final FileViewAttachmentServlet servlet = serveDigits();
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(mockResponse).setHeader("Content-Range", "bytes 2-4/10");
+        verify(mockResponse).setHeader("Content-Length", "3");
+        verify(mockResponse).setHeader("Accept-Ranges", "bytes");
+        verify(mockResponse).setHeader("ETag", "\"10000-10\"");
+        assertEquals("234", output.toString());
+        assertTrue(servlet.opened);
+    }
+
+    @Test
+    public void rangeBeyondTheEndIsNotSatisfiable() throws Exception
+    {
+        when(mockRequest.getHeader("Range")).thenReturn("bytes=20-");
+
+        serveDigits();
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        verify(mockResponse).setHeader("Content-Range", "bytes */10");
+        assertEquals("", output.toString());
+    }
+
+    @Test
+    public void ifRangeWithTheETagIsAnsweredWithTheRange() throws Exception
+    {
+        when(mockRequest.getHeader("Range")).thenReturn("bytes=-3");
+        when(mockRequest.getHeader("If-Range")).thenReturn("\"10000-10\"");
+
+        serveDigits();
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        assertEquals("789", output.toString());
+    }
+
+    @Test
+    public void ifRangeWithAnotherETagIsAnsweredWithTheWholeFile() throws Exception
+    {
+        when(mockRequest.getHeader("Range")).thenReturn("bytes=-3");
+        when(mockRequest.getHeader("If-Range")).thenReturn("\"10000-9\"");
+
+        serveDigits();
+
+        verify(mockResponse, never()).setStatus(anyInt());
+        assertEquals("0123456789", output.toString());
+    }
+
+    @Test
+    public void ifNoneMatchWithTheETagIsAnsweredWithoutOpeningTheFile() throws Exception
+    {
+        when(mockRequest.getHeader("If-None-Match")).thenReturn("\"10000-10\"");
+
+        final FileViewAttachmentServlet servlet = serveDigits();
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(mockResponse).setHeader("ETag", "\"10000-10\"");
+        assertEquals("", output.toString());
+        assertFalse(servlet.opened);
+    }
+
+    @Test
+    public void ifNoneMatchIsNotAnsweredForUsersWithoutPermission() throws Exception
+    {
+        when(mockRequest.getHeader("If-None-Match")).thenReturn("\"10000-10\"");
+        when(mockRequest.getRequestDispatcher("/secure/views/securitybreach.jsp")).thenReturn(mockRequestDispatcher);
+        when(mockAuthenticationContext.getUser()).thenReturn(new MockApplicationUser("edwin"));
+        final FileViewAttachmentServlet servlet = new FileViewAttachmentServlet(false);
+
+        serve(servlet);
+
+        verify(mockResponse, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(mockRequestDispatcher).forward(mockRequest, mockResponse);
+    }
+
+    private FileViewAttachmentServlet serveDigits() throws Exception
+    {
+        final FileViewAttachmentServlet servlet = new FileViewAttachmentServlet(true);
+        serve(servlet);
+        return servlet;
+    }
+
+    private void serve(final FileViewAttachmentServlet servlet) throws Exception
+    {
+        file = File.createTempFile("attachment", ".txt");
+        FileUtils.writeStringToFile(file, "0123456789");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getPathInfo()).thenReturn("/10000/digits.txt");
+        when(mockResponse.getOutputStream()).thenReturn(new MockServletOutputStream(output));
+
+        servlet.service(mockRequest, mockResponse);
+    }
+
+    /**
+     * Serves {@link #file} as attachment 10000, as the attachment store does, to users who may see it.
+     */
+    private class FileViewAttachmentServlet extends PublicViewAttachmentServlet
+    {
+        private final boolean canView;
+        private boolean opened;
+
+        private FileViewAttachmentServlet(final boolean canView)
+        {
+            super(new Attachment(null, UtilsForTests.getTestEntity(AttachmentConstants.ATTACHMENT_ENTITY_NAME,
+                    ImmutableMap.<String, Object>of("id", 10000L, "mimetype", "text/plain", "filesize", 10L, "filename", "digits.txt")), null));
+            this.canView = canView;
+        }
+
+        @Override
+        protected void getInputStream(final String attachmentQuery, final InputStreamConsumer<Unit> consumer)
+                throws IOException
+        {
+            opened = true;
+            final FileInputStream in = new FileInputStream(file);
+            try
+            {
+                consumer.withInputStream(in);
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+
+        @Override
+        protected boolean hasPermissionToViewAttachment(final String username, final Attachment attachment)
+        {
+            return canView;
+        }
+    }
+
     private static class PublicViewAttachmentServlet extends ViewAttachmentServlet
     {
         private final Attachment attachment;
@@ -2,8 +2,11 @@ package com.atlassian.jira.issue.index;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.config.properties.ApplicationProperties;
@@ -86,6 +89,16 @@ public class MemoryIssueIndexer extends DefaultIssueIndexer
             Collections.sort(comments, CommentComparator.COMPARATOR);
             return comments;
         }
+
+        public Map<Long, List<Comment>> retrieveAll(final Collection<Issue> issues)
+        {
+            final Map<Long, List<Comment>> comments = new HashMap<Long, List<Comment>>();
+            for (final Issue issue : issues)
+            {
+                comments.put(issue.getId(), apply(issue));
+            }
+            return comments;
+        }
     }
 
     static class ChangeHistoryRetrieverImpl implements ChangeHistoryRetriever
@@ -125,6 +138,16 @@ public class MemoryIssueIndexer extends DefaultIssueIndexer
             }
             return changeGroups;
         }
+
+        public Map<Long, List<ChangeHistoryGroup>> retrieveAll(final Collection<Issue> issues)
+        {
+            final Map<Long, List<ChangeHistoryGroup>> changeGroups = new HashMap<Long, List<ChangeHistoryGroup>>();
+            for (final Issue issue : issues)
+            {
+                changeGroups.put(issue.getId(), apply(issue));
+            }
+            return changeGroups;
+        }
     }
 
     private static class SimpleComment extends MockComment
@@ -659,6 +659,18 @@ public class MockOfBizDelegator implements OfBizDelegator
                     }
                 };
             }
+            case EntityOperator.ID_GREATER_THAN_EQUAL_TO:
+            {
+                return new Predicate<GenericValue>()
+                {
+                    private final Number rhs = (Number) rhs(expr);
+                    @Override
+                    public boolean apply(final GenericValue input)
+                    {
+                        return ((Number)lhs(input, expr)).longValue() >= rhs.longValue();
+                    }
+                };
+            }
             case EntityOperator.ID_GREATER_THAN:
             {
                 return new Predicate<GenericValue>()
@@ -0,0 +1,72 @@
+<%@ taglib uri="webwork" prefix="ww" %>
+<%@ taglib uri="webwork" prefix="ui" %>
+<%@ taglib uri="webwork" prefix="aui" %>
+<%@ taglib uri="sitemesh-page" prefix="page" %>
+
+
+<html>
+<head>
+    <meta name="admin.active.section" content="admin_system_menu/top_system_section/troubleshooting_and_support"/>
+    <meta name="admin.active.tab" content="cache_statistics"/>
+    <title><ww:text name="'admin.cachestatistics.page.title'"/></title>
+</head>
+
+<body>
+<ww:if test="/instrumented == false">
+    <aui:component template="auimessage.jsp" theme="'aui'">
+        <aui:param name="'messageType'">info</aui:param>
+        <aui:param name="'messageHtml'"><p><ww:text name="'admin.cachestatistics.not.instrumented'"/></p></aui:param>
+    </aui:component>
+</ww:if>
+<ww:else>
+<p><ww:text name="'admin.cachestatistics.description'"/></p>
+<div class="buttons-container aui-toolbar form-buttons noprint">
+    <div class="toolbar-group">
+        <span class="toolbar-item">
+            <a class="toolbar-trigger" id="estimate_heap_size" href="ViewCacheStatistics.jspa?estimateHeapSize=true"><ww:text name="'admin.cachestatistics.estimate.heap.size'"/></a>
+        </span>
+    </div>
+</div>
+<table class="aui aui-table-rowhover" id="cache_statistics_table">
+    <thead>
+    <tr>
+        <th><ww:text name="'admin.cachestatistics.name'"/></th>
+        <th><ww:text name="'admin.cachestatistics.total.load.time'"/></th>
+        <th><ww:text name="'admin.cachestatistics.load.count'"/></th>
+        <th><ww:text name="'admin.cachestatistics.mean.load.time'"/></th>
+        <th><ww:text name="'admin.cachestatistics.max.load.time'"/></th>
+        <th><ww:text name="'admin.cachestatistics.load.failure.count'"/></th>
+        <th><ww:text name="'admin.cachestatistics.hit.count'"/></th>
+        <th><ww:text name="'admin.cachestatistics.miss.count'"/></th>
+        <th><ww:text name="'admin.cachestatistics.size'"/></th>
+        <th><ww:text name="'admin.cachestatistics.heap.size'"/></th>
+        <th><ww:text name="'admin.cachestatistics.eviction.count'"/></th>
+        <th><ww:text name="'admin.cachestatistics.remove.count'"/></th>
+        <th><ww:text name="'admin.cachestatistics.remove.all.count'"/></th>
+        <th><ww:text name="'admin.cachestatistics.flush.count'"/></th>
+    </tr>
+    </thead>
+    <tbody>
+    <ww:iterator value="/caches" status="''">
+        <tr>
+            <td><ww:property value="./name"/></td>
+            <td><ww:property value="./totalLoadTime"/></td>
+            <td><ww:property value="./loadCount"/></td>
+            <td><ww:property value="./meanLoadTime"/></td>
+            <td><ww:property value="./maxLoadTime"/></td>
+            <td><ww:property value="./loadFailureCount"/></td>
+            <td><ww:property value="./hitCount"/></td>
+            <td><ww:property value="./missCount"/></td>
+            <td><ww:property value="./size"/></td>
+            <td><ww:property value="./heapSize"/></td>
+            <td><ww:property value="./evictionCount"/></td>
+            <td><ww:property value="./removeCount"/></td>
+            <td><ww:property value="./removeAllCount"/></td>
+            <td><ww:property value="./flushCount"/></td>
+        </tr>
+    </ww:iterator>
+    </tbody>
+</table>
+</ww:else>
+</body>
+</html>
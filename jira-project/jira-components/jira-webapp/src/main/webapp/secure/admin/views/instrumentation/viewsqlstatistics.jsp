@@ -0,0 +1,91 @@
+<%@ taglib uri="webwork" prefix="ww" %>
+<%@ taglib uri="webwork" prefix="ui" %>
+<%@ taglib uri="webwork" prefix="aui" %>
+<%@ taglib uri="sitemesh-page" prefix="page" %>
+
+
+<html>
+<head>
+    <meta name="admin.active.section" content="admin_system_menu/top_system_section/troubleshooting_and_support"/>
+    <meta name="admin.active.tab" content="sql_statistics"/>
+    <title><ww:text name="'admin.sqlstatistics.page.title'"/></title>
+</head>
+
+<body>
+<p><ww:text name="'admin.sqlstatistics.description'"/></p>
+<div class="buttons-container aui-toolbar form-buttons noprint">
+    <div class="toolbar-group">
+        <span class="toolbar-item">
+            <a class="toolbar-trigger" id="reset_sql_statistics" href="ResetSqlStatistics.jspa?atl_token=<ww:property value="/xsrfToken"/>"><ww:text name="'admin.sqlstatistics.reset'"/></a>
+        </span>
+    </div>
+</div>
+<ww:if test="/statementsUntracked == true">
+    <aui:component template="auimessage.jsp" theme="'aui'">
+        <aui:param name="'messageType'">warning</aui:param>
+        <aui:param name="'messageHtml'"><p><ww:text name="'admin.sqlstatistics.untracked'"><ww:param name="'value0'"><ww:property value="/untrackedExecutionCount"/></ww:param></ww:text></p></aui:param>
+    </aui:component>
+</ww:if>
+
+<h3><ww:text name="'admin.sqlstatistics.statements'"/></h3>
+<table class="aui aui-table-rowhover" id="sql_statements_table">
+    <thead>
+    <tr>
+        <th><ww:text name="'admin.sqlstatistics.template'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.request.type'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.total.time'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.call.count'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.mean.time'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.percentile.times'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.max.time'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.rows.updated'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.failure.count'"/></th>
+    </tr>
+    </thead>
+    <tbody>
+    <ww:iterator value="/statements" status="''">
+        <tr>
+            <td><code><ww:property value="./template"/></code></td>
+            <td><ww:property value="./requestType"/></td>
+            <td><ww:property value="./totalTime"/></td>
+            <td><ww:property value="./callCount"/></td>
+            <td><ww:property value="./meanTime"/></td>
+            <td><ww:property value="./percentileTimes"/></td>
+            <td><ww:property value="./maxTime"/></td>
+            <td><ww:property value="./rowsUpdated"/></td>
+            <td><ww:property value="./failureCount"/></td>
+        </tr>
+    </ww:iterator>
+    </tbody>
+</table>
+
+<h3><ww:text name="'admin.sqlstatistics.slow.executions'"/></h3>
+<table class="aui" id="slow_sql_executions_table">
+    <thead>
+    <tr>
+        <th><ww:text name="'admin.sqlstatistics.time'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.template'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.request.type'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.parameter.count'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.timestamp'"/></th>
+        <th><ww:text name="'admin.sqlstatistics.thread'"/></th>
+    </tr>
+    </thead>
+    <tbody>
+    <ww:iterator value="/slowExecutions" status="''">
+        <tr>
+            <td><ww:property value="./timeMillis"/><ww:if test="./failed == true"> (<ww:text name="'admin.sqlstatistics.failed'"/>)</ww:if></td>
+            <td>
+                <code><ww:property value="./template"/></code>
+                <pre><ww:property value="./callStack"/></pre>
+            </td>
+            <td><ww:property value="./requestType"/></td>
+            <td><ww:property value="./parameterCount"/></td>
+            <td><ww:property value="./timestamp"/></td>
+            <td><ww:property value="./threadName"/></td>
+        </tr>
+    </ww:iterator>
+    </tbody>
+</table>
+</body>
+</html>